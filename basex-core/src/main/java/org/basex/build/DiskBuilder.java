@@ -93,9 +93,19 @@ public final class DiskBuilder extends Builder {
       }
       tmpFile.delete();
 
+      // replace table and heap files by compact representations
+      if(meta.packtable) TableDiskAccess.pack(meta);
+      if(meta.compresstexts) {
+        DataAccess.compress(meta.dbFile(DATATXT));
+        DataAccess.compress(meta.dbFile(DATAATV));
+      }
+
       // return database instance. build will be finalized when this instance is closed
       meta.dirty = true;
-      return new DiskData(meta, elemNames, attrNames, path, nspaces);
+      final DiskData data = new DiskData(meta, elemNames, attrNames, path, nspaces);
+      if(meta.nameindex) data.nameIndex.create(-1);
+      if(meta.pathvalueindex) data.pathValueIndex.create();
+      return data;
     } catch(final Throwable th) {
       DropDB.drop(meta.name, sopts);
       throw th;
@@ -90,6 +90,8 @@ public final class MainOptions extends Options {
   public static final BooleanOption TOKENINDEX = new BooleanOption("TOKENINDEX", false);
   /** Flag for creating a full-text index. */
   public static final BooleanOption FTINDEX = new BooleanOption("FTINDEX", false);
+  /** Flag for creating an n-gram index. */
+  public static final BooleanOption NGRAMINDEX = new BooleanOption("NGRAMINDEX", false);
 
   /** Text index: names to include. */
   public static final StringOption TEXTINCLUDE = new StringOption("TEXTINCLUDE", "");
@@ -108,6 +110,14 @@ public final class MainOptions extends Options {
   public static final BooleanOption UPDINDEX = new BooleanOption("UPDINDEX", false);
   /** Flag for automatic index updates. */
   public static final BooleanOption AUTOOPTIMIZE = new BooleanOption("AUTOOPTIMIZE", false);
+  /** Flag for storing texts and attribute values in compressed blocks. */
+  public static final BooleanOption COMPRESSTEXTS = new BooleanOption("COMPRESSTEXTS", false);
+  /** Flag for storing the table in a columnar, bit-packed representation. */
+  public static final BooleanOption PACKTABLE = new BooleanOption("PACKTABLE", false);
+  /** Flag for creating an index of element and attribute names. */
+  public static final BooleanOption NAMEINDEX = new BooleanOption("NAMEINDEX", false);
+  /** Flag for creating an index of values and their paths. */
+  public static final BooleanOption PATHVALUEINDEX = new BooleanOption("PATHVALUEINDEX", false);
   /** Index split size. */
   public static final NumberOption SPLITSIZE = new NumberOption("SPLITSIZE", 0);
 
@@ -136,6 +146,8 @@ public final class MainOptions extends Options {
   public static final NumberOption INLINELIMIT = new NumberOption("INLINELIMIT", 50);
   /** Limit for unrolling loops. */
   public static final NumberOption UNROLLLIMIT = new NumberOption("UNROLLLIMIT", 5);
+  /** Maximum number of threads for evaluating expressions in parallel (0: number of cores). */
+  public static final NumberOption QUERYTHREADS = new NumberOption("QUERYTHREADS", 1);
   /** Flag for tail-call optimization. */
   public static final NumberOption TAILCALLS = new NumberOption("TAILCALLS", 256);
   /** Look up documents in databases. */
@@ -180,6 +192,8 @@ public final class MainOptions extends Options {
 
   /** Flushes the database after each update. */
   public static final BooleanOption AUTOFLUSH = new BooleanOption("AUTOFLUSH", true);
+  /** Logs updates if the database is not flushed after each update. */
+  public static final BooleanOption WRITELOG = new BooleanOption("WRITELOG", false);
   /** Writes original files back after updates. */
   public static final BooleanOption WRITEBACK = new BooleanOption("WRITEBACK", false);
   /** Maximum number of index occurrences to print. */
@@ -190,7 +204,8 @@ public final class MainOptions extends Options {
   /** Indexing options. */
   public static final Option<?>[] INDEXING = { MAXCATS, MAXLEN, SPLITSIZE, LANGUAGE, STOPWORDS,
     TEXTINDEX, ATTRINDEX, TOKENINDEX, FTINDEX, TEXTINCLUDE, ATTRINCLUDE, TOKENINCLUDE, FTINCLUDE,
-    STEMMING, CASESENS, DIACRITICS, UPDINDEX, AUTOOPTIMIZE };
+    STEMMING, CASESENS, DIACRITICS, UPDINDEX, AUTOOPTIMIZE, COMPRESSTEXTS,
+    PACKTABLE, NAMEINDEX, PATHVALUEINDEX, NGRAMINDEX };
 
   /** Mapping of XML parsing options. */
   private static final Map<Option<?>, Option<?>> XMLPARSINGMAP = new HashMap<>();
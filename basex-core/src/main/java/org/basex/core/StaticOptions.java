@@ -32,6 +32,20 @@ public final class StaticOptions extends Options {
   public static final BooleanOption FAIRLOCK = new BooleanOption("FAIRLOCK", false);
   /** Timeout (seconds) for remembering result of asynchronous queries. */
   public static final NumberOption CACHETIMEOUT = new NumberOption("CACHETIMEOUT", 3600);
+  /** Maximum number of compiled queries that are cached for reuse (0: no caching). */
+  public static final NumberOption QUERYCACHE = new NumberOption("QUERYCACHE", 0);
+  /** Maximum size of the page cache for database files (MB). */
+  public static final NumberOption PAGECACHE = new NumberOption("PAGECACHE", 64);
+  /** Read database files via memory mapping. */
+  public static final BooleanOption MMAP = new BooleanOption("MMAP", false);
+  /** Delay (ms) for writing committed updates to disk (0: write updates immediately). */
+  public static final NumberOption WRITEDELAY = new NumberOption("WRITEDELAY", 0);
+  /** Number of threads for building index structures (0: number of available processors). */
+  public static final NumberOption INDEXTHREADS = new NumberOption("INDEXTHREADS", 1);
+  /** Memory budget (MB) for building index structures (0: a quarter of the maximum heap size). */
+  public static final NumberOption INDEXMEMORY = new NumberOption("INDEXMEMORY", 0);
+  /** Memory budget (MB) for sorting query results (0: a quarter of the maximum heap size). */
+  public static final NumberOption SORTMEMORY = new NumberOption("SORTMEMORY", 0);
   /** Write store at shutdown. */
   public static final BooleanOption WRITESTORE = new BooleanOption("WRITESTORE", true);
 
@@ -131,6 +145,15 @@ public final class StaticOptions extends Options {
     // assigns static variables and system properties
     Prop.language = get(LANG);
     Prop.debug = get(DEBUG);
+    Prop.pagecache = Math.max(0, get(PAGECACHE)) << 20 - IO.BLOCKPOWER;
+    Prop.mmap = get(MMAP);
+    Prop.writedelay = Math.max(0, get(WRITEDELAY));
+    final int it = get(INDEXTHREADS);
+    Prop.indexthreads = it > 0 ? it : Runtime.getRuntime().availableProcessors();
+    final int im = get(INDEXMEMORY);
+    Prop.indexmemory = im > 0 ? (long) im << 20 : Runtime.getRuntime().maxMemory() / 4;
+    final int sm = get(SORTMEMORY);
+    Prop.sortmemory = sm > 0 ? (long) sm << 20 : Runtime.getRuntime().maxMemory() / 4;
     final String ph = get(PROXYHOST);
     if(!ph.isEmpty()) {
       Prop.setSystem("http.proxyHost", ph);
@@ -191,7 +191,7 @@ public abstract class AQuery extends Command {
     if(info == null) info = new QueryInfo(ctx);
     else info.reset();
 
-    qp = pushJob(new QueryProcessor(query, uri, ctx, info));
+    qp = pushJob(new QueryProcessor(query, uri, ctx, info).reusable());
 
     for(final Entry<String, Entry<Object, String>> entry : bindings.entrySet()) {
       final Entry<Object, String> value = entry.getValue();
@@ -3,6 +3,8 @@ package org.basex.core.cmd;
 import static org.basex.core.Text.*;
 
 import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
 
 import org.basex.core.*;
 import org.basex.core.parse.*;
@@ -10,6 +12,7 @@ import org.basex.core.parse.Commands.*;
 import org.basex.core.users.*;
 import org.basex.data.*;
 import org.basex.index.*;
+import org.basex.util.*;
 import org.basex.util.ft.*;
 
 /**
@@ -55,6 +58,10 @@ public final class CreateIndex extends ACreate {
         data.meta.language = Language.get(options);
         data.meta.stopwords = options.get(MainOptions.STOPWORDS);
         break;
+      case NGRAM:
+        type = IndexType.NGRAM;
+        data.meta.createngram = true;
+        break;
       default:
         return error(UNKNOWN_CMD_X, this);
     }
@@ -79,10 +86,13 @@ public final class CreateIndex extends ACreate {
    * @throws IOException I/O exception
    */
   static void create(final Data data, final ACreate cmd) throws IOException {
-    if(data.meta.createtext) create(IndexType.TEXT, data, cmd);
-    if(data.meta.createattr) create(IndexType.ATTRIBUTE, data, cmd);
-    if(data.meta.createtoken) create(IndexType.TOKEN, data, cmd);
-    if(data.meta.createft) create(IndexType.FULLTEXT, data, cmd);
+    final ArrayList<IndexType> types = new ArrayList<>(4);
+    if(data.meta.createtext) types.add(IndexType.TEXT);
+    if(data.meta.createattr) types.add(IndexType.ATTRIBUTE);
+    if(data.meta.createtoken) types.add(IndexType.TOKEN);
+    if(data.meta.createft) types.add(IndexType.FULLTEXT);
+    if(data.meta.createngram) types.add(IndexType.NGRAM);
+    create(types, data, cmd);
   }
 
   /**
@@ -94,7 +104,54 @@ public final class CreateIndex extends ACreate {
    */
   static void create(final IndexType type, final Data data, final ACreate cmd) throws IOException {
     DropIndex.drop(type, data);
-    data.createIndex(type, cmd);
+    data.createIndex(type, Prop.indexthreads, cmd);
     data.meta.index(type, true);
   }
+
+  /**
+   * Builds the specified indexes. If more than one thread is available, the indexes of disk-based
+   * databases are built in parallel, and the available threads are distributed among them.
+   * @param types indexes to be built
+   * @param data data reference
+   * @param cmd calling command
+   * @throws IOException I/O exception
+   */
+  static void create(final ArrayList<IndexType> types, final Data data, final ACreate cmd)
+      throws IOException {
+
+    final int ts = types.size(), threads = Prop.indexthreads;
+    if(ts < 2 || threads < 2 || data.inMemory()) {
+      for(final IndexType type : types) create(type, data, cmd);
+      return;
+    }
+
+    for(final IndexType type : types) DropIndex.drop(type, data);
+    final ExecutorService pool = Executors.newFixedThreadPool(Math.min(ts, threads));
+    try {
+      final ArrayList<Future<IndexType>> futures = new ArrayList<>(ts);
+      for(final IndexType type : types) {
+        futures.add(pool.submit(() -> {
+          data.createIndex(type, Math.max(1, threads / ts), cmd);
+          return type;
+        }));
+      }
+      // wait for all indexes, and pass on the first error
+      Throwable error = null;
+      for(final Future<IndexType> future : futures) {
+        try {
+          data.meta.index(future.get(), true);
+        } catch(final ExecutionException ex) {
+          if(error == null) error = ex.getCause();
+        } catch(final InterruptedException ex) {
+          if(error == null) error = ex;
+        }
+      }
+      if(error instanceof final IOException ex) throw ex;
+      if(error instanceof final RuntimeException ex) throw ex;
+      if(error instanceof final Error ex) throw ex;
+      if(error != null) throw new IOException(error);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
 }
@@ -43,6 +43,9 @@ public final class DropIndex extends ACreate {
     } else if(ci == CmdIndex.FULLTEXT) {
       type = IndexType.FULLTEXT;
       data.meta.createft = false;
+    } else if(ci == CmdIndex.NGRAM) {
+      type = IndexType.NGRAM;
+      data.meta.createngram = false;
     } else {
       return error(UNKNOWN_CMD_X, this);
     }
@@ -55,6 +55,7 @@ public final class InfoIndex extends AInfo {
     tb.add(info(CmdIndexInfo.ATTRIBUTE, data, options));
     tb.add(info(CmdIndexInfo.TOKEN, data, options));
     tb.add(info(CmdIndexInfo.FULLTEXT, data, options));
+    tb.add(info(CmdIndexInfo.NGRAM, data, options));
     tb.add(info(CmdIndexInfo.PATH, data, options));
     out.print(tb.finish());
     return true;
@@ -88,6 +89,8 @@ public final class InfoIndex extends AInfo {
         info(TOKEN_INDEX, IndexType.TOKEN, data, options, data.meta.tokenindex);
       case FULLTEXT ->
         info(FULLTEXT_INDEX, IndexType.FULLTEXT, data, options, data.meta.ftindex);
+      case NGRAM ->
+        info(NGRAM_INDEX, IndexType.NGRAM, data, options, data.meta.ngramindex);
       default ->
         Token.token(LI + NOT_AVAILABLE);
     };
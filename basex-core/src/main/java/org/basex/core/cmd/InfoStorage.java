@@ -1,5 +1,6 @@
 package org.basex.core.cmd;
 
+import static org.basex.core.Text.*;
 import static org.basex.util.Strings.*;
 
 import java.io.*;
@@ -39,6 +40,7 @@ public final class InfoStorage extends AInfo {
     }
     dp.add(start, end);
     out.print(dp.finish());
+    if(data instanceof final DiskData dd) out.print(NL + dd.cacheInfo());
     return true;
   }
 
@@ -3,6 +3,7 @@ package org.basex.core.cmd;
 import static org.basex.core.Text.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.core.*;
 import org.basex.core.users.*;
@@ -102,18 +103,28 @@ public final class Optimize extends ACreate {
   public static void optimize(final Data data, final boolean enforceText, final boolean enforceAttr,
       final boolean enforceToken, final boolean enforceFt, final Optimize cmd) throws IOException {
 
-    // initialize structural indexes
+    // discard unused space in heap files
+    if(data instanceof final DiskData dd && dd.free() > 0) dd.compact();
+
+    // update structural indexes
     final MetaData meta = data.meta;
-    if(!meta.uptodate) {
-      data.paths.init();
-      data.elemNames.init();
-      data.attrNames.init();
+    final int start = meta.appended;
+    final boolean structural = !meta.uptodate;
+    if(structural) {
+      // incremental update: only add documents that have been appended since the last optimization
+      if(start == -1) {
+        data.paths.init();
+        data.elemNames.init();
+        data.attrNames.init();
+      } else {
+        data.paths.resume();
+      }
       meta.dirty = true;
 
       final IntList pars = new IntList(), elemStack = new IntList();
       int n = 0;
 
-      for(int pre = 0; pre < meta.size; ++pre) {
+      for(int pre = Math.max(0, start); pre < meta.size; ++pre) {
         final byte kind = (byte) data.kind(pre);
         final int par = data.parent(pre, kind);
         while(!pars.isEmpty() && pars.peek() > par) {
@@ -149,33 +160,49 @@ public final class Optimize extends ACreate {
         }
         if(cmd != null) cmd.pre = pre;
       }
-      meta.ndocs = n;
+      if(start == -1) meta.ndocs = n;
       meta.uptodate = true;
+      meta.appended = -1;
+    }
+
+    // update name index
+    if(data.nameIndex != null) {
+      if(!meta.nameindex) data.nameIndex.drop();
+      else if(structural) data.nameIndex.create(start);
+      else if(!data.nameIndex.available()) data.nameIndex.create(-1);
+    }
+    // update path value index
+    if(data.pathValueIndex != null) {
+      if(!meta.pathvalueindex) data.pathValueIndex.drop();
+      else if(structural || !data.pathValueIndex.available()) data.pathValueIndex.create();
     }
 
     // rebuild value indexes
-    optimize(IndexType.TEXT, data, meta.createtext, enforceText, cmd);
-    optimize(IndexType.ATTRIBUTE, data, meta.createattr, enforceAttr, cmd);
-    optimize(IndexType.TOKEN, data, meta.createtoken, enforceToken, cmd);
-    optimize(IndexType.FULLTEXT, data, meta.createft, enforceFt, cmd);
+    final ArrayList<IndexType> types = new ArrayList<>(4);
+    optimize(IndexType.TEXT, data, meta.createtext, enforceText, types);
+    optimize(IndexType.ATTRIBUTE, data, meta.createattr, enforceAttr, types);
+    optimize(IndexType.TOKEN, data, meta.createtoken, enforceToken, types);
+    optimize(IndexType.FULLTEXT, data, meta.createft, enforceFt, types);
+    optimize(IndexType.NGRAM, data, meta.createngram, false, types);
+    CreateIndex.create(types, data, cmd);
   }
 
   /**
-   * Creates or deletes the specified index if the old and new state is different.
+   * Deletes the specified index or schedules its creation if the old and new state is different.
    * @param type index type
    * @param data data reference
    * @param create new flag
    * @param enforce enforce operation
-   * @param cmd calling command instance
+   * @param types indexes to be created
    * @throws IOException I/O exception
    */
   private static void optimize(final IndexType type, final Data data, final boolean create,
-      final boolean enforce, final Optimize cmd) throws IOException {
+      final boolean enforce, final ArrayList<IndexType> types) throws IOException {
 
     // check if flags have changed
     if(create == data.meta.index(type) && !enforce) return;
     // create or drop index
-    if(create) CreateIndex.create(type, data, cmd);
+    if(create) types.add(type);
     else DropIndex.drop(type, data);
   }
 
@@ -193,9 +220,12 @@ public final class Optimize extends ACreate {
 
     if(data.meta.updindex) {
       data.idmap = new IdPreMap(md.lastid);
-      if(data.meta.textindex) optimize(IndexType.TEXT, data, true, true, null);
-      if(data.meta.attrindex) optimize(IndexType.ATTRIBUTE, data, true, true, null);
-      if(data.meta.tokenindex) optimize(IndexType.TOKEN, data, true, true, null);
+      final ArrayList<IndexType> types = new ArrayList<>(4);
+      if(data.meta.textindex) types.add(IndexType.TEXT);
+      if(data.meta.attrindex) types.add(IndexType.ATTRIBUTE);
+      if(data.meta.tokenindex) types.add(IndexType.TOKEN);
+      if(data.meta.ftindex) types.add(IndexType.FULLTEXT);
+      CreateIndex.create(types, data, null);
     }
   }
 }
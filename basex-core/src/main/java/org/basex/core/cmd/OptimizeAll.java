@@ -93,6 +93,9 @@ public final class OptimizeAll extends ACreate {
     options.set(MainOptions.ATTRINDEX, ometa.attrindex);
     options.set(MainOptions.TOKENINDEX, ometa.tokenindex);
     options.set(MainOptions.FTINDEX, ometa.ftindex);
+    options.set(MainOptions.NGRAMINDEX, ometa.ngramindex);
+    options.set(MainOptions.NAMEINDEX, ometa.nameindex);
+    options.set(MainOptions.PATHVALUEINDEX, ometa.pathvalueindex);
     options.set(MainOptions.TEXTINCLUDE, ometa.textinclude);
     options.set(MainOptions.ATTRINCLUDE, ometa.attrinclude);
     options.set(MainOptions.TOKENINCLUDE, ometa.tokeninclude);
@@ -129,6 +132,7 @@ public final class OptimizeAll extends ACreate {
     nmeta.createattr = ometa.createattr;
     nmeta.createtoken = ometa.createtoken;
     nmeta.createft = ometa.createft;
+    nmeta.createngram = ometa.createngram;
     nmeta.original = ometa.original;
     nmeta.inputsize = ometa.inputsize;
     nmeta.time = ometa.time;
@@ -85,11 +85,14 @@ public final class Locking {
     // collect lock strings
     job.addLocks();
     // prepare lock strings and acquire locks
+    final Locks locks = job.jc().locks.finish(ctx);
     try {
-      acquire(job.jc().locks.finish(ctx));
+      acquire(locks);
     } catch(final InterruptedException ex) {
       throw Util.notExpected("Thread was interrupted: %", ex);
     }
+    // discard compiled queries, which may refer to resources that will be updated
+    if(locks.writes.locking()) ctx.queries.invalidate();
   }
 
   /**
@@ -174,9 +174,9 @@ public interface Commands {
   /** Permission commands. */
   enum CmdPerm { NONE, READ, WRITE, CREATE, ADMIN }
   /** Index types. */
-  enum CmdIndex { TEXT, ATTRIBUTE, TOKEN, FULLTEXT }
+  enum CmdIndex { TEXT, ATTRIBUTE, TOKEN, FULLTEXT, NGRAM }
   /** Index types. */
-  enum CmdIndexInfo { NULL, TEXT, ATTRIBUTE, TOKEN, FULLTEXT, PATH, ELEMNAME, ATTRNAME }
+  enum CmdIndexInfo { NULL, TEXT, ATTRIBUTE, TOKEN, FULLTEXT, NGRAM, PATH, ELEMNAME, ATTRNAME }
   /** Alter types. */
   enum CmdAlter { DATABASE, DB, PASSWORD, USER, BACKUP }
   /** Repo types. */
@@ -99,6 +99,10 @@ public abstract class Data {
   public Namespaces nspaces;
   /** Path index. */
   public PathIndex paths;
+  /** Name index (can be {@code null}). */
+  public NameIndex nameIndex;
+  /** Index of values and their paths (can be {@code null}). */
+  public PathValueIndex pathValueIndex;
   /** Text index. */
   public ValueIndex textIndex;
   /** Attribute value index. */
@@ -107,6 +111,8 @@ public abstract class Data {
   public ValueIndex tokenIndex;
   /** Full-text index. */
   public ValueIndex ftIndex;
+  /** N-gram index. */
+  public ValueIndex ngramIndex;
 
   /** Indicates if distances are to be updated. */
   public boolean updateDists = true;
@@ -142,12 +148,13 @@ public abstract class Data {
   }
 
   /**
-   * Drops the specified index.
-   * @param type index to be dropped
+   * Creates the specified index.
+   * @param type index to be created
+   * @param threads maximum number of threads to be used
    * @param cmd calling command
    * @throws IOException I/O exception
    */
-  public abstract void createIndex(IndexType type, Command cmd) throws IOException;
+  public abstract void createIndex(IndexType type, int threads, Command cmd) throws IOException;
 
   /**
    * Drops the specified index.
@@ -167,8 +174,9 @@ public abstract class Data {
   /**
    * Finishes an update operation: removes the update file and the exclusive lock.
    * @param opts main options
+   * @throws BaseXException database exception (e.g. if the update could not be logged)
    */
-  public abstract void finishUpdate(MainOptions opts);
+  public abstract void finishUpdate(MainOptions opts) throws BaseXException;
 
   /**
    * Flushes updated data.
@@ -218,6 +226,7 @@ public abstract class Data {
       case ATTRIBUTE -> attrIndex;
       case TOKEN     -> tokenIndex;
       case FULLTEXT  -> ftIndex;
+      case NGRAM     -> ngramIndex;
       case PATH      -> paths;
     };
   }
@@ -636,7 +645,8 @@ public abstract class Data {
       }
     }
 
-    // replace table entries, reset buffer size
+    // delete textual values of the replaced nodes, replace table entries, reset buffer size
+    deleteTexts(pre, tSize);
     table.replace(pre, buffer(), tSize);
     bufferSize(1);
 
@@ -680,8 +690,8 @@ public abstract class Data {
     // delete entries in value indexes
     indexDelete(pre, id(pre), size);
 
-    /// delete textual values
-    if(kind != DOC && kind != ELEM) delete(pre, kind != ATTR);
+    // delete textual values
+    deleteTexts(pre, size);
 
     // reduce size of ancestors
     int par = pre;
@@ -741,7 +751,7 @@ public abstract class Data {
     final int sCount = source.size();
     if(sCount == 0) return;
 
-    meta.update();
+    meta.update(pre, par == -1);
     resources.docs();
 
     // resize buffer to cache more entries
@@ -931,6 +941,20 @@ public abstract class Data {
     table.insert(pre, buffer());
   }
 
+  /**
+   * Deletes the text entries of the specified nodes.
+   * @param pre PRE value of the first node
+   * @param size number of nodes
+   */
+  private void deleteTexts(final int pre, final int size) {
+    if(inMemory()) return;
+    final int last = pre + size;
+    for(int p = pre; p < last; p++) {
+      final int kind = kind(p);
+      if(kind != ELEM) delete(p, kind != ATTR);
+    }
+  }
+
   /**
    * Deletes the specified text entry.
    * @param pre PRE value
@@ -1081,6 +1105,7 @@ public abstract class Data {
       if(meta.textindex) textIndex.delete(new ValueCache(pre, size, IndexType.TEXT, this));
       if(meta.attrindex) attrIndex.delete(new ValueCache(pre, size, IndexType.ATTRIBUTE, this));
       if(meta.tokenindex) tokenIndex.delete(new ValueCache(pre, size, IndexType.TOKEN, this));
+      if(meta.ftindex) ftIndex.delete(new ValueCache(pre, size, IndexType.FULLTEXT, this));
       if(id != -1) idmap.delete(pre, id, -size);
     }
   }
@@ -1099,6 +1124,7 @@ public abstract class Data {
       if(meta.textindex) textIndex.add(new ValueCache(pre, size, IndexType.TEXT, this));
       if(meta.attrindex) attrIndex.add(new ValueCache(pre, size, IndexType.ATTRIBUTE, this));
       if(meta.tokenindex) tokenIndex.add(new ValueCache(pre, size, IndexType.TOKEN, this));
+      if(meta.ftindex) ftIndex.add(new ValueCache(pre, size, IndexType.FULLTEXT, this));
     }
   }
 
@@ -34,6 +34,14 @@ public interface DataText {
   String DBUPDIDX = "UPDINDEX";
   /** Automatic optimization. */
   String DBAUTOOPT = "AUTOOPT";
+  /** Compressed texts. */
+  String DBCMPTXT = "CMPTXT";
+  /** Packed table. */
+  String DBPCKTBL = "PCKTBL";
+  /** Name index. */
+  String DBNAMIDX = "NAMINDEX";
+  /** Path value index. */
+  String DBPVLIDX = "PVLINDEX";
   /** Text index. */
   String DBTXTIDX = "TXTINDEX";
   /** Attribute index. */
@@ -42,6 +50,8 @@ public interface DataText {
   String DBTOKIDX = "TOKINDEX";
   /** Full-text index. */
   String DBFTXIDX = "FTXINDEX";
+  /** N-gram index. */
+  String DBNGRIDX = "NGRINDEX";
   /** Text index: names. */
   String DBTXTINC = "TXTINC";
   /** Attribute index: names. */
@@ -60,6 +70,10 @@ public interface DataText {
   String DBFTCS = "FTCS";
   /** Full-text diacritics removal. */
   String DBFTDC = "FTDC";
+  /** Full-text postings in compressed blocks. */
+  String DBFTBLK = "FTBLOCKS";
+  /** Full-text postings with node IDs. */
+  String DBFTIDS = "FTIDS";
   /** Maximum length of index entries. */
   String DBMAXLEN = "MAXLEN";
   /** Maximum number of categories. */
@@ -68,6 +82,8 @@ public interface DataText {
   String DBSPLITS = "SPLITS";
   /** Up-to-date flag. */
   String DBUPTODATE = "UPTODATE";
+  /** First appended node. */
+  String DBAPPENDED = "APPENDED";
   /** Last (highest) ID. */
   String DBLASTID = "LASTID";
   /** Documents. */
@@ -80,6 +96,8 @@ public interface DataText {
   String DBCRTTOK = "CRTTOK";
   /** Recreate full-text index. */
   String DBCRTFTX = "CRTFTX";
+  /** Recreate n-gram index. */
+  String DBCRTNGR = "CRTNGR";
 
   /** Tags. */
   String DBTAGS = "TAGS";
@@ -106,14 +124,22 @@ public interface DataText {
   String DATATOK = "tok";
   /** Database - Full-text index. */
   String DATAFTX = "ftx";
+  /** Database - N-gram index. */
+  String DATANGR = "ngr";
   /** Database - Stopword list. */
   String DATASWL = "swl";
   /** Database - Updating flag. */
   String DATAUPD = "upd";
+  /** Database - Name index. */
+  String DATANAM = "nam";
+  /** Database - Path value index. */
+  String DATAPVL = "pvl";
   /** Database - Document path index. */
   String DATAPTH = "pth";
   /** Database - ID-PRE mapping. */
   String DATAIDP = "idp";
+  /** Database - Update log. */
+  String DATALOG = "log";
 
   // XML SERIALIZATION ============================================================================
 
@@ -5,6 +5,7 @@ import static org.basex.data.DataText.*;
 import static org.basex.util.Token.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.build.*;
 import org.basex.core.*;
@@ -12,13 +13,16 @@ import org.basex.core.cmd.*;
 import org.basex.index.*;
 import org.basex.index.ft.*;
 import org.basex.index.name.*;
+import org.basex.index.ngram.*;
 import org.basex.index.path.*;
 import org.basex.index.value.*;
 import org.basex.io.*;
 import org.basex.io.in.DataInput;
+import org.basex.io.out.*;
 import org.basex.io.out.DataOutput;
 import org.basex.io.random.*;
 import org.basex.util.*;
+import org.basex.util.list.*;
 
 /**
  * This class stores and organizes the database table and the index structures
@@ -56,6 +60,28 @@ public final class DiskData extends Data {
   private DataAccess texts;
   /** Values access file. */
   private DataAccess values;
+  /** Free slots in the texts file. */
+  private FreeSlots textSlots = new FreeSlots();
+  /** Free slots in the values file. */
+  private FreeSlots valueSlots = new FreeSlots();
+
+  /** Minimum size of a heap file that is compacted automatically. */
+  private static final long COMPACT = 1 << 16;
+
+  /** Maximum size of the update log. If it is exceeded, all updates are written to disk. */
+  private static final long MAXLOG = 1 << 24;
+
+  /** Update log (can be {@code null}). */
+  private UpdateLog log;
+
+  /** Timer for delayed flushes (will be created on demand). */
+  private static Timer flusher;
+  /** Scheduled flush (can be {@code null}). */
+  private TimerTask flush;
+  /** Indicates if committed updates have not been written to disk yet. */
+  private boolean pending;
+  /** Indicates if an update is running. */
+  private boolean updating;
 
   /**
    * Default constructor, called from {@link Open#open}.
@@ -65,6 +91,10 @@ public final class DiskData extends Data {
   public DiskData(final MetaData meta) throws IOException {
     super(meta);
 
+    // replay logged updates
+    final int updates = UpdateLog.recover(meta.dbFile(DATALOG));
+    if(updates > 0) Util.debugln("%: % logged update(s) recovered.", meta.name, updates);
+
     try(DataInput in = new DataInput(meta.dbFile(DATAINF))) {
       meta.read(in);
       while(true) {
@@ -93,6 +123,7 @@ public final class DiskData extends Data {
       if(meta.tokenindex) tokenIndex = new DiskValues(this, IndexType.TOKEN);
     }
     if(meta.ftindex) ftIndex = new FTIndex(this);
+    if(meta.ngramindex) ngramIndex = new NGramIndex(this);
   }
 
   /**
@@ -123,8 +154,10 @@ public final class DiskData extends Data {
    */
   private void init() throws IOException {
     table = new TableDiskAccess(meta, false);
-    texts = new DataAccess(meta.dbFile(DATATXT));
-    values = new DataAccess(meta.dbFile(DATAATV));
+    texts = new DataAccess(meta.dbFile(DATATXT), true);
+    values = new DataAccess(meta.dbFile(DATAATV), true);
+    nameIndex = new NameIndex(this);
+    pathValueIndex = new PathValueIndex(this);
   }
 
   /**
@@ -135,28 +168,95 @@ public final class DiskData extends Data {
     if(!meta.dirty) return;
 
     try(DataOutput out = new DataOutput(meta.dbFile(DATAINF))) {
-      meta.write(out);
-      out.writeToken(token(DBTAGS));
-      elemNames.write(out);
-      out.writeToken(token(DBATTS));
-      attrNames.write(out);
-      out.writeToken(token(DBPATH));
-      paths.write(out);
-      out.writeToken(token(DBNS));
-      nspaces.write(out);
-      out.writeToken(token(DBDOCS));
-      resources.write(out);
-      out.write(0);
+      write(out);
     }
     // file may be missing if flag was just enabled
     if(meta.updindex && idmap != null) idmap.write(meta.dbFile(DATAIDP));
     meta.dirty = false;
   }
 
+  /**
+   * Writes all meta data to the specified output.
+   * @param out output stream
+   * @throws IOException I/O exception
+   */
+  private void write(final DataOutput out) throws IOException {
+    meta.write(out);
+    out.writeToken(token(DBTAGS));
+    elemNames.write(out);
+    out.writeToken(token(DBATTS));
+    attrNames.write(out);
+    out.writeToken(token(DBPATH));
+    paths.write(out);
+    out.writeToken(token(DBNS));
+    nspaces.write(out);
+    out.writeToken(token(DBDOCS));
+    resources.write(out);
+    out.write(0);
+  }
+
+  /**
+   * Appends all changes that have not been logged yet to the update log. If the log gets too
+   * large, all changes are written to the database files, and the log is deleted.
+   * @throws IOException I/O exception
+   */
+  private void log() throws IOException {
+    if(log == null) log = new UpdateLog(meta.dbFile(DATALOG));
+    final TableDiskAccess tda = (TableDiskAccess) table;
+    tda.log(log);
+    texts.log(log);
+    values.log(log);
+    for(final ValueIndex index : new ValueIndex[] { textIndex, attrIndex, tokenIndex }) {
+      if(index instanceof final DiskValues dv) dv.log(log);
+    }
+    if(ftIndex instanceof final FTIndex fi) fi.log(log);
+    if(meta.dirty) {
+      final ArrayOutput ao = new ArrayOutput();
+      try(DataOutput out = new DataOutput(ao)) {
+        write(out);
+      }
+      log.image(meta.dbFile(DATAINF), ao.next());
+      if(meta.updindex && idmap != null) {
+        try(DataOutput out = new DataOutput(ao)) {
+          idmap.write(out);
+        }
+        log.image(meta.dbFile(DATAIDP), ao.next());
+      }
+    }
+    log.commit();
+
+    // pages may now be written to disk
+    tda.logged();
+    texts.logged();
+    values.logged();
+    for(final ValueIndex index : new ValueIndex[] { textIndex, attrIndex, tokenIndex }) {
+      if(index instanceof final DiskValues dv) dv.logged();
+    }
+    if(log.size() > MAXLOG) flush(true);
+  }
+
+  /**
+   * Enables or disables the pinning of modified pages. If pages are pinned, they will only be
+   * written to the database files after they have been logged.
+   * @param pin pin pages
+   */
+  private void pin(final boolean pin) {
+    ((TableDiskAccess) table).pin(pin);
+    texts.pin(pin);
+    values.pin(pin);
+    for(final ValueIndex index : new ValueIndex[] { textIndex, attrIndex, tokenIndex }) {
+      if(index instanceof final DiskValues dv) dv.pin(pin);
+    }
+  }
+
   @Override
   public synchronized void close() {
     if(closed) return;
     super.close();
+    if(flush != null) {
+      flush.cancel();
+      flush = null;
+    }
     try {
       write();
       table.close();
@@ -166,9 +266,18 @@ public final class DiskData extends Data {
       close(IndexType.ATTRIBUTE);
       close(IndexType.TOKEN);
       close(IndexType.FULLTEXT);
+      close(IndexType.NGRAM);
+      nameIndex.close();
+      pathValueIndex.close();
+      if(log != null) log.delete();
     } catch(final IOException ex) {
       Util.stack(ex);
     }
+    // all pending updates have been written
+    if(pending) {
+      pending = false;
+      meta.updateFile().delete();
+    }
   }
 
   /**
@@ -185,19 +294,21 @@ public final class DiskData extends Data {
   }
 
   @Override
-  public void createIndex(final IndexType type, final Command cmd) throws IOException {
+  public void createIndex(final IndexType type, final int threads, final Command cmd)
+      throws IOException {
     // close existing index
     close(type);
     final IndexBuilder ib = switch(type) {
-      case TEXT, ATTRIBUTE, TOKEN -> new DiskValuesBuilder(this, type);
+      case TEXT, ATTRIBUTE, TOKEN -> new DiskValuesBuilder(this, type, threads);
       case FULLTEXT               -> new FTBuilder(this);
+      case NGRAM                  -> new NGramBuilder(this);
       default                     -> throw Util.notExpected();
     };
     try {
       if(cmd != null) cmd.pushJob(ib);
       set(type, ib.build());
     } finally {
-      if(cmd != null) cmd.popJob();
+      if(cmd != null) cmd.popJob(ib);
     }
   }
 
@@ -220,35 +331,163 @@ public final class DiskData extends Data {
       case ATTRIBUTE -> attrIndex = index;
       case TOKEN     -> tokenIndex = index;
       case FULLTEXT  -> ftIndex = index;
+      case NGRAM     -> ngramIndex = index;
       default        -> throw Util.notExpected();
     }
   }
 
   @Override
-  public void startUpdate(final MainOptions opts) throws BaseXException {
+  public synchronized void startUpdate(final MainOptions opts) throws BaseXException {
     if(!table.lock(true)) throw new BaseXException(DB_PINNED_X, meta.name);
-    if(opts.get(MainOptions.AUTOFLUSH)) {
+    // updating file of pending updates will be reused
+    if(opts.get(MainOptions.AUTOFLUSH) && !pending) {
       final IOFile upd = meta.updateFile();
       if(upd.exists()) throw new BaseXException(DB_UPDATED_X, meta.name);
       if(!upd.touch()) throw Util.notExpected("%: could not create lock file.", meta.name);
     }
+    pin(!opts.get(MainOptions.AUTOFLUSH) && opts.get(MainOptions.WRITELOG));
+    updating = true;
   }
 
   @Override
-  public synchronized void finishUpdate(final MainOptions opts) {
+  public synchronized void finishUpdate(final MainOptions opts) throws BaseXException {
+    updating = false;
     // OPTIMIZE ALL will close the database before this function is called
     if(closed) return;
 
-    // remove updating file
+    try {
+      finish(opts);
+    } catch(final IOException ex) {
+      throw new BaseXException(ex);
+    } finally {
+      if(!table.lock(false)) throw Util.notExpected("Database '%': could not unlock.", meta.name);
+    }
+  }
+
+  /**
+   * Finishes an update operation.
+   * @param opts main options
+   * @throws IOException I/O exception
+   */
+  private void finish(final MainOptions opts) throws IOException {
+
+    // compact heap files if most of their space is unused
+    if(fragmented(texts, textSlots) || fragmented(values, valueSlots)) compact();
+
     final boolean auto = opts.get(MainOptions.AUTOFLUSH);
-    if(auto) {
-      final IOFile upd = meta.updateFile();
-      if(!upd.exists()) throw Util.notExpected("%: lock file does not exist.", meta.name);
-      if(!upd.delete()) throw Util.notExpected("%: could not delete lock file.", meta.name);
+    if(auto && Prop.writedelay > 0) {
+      // write-behind: group updates of subsequent transactions, and write them in a single pass
+      pending = true;
+      if(flush == null) {
+        flush = new TimerTask() {
+          @Override
+          public void run() {
+            commit(this);
+          }
+        };
+        flusher().schedule(flush, Prop.writedelay);
+      }
+    } else {
+      // remove updating file
+      if(auto) {
+        final IOFile upd = meta.updateFile();
+        if(!upd.exists()) throw Util.notExpected("%: lock file does not exist.", meta.name);
+        if(!upd.delete()) throw Util.notExpected("%: could not delete lock file.", meta.name);
+        pending = false;
+      }
+      if(!auto && opts.get(MainOptions.WRITELOG)) log();
+      // flush all data if a log exists: it must not be replayed over the new changes
+      else flush(auto || log != null && log.size() != 0);
+    }
+  }
+
+  /**
+   * Checks if more than half of a heap file consists of free slots.
+   * @param store heap file
+   * @param slots free slots
+   * @return result of check
+   */
+  private static boolean fragmented(final DataAccess store, final FreeSlots slots) {
+    final long length = store.length();
+    return length > COMPACT && slots.space() > length >>> 1;
+  }
+
+  /**
+   * Returns the number of bytes in the heap files that are known to be unused.
+   * @return number of bytes
+   */
+  public long free() {
+    return textSlots.space() + valueSlots.space();
+  }
+
+  /**
+   * Compacts the heap files: the texts and attribute values are moved to the beginning of the
+   * files, and the text references are updated. Must be called while an update is running.
+   */
+  public void compact() {
+    final LongList textOffs = new LongList(), valueOffs = new LongList();
+    final IntList textPres = new IntList(), valuePres = new IntList();
+    final int size = meta.size;
+    for(int pre = 0; pre < size; pre++) {
+      final int kind = kind(pre);
+      if(kind == ELEM) continue;
+      final long ref = textRef(pre);
+      if(Inline.inlined(ref)) continue;
+      final long off = ref & Compress.COMPRESS - 1;
+      if(kind == ATTR) {
+        valueOffs.add(off);
+        valuePres.add(pre);
+      } else {
+        textOffs.add(off);
+        textPres.add(pre);
+      }
+    }
+    compact(texts, textOffs, textPres);
+    compact(values, valueOffs, valuePres);
+    textSlots = new FreeSlots();
+    valueSlots = new FreeSlots();
+  }
+
+  /**
+   * Compacts a heap file.
+   * @param store heap file
+   * @param offsets offsets of the entries
+   * @param pres PRE values of the referencing nodes
+   */
+  private void compact(final DataAccess store, final LongList offsets, final IntList pres) {
+    final long[] offs = offsets.finish();
+    final int[] order = Array.createOrder(offs, true);
+    final long[] moved = store.compact(offs);
+    final int ol = offs.length;
+    for(int o = 0; o < ol; o++) {
+      if(moved[o] == offs[o]) continue;
+      final int pre = pres.get(order[o]);
+      textRef(pre, moved[o] | textRef(pre) & Compress.COMPRESS);
     }
+  }
+
+  /**
+   * Writes pending updates to disk. If an update is running, the updates will be written
+   * after the update has been finished.
+   * @param task scheduled task
+   */
+  private synchronized void commit(final TimerTask task) {
+    if(flush != task) return;
+    flush = null;
+    if(closed || updating || !pending) return;
+
+    flush(true);
+    pending = false;
+    if(!meta.updateFile().delete()) Util.debugln("%: could not delete lock file.", meta.name);
+  }
 
-    flush(auto);
-    if(!table.lock(false)) throw Util.notExpected("Database '%': could not unlock.", meta.name);
+  /**
+   * Returns the timer for delayed flushes.
+   * @return timer
+   */
+  private static synchronized Timer flusher() {
+    if(flusher == null) flusher = new Timer("Flusher", true);
+    return flusher;
   }
 
   @Override
@@ -261,6 +500,11 @@ public final class DiskData extends Data {
         values.flush();
         if(textIndex != null) textIndex.flush();
         if(attrIndex != null) attrIndex.flush();
+        if(tokenIndex != null) tokenIndex.flush();
+        if(ftIndex != null) ftIndex.flush();
+        if(log != null) log.delete();
+        // merge full-text changes after the log has been deleted
+        if(ftIndex instanceof final FTIndex fi) fi.optimize();
       }
     } catch(final IOException ex) {
       Util.stack(ex);
@@ -291,9 +535,10 @@ public final class DiskData extends Data {
     if(Inline.inlined(value)) return Inline.unpackLength(value);
 
     final DataAccess da = text ? texts : values;
-    final int l = da.readNum(value & Compress.COMPRESS - 1);
+    final long pos = value & Compress.COMPRESS - 1;
+    final int l = da.num(pos);
     // if text is compressed, read number of compressed bytes
-    return Compress.compressed(value) ? da.readNum() : l;
+    return Compress.compressed(value) ? da.num(pos + Num.length(l)) : l;
   }
 
   /**
@@ -303,10 +548,22 @@ public final class DiskData extends Data {
    * @return text
    */
   private byte[] txt(final long offset, final boolean text) {
-    final byte[] txt = (text ? texts : values).readToken(offset & Compress.COMPRESS - 1);
+    final byte[] txt = (text ? texts : values).token(offset & Compress.COMPRESS - 1);
     return Compress.compressed(offset) ? Compress.unpack(txt) : txt;
   }
 
+  /**
+   * Returns the statistics of the page caches.
+   * @return info string
+   */
+  public String cacheInfo() {
+    final TokenBuilder tb = new TokenBuilder();
+    tb.add(DATATBL).add(": ").add(((TableDiskAccess) table).info()).add(NL);
+    tb.add(DATATXT).add(": ").add(texts.info()).add(NL);
+    tb.add(DATAATV).add(": ").add(values.info()).add(NL);
+    return tb.toString();
+  }
+
   @Override
   public boolean inMemory() {
     return false;
@@ -318,8 +575,10 @@ public final class DiskData extends Data {
   protected void delete(final int pre, final boolean text) {
     // old entry (offset or value)
     final long old = textRef(pre);
-    // if old text was not inlined, fill unused space in text file with zero bytes
-    if(!Inline.inlined(old)) (text ? texts : values).free(old & Compress.COMPRESS - 1, 0);
+    // if old text was not inlined, release its space in the heap file
+    if(!Inline.inlined(old)) {
+      (text ? texts : values).free(old & Compress.COMPRESS - 1, text ? textSlots : valueSlots);
+    }
   }
 
   @Override
@@ -329,32 +588,20 @@ public final class DiskData extends Data {
 
     // reference to heap file
     final DataAccess store = kind == ATTR ? values : texts;
-    // old entry (offset or value)
+    final FreeSlots slots = kind == ATTR ? valueSlots : textSlots;
+    // invalidate old entry if it was not inlined
     final long oldRef = textRef(pre);
+    if(!Inline.inlined(oldRef)) store.free(oldRef & Compress.COMPRESS - 1, slots);
 
     // check if new entry can be inlined
     final long v = Inline.packInt(value);
     if(v != -1) {
-      // invalidate old entry if it was not inlined
-      if(!Inline.inlined(oldRef)) store.free(oldRef & Compress.COMPRESS - 1, 0);
       // inline integer value
       textRef(pre, v);
     } else {
-      // otherwise, try to compress new value
+      // otherwise, try to compress new value, and store it in a free slot or at the end of the file
       final byte[] val = Compress.pack(value);
-
-      // choose inserting position
-      final long off;
-      if(Inline.inlined(oldRef)) {
-        // old entry was inlined: append new entry to heap file
-        off = store.length();
-      } else {
-        // otherwise, compute inserting position and invalidate old entry
-        final int vl = val.length;
-        off = store.free(oldRef & Compress.COMPRESS - 1, vl + Num.length(vl));
-      }
-
-      store.writeToken(off, val);
+      final long off = store.writeToken(val, slots);
       textRef(pre, val == value ? off : off | Compress.COMPRESS);
     }
 
@@ -370,9 +617,7 @@ public final class DiskData extends Data {
 
     // store text in heap file
     final byte[] packed = Compress.pack(value);
-    final DataAccess store = text ? texts : values;
-    final long offset = store.length();
-    store.writeToken(offset, packed);
+    final long offset = (text ? texts : values).writeToken(packed, text ? textSlots : valueSlots);
     return packed == value ? offset : Compress.COMPRESS | offset;
   }
 }
@@ -71,10 +71,11 @@ public final class MemData extends Data {
   }
 
   @Override
-  public void createIndex(final IndexType type, final Command cmd) throws IOException {
+  public void createIndex(final IndexType type, final int threads, final Command cmd)
+      throws IOException {
     final IndexBuilder ib = switch(type) {
       case TEXT, ATTRIBUTE, TOKEN -> new MemValuesBuilder(this, type);
-      case FULLTEXT               -> throw new BaseXException(NO_MAINMEM);
+      case FULLTEXT, NGRAM        -> throw new BaseXException(NO_MAINMEM);
       default                     -> throw Util.notExpected();
     };
     try {
@@ -89,7 +90,7 @@ public final class MemData extends Data {
   public void dropIndex(final IndexType type) throws BaseXException {
     switch(type) {
       case TEXT, ATTRIBUTE, TOKEN: break;
-      case FULLTEXT:               throw new BaseXException(NO_MAINMEM);
+      case FULLTEXT, NGRAM:        throw new BaseXException(NO_MAINMEM);
       default:                     throw Util.notExpected();
     }
     set(type, null);
@@ -45,11 +45,25 @@ public final class MetaData {
   public boolean tokenindex;
   /** Indicates if a full-text index exists. */
   public boolean ftindex;
+  /** Indicates if an n-gram index exists. */
+  public boolean ngramindex;
 
   /** Flag for activated automatic index update. */
   public boolean updindex;
   /** Flag for automatic index updating. */
   public boolean autooptimize;
+  /** Flag for storing texts and attribute values in compressed blocks. */
+  public boolean compresstexts;
+  /** Flag for storing the table in a columnar, bit-packed representation. */
+  public boolean packtable;
+  /** Flag for creating an index of element and attribute names. */
+  public boolean nameindex;
+  /** Flag for creating an index of values and their paths. */
+  public boolean pathvalueindex;
+  /** Flag for storing full-text postings in compressed blocks with skip pointers. */
+  public boolean ftblocks;
+  /** Flag for full-text postings that reference node IDs instead of PRE values. */
+  public boolean ftids;
 
   /** Indicates if the text index is to be recreated. */
   public boolean createtext;
@@ -59,6 +73,8 @@ public final class MetaData {
   public boolean createtoken;
   /** Indicates if the full-text index is to be recreated. */
   public boolean createft;
+  /** Indicates if the n-gram index is to be recreated. */
+  public boolean createngram;
   /** Text index: names to include. */
   public String textinclude;
   /** Attribute index: names to include. */
@@ -89,6 +105,8 @@ public final class MetaData {
 
   /** Indicates if index structures are out-dated. */
   public boolean uptodate = true;
+  /** PRE value of the first document appended since the last optimization ({@code -1}: none). */
+  public int appended = -1;
   /** Indicate if the database may be corrupt. */
   public boolean corrupt;
   /** Dirty flag. */
@@ -137,11 +155,16 @@ public final class MetaData {
     createattr = options.get(MainOptions.ATTRINDEX);
     createtoken = options.get(MainOptions.TOKENINDEX);
     createft = options.get(MainOptions.FTINDEX);
+    createngram = options.get(MainOptions.NGRAMINDEX);
     diacritics = options.get(MainOptions.DIACRITICS);
     stemming = options.get(MainOptions.STEMMING);
     casesens = options.get(MainOptions.CASESENS);
     updindex = options.get(MainOptions.UPDINDEX);
     autooptimize = options.get(MainOptions.AUTOOPTIMIZE);
+    compresstexts = options.get(MainOptions.COMPRESSTEXTS);
+    packtable = options.get(MainOptions.PACKTABLE);
+    nameindex = options.get(MainOptions.NAMEINDEX);
+    pathvalueindex = options.get(MainOptions.PATHVALUEINDEX);
     maxlen = options.get(MainOptions.MAXLEN);
     maxcats = options.get(MainOptions.MAXCATS);
     stopwords = options.get(MainOptions.STOPWORDS);
@@ -331,6 +354,7 @@ public final class MetaData {
       case ATTRIBUTE -> attrindex;
       case TOKEN     -> tokenindex;
       case FULLTEXT  -> ftindex;
+      case NGRAM     -> ngramindex;
       default        -> throw Util.notExpected();
     };
   }
@@ -346,6 +370,7 @@ public final class MetaData {
       case ATTRIBUTE -> attrindex = exists;
       case TOKEN     -> tokenindex = exists;
       case FULLTEXT  -> ftindex = exists;
+      case NGRAM     -> ngramindex = exists;
       default        -> throw Util.notExpected();
     }
   }
@@ -361,6 +386,7 @@ public final class MetaData {
       case ATTRIBUTE -> attrinclude;
       case TOKEN     -> tokeninclude;
       case FULLTEXT  -> ftinclude;
+      case NGRAM     -> "";
       default        -> throw Util.notExpected();
     };
   }
@@ -376,6 +402,7 @@ public final class MetaData {
       case ATTRIBUTE -> attrinclude = options.get(MainOptions.ATTRINCLUDE);
       case TOKEN     -> tokeninclude = options.get(MainOptions.TOKENINCLUDE);
       case FULLTEXT  -> ftinclude = options.get(MainOptions.FTINCLUDE);
+      case NGRAM     -> { }
       default        -> throw Util.notExpected();
     }
   }
@@ -409,10 +436,17 @@ public final class MetaData {
         case DBFTDC -> diacritics = isTrue(v);
         case DBUPDIDX -> updindex = isTrue(v);
         case DBAUTOOPT -> autooptimize = isTrue(v);
+        case DBCMPTXT -> compresstexts = isTrue(v);
+        case DBPCKTBL -> packtable = isTrue(v);
+        case DBNAMIDX -> nameindex = isTrue(v);
+        case DBPVLIDX -> pathvalueindex = isTrue(v);
+        case DBFTBLK -> ftblocks = isTrue(v);
+        case DBFTIDS -> ftids = isTrue(v);
         case DBTXTIDX -> textindex = isTrue(v);
         case DBATVIDX -> attrindex = isTrue(v);
         case DBTOKIDX -> tokenindex = isTrue(v);
         case DBFTXIDX -> ftindex = isTrue(v);
+        case DBNGRIDX -> ngramindex = isTrue(v);
         case DBTXTINC -> textinclude = v;
         case DBATVINC -> attrinclude = v;
         case DBTOKINC -> tokeninclude = v;
@@ -422,9 +456,11 @@ public final class MetaData {
         case DBCRTATV -> createattr = isTrue(v);
         case DBCRTTOK -> createtoken = isTrue(v);
         case DBCRTFTX -> createft = isTrue(v);
+        case DBCRTNGR -> createngram = isTrue(v);
         case DBFTST -> stemming = isTrue(v);
         case DBFTCS -> casesens = isTrue(v);
         case DBUPTODATE -> uptodate = isTrue(v);
+        case DBAPPENDED -> appended = toInt(v);
       }
     }
 
@@ -452,10 +488,17 @@ public final class MetaData {
     writeInfo(out, DBSIZE,     size);
     writeInfo(out, DBUPDIDX,   updindex);
     writeInfo(out, DBAUTOOPT,  autooptimize);
+    writeInfo(out, DBCMPTXT,   compresstexts);
+    writeInfo(out, DBPCKTBL,   packtable);
+    writeInfo(out, DBNAMIDX,   nameindex);
+    writeInfo(out, DBPVLIDX,   pathvalueindex);
+    writeInfo(out, DBFTBLK,    ftblocks);
+    writeInfo(out, DBFTIDS,    ftids);
     writeInfo(out, DBTXTIDX,   textindex);
     writeInfo(out, DBATVIDX,   attrindex);
     writeInfo(out, DBTOKIDX,   tokenindex);
     writeInfo(out, DBFTXIDX,   ftindex);
+    writeInfo(out, DBNGRIDX,   ngramindex);
     writeInfo(out, DBTXTINC,   textinclude);
     writeInfo(out, DBATVINC,   attrinclude);
     writeInfo(out, DBTOKINC,   tokeninclude);
@@ -465,6 +508,7 @@ public final class MetaData {
     writeInfo(out, DBCRTATV,   createattr);
     writeInfo(out, DBCRTTOK,   createtoken);
     writeInfo(out, DBCRTFTX,   createft);
+    writeInfo(out, DBCRTNGR,   createngram);
     writeInfo(out, DBFTST,     stemming);
     writeInfo(out, DBFTCS,     casesens);
     writeInfo(out, DBFTDC,     diacritics);
@@ -472,6 +516,7 @@ public final class MetaData {
     writeInfo(out, DBMAXLEN,   maxlen);
     writeInfo(out, DBMAXCATS,  maxcats);
     writeInfo(out, DBUPTODATE, uptodate);
+    writeInfo(out, DBAPPENDED, appended);
     writeInfo(out, DBLASTID,   lastid);
     if(language != null) writeInfo(out, DBFTLN, language.toString());
     out.write(0);
@@ -484,13 +529,32 @@ public final class MetaData {
     // update database timestamp
     time = System.currentTimeMillis();
     uptodate = false;
+    appended = -1;
     dirty = true;
+    // n-gram index is not updatable
+    ngramindex = false;
     if(!updindex) {
       textindex = false;
       attrindex = false;
       tokenindex = false;
+      ftindex = false;
+    } else if(!ftids) {
+      // full-text indexes of previous versions reference PRE values and are not updatable
+      ftindex = false;
     }
-    ftindex = false;
+  }
+
+  /**
+   * Notifies the meta structures of an insertion and invalidates the indexes. If documents
+   * are appended, and if no other updates have taken place, the structures can be updated
+   * incrementally.
+   * @param pre PRE value of the first inserted node
+   * @param doc indicates if documents are inserted
+   */
+  public void update(final int pre, final boolean doc) {
+    final int first = uptodate ? pre : appended;
+    update();
+    if(doc && pre == size) appended = first;
   }
 
   /**
@@ -96,6 +96,11 @@ public enum MetaProp {
     public Boolean value(final MetaData meta) { return meta.ftindex; }
   },
   /** Property. */
+  NGRAMINDEX(true) {
+    @Override
+    public Boolean value(final MetaData meta) { return meta.ngramindex; }
+  },
+  /** Property. */
   TEXTINCLUDE(true) {
     @Override
     public String value(final MetaData meta) { return meta.textinclude; }
@@ -151,6 +156,26 @@ public enum MetaProp {
     public Boolean value(final MetaData meta) { return meta.autooptimize; }
   },
   /** Property. */
+  COMPRESSTEXTS(true) {
+    @Override
+    public Boolean value(final MetaData meta) { return meta.compresstexts; }
+  },
+  /** Property. */
+  PACKTABLE(true) {
+    @Override
+    public Boolean value(final MetaData meta) { return meta.packtable; }
+  },
+  /** Property. */
+  NAMEINDEX(true) {
+    @Override
+    public Boolean value(final MetaData meta) { return meta.nameindex; }
+  },
+  /** Property. */
+  PATHVALUEINDEX(true) {
+    @Override
+    public Boolean value(final MetaData meta) { return meta.pathvalueindex; }
+  },
+  /** Property. */
   MAXCATS(true) {
     @Override
     public Integer value(final MetaData meta) { return meta.maxcats; }
@@ -3,6 +3,7 @@ package org.basex.index;
 import static org.basex.core.Text.*;
 
 import java.io.*;
+import java.util.concurrent.atomic.*;
 
 import org.basex.core.*;
 import org.basex.core.jobs.*;
@@ -18,6 +19,9 @@ import org.basex.util.*;
  * @author Christian Gruen
  */
 public abstract class IndexBuilder extends Job {
+  /** Number of index builders that are currently running. */
+  private static final AtomicInteger RUNNING = new AtomicInteger();
+
   /** Performance. */
   private final Performance perf = new Performance();
 
@@ -32,8 +36,6 @@ public abstract class IndexBuilder extends Job {
 
   /** Number of index operations to perform before writing a partial index to disk. */
   private final int splitSize;
-  /** Maximum memory to consume. */
-  private final long maxMem = (long) (Runtime.getRuntime().maxMemory() * 0.8);
 
   /** Names and namespace URI of element or attributes to include. */
   private final IndexNames includeNames;
@@ -44,8 +46,6 @@ public abstract class IndexBuilder extends Job {
   protected long count;
   /** Number of partial index structures. */
   protected int splits;
-  /** Threshold for freeing memory when estimating main memory consumption. */
-  private int gcCount;
 
   /**
    * Constructor.
@@ -59,9 +59,21 @@ public abstract class IndexBuilder extends Job {
     size = data.meta.size;
     includeNames = new IndexNames(type, data);
     text = type == IndexType.TEXT || type == IndexType.FULLTEXT;
+  }
 
-    // run garbage collection if memory maximum is already reached
-    if(Performance.memory() >= maxMem) clean();
+  /**
+   * Builds the index structure and returns an index instance.
+   * The memory budget is shared by all builders that are running at the same time.
+   * @return index instance
+   * @throws IOException I/O Exception
+   */
+  public final ValueIndex build() throws IOException {
+    RUNNING.incrementAndGet();
+    try {
+      return index();
+    } finally {
+      RUNNING.decrementAndGet();
+    }
   }
 
   /**
@@ -69,7 +81,7 @@ public abstract class IndexBuilder extends Job {
    * @return index instance
    * @throws IOException I/O Exception
    */
-  public abstract ValueIndex build() throws IOException;
+  protected abstract ValueIndex index() throws IOException;
 
   /**
    * Checks if the command was interrupted, and prints some debug output.
@@ -86,42 +98,51 @@ public abstract class IndexBuilder extends Job {
    * @return result of check
    */
   protected final boolean indexEntry() {
-    return data.kind(pre) == (text ? Data.TEXT : Data.ATTR) && includeNames.contains(pre, text);
+    return indexEntry(pre);
+  }
+
+  /**
+   * Checks if the specified entry should be indexed.
+   * @param p PRE value
+   * @return result of check
+   */
+  protected final boolean indexEntry(final int p) {
+    return data.kind(p) == (text ? Data.TEXT : Data.ATTR) && includeNames.contains(p, text);
   }
 
   /**
    * Decides whether in-memory temporary index structures are so large
    * that we must flush them to disk before continuing.
+   * If no fixed split size has been specified, the estimated memory consumption of the
+   * structures is compared with the memory budget.
+   * @param bytes estimated memory consumption of the structures
    * @return true if structures shall be flushed to disk
-   * @throws IOException I/O Exception
    */
-  protected final boolean splitRequired() throws IOException {
-    // checks if a fixed split size has been specified
-    final boolean split;
-    if(splitSize > 0) {
-      split = count >= (splits + 1L) * splitSize;
-    } else {
-      // if not, estimate how much main memory is left
-      split = Performance.memory() >= maxMem;
-      // stop operation if index splitting degenerates
-      int gc = gcCount;
-      if(split) {
-        if(gc >= 0) throw new BaseXException(OUT_OF_MEM + H_OUT_OF_MEM);
-        gc = 30;
-      } else {
-        gc = Math.max(-1, gc - 1);
-      }
-      gcCount = gc;
-    }
+  protected final boolean splitRequired(final long bytes) {
+    final boolean split = splitSize > 0 ? count >= (splits + 1L) * splitSize : bytes >= budget();
     if(split && Prop.debug) Util.err("|");
     return split;
   }
 
   /**
-   * Performs memory cleanup after writing partial memory if necessary.
+   * Decides whether an in-memory structure that is built in parallel to other structures
+   * must be flushed to disk. The memory budget is shared by all structures.
+   * @param entries number of index operations performed on the structure
+   * @param bytes estimated memory consumption of the structure
+   * @param parts number of structures built in parallel
+   * @return true if the structure shall be flushed to disk
+   */
+  protected final boolean splitRequired(final long entries, final long bytes, final int parts) {
+    return entries > 0 && (splitSize > 0 ? entries >= splitSize : bytes >= budget() / parts);
+  }
+
+  /**
+   * Returns the memory budget for the temporary structures of this builder.
+   * {@link Prop#indexmemory} is divided by the number of builders that are currently running.
+   * @return budget (bytes)
    */
-  protected final void clean() {
-    if(splitSize <= 0) Performance.gc(2);
+  private static long budget() {
+    return Prop.indexmemory / Math.max(1, RUNNING.get());
   }
 
   /**
@@ -170,6 +191,7 @@ public abstract class IndexBuilder extends Job {
       case ATTRIBUTE -> INDEX_ATTRIBUTES_D;
       case TOKEN     -> INDEX_TOKENS_D;
       case FULLTEXT  -> INDEX_FULLTEXT_D;
+      case NGRAM     -> INDEX_NGRAMS_D;
       default        -> throw Util.notExpected();
     };
   }
@@ -15,6 +15,8 @@ import org.basex.util.list.*;
 public class IndexTree {
   /** Factor for resize. */
   protected static final double FACTOR = 1.2;
+  /** Estimated memory consumption of a tree node, excluding the key and ID arrays (bytes). */
+  private static final int NODE = 80;
 
   /** Keys saved in the tree. */
   public final TokenList keys = new TokenList(FACTOR);
@@ -34,6 +36,10 @@ public class IndexTree {
   private final boolean tokenize;
   /** Tree root node. */
   private int root = -1;
+  /** Estimated memory consumption of the nodes and keys (bytes). */
+  private long keyBytes;
+  /** Estimated memory consumption of the ID values (bytes). */
+  protected long idBytes;
 
   /**
    * Constructor.
@@ -111,6 +117,14 @@ public class IndexTree {
     return ids.size();
   }
 
+  /**
+   * Returns the estimated memory consumption of the tree.
+   * @return number of bytes
+   */
+  public long bytes() {
+    return keyBytes + idBytes;
+  }
+
   /**
    * Initializes the index iterator.
    * will be removed to save memory.
@@ -160,6 +174,7 @@ public class IndexTree {
     byte[] vs = Num.newNum(id);
     if(tokenize) vs = Num.add(vs, pos);
     ids.add(vs);
+    idBytes += vs.length;
   }
 
   /**
@@ -169,10 +184,11 @@ public class IndexTree {
    * @param n ID list to append to
    */
   private void addIds(final int id, final int pos, final int n) {
-    byte[] vs = ids.get(n);
-    vs = Num.add(vs, id);
+    final byte[] old = ids.get(n);
+    byte[] vs = Num.add(old, id);
     if(tokenize) vs = Num.add(vs, pos);
     ids.set(n, vs);
+    idBytes += vs.length - old.length;
   }
 
   /**
@@ -192,6 +208,7 @@ public class IndexTree {
     tree.add(par); // parent node
     mod.add(false);
     keys.add(key);
+    keyBytes += key.length + NODE;
     addNewIds(id, pos);
     if(!exist) maps.put(Num.num(keys.size() - 1), ids.size() - 1);
     return mod.size() - 1;
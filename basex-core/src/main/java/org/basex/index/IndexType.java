@@ -26,7 +26,9 @@ public enum IndexType {
   /** Token index. */
   TOKEN,
   /** Full-text index. */
-  FULLTEXT;
+  FULLTEXT,
+  /** N-gram index. */
+  NGRAM;
 
   @Override
   public String toString() {
@@ -38,13 +38,7 @@ public final class FTBuilder extends IndexBuilder {
     final MetaData meta = data.meta;
     tree = new FTIndexTrees(data.meta.maxlen);
 
-    final FTOpt fto = new FTOpt();
-    fto.set(FTFlag.DC, meta.diacritics);
-    fto.set(FTFlag.ST, meta.stemming);
-    fto.cs = meta.casesens ? FTCase.SENSITIVE : FTCase.INSENSITIVE;
-    fto.sw = new StopWords(data, meta.stopwords);
-    fto.ln = data.meta.language;
-
+    final FTOpt fto = options(meta, new StopWords(data, meta.stopwords));
     if(!Tokenizer.supportFor(fto.ln))
       throw new BaseXException(NO_TOKENIZER_X, fto.ln);
     if(meta.stemming && !Stemmer.supportFor(fto.ln))
@@ -53,15 +47,34 @@ public final class FTBuilder extends IndexBuilder {
     lexer = new FTLexer(fto);
   }
 
+  /**
+   * Returns the full-text options of the index.
+   * @param meta meta data
+   * @param sw stop words
+   * @return options
+   */
+  static FTOpt options(final MetaData meta, final StopWords sw) {
+    final FTOpt fto = new FTOpt();
+    fto.set(FTFlag.DC, meta.diacritics);
+    fto.set(FTFlag.ST, meta.stemming);
+    fto.cs = meta.casesens ? FTCase.SENSITIVE : FTCase.INSENSITIVE;
+    fto.sw = sw;
+    fto.ln = meta.language;
+    return fto;
+  }
+
   @Override
-  public FTIndex build() throws IOException {
+  protected FTIndex index() throws IOException {
     Util.debugln(detailedInfo());
 
     try {
+      final boolean updindex = data.meta.updindex;
       for(pre = 0; pre < size; ++pre) {
         if((pre & 0x0FFF) == 0) check();
         if(!indexEntry()) continue;
 
+        // updatable index: store node IDs instead of PRE values
+        final int id = updindex ? data.id(pre) : pre;
         // current lexer position
         final StopWords sw = lexer.ftOpt().sw;
         lexer.init(data.text(pre, true));
@@ -72,11 +85,10 @@ public final class FTBuilder extends IndexBuilder {
           // skip too long and stopword tokens
           if(token.length <= data.meta.maxlen && !sw.contains(token)) {
             // check if main memory is exhausted
-            if((ntok++ & 0xFFFF) == 0 && splitRequired()) {
+            if((ntok++ & 0xFFFF) == 0 && splitRequired(tree.bytes())) {
               writeIndex(true);
-              clean();
             }
-            tree.index(token, pre, pos, splits);
+            tree.index(token, id, pos, splits);
             count++;
           }
         }
@@ -86,6 +98,10 @@ public final class FTBuilder extends IndexBuilder {
       write(splits > 0);
 
       finishIndex();
+      // discard changes of a previous updatable index
+      data.meta.dbFile(DATAFTX + 'd').delete();
+      data.meta.ftblocks = true;
+      data.meta.ftids = data.meta.updindex;
       return new FTIndex(data);
     } catch(final Throwable th) {
       // drop index files
@@ -157,7 +173,7 @@ public final class FTBuilder extends IndexBuilder {
    * @param lp last offset
    * @throws IOException I/O exception
    */
-  private static void writeInd(final DataOutput outX, final IntList il, final int ls, final int lp)
+  static void writeInd(final DataOutput outX, final IntList il, final int ls, final int lp)
       throws IOException {
 
     final int is = il.size();
@@ -202,7 +218,7 @@ public final class FTBuilder extends IndexBuilder {
         // write full-text data size (number of PRE values)
         outY.write4(t.nextNumPre());
         // write compressed PRE and POS arrays
-        writeFTData(outZ, t.nextPres(), t.nextPoss());
+        writeFTData(outZ, t.nextPres(), t.nextPoss(), partial);
 
         dr = outZ.size();
         tr = (int) outY.size();
@@ -244,23 +260,34 @@ public final class FTBuilder extends IndexBuilder {
     Num.size(po, po.length);
 
     // write full-text data
-    writeFTData(out, pr, po);
+    writeFTData(out, pr, po, false);
     return s;
   }
 
   /**
    * Writes full-text data for a single token to disk.
-   * Format: {@code score? pre1 pos1 pre2 pos2 ... (0 score)? pre...}
+   * Temporary data is written as {@code pre1 pos1 pre2 pos2 ...}. Otherwise, the values are
+   * written in compressed blocks (see {@link FTPostings}).
    * @param out DataOutput for disk access
    * @param vpre compressed PRE values
    * @param vpos compressed pos values
+   * @param partial partial flag
    * @throws IOException IOException
    */
-  private static void writeFTData(final DataOutput out, final byte[] vpre, final byte[] vpos)
-      throws IOException {
+  private static void writeFTData(final DataOutput out, final byte[] vpre, final byte[] vpos,
+      final boolean partial) throws IOException {
 
     int np = 4, pp = 4;
     final int ns = Num.size(vpre);
+    if(!partial) {
+      final IntList pres = new IntList(), poss = new IntList();
+      for(; np < ns; np += Num.length(vpre, np), pp += Num.length(vpos, pp)) {
+        pres.add(Num.get(vpre, np));
+        poss.add(Num.get(vpos, pp));
+      }
+      FTPostings.write(out, pres, poss);
+      return;
+    }
     while(np < ns) {
       // full-text data is stored here, with -scoreU, pre1, pos1, ...,
       // -scoreU, preU, posU
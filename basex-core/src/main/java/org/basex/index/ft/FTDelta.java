@@ -0,0 +1,141 @@
+package org.basex.index.ft;
+
+import java.io.*;
+
+import org.basex.index.value.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * This class organizes the changes of an updatable full-text index that have not been merged
+ * into the index files yet. It consists of the postings of new texts and the IDs of nodes whose
+ * postings in the index files are obsolete.
+ *
+ * The changes are stored in a file with the suffix {@code d}: The IDs of obsolete nodes are
+ * followed by the number of tokens, and the tokens with their ID/POS pairs.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+final class FTDelta {
+  /** Postings of new texts: tokens, referencing ID/POS pairs. */
+  private final TokenObjectMap<IntList> added = new TokenObjectMap<>();
+  /** IDs of nodes whose postings in the index files are obsolete. */
+  private final IntSet deleted = new IntSet();
+  /** Number of added postings. */
+  private int postings;
+
+  /**
+   * Default constructor.
+   */
+  FTDelta() { }
+
+  /**
+   * Constructor, reading the changes from disk.
+   * @param file input file
+   * @throws IOException I/O exception
+   */
+  FTDelta(final IOFile file) throws IOException {
+    try(DataInput in = new DataInput(file)) {
+      for(final int id : in.readNums()) deleted.add(id);
+      for(int t = in.readNum(); t > 0; t--) {
+        final byte[] token = in.readToken();
+        final IntList list = new IntList(in.readNums());
+        added.put(token, list);
+        postings += list.size() >>> 1;
+      }
+    }
+  }
+
+  /**
+   * Writes the changes to the specified output.
+   * @param out output stream
+   * @throws IOException I/O exception
+   */
+  void write(final DataOutput out) throws IOException {
+    out.writeNums(deleted.keys());
+    out.writeNum(added.size());
+    for(final byte[] token : added) {
+      out.writeToken(token);
+      out.writeNums(added.get(token).toArray());
+    }
+  }
+
+  /**
+   * Adds the postings of new texts.
+   * @param values postings
+   */
+  void add(final ValueCache values) {
+    for(final byte[] token : values) {
+      final IntList ids = values.ids(token), pos = values.pos(token);
+      final IntList list = added.computeIfAbsent(token, IntList::new);
+      final int is = ids.size();
+      for(int i = 0; i < is; i++) list.add(ids.get(i), pos.get(i));
+      postings += is;
+    }
+  }
+
+  /**
+   * Invalidates the postings of deleted texts.
+   * @param values postings
+   */
+  void delete(final ValueCache values) {
+    for(final byte[] token : values) {
+      final IntList ids = values.ids(token);
+      final int is = ids.size();
+      for(int i = 0; i < is; i++) deleted.add(ids.get(i));
+
+      // remove postings that have not been merged into the index files yet
+      final IntList list = added.get(token);
+      if(list == null) continue;
+      final IntSet obsolete = new IntSet(is);
+      for(int i = 0; i < is; i++) obsolete.add(ids.get(i));
+      final IntList kept = new IntList();
+      final int ls = list.size();
+      for(int l = 0; l < ls; l += 2) {
+        final int id = list.get(l);
+        if(!obsolete.contains(id)) kept.add(id, list.get(l + 1));
+      }
+      postings -= ls - kept.size() >>> 1;
+      if(kept.isEmpty()) added.remove(token);
+      else added.put(token, kept);
+    }
+  }
+
+  /**
+   * Checks if the postings of the specified node in the index files are obsolete.
+   * @param id node ID
+   * @return result of check
+   */
+  boolean deleted(final int id) {
+    return deleted.contains(id);
+  }
+
+  /**
+   * Returns the new postings of the specified token.
+   * @param token token
+   * @return ID/POS pairs or {@code null}
+   */
+  IntList postings(final byte[] token) {
+    return added.get(token);
+  }
+
+  /**
+   * Returns the tokens of new postings.
+   * @return tokens
+   */
+  byte[][] tokens() {
+    return added.keys();
+  }
+
+  /**
+   * Returns the number of changes.
+   * @return number of added postings and deleted nodes
+   */
+  int size() {
+    return postings + deleted.size();
+  }
+}
@@ -6,6 +6,7 @@ import static org.basex.util.Token.*;
 import static org.basex.util.ft.FTFlag.*;
 
 import java.io.*;
+import java.nio.file.*;
 import java.util.*;
 
 import org.basex.core.*;
@@ -14,6 +15,9 @@ import org.basex.index.*;
 import org.basex.index.query.*;
 import org.basex.index.stats.*;
 import org.basex.index.value.*;
+import org.basex.io.*;
+import org.basex.io.out.*;
+import org.basex.io.out.DataOutput;
 import org.basex.io.random.*;
 import org.basex.query.expr.ft.*;
 import org.basex.query.util.ft.*;
@@ -46,14 +50,25 @@ import org.basex.util.similarity.*;
  * <li>File <b>z</b> contains the {@code ID/POS} references.
  *   The values are ordered, but not distinct:
  *   {@code pre1/pos1, pre2/pos2, pre3/pos3, ...} [{@link Num}]</li>
+ * <li>File <b>d</b> exists if the index is updatable (see {@link MainOptions#UPDINDEX}).
+ *   In this case, node IDs are stored instead of PRE values, and the file contains the
+ *   changes that have not been merged into the other files yet (see {@link FTDelta}).</li>
  * </ul>
  *
+ * <p>Changes are merged by writing new index files, which replace the existing files.
+ * File <b>c</b> marks a merge whose files are being replaced. If it exists when the index is
+ * opened, the replacement is completed.</p>
+ *
  * @author BaseX Team, BSD License
  * @author Christian Gruen
  */
 public final class FTIndex extends ValueIndex {
   /** Minimum fixed size for each token entry. */
   private static final int ENTRY = 9;
+  /** Number of changes after which an updatable index will be merged. */
+  private static final int MERGE = 1 << 16;
+  /** Suffixes of the index files that are replaced by a merge. */
+  private static final char[] FILES = { 'x', 'y', 'z' };
 
   /** Cached texts. Increases used memory, but speeds up repeated queries. */
   private final IntObjectMap<byte[]> ctext = new IntObjectMap<>();
@@ -62,16 +77,25 @@ public final class FTIndex extends ValueIndex {
 
   /** Index storing each unique token length and pointer
    * on the first token with this length. */
-  private final DataAccess dataX;
+  private DataAccess dataX;
   /** Index storing each token, its data size and pointer on the data. */
-  private final DataAccess dataY;
+  private DataAccess dataY;
   /** Storing PRE and POS values for each token. */
-  private final DataAccess dataZ;
+  private DataAccess dataZ;
 
   /** Cache for number of hits and data reference per token. */
-  private final IndexCache cache = new IndexCache();
+  private IndexCache cache;
   /** Token positions. */
-  private final int[] positions;
+  private int[] positions;
+
+  /** Changes that have not been merged yet ({@code null} if the index is not updatable). */
+  private FTDelta delta;
+  /** Indicates if the changes have not been written to disk yet. */
+  private boolean dirty;
+  /** Lexer for tokenizing updated texts (lazy instantiation). */
+  private FTLexer lexer;
+  /** Sorted tokens for fuzzy and wildcard searches (lazy instantiation). */
+  private FTTerms terms;
 
   /**
    * Constructor, initializing the index structure.
@@ -80,10 +104,28 @@ public final class FTIndex extends ValueIndex {
    */
   public FTIndex(final Data data) throws IOException {
     super(data, IndexType.FULLTEXT);
-    // cache token length index
+    recover();
+    open();
+    // indexes of previous versions reference PRE values and are not updatable
+    if(data.meta.updindex && data.meta.ftids) {
+      final IOFile file = data.meta.dbFile(DATAFTX + 'd');
+      delta = file.exists() ? new FTDelta(file) : new FTDelta();
+    }
+  }
+
+  /**
+   * Opens the index files.
+   * @throws IOException I/O Exception
+   */
+  private void open() throws IOException {
     dataX = new DataAccess(data.meta.dbFile(DATAFTX + 'x'));
     dataY = new DataAccess(data.meta.dbFile(DATAFTX + 'y'));
     dataZ = new DataAccess(data.meta.dbFile(DATAFTX + 'z'));
+    cache = new IndexCache();
+    ctext.clear();
+    terms = null;
+
+    // cache token length index
     positions = new int[data.meta.maxlen + 3];
     final int pl = positions.length;
     for(int p = 0; p < pl; p++) positions[p] = -1;
@@ -101,8 +143,10 @@ public final class FTIndex extends ValueIndex {
 
     // estimate costs for queries which stretch over multiple index entries
     final FTOpt opt = ((FTLexer) search).ftOpt();
-    return IndexCosts.get(opt.is(FZ) || opt.is(WC) ? Math.max(1, data.meta.size >> 4) :
-      entry(token).size);
+    if(opt.is(FZ) || opt.is(WC)) return IndexCosts.get(Math.max(1, data.meta.size >> 4));
+
+    final IntList added = delta != null ? delta.postings(token) : null;
+    return IndexCosts.get(entry(token).size + (added != null ? added.size() >>> 1 : 0));
   }
 
   @Override
@@ -116,7 +160,7 @@ public final class FTIndex extends ValueIndex {
     if(opt.is(WC)) {
       final FTWildcard wc = new FTWildcard(token);
       if(!wc.valid()) return FTIndexIterator.FTEMPTY;
-      if(!wc.simple()) return wildcards(wc, opt.is(DC), token);
+      if(!wc.simple()) return wildcards(wc, token);
     }
 
     // fuzzy search
@@ -126,12 +170,14 @@ public final class FTIndex extends ValueIndex {
 
     // return cached or new result
     final IndexEntry entry = entry(token);
-    if(entry.size > 0) {
-      return iter(entry.offset, entry.size, dataZ, token);
+    if(delta == null && data.meta.ftblocks) {
+      return entry.size > 0 ? iter(new FTPostings(dataZ, entry.offset, entry.size),
+        entry.size, token) : FTIndexIterator.FTEMPTY;
     }
-
-    // no results
-    return FTIndexIterator.FTEMPTY;
+    final IntList pr = new IntList(entry.size), ps = new IntList(entry.size);
+    if(entry.size > 0) read(entry.offset, entry.size, pr, ps);
+    added(token, pr, ps);
+    return pr.isEmpty() ? FTIndexIterator.FTEMPTY : iter(new FTCache(pr, ps), token);
   }
 
   /**
@@ -251,6 +297,7 @@ public final class FTIndex extends ValueIndex {
 
   @Override
   public synchronized void close() {
+    write();
     dataX.close();
     dataY.close();
     dataZ.close();
@@ -342,24 +389,47 @@ public final class FTIndex extends ValueIndex {
 
   /**
    * Performs a fuzzy search for the specified token with a maximum number of errors.
+   * The sorted index tokens are intersected with a Levenshtein automaton, which is simulated
+   * by computing the rows of the distance matrix incrementally.
    * @param token token to look for
    * @param k number of errors allowed
    * @return iterator
    */
   private IndexIterator fuzzy(final byte[] token, final int k) {
-    final int tokl = token.length, pl = positions.length, e = Math.min(pl - 1, tokl + k);
-    int s = Math.max(1, tokl - k) - 1;
+    final int[] query = Levenshtein.normalize(token), cps = new int[data.meta.maxlen];
+    final int errors = k == 0 ? Math.max(1, query.length >> 2) : k;
+    final FTTerms.Matcher matcher = new FTTerms.Matcher() {
+      @Override
+      public boolean step(final int cp, final int depth) {
+        cps[depth] = Levenshtein.normalize(cp);
+        return ls.row(cps, depth, query) <= errors;
+      }
+      @Override
+      public boolean accept(final int depth) {
+        return true;
+      }
+    };
+
+    final int tokl = token.length, min = Math.max(1, tokl - k), max = tokl + k;
     final ArrayList<FTIndexIterator> iters = new ArrayList<>();
-    while(++s <= e) {
-      int p = positions[s];
-      if(p == -1) continue;
-      int t = s + 1, r = -1;
-      while(t < pl && r == -1) r = positions[t++];
-      while(p < r) {
-        if(ls.similar(dataY.readBytes(p, s), token, k)) {
-          iters.add(iter(pointer(p, s), size(p, s), dataZ, token));
+    final FTTerms ft = terms();
+    for(final int i : ft.find(EMPTY, matcher).finish()) {
+      final byte[] t = ft.token(i);
+      final int s = t.length;
+      if(s >= min && s <= max && ls.similar(t, token, k)) {
+        final int p = ft.offset(i), size = size(p, s);
+        final IntList pr = new IntList(size), ps = new IntList(size);
+        read(pointer(p, s), size, pr, ps);
+        if(!pr.isEmpty()) iters.add(iter(new FTCache(pr, ps), token));
+      }
+    }
+    if(delta != null) {
+      for(final byte[] t : delta.tokens()) {
+        if(ls.similar(t, token, k)) {
+          final IntList pr = new IntList(), ps = new IntList();
+          added(t, pr, ps);
+          iters.add(iter(new FTCache(pr, ps), token));
         }
-        p += s + ENTRY;
       }
     }
     return iters.isEmpty() ? FTIndexIterator.FTEMPTY :
@@ -368,56 +438,124 @@ public final class FTIndex extends ValueIndex {
 
   /**
    * Performs a wildcard search for the specified token.
+   * The sorted index tokens with the wildcard prefix are intersected with a wildcard automaton.
    * @param wc wildcard matcher
-   * @param full support full range of Unicode characters
    * @param token original search token
    * @return iterator
    */
-  private IndexIterator wildcards(final FTWildcard wc, final boolean full, final byte[] token) {
+  private IndexIterator wildcards(final FTWildcard wc, final byte[] token) {
+    final boolean[][] states = new boolean[data.meta.maxlen + 1][];
+    states[0] = wc.start();
+    final boolean automaton = states[0] != null;
+    final FTTerms.Matcher matcher = new FTTerms.Matcher() {
+      @Override
+      public boolean step(final int cp, final int depth) {
+        return !automaton || (states[depth + 1] = wc.step(states[depth], cp)) != null;
+      }
+      @Override
+      public boolean accept(final int depth) {
+        return !automaton || wc.accept(states[depth]);
+      }
+    };
+
     final IntList pr = new IntList(), ps = new IntList();
-    final byte[] prefix = wc.prefix();
-    final int pl = positions.length, l = Math.min(pl - 1, wc.max(full));
-    for(int p = prefix.length; p <= l; p++) {
-      int start = positions[p];
-      if(start == -1) continue;
-      int c = p + 1, end = -1;
-      while(c < pl && end == -1) end = positions[c++];
-      start = find(prefix, start, end, p);
-
-      while(start < end) {
-        final byte[] t = dataY.readBytes(start, p);
-        if(!startsWith(t, prefix)) break;
-        if(wc.match(t)) {
-          dataZ.cursor(pointer(start, p));
-          final int s = size(start, p);
-          for(int d = 0; d < s; d++) {
-            pr.add(dataZ.readNum());
-            ps.add(dataZ.readNum());
-          }
-        }
-        start += p + ENTRY;
+    final FTTerms ft = terms();
+    for(final int i : ft.find(wc.prefix(), matcher).finish()) {
+      final byte[] t = ft.token(i);
+      if(automaton || wc.match(t)) {
+        final int p = ft.offset(i), s = t.length;
+        read(pointer(p, s), size(p, s), pr, ps);
+      }
+    }
+    if(delta != null) {
+      for(final byte[] t : delta.tokens()) {
+        if(wc.match(t)) added(t, pr, ps);
       }
     }
     return iter(new FTCache(pr, ps), token);
   }
 
   /**
-   * Returns an iterator for an index entry.
+   * Returns the sorted index tokens.
+   * @return tokens
+   */
+  private FTTerms terms() {
+    if(terms == null) {
+      final TokenList tokens = new TokenList();
+      final IntList offsets = new IntList();
+      final int pl = positions.length;
+      for(int l = 0; l < pl - 1; l++) {
+        int p = positions[l];
+        if(p == -1) continue;
+        int c = l + 1, end;
+        do end = positions[c++]; while(end == -1);
+        for(; p < end; p += l + ENTRY) {
+          tokens.add(dataY.readBytes(p, l));
+          offsets.add(p);
+        }
+      }
+      terms = new FTTerms(tokens, offsets);
+    }
+    return terms;
+  }
+
+  /**
+   * Reads the PRE and POS values of an index entry.
+   * If the index is updatable, obsolete entries are skipped, and IDs are converted to PRE values.
    * @param off offset on entries
    * @param size number of ID/POS entries
-   * @param da data source
-   * @param token index token
-   * @return iterator
+   * @param pr PRE values
+   * @param ps POS values
    */
-  private static FTIndexIterator iter(final long off, final int size, final DataAccess da,
-      final byte[] token) {
-    da.cursor(off);
-    final IntList pr = new IntList(size), ps = new IntList(size);
+  private void read(final long off, final int size, final IntList pr, final IntList ps) {
+    read(off, size, pr, ps, true);
+  }
+
+  /**
+   * Reads the ID and POS values of an index entry. Obsolete entries are skipped.
+   * @param off offset on entries
+   * @param size number of ID/POS entries
+   * @param pr ID or PRE values
+   * @param ps POS values
+   * @param pre convert IDs of an updatable index to PRE values
+   */
+  private void read(final long off, final int size, final IntList pr, final IntList ps,
+      final boolean pre) {
+
+    // postings of older databases are stored as compressed numbers
+    final FTPostings postings = data.meta.ftblocks ? new FTPostings(dataZ, off, size) : null;
+    if(postings == null) dataZ.cursor(off);
     for(int c = 0; c < size; c++) {
-      pr.add(da.readNum());
-      ps.add(da.readNum());
+      final int id, pos;
+      if(postings == null) {
+        id = dataZ.readNum();
+        pos = dataZ.readNum();
+      } else {
+        postings.next();
+        id = postings.id();
+        pos = postings.pos();
+      }
+      if(delta == null || !delta.deleted(id)) {
+        pr.add(delta != null && pre ? data.pre(id) : id);
+        ps.add(pos);
+      }
+    }
+  }
+
+  /**
+   * Adds the PRE and POS values of a token that have not been merged into the index files yet.
+   * @param token token
+   * @param pr PRE values
+   * @param ps POS values
+   */
+  private void added(final byte[] token, final IntList pr, final IntList ps) {
+    final IntList list = delta != null ? delta.postings(token) : null;
+    if(list == null) return;
+    final int ls = list.size();
+    for(int l = 0; l < ls; l += 2) {
+      pr.add(data.pre(list.get(l)));
+      ps.add(list.get(l + 1));
     }
-    return iter(new FTCache(pr, ps), token);
   }
 
   /**
@@ -475,6 +613,65 @@ public final class FTIndex extends ValueIndex {
     };
   }
 
+  /**
+   * Returns an iterator for the postings of an index entry, which are read on demand.
+   * @param postings postings
+   * @param size number of postings
+   * @param token index token
+   * @return iterator
+   */
+  private static FTIndexIterator iter(final FTPostings postings, final int size,
+      final byte[] token) {
+
+    return new FTIndexIterator() {
+      final FTMatches all = new FTMatches();
+      boolean more = postings.next();
+      int pos, pre;
+
+      @Override
+      public boolean more() {
+        if(!more) return false;
+        pre = postings.id();
+        all.reset(pos);
+        do {
+          all.or(postings.pos());
+        } while((more = postings.next()) && postings.id() == pre);
+        return true;
+      }
+
+      @Override
+      public boolean skip(final int target) {
+        if(more && postings.id() < target) more = postings.skip(target);
+        return more();
+      }
+
+      @Override
+      public FTMatches matches() {
+        return all;
+      }
+
+      @Override
+      public int pre() {
+        return pre;
+      }
+
+      @Override
+      public void pos(final int p) {
+        pos = p;
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+
+      @Override
+      public String toString() {
+        return Strings.concat(token, '(', size, "x)");
+      }
+    };
+  }
+
   /**
    * Full-text cache.
    */
@@ -501,16 +698,194 @@ public final class FTIndex extends ValueIndex {
     }
   }
 
+  /**
+   * Returns a lexer for tokenizing texts of updated nodes.
+   * @return lexer
+   */
+  public FTLexer lexer() {
+    if(lexer == null) {
+      final StopWords sw = new StopWords();
+      sw.compile(data);
+      lexer = new FTLexer(FTBuilder.options(data.meta, sw));
+    }
+    return lexer;
+  }
+
   @Override
-  public void add(final ValueCache values) {
-    throw Util.notExpected();
+  public synchronized void add(final ValueCache values) {
+    if(delta == null) throw Util.notExpected();
+    delta.add(values);
+    dirty = true;
   }
 
   @Override
-  public void delete(final ValueCache values) {
-    throw Util.notExpected();
+  public synchronized void delete(final ValueCache values) {
+    if(delta == null) throw Util.notExpected();
+    delta.delete(values);
+    dirty = true;
   }
 
   @Override
-  public void flush() { }
+  public synchronized void flush() {
+    write();
+  }
+
+  /**
+   * Merges the changes into the index files if they exceed a fixed threshold.
+   * Must only be called if no update log exists, as the changes that were logged before
+   * the merge must not be replayed.
+   */
+  public synchronized void optimize() {
+    if(delta != null && delta.size() >= MERGE) {
+      try {
+        merge();
+      } catch(final IOException ex) {
+        Util.stack(ex);
+      }
+    }
+  }
+
+  /**
+   * Adds the changes that have not been written to disk to the specified log.
+   * @param log update log
+   * @throws IOException I/O exception
+   */
+  public synchronized void log(final UpdateLog log) throws IOException {
+    if(!dirty) return;
+    final ArrayOutput ao = new ArrayOutput();
+    try(DataOutput out = new DataOutput(ao)) {
+      delta.write(out);
+    }
+    log.image(data.meta.dbFile(DATAFTX + 'd'), ao.finish());
+  }
+
+  /**
+   * Writes the changes that have not been merged yet to disk.
+   */
+  private void write() {
+    if(!dirty) return;
+    try(DataOutput out = new DataOutput(data.meta.dbFile(DATAFTX + 'd'))) {
+      delta.write(out);
+      dirty = false;
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    }
+  }
+
+  /**
+   * Merges the changes into the index files.
+   * @throws IOException I/O exception
+   */
+  private void merge() throws IOException {
+    // sort new tokens by their length and lexicographically
+    final byte[][] tokens = delta.tokens();
+    Arrays.sort(tokens, (t1, t2) -> t1.length != t2.length ? t1.length - t2.length :
+      compare(t1, t2));
+    final int tl = tokens.length;
+
+    final String name = DATAFTX + 'm';
+    try(DataOutput outX = new DataOutput(data.meta.dbFile(name + 'x'));
+        DataOutput outY = new DataOutput(data.meta.dbFile(name + 'y'));
+        DataOutput outZ = new DataOutput(data.meta.dbFile(name + 'z'))) {
+
+      final IntList ind = new IntList(), ids = new IntList(), poss = new IntList();
+      final int pl = positions.length;
+      for(int l = 0, t = 0; l < pl - 1; l++) {
+        int p = positions[l], end = p;
+        if(p != -1) {
+          int c = l + 1;
+          do end = positions[c++]; while(end == -1);
+        }
+        // merge existing and new tokens of the current length
+        while(p < end || t < tl && tokens[t].length == l) {
+          final byte[] old = p < end ? dataY.readBytes(p, l) : null;
+          final byte[] add = t < tl && tokens[t].length == l ? tokens[t] : null;
+          final int d = old == null ? 1 : add == null ? -1 : compare(old, add);
+          ids.reset();
+          poss.reset();
+          if(d <= 0) {
+            read(pointer(p, l), size(p, l), ids, poss, false);
+            p += l + ENTRY;
+          }
+          if(d >= 0) {
+            final IntList list = delta.postings(tokens[t++]);
+            final int ls = list.size();
+            for(int i = 0; i < ls; i += 2) {
+              ids.add(list.get(i));
+              poss.add(list.get(i + 1));
+            }
+          }
+          if(ids.isEmpty()) continue;
+
+          if(ind.isEmpty() || ind.get(ind.size() - 2) < l) {
+            ind.add(l);
+            ind.add((int) outY.size());
+          }
+          outY.writeBytes(d <= 0 ? old : add);
+          outY.write5(outZ.size());
+          outY.write4(ids.size());
+          FTPostings.write(outZ, ids, poss);
+        }
+      }
+      FTBuilder.writeInd(outX, ind, ind.isEmpty() ? 1 : ind.get(ind.size() - 2) + 1,
+        (int) outY.size());
+    }
+
+    // replace index files: mark the merge as complete when the new files have been written
+    final IOFile marker = data.meta.dbFile(DATAFTX + 'c');
+    for(final char c : FILES) sync(data.meta.dbFile(name + c));
+    if(!marker.touch()) throw new IOException("Index file could not be created: " + marker);
+    sync(marker);
+    dataX.close();
+    dataY.close();
+    dataZ.close();
+    replace();
+    open();
+    delta = new FTDelta();
+    dirty = false;
+  }
+
+  /**
+   * Completes or discards an interrupted merge.
+   * @throws IOException I/O exception
+   */
+  private void recover() throws IOException {
+    final String name = DATAFTX + 'm';
+    if(data.meta.dbFile(DATAFTX + 'c').exists()) {
+      replace();
+    } else {
+      for(final char c : FILES) data.meta.dbFile(name + c).delete();
+    }
+  }
+
+  /**
+   * Replaces the index files with the merged files, and deletes the merged changes.
+   * @throws IOException I/O exception
+   */
+  private void replace() throws IOException {
+    final String name = DATAFTX + 'm';
+    for(final char c : FILES) {
+      final IOFile source = data.meta.dbFile(name + c);
+      // file has already been moved if a previous replacement was interrupted
+      if(!source.exists()) continue;
+      Files.move(source.file().toPath(), data.meta.dbFile(DATAFTX + c).file().toPath(),
+          StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+    final IOFile changes = data.meta.dbFile(DATAFTX + 'd');
+    final IOFile marker = data.meta.dbFile(DATAFTX + 'c');
+    if(changes.exists() && !changes.delete() || !marker.delete()) {
+      throw new IOException("Index file could not be deleted: " + marker);
+    }
+  }
+
+  /**
+   * Forces the contents of a file to disk.
+   * @param file file
+   * @throws IOException I/O exception
+   */
+  private static void sync(final IOFile file) throws IOException {
+    try(RandomAccessFile raf = new RandomAccessFile(file.file(), "rw")) {
+      raf.getFD().sync();
+    }
+  }
 }
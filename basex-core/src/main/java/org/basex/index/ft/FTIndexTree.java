@@ -14,6 +14,8 @@ import org.basex.util.list.*;
  * @author Sebastian Gath
  */
 final class FTIndexTree extends IndexTree {
+  /** Estimated memory consumption of an entry, excluding the arrays (bytes). */
+  private static final int ENTRY = 48;
   /** Compressed PRE values. */
   private TokenList poss = new TokenList(FACTOR);
   /** Tree structure [left, right, parent]. */
@@ -44,13 +46,17 @@ final class FTIndexTree extends IndexTree {
     if(os == keys.size()) {
       final int i = index > 0 ? maps.get(Num.num(n)) : n;
       if(poss.size() > i && poss.get(i) != null) {
-        poss.set(i, Num.add(poss.get(i), pos));
+        final byte[] old = poss.get(i), ps = Num.add(old, pos);
+        poss.set(i, ps);
         numpre.set(i, numpre.get(i) + 1);
+        idBytes += ps.length - old.length;
         return;
       }
     }
-    poss.add(Num.newNum(pos));
+    final byte[] ps = Num.newNum(pos);
+    poss.add(ps);
     numpre.add(1);
+    idBytes += ps.length + ENTRY;
   }
 
   /**
@@ -61,6 +67,7 @@ final class FTIndexTree extends IndexTree {
     ids = new TokenList(FACTOR);
     numpre = new IntList(FACTOR);
     maps = new TokenIntMap();
+    idBytes = 0;
   }
 
   /**
@@ -35,6 +35,18 @@ final class FTIndexTrees {
     trees[tl].add(token, pre, pos, index);
   }
 
+  /**
+   * Returns the estimated memory consumption of all trees.
+   * @return number of bytes
+   */
+  long bytes() {
+    long bytes = 0;
+    for(final FTIndexTree tree : trees) {
+      if(tree != null) bytes += tree.bytes();
+    }
+    return bytes;
+  }
+
   /**
    * Initializes all trees for adding new full-text data.
    */
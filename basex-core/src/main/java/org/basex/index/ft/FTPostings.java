@@ -0,0 +1,236 @@
+package org.basex.index.ft;
+
+import java.io.*;
+
+import org.basex.io.out.DataOutput;
+import org.basex.io.random.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * This class reads and writes the postings of a full-text index entry.
+ *
+ * The ID/POS pairs of an entry are sorted and split into blocks of {@link #BLOCK} pairs.
+ * Each block starts with a header, which contains the last ID of the block and the number of
+ * bits required for the ID gaps and the positions. The header is followed by the bit-packed
+ * gaps and positions. As the size of a block can be computed from its header, the header also
+ * serves as skip pointer: blocks with IDs smaller than a target value can be skipped without
+ * decoding them.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+final class FTPostings {
+  /** Number of postings per block. */
+  static final int BLOCK = 128;
+  /** Size of a block header. */
+  private static final int HEADER = 6;
+
+  /** Data access. */
+  private final DataAccess da;
+  /** IDs of the current block. */
+  private final int[] ids = new int[BLOCK];
+  /** Positions of the current block. */
+  private final int[] pos = new int[BLOCK];
+  /** Offset of the next block. */
+  private long off;
+  /** Number of postings that have not been decoded yet. */
+  private int remaining;
+  /** Last ID of the previous block. */
+  private int base;
+  /** Number of postings in the current block. */
+  private int count;
+  /** Index of the current posting ({@code -1} if no posting has been requested yet). */
+  private int current = -1;
+
+  /**
+   * Constructor.
+   * @param da data access
+   * @param off offset of the first block
+   * @param size number of postings
+   */
+  FTPostings(final DataAccess da, final long off, final int size) {
+    this.da = da;
+    this.off = off;
+    remaining = size;
+  }
+
+  /**
+   * Moves to the next posting.
+   * @return {@code true} if a posting was found
+   */
+  boolean next() {
+    if(++current < count) return true;
+    if(remaining == 0) return false;
+    block(da.readBytes(off, HEADER));
+    return true;
+  }
+
+  /**
+   * Moves to the first posting with an ID that is equal to or greater than the specified
+   * value. Must be called after a successful call of {@link #next()}.
+   * @param id target ID
+   * @return {@code true} if a posting was found
+   */
+  boolean skip(final int id) {
+    if(ids[count - 1] < id) {
+      // skip blocks with smaller IDs without decoding them
+      while(true) {
+        if(remaining == 0) {
+          current = count;
+          return false;
+        }
+        final byte[] header = da.readBytes(off, HEADER);
+        final int last = last(header);
+        if(last >= id) {
+          block(header);
+          break;
+        }
+        final int c = Math.min(BLOCK, remaining);
+        off += HEADER + length(c, header);
+        remaining -= c;
+        base = last;
+      }
+    }
+    while(ids[current] < id) current++;
+    return true;
+  }
+
+  /**
+   * Returns the ID of the current posting.
+   * @return ID
+   */
+  int id() {
+    return ids[current];
+  }
+
+  /**
+   * Returns the position of the current posting.
+   * @return position
+   */
+  int pos() {
+    return pos[current];
+  }
+
+  /**
+   * Decodes the next block.
+   * @param header block header
+   */
+  private void block(final byte[] header) {
+    final int ib = header[4], pb = header[5];
+    count = Math.min(BLOCK, remaining);
+    final int length = length(count, header);
+    final byte[] packed = da.readBytes(off + HEADER, length);
+    int id = base;
+    for(int c = 0, bp = 0; c < count; c++) {
+      id += unpack(packed, bp, ib);
+      ids[c] = id;
+      pos[c] = unpack(packed, bp + ib, pb);
+      bp += ib + pb;
+    }
+    off += HEADER + length;
+    remaining -= count;
+    base = last(header);
+    current = 0;
+  }
+
+  /**
+   * Writes the postings of an index entry.
+   * @param out output stream
+   * @param il IDs
+   * @param pl positions
+   * @throws IOException I/O exception
+   */
+  static void write(final DataOutput out, final IntList il, final IntList pl)
+      throws IOException {
+
+    // sort postings if IDs are not ascending (updatable index)
+    final int size = il.size();
+    int[] order = null;
+    for(int s = 1; s < size && order == null; s++) {
+      if(il.get(s - 1) > il.get(s)) {
+        final long[] v = new long[size];
+        for(int i = 0; i < size; i++) v[i] = (long) il.get(i) << 32 | pl.get(i);
+        order = Array.createOrder(v, true);
+      }
+    }
+
+    final int[] ids = new int[BLOCK], pos = new int[BLOCK];
+    int base = 0;
+    for(int start = 0; start < size; start += BLOCK) {
+      final int count = Math.min(BLOCK, size - start);
+      int gaps = 0, poss = 0;
+      for(int c = 0; c < count; c++) {
+        final int o = order != null ? order[start + c] : start + c;
+        ids[c] = il.get(o);
+        pos[c] = pl.get(o);
+        gaps |= ids[c] - (c == 0 ? base : ids[c - 1]);
+        poss |= pos[c];
+      }
+      final int ib = 32 - Integer.numberOfLeadingZeros(gaps);
+      final int pb = 32 - Integer.numberOfLeadingZeros(poss);
+
+      // write header and packed values
+      final byte[] packed = new byte[count * (ib + pb) + 7 >>> 3];
+      for(int c = 0, bp = 0; c < count; c++) {
+        pack(packed, bp, ib, ids[c] - (c == 0 ? base : ids[c - 1]));
+        pack(packed, bp + ib, pb, pos[c]);
+        bp += ib + pb;
+      }
+      base = ids[count - 1];
+      out.write4(base);
+      out.write1(ib);
+      out.write1(pb);
+      out.writeBytes(packed);
+    }
+  }
+
+  /**
+   * Returns the last ID of a block.
+   * @param header block header
+   * @return ID
+   */
+  private static int last(final byte[] header) {
+    return (header[0] & 0xFF) << 24 | (header[1] & 0xFF) << 16 | (header[2] & 0xFF) << 8 |
+      header[3] & 0xFF;
+  }
+
+  /**
+   * Returns the number of bytes of the packed values of a block.
+   * @param count number of postings
+   * @param header block header
+   * @return number of bytes
+   */
+  private static int length(final int count, final byte[] header) {
+    return count * (header[4] + header[5]) + 7 >>> 3;
+  }
+
+  /**
+   * Writes a bit-packed value.
+   * @param packed packed values
+   * @param bp bit position
+   * @param bits number of bits
+   * @param value value
+   */
+  private static void pack(final byte[] packed, final int bp, final int bits, final int value) {
+    if(bits == 0) return;
+    final int ix = bp >>> 3, sh = bp & 7, bl = sh + bits + 7 >>> 3;
+    final long v = (value & 0xFFFFFFFFL) << sh;
+    for(int l = 0; l < bl; l++) packed[ix + l] |= (byte) (v >>> (l << 3));
+  }
+
+  /**
+   * Reads a bit-packed value.
+   * @param packed packed values
+   * @param bp bit position
+   * @param bits number of bits
+   * @return value
+   */
+  private static int unpack(final byte[] packed, final int bp, final int bits) {
+    if(bits == 0) return 0;
+    final int ix = bp >>> 3, sh = bp & 7, bl = sh + bits + 7 >>> 3;
+    long v = 0;
+    for(int l = 0; l < bl; l++) v |= (packed[ix + l] & 0xFFL) << (l << 3);
+    return (int) (v >>> sh & (1L << bits) - 1);
+  }
+}
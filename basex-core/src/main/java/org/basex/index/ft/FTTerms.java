@@ -0,0 +1,145 @@
+package org.basex.index.ft;
+
+import static org.basex.util.Token.*;
+
+import java.util.*;
+
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * This class contains the lexicographically sorted tokens of a full-text index.
+ *
+ * The tokens can be intersected with an automaton (see {@link Matcher}), which checks
+ * prefixes of tokens incrementally. The states of a common prefix are reused for subsequent
+ * tokens, and if a prefix is rejected, all tokens starting with this prefix are skipped.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+final class FTTerms {
+  /** Tokens (sorted). */
+  private final byte[][] tokens;
+  /** Offsets of the tokens in the index. */
+  private final int[] offsets;
+
+  /**
+   * Constructor.
+   * @param tokens tokens
+   * @param offsets offsets of the tokens in the index
+   */
+  FTTerms(final TokenList tokens, final IntList offsets) {
+    this.tokens = tokens.finish();
+    final int[] order = Array.createOrder(this.tokens, false, true);
+    final int tl = order.length;
+    this.offsets = new int[tl];
+    for(int t = 0; t < tl; t++) this.offsets[t] = offsets.get(order[t]);
+  }
+
+  /**
+   * Returns the tokens that start with the specified prefix and that are accepted
+   * by the specified matcher.
+   * @param prefix prefix
+   * @param matcher matcher
+   * @return indexes of the tokens
+   */
+  IntList find(final byte[] prefix, final Matcher matcher) {
+    final IntList list = new IntList();
+    final int end = upper(prefix, lower(prefix), tokens.length);
+    int[] cps = {};
+    for(int i = lower(prefix), valid = 0; i < end;) {
+      final byte[] token = tokens[i];
+      final int[] tcps = cps(token);
+      final int tl = tcps.length;
+      // skip the codepoints of the common prefix
+      int d = 0;
+      while(d < valid && d < tl && cps[d] == tcps[d]) d++;
+      while(d < tl && matcher.step(tcps[d], d)) d++;
+      cps = tcps;
+      valid = d;
+      if(d < tl) {
+        // prefix was rejected: skip all tokens with this prefix
+        int b = 0;
+        for(int c = 0; c <= d; c++) b += cl(token, b);
+        i = upper(Arrays.copyOf(token, b), i + 1, end);
+      } else {
+        if(matcher.accept(tl)) list.add(i);
+        i++;
+      }
+    }
+    return list;
+  }
+
+  /**
+   * Returns a token.
+   * @param index index of the token
+   * @return token
+   */
+  byte[] token(final int index) {
+    return tokens[index];
+  }
+
+  /**
+   * Returns the offset of a token in the index.
+   * @param index index of the token
+   * @return offset
+   */
+  int offset(final int index) {
+    return offsets[index];
+  }
+
+  /**
+   * Returns the index of the first token that is equal to or greater than the specified prefix.
+   * @param prefix prefix
+   * @return index
+   */
+  private int lower(final byte[] prefix) {
+    int l = 0, h = tokens.length;
+    while(l < h) {
+      final int m = l + h >>> 1;
+      if(compare(tokens[m], prefix) < 0) l = m + 1;
+      else h = m;
+    }
+    return l;
+  }
+
+  /**
+   * Returns the index of the first token in the specified range that is greater than all
+   * tokens starting with the specified prefix.
+   * @param prefix prefix
+   * @param low first index
+   * @param high index after the last index
+   * @return index
+   */
+  private int upper(final byte[] prefix, final int low, final int high) {
+    final int pl = prefix.length;
+    int l = low, h = high;
+    while(l < h) {
+      final int m = l + h >>> 1;
+      final byte[] token = tokens[m];
+      if(compare(token.length > pl ? Arrays.copyOf(token, pl) : token, prefix) <= 0) l = m + 1;
+      else h = m;
+    }
+    return l;
+  }
+
+  /**
+   * Automaton that checks tokens codepoint by codepoint.
+   */
+  interface Matcher {
+    /**
+     * Consumes a codepoint of a token.
+     * @param cp codepoint
+     * @param depth number of codepoints of the token that have already been consumed
+     * @return {@code false} if no token with the consumed prefix can be accepted
+     */
+    boolean step(int cp, int depth);
+
+    /**
+     * Checks if a token is accepted.
+     * @param depth number of consumed codepoints
+     * @return result of check
+     */
+    boolean accept(int depth);
+  }
+}
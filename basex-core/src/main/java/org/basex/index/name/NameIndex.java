@@ -0,0 +1,178 @@
+package org.basex.index.name;
+
+import static org.basex.data.DataText.*;
+
+import java.io.*;
+
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.io.out.DataOutput;
+import org.basex.io.random.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * This class indexes the PRE values of all elements and attributes by their name IDs.
+ * It is used to evaluate descendant steps with name tests without traversing the table.
+ *
+ * The index is stored in a file with the suffix {@value DataText#DATANAM}: For each element
+ * and attribute name ID, the number of PRE values is followed by the gaps between the sorted
+ * PRE values. The entries are followed by their offsets and by the offset of the first offset.
+ * As PRE values change with updates, the index can only be used if the structural
+ * information of the database is up-to-date.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class NameIndex {
+  /** Data reference. */
+  private final Data data;
+  /** Data access (lazy instantiation). */
+  private DataAccess da;
+  /** Offsets of the element entries (lazy instantiation). */
+  private long[] elems;
+  /** Offsets of the attribute entries (lazy instantiation). */
+  private long[] attrs;
+
+  /**
+   * Constructor.
+   * @param data data reference
+   */
+  public NameIndex(final Data data) {
+    this.data = data;
+  }
+
+  /**
+   * Checks if the index can be used for queries.
+   * @return result of check
+   */
+  public boolean available() {
+    final MetaData meta = data.meta;
+    return meta.nameindex && meta.uptodate && meta.dbFile(DATANAM).exists();
+  }
+
+  /**
+   * Returns the number of nodes with the specified names.
+   * @param kind node kind ({@link Data#ELEM} or {@link Data#ATTR})
+   * @param ids name IDs
+   * @return number of nodes
+   */
+  public synchronized long count(final int kind, final IntList ids) {
+    final long[] offsets = offsets(kind);
+    long count = 0;
+    for(final int id : ids.toArray()) {
+      if(id < offsets.length) count += da.readNum(offsets[id]);
+    }
+    return count;
+  }
+
+  /**
+   * Returns the sorted PRE values of the nodes with the specified names.
+   * @param kind node kind ({@link Data#ELEM} or {@link Data#ATTR})
+   * @param ids name IDs
+   * @return PRE values
+   */
+  public synchronized int[] pres(final int kind, final IntList ids) {
+    final long[] offsets = offsets(kind);
+    final IntList pres = new IntList();
+    for(final int id : ids.toArray()) {
+      if(id >= offsets.length) continue;
+      da.cursor(offsets[id]);
+      for(int c = da.readNum(), pre = 0; c > 0; c--) {
+        pre += da.readNum();
+        pres.add(pre);
+      }
+    }
+    // merge entries of different names
+    return ids.size() > 1 ? pres.sort().finish() : pres.finish();
+  }
+
+  /**
+   * Creates or updates the index.
+   * @param start PRE value of the first new node ({@code -1}: create new index)
+   * @throws IOException I/O exception
+   */
+  public synchronized void create(final int start) throws IOException {
+    final IOFile file = data.meta.dbFile(DATANAM);
+    final IntList[] el = lists(Data.ELEM, start != -1 && file.exists());
+    final IntList[] at = lists(Data.ATTR, start != -1 && file.exists());
+    final int size = data.meta.size;
+    for(int pre = start == -1 || !file.exists() ? 0 : start; pre < size; pre++) {
+      final int kind = data.kind(pre);
+      if(kind == Data.ELEM) el[data.nameId(pre)].add(pre);
+      else if(kind == Data.ATTR) at[data.nameId(pre)].add(pre);
+    }
+
+    close();
+    try(DataOutput out = new DataOutput(file)) {
+      final LongList offsets = new LongList();
+      for(final IntList[] lists : new IntList[][] { el, at }) {
+        for(final IntList list : lists) {
+          offsets.add(out.size());
+          out.writeDiffs(list);
+        }
+      }
+      final long off = out.size();
+      out.writeNum(el.length);
+      out.writeNum(at.length);
+      for(final long o : offsets.finish()) out.write5(o);
+      out.write5(off);
+    }
+  }
+
+  /**
+   * Deletes the index file.
+   */
+  public synchronized void drop() {
+    close();
+    data.meta.dbFile(DATANAM).delete();
+  }
+
+  /**
+   * Closes the index file.
+   */
+  public synchronized void close() {
+    if(da != null) {
+      da.close();
+      da = null;
+    }
+    elems = null;
+    attrs = null;
+  }
+
+  /**
+   * Returns the PRE values of all existing entries, or new empty lists.
+   * @param kind node kind
+   * @param existing read existing entries
+   * @return lists, indexed by name IDs
+   */
+  private IntList[] lists(final int kind, final boolean existing) {
+    final int size = (kind == Data.ELEM ? data.elemNames : data.attrNames).size() + 1;
+    final IntList[] lists = new IntList[size];
+    for(int id = 0; id < size; id++) {
+      lists[id] = existing ? new IntList(pres(kind, new IntList(1).add(id))) : new IntList();
+    }
+    return lists;
+  }
+
+  /**
+   * Returns the offsets of the entries of the specified node kind.
+   * @param kind node kind
+   * @return offsets
+   */
+  private long[] offsets(final int kind) {
+    if(da == null) {
+      try {
+        da = new DataAccess(data.meta.dbFile(DATANAM));
+      } catch(final IOException ex) {
+        throw Util.notExpected(ex);
+      }
+      da.cursor(da.read5(da.length() - 5));
+      elems = new long[da.readNum()];
+      attrs = new long[da.readNum()];
+      for(int e = 0; e < elems.length; e++) elems[e] = da.read5();
+      for(int a = 0; a < attrs.length; a++) attrs[a] = da.read5();
+    }
+    return kind == Data.ELEM ? elems : attrs;
+  }
+}
@@ -0,0 +1,194 @@
+package org.basex.index.ngram;
+
+import static org.basex.data.DataText.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.data.*;
+import org.basex.index.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * This class builds an n-gram index for text and attribute values.
+ *
+ * If the temporary structures exceed the memory budget, they are written to partial files,
+ * which are merged in a final step.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class NGramBuilder extends IndexBuilder {
+  /** Temporary index structures: n-grams, referencing PRE values. */
+  private IntObjectMap<IntList> grams = new IntObjectMap<>();
+
+  /**
+   * Constructor.
+   * @param data data reference
+   */
+  public NGramBuilder(final Data data) {
+    super(data, IndexType.NGRAM);
+  }
+
+  @Override
+  protected NGramIndex index() throws IOException {
+    Util.debugln(detailedInfo());
+
+    try {
+      // number of entries when the memory was last checked, and since the last write
+      long checked = 0, written = 0;
+      for(pre = 0; pre < size; ++pre) {
+        if((pre & 0x0FFF) == 0) check();
+        final int kind = data.kind(pre);
+        if(kind != Data.TEXT && kind != Data.ATTR) continue;
+
+        final byte[] value = data.text(pre, kind == Data.TEXT);
+        final int vl = value.length;
+        for(int v = 0; v + NGramIndex.N <= vl; v++) {
+          final IntList list = grams.computeIfAbsent(NGramIndex.gram(value, v), IntList::new);
+          // add each node only once
+          if(list.isEmpty() || list.peek() != pre) {
+            list.add(pre);
+            count++;
+          }
+        }
+        // estimate memory consumption of the current structures: PRE values and list instances
+        if(count - checked > 0x3FF) {
+          checked = count;
+          if(splitRequired((count - written) * 4 + grams.size() * 64L)) {
+            write(DATANGR + splits++);
+            written = count;
+          }
+        }
+      }
+
+      if(splits == 0) {
+        write(DATANGR);
+      } else {
+        write(DATANGR + splits++);
+        merge();
+      }
+      grams = null;
+      finishIndex();
+      return new NGramIndex(data);
+    } catch(final Throwable th) {
+      // drop index files
+      data.meta.drop(DATANGR + ".*");
+      throw th;
+    }
+  }
+
+  /**
+   * Writes the temporary structures to disk. Partial files contain the number of n-grams,
+   * followed by the sorted n-grams and their PRE values.
+   * @param name name of the file
+   * @throws IOException I/O exception
+   */
+  private void write(final String name) throws IOException {
+    final int[] keys = grams.keys();
+    Arrays.sort(keys);
+    try(DataOutput out = new DataOutput(data.meta.dbFile(name))) {
+      if(name.equals(DATANGR)) {
+        final Entries entries = new Entries(out);
+        for(final int key : keys) entries.add(key, grams.get(key));
+        entries.finish();
+      } else {
+        out.writeNum(keys.length);
+        for(final int key : keys) {
+          out.writeNum(key);
+          out.writeDiffs(grams.get(key));
+        }
+      }
+    }
+    grams = new IntObjectMap<>();
+  }
+
+  /**
+   * Merges partial files. As the files were written in ascending order of the indexed nodes,
+   * the PRE values of an n-gram can be concatenated.
+   * @throws IOException I/O exception
+   */
+  private void merge() throws IOException {
+    final DataInput[] ins = new DataInput[splits];
+    final int[] remaining = new int[splits], keys = new int[splits];
+    try(DataOutput out = new DataOutput(data.meta.dbFile(DATANGR))) {
+      for(int s = 0; s < splits; s++) {
+        ins[s] = new DataInput(data.meta.dbFile(DATANGR + s));
+        remaining[s] = ins[s].readNum();
+        keys[s] = remaining[s] > 0 ? ins[s].readNum() : Integer.MAX_VALUE;
+      }
+
+      final Entries entries = new Entries(out);
+      while(true) {
+        int min = Integer.MAX_VALUE;
+        for(final int key : keys) min = Math.min(min, key);
+        if(min == Integer.MAX_VALUE) break;
+
+        final IntList pres = new IntList();
+        for(int s = 0; s < splits; s++) {
+          if(keys[s] != min) continue;
+          pres.add(ins[s].readDiffs().finish());
+          keys[s] = --remaining[s] > 0 ? ins[s].readNum() : Integer.MAX_VALUE;
+        }
+        entries.add(min, pres);
+      }
+      entries.finish();
+    } finally {
+      for(int s = 0; s < splits; s++) {
+        if(ins[s] != null) ins[s].close();
+        data.meta.dbFile(DATANGR + s).delete();
+      }
+    }
+  }
+
+  /**
+   * Writes the entries of the final index file.
+   */
+  private static final class Entries {
+    /** Output stream. */
+    private final DataOutput out;
+    /** N-grams. */
+    private final IntList keys = new IntList();
+    /** Offsets of the entries. */
+    private final LongList offsets = new LongList();
+
+    /**
+     * Constructor.
+     * @param out output stream
+     */
+    private Entries(final DataOutput out) {
+      this.out = out;
+    }
+
+    /**
+     * Writes the PRE values of an n-gram.
+     * @param key n-gram
+     * @param pres PRE values
+     * @throws IOException I/O exception
+     */
+    private void add(final int key, final IntList pres) throws IOException {
+      keys.add(key);
+      offsets.add(out.size());
+      out.writeDiffs(pres);
+    }
+
+    /**
+     * Writes the n-grams and the offsets of their entries.
+     * @throws IOException I/O exception
+     */
+    private void finish() throws IOException {
+      final long off = out.size();
+      final int ks = keys.size();
+      out.writeNum(ks);
+      for(int k = 0; k < ks; k++) {
+        out.writeNum(keys.get(k));
+        out.write5(offsets.get(k));
+      }
+      out.write5(off);
+    }
+  }
+}
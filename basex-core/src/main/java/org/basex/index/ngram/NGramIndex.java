@@ -0,0 +1,224 @@
+package org.basex.index.ngram;
+
+import static org.basex.core.Text.*;
+import static org.basex.data.DataText.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.core.*;
+import org.basex.data.*;
+import org.basex.index.*;
+import org.basex.index.query.*;
+import org.basex.index.value.*;
+import org.basex.io.random.*;
+import org.basex.query.util.index.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * This class provides access to an n-gram index, which contains the PRE values of all text and
+ * attribute nodes that contain a specific sequence of {@link #N} bytes.
+ *
+ * The index returns candidates for substring searches: A node can only contain a search string
+ * if it contains all n-grams of this string. The candidates must be verified by the caller.
+ * The index is stored in a file with the suffix {@value DataText#DATANGR}: The PRE values of
+ * each n-gram are followed by the sorted n-grams and the offsets of their entries, and by the
+ * offset of the first n-gram.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class NGramIndex extends ValueIndex {
+  /** Length of the n-grams. */
+  public static final int N = 3;
+
+  /** Data access. */
+  private final DataAccess da;
+  /** Sorted n-grams. */
+  private final int[] grams;
+  /** Offsets of the entries. */
+  private final long[] offsets;
+
+  /**
+   * Constructor, initializing the index structure.
+   * @param data data reference
+   * @throws IOException I/O Exception
+   */
+  public NGramIndex(final Data data) throws IOException {
+    super(data, IndexType.NGRAM);
+    da = new DataAccess(data.meta.dbFile(DATANGR));
+    da.cursor(da.read5(da.length() - 5));
+    final int size = da.readNum();
+    grams = new int[size];
+    offsets = new long[size];
+    for(int g = 0; g < size; g++) {
+      grams[g] = da.readNum();
+      offsets[g] = da.read5();
+    }
+  }
+
+  /**
+   * Returns the n-gram at the specified position of a token.
+   * @param token token
+   * @param pos position
+   * @return n-gram
+   */
+  static int gram(final byte[] token, final int pos) {
+    return (token[pos] & 0xFF) << 16 | (token[pos + 1] & 0xFF) << 8 | token[pos + 2] & 0xFF;
+  }
+
+  @Override
+  public synchronized IndexIterator iter(final IndexSearch search) {
+    final int[] entries = entries(search.token());
+    if(entries == null) return IndexIterator.EMPTY;
+
+    // intersect entries, starting with the smallest one
+    final int el = entries.length;
+    final int[] sizes = new int[el];
+    for(int e = 0; e < el; e++) sizes[e] = da.readNum(offsets[entries[e]]);
+    final int[] order = Array.createOrder(sizes, true);
+    IntList pres = pres(entries[order[0]], null);
+    for(int o = 1; o < el && !pres.isEmpty(); o++) pres = pres(entries[order[o]], pres);
+
+    final int[] result = pres.finish();
+    return new IndexIterator() {
+      int p = -1;
+
+      @Override
+      public boolean more() {
+        return ++p < result.length;
+      }
+
+      @Override
+      public int pre() {
+        return result[p];
+      }
+
+      @Override
+      public int size() {
+        return result.length;
+      }
+    };
+  }
+
+  @Override
+  public synchronized IndexCosts costs(final IndexSearch search) {
+    final byte[] token = search.token();
+    if(token.length < N) return null;
+    final int[] entries = entries(token);
+    if(entries == null) return IndexCosts.ZERO;
+
+    // the number of results is limited by the size of the smallest entry
+    int min = Integer.MAX_VALUE;
+    for(final int entry : entries) min = Math.min(min, da.readNum(offsets[entry]));
+    return IndexCosts.get(min);
+  }
+
+  @Override
+  public byte[] info(final MainOptions options) {
+    final TokenBuilder tb = new TokenBuilder();
+    tb.add(LI_STRUCTURE).add(SORTED_LIST).add(NL);
+    tb.add(LI_SIZE).add(Performance.formatHuman(da.length())).add(NL);
+    tb.add(LI_ENTRIES).addInt(grams.length).add(NL);
+    return tb.finish();
+  }
+
+  @Override
+  public EntryIterator entries(final IndexEntries entries) {
+    final byte[] prefix = entries.token();
+    return new EntryIterator() {
+      int g = -1, count;
+
+      @Override
+      public byte[] next() {
+        while(++g < grams.length) {
+          final int gram = grams[g];
+          final byte[] token = { (byte) (gram >>> 16), (byte) (gram >>> 8), (byte) gram };
+          if(Token.startsWith(token, prefix)) {
+            synchronized(NGramIndex.this) {
+              count = da.readNum(offsets[g]);
+            }
+            return token;
+          }
+        }
+        return null;
+      }
+
+      @Override
+      public int count() {
+        return count;
+      }
+    };
+  }
+
+  @Override
+  public int size() {
+    return grams.length;
+  }
+
+  @Override
+  public void add(final ValueCache values) {
+    throw Util.notExpected();
+  }
+
+  @Override
+  public void delete(final ValueCache values) {
+    throw Util.notExpected();
+  }
+
+  @Override
+  public void flush() {
+  }
+
+  @Override
+  public boolean drop() {
+    return data.meta.drop(DATANGR + ".*");
+  }
+
+  @Override
+  public synchronized void close() {
+    da.close();
+  }
+
+  /**
+   * Returns the positions of the distinct n-grams of a token.
+   * @param token token
+   * @return positions, or {@code null} if an n-gram is not found
+   */
+  private int[] entries(final byte[] token) {
+    final IntSet set = new IntSet();
+    final int tl = token.length;
+    for(int t = 0; t + N <= tl; t++) {
+      final int e = Arrays.binarySearch(grams, gram(token, t));
+      if(e < 0) return null;
+      set.add(e);
+    }
+    return set.keys();
+  }
+
+  /**
+   * Decodes the PRE values of an entry.
+   * @param entry position of the entry
+   * @param filter sorted PRE values to intersect with (can be {@code null})
+   * @return PRE values
+   */
+  private IntList pres(final int entry, final IntList filter) {
+    da.cursor(offsets[entry]);
+    final int size = da.readNum();
+    final IntList pres = new IntList(filter != null ? Math.min(size, filter.size()) : size);
+    for(int s = 0, pre = 0, f = 0; s < size; s++) {
+      pre += da.readNum();
+      if(filter == null) {
+        pres.add(pre);
+      } else {
+        final int fs = filter.size();
+        while(f < fs && filter.get(f) < pre) f++;
+        if(f == fs) break;
+        if(filter.get(f) == pre) pres.add(pre);
+      }
+    }
+    return pres;
+  }
+}
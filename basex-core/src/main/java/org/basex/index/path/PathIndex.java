@@ -86,6 +86,14 @@ public final class PathIndex implements Index {
     stack.add(root);
   }
 
+  /**
+   * Prepares the index for adding new documents.
+   */
+  public void resume() {
+    stack.clear();
+    stack.add(root);
+  }
+
   @Override
   public void close() { }
 
@@ -134,6 +142,16 @@ public final class PathIndex implements Index {
     return out;
   }
 
+  /**
+   * Returns all nodes in document order. The positions of the nodes serve as path IDs.
+   * @return nodes
+   */
+  public ArrayList<PathNode> nodes() {
+    final ArrayList<PathNode> out = new ArrayList<>();
+    root.addDesc(out);
+    return out;
+  }
+
   /**
    * Returns all parents of the specified nodes.
    * Called by the query optimizer.
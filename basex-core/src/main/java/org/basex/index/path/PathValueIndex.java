@@ -0,0 +1,432 @@
+package org.basex.index.path;
+
+import static org.basex.data.DataText.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.io.random.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * This class indexes text and attribute values by the path on which they occur.
+ * Path IDs are the positions of the nodes of the {@link PathIndex} in document order.
+ * The index is used to evaluate equality comparisons on statically known paths without
+ * verifying the ancestors of the results.
+ *
+ * The index is stored in a file with the suffix {@value DataText#DATAPVL}: The gaps between
+ * the sorted PRE values of all entries are followed by the keys (path ID, value, and offset of
+ * the entry), sorted by path ID and value, by the offsets of the keys and by the offset of the
+ * first key offset. As PRE values and path IDs change with updates, the index can only be used
+ * if the structural information of the database is up-to-date.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class PathValueIndex {
+  /** Data reference. */
+  private final Data data;
+  /** Data access (lazy instantiation). */
+  private DataAccess da;
+  /** Offset of the first key offset. */
+  private long offsets;
+  /** Number of keys. */
+  private int size;
+
+  /**
+   * Constructor.
+   * @param data data reference
+   */
+  public PathValueIndex(final Data data) {
+    this.data = data;
+  }
+
+  /**
+   * Checks if the index can be used for queries.
+   * @return result of check
+   */
+  public boolean available() {
+    final MetaData meta = data.meta;
+    return meta.pathvalueindex && meta.uptodate && meta.dbFile(DATAPVL).exists();
+  }
+
+  /**
+   * Returns the IDs of the specified path nodes.
+   * @param nodes path nodes
+   * @return path IDs
+   */
+  public IntList ids(final ArrayList<PathNode> nodes) {
+    final ArrayList<PathNode> all = data.paths.nodes();
+    final IntList ids = new IntList(nodes.size());
+    for(final PathNode node : nodes) ids.add(all.indexOf(node));
+    return ids.sort();
+  }
+
+  /**
+   * Returns the number of nodes with the specified value on the specified paths.
+   * @param ids path IDs
+   * @param value value
+   * @return number of nodes
+   */
+  public synchronized long count(final IntList ids, final byte[] value) {
+    long count = 0;
+    for(final int id : ids.toArray()) {
+      final long off = entry(id, value);
+      if(off != -1) count += da.readNum(off);
+    }
+    return count;
+  }
+
+  /**
+   * Returns the sorted PRE values of the nodes with the specified value on the specified paths.
+   * @param ids path IDs
+   * @param value value
+   * @return PRE values
+   */
+  public synchronized int[] pres(final IntList ids, final byte[] value) {
+    final IntList pres = new IntList();
+    int entries = 0;
+    for(final int id : ids.toArray()) {
+      final long off = entry(id, value);
+      if(off == -1) continue;
+      da.cursor(off);
+      for(int c = da.readNum(), pre = 0; c > 0; c--) {
+        pre += da.readNum();
+        pres.add(pre);
+      }
+      entries++;
+    }
+    // merge entries of different paths
+    return entries > 1 ? pres.sort().finish() : pres.finish();
+  }
+
+  /**
+   * Returns the paths of the specified path IDs, represented as predicate that can be applied
+   * to the resulting nodes.
+   * @param ids path IDs
+   * @return predicate
+   */
+  public byte[] paths(final IntList ids) {
+    final ArrayList<PathNode> all = data.paths.nodes();
+    final TokenBuilder tb = new TokenBuilder();
+    for(final int id : ids.toArray()) {
+      if(!tb.isEmpty()) tb.add(" or ");
+      PathNode node = all.get(id);
+      if(node.kind == Data.ATTR) {
+        tb.add("self::attribute(").add(data.attrNames.key(node.name)).add(")/");
+      }
+      for(node = node.parent; node != null; node = node.parent) {
+        tb.add("parent::").add(node.kind == Data.DOC ? Token.token("document-node()") :
+          data.elemNames.key(node.name));
+        if(node.parent != null) tb.add('/');
+      }
+    }
+    return tb.finish();
+  }
+
+  /**
+   * Creates the index. If the main memory limit is reached, sorted partial files are written
+   * and merged when all nodes have been parsed.
+   * @throws IOException I/O exception
+   */
+  public synchronized void create() throws IOException {
+    close();
+    try {
+      final int splits = parse();
+      if(splits != 0) merge(splits);
+    } catch(final Throwable th) {
+      // remove the final and all partial files
+      data.meta.drop(DATAPVL + ".*");
+      throw th;
+    }
+  }
+
+  /**
+   * Assigns the PRE values of texts and attributes to their paths and values.
+   * @return number of partial files (if {@code 0}, the final file has been written)
+   * @throws IOException I/O exception
+   */
+  private int parse() throws IOException {
+    final ArrayList<PathNode> all = data.paths.nodes();
+    final HashMap<PathNode, Integer> ids = new HashMap<>();
+    for(final PathNode node : all) ids.put(node, ids.size());
+
+    IntObjectMap<TokenObjectMap<IntList>> map = new IntObjectMap<>();
+    final ArrayList<PathNode> stack = new ArrayList<>();
+    final IntList pars = new IntList();
+    final int size = data.meta.size, maxlen = data.meta.maxlen;
+    long bytes = 0;
+    int splits = 0;
+    for(int pre = 0; pre < size; pre++) {
+      final int kind = data.kind(pre), par = data.parent(pre, kind);
+      while(!pars.isEmpty() && pars.peek() > par) {
+        pars.pop();
+        stack.remove(stack.size() - 1);
+      }
+      final PathNode node = kind == Data.DOC ? all.get(0) : stack.isEmpty() ? null :
+        child(stack.get(stack.size() - 1), kind == Data.ELEM || kind == Data.ATTR ?
+          data.nameId(pre) : 0, kind);
+      if(kind == Data.DOC || kind == Data.ELEM) {
+        pars.push(pre);
+        stack.add(node);
+      } else if(node != null && (kind == Data.TEXT || kind == Data.ATTR)) {
+        final byte[] value = data.text(pre, kind == Data.TEXT);
+        if(value.length != 0 && value.length <= maxlen) {
+          final TokenObjectMap<IntList> values = map.computeIfAbsent(ids.get(node),
+            TokenObjectMap::new);
+          final int vs = values.size();
+          values.computeIfAbsent(value, IntList::new).add(pre);
+          // estimated memory consumption of the PRE value and of a new entry
+          bytes += vs == values.size() ? 4 : 64 + value.length;
+          if(bytes > Prop.indexmemory) {
+            try(DataOutput out = new DataOutput(data.meta.dbFile(DATAPVL + splits++))) {
+              write(map, out, null);
+            }
+            map = new IntObjectMap<>();
+            bytes = 0;
+          }
+        }
+      }
+    }
+
+    if(splits == 0) {
+      try(DataOutput out = new DataOutput(data.meta.dbFile(DATAPVL))) {
+        final Entries entries = new Entries(out);
+        write(map, null, entries);
+        entries.finish();
+      }
+    } else if(!map.isEmpty()) {
+      try(DataOutput out = new DataOutput(data.meta.dbFile(DATAPVL + splits++))) {
+        write(map, out, null);
+      }
+    }
+    return splits;
+  }
+
+  /**
+   * Writes the entries of a map, sorted by path IDs and values.
+   * @param map map with path IDs, values and PRE values
+   * @param part partial file (ignored if {@code entries} is specified)
+   * @param entries entries of the final file (can be {@code null})
+   * @throws IOException I/O exception
+   */
+  private static void write(final IntObjectMap<TokenObjectMap<IntList>> map,
+      final DataOutput part, final Entries entries) throws IOException {
+
+    final int[] keys = map.keys();
+    Arrays.sort(keys);
+    if(entries == null) {
+      int count = 0;
+      for(final int key : keys) count += map.get(key).size();
+      part.writeNum(count);
+    }
+    for(final int key : keys) {
+      final TokenObjectMap<IntList> values = map.get(key);
+      final byte[][] tokens = values.keys();
+      Arrays.sort(tokens, Token.COMPARATOR);
+      for(final byte[] token : tokens) {
+        if(entries != null) {
+          entries.add(key, token, values.get(token));
+        } else {
+          part.writeNum(key);
+          part.writeToken(token);
+          part.writeDiffs(values.get(token));
+        }
+      }
+    }
+  }
+
+  /**
+   * Merges partial files. As the nodes are parsed in document order, the PRE values of
+   * an entry can be concatenated in the order of the files.
+   * @param splits number of partial files
+   * @throws IOException I/O exception
+   */
+  private void merge(final int splits) throws IOException {
+    final MetaData meta = data.meta;
+    final DataInput[] ins = new DataInput[splits];
+    final int[] counts = new int[splits], keys = new int[splits];
+    final byte[][] tokens = new byte[splits][];
+    try(DataOutput out = new DataOutput(meta.dbFile(DATAPVL))) {
+      for(int s = 0; s < splits; s++) {
+        ins[s] = new DataInput(meta.dbFile(DATAPVL + s));
+        counts[s] = ins[s].readNum();
+        next(ins, counts, keys, tokens, s);
+      }
+      final Entries entries = new Entries(out);
+      while(true) {
+        // find smallest key
+        int min = -1;
+        for(int s = 0; s < splits; s++) {
+          if(tokens[s] != null && (min == -1 || keys[s] < keys[min] ||
+              keys[s] == keys[min] && Token.compare(tokens[s], tokens[min]) < 0)) min = s;
+        }
+        if(min == -1) break;
+
+        // merge PRE values of all files with the same key
+        final int key = keys[min];
+        final byte[] token = tokens[min];
+        final IntList pres = new IntList();
+        for(int s = min; s < splits; s++) {
+          if(tokens[s] != null && keys[s] == key && Token.eq(tokens[s], token)) {
+            pres.add(ins[s].readDiffs().finish());
+            next(ins, counts, keys, tokens, s);
+          }
+        }
+        entries.add(key, token, pres);
+      }
+      entries.finish();
+    } finally {
+      for(int s = 0; s < splits; s++) {
+        if(ins[s] != null) ins[s].close();
+        meta.dbFile(DATAPVL + s).delete();
+      }
+    }
+  }
+
+  /**
+   * Reads the next key of a partial file.
+   * @param ins partial files
+   * @param counts number of remaining keys
+   * @param keys current path IDs
+   * @param tokens current values ({@code null} if a file is exhausted)
+   * @param s index of the file
+   * @throws IOException I/O exception
+   */
+  private static void next(final DataInput[] ins, final int[] counts, final int[] keys,
+      final byte[][] tokens, final int s) throws IOException {
+    if(counts[s]-- > 0) {
+      keys[s] = ins[s].readNum();
+      tokens[s] = ins[s].readToken();
+    } else {
+      tokens[s] = null;
+    }
+  }
+
+  /**
+   * Deletes the index file.
+   */
+  public synchronized void drop() {
+    close();
+    data.meta.dbFile(DATAPVL).delete();
+  }
+
+  /**
+   * Closes the index file.
+   */
+  public synchronized void close() {
+    if(da != null) {
+      da.close();
+      da = null;
+    }
+  }
+
+  /**
+   * Returns the child of a path node with the specified name and kind.
+   * @param node path node (can be {@code null})
+   * @param name name ID
+   * @param kind node kind
+   * @return child or {@code null}
+   */
+  private static PathNode child(final PathNode node, final int name, final int kind) {
+    if(node != null) {
+      for(final PathNode child : node.children) {
+        if(child.kind == kind && child.name == name) return child;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the offset of the entry for the specified path ID and value.
+   * @param id path ID
+   * @param value value
+   * @return offset, or {@code -1} if the entry does not exist
+   */
+  private long entry(final int id, final byte[] value) {
+    if(da == null) {
+      try {
+        da = new DataAccess(data.meta.dbFile(DATAPVL));
+      } catch(final IOException ex) {
+        throw Util.notExpected(ex);
+      }
+      offsets = da.read5(da.length() - 5);
+      size = (int) ((da.length() - 5 - offsets) / 5);
+    }
+    // binary search on keys
+    int l = 0, h = size - 1;
+    while(l <= h) {
+      final int m = l + h >>> 1;
+      da.cursor(da.read5(offsets + 5L * m));
+      int d = Integer.compare(da.readNum(), id);
+      if(d == 0) d = Token.compare(da.readToken(), value);
+      if(d == 0) return da.read5();
+      if(d < 0) l = m + 1;
+      else h = m - 1;
+    }
+    return -1;
+  }
+
+  /**
+   * Entries of the final index file. The keys are cached in a temporary file and appended
+   * to the PRE values when all entries have been added.
+   */
+  private final class Entries {
+    /** Offsets of the keys in the temporary file. */
+    private final LongList offsets = new LongList();
+    /** Index file. */
+    private final DataOutput out;
+    /** Temporary file. */
+    private final IOFile file;
+    /** Temporary key output. */
+    private final DataOutput keys;
+
+    /**
+     * Constructor.
+     * @param out index file
+     * @throws IOException I/O exception
+     */
+    Entries(final DataOutput out) throws IOException {
+      this.out = out;
+      file = data.meta.dbFile(DATAPVL + 'k');
+      keys = new DataOutput(file);
+    }
+
+    /**
+     * Adds an entry.
+     * @param id path ID
+     * @param value value
+     * @param pres sorted PRE values
+     * @throws IOException I/O exception
+     */
+    void add(final int id, final byte[] value, final IntList pres) throws IOException {
+      offsets.add(keys.size());
+      keys.writeNum(id);
+      keys.writeToken(value);
+      keys.write5(out.size());
+      out.writeDiffs(pres);
+    }
+
+    /**
+     * Appends the keys and their offsets.
+     * @throws IOException I/O exception
+     */
+    void finish() throws IOException {
+      keys.close();
+      final long start = out.size();
+      try(DataInput in = new DataInput(file)) {
+        for(int b; (b = in.read()) != -1;) out.write(b);
+      }
+      file.delete();
+      final long off = out.size();
+      for(final long o : offsets.finish()) out.write5(start + o);
+      out.write5(off);
+    }
+  }
+}
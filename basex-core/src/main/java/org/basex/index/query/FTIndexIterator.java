@@ -36,6 +36,19 @@ public abstract class FTIndexIterator implements IndexIterator {
    */
   public abstract void pos(int p);
 
+  /**
+   * Moves to the next result with a PRE value that is equal to or greater than the
+   * specified value. Can be overwritten by iterators that can skip results more efficiently.
+   * @param pre PRE value
+   * @return {@code true} if a result was found
+   */
+  public boolean skip(final int pre) {
+    while(more()) {
+      if(pre() >= pre) return true;
+    }
+    return false;
+  }
+
   /**
    * Merges two index iterators for unions.
    * @param iters index iterators to merge
@@ -61,6 +74,37 @@ public abstract class FTIndexIterator implements IndexIterator {
             if(!ir[i].more()) ir[i] = null;
           }
         }
+        return next();
+      }
+
+      @Override
+      public boolean skip(final int target) {
+        final int il = iters.length;
+        if(ir == null) {
+          ir = new FTIndexIterator[il];
+          for(int i = 0; i < il; i++) {
+            ir[i] = iters[i].skip(target) ? iters[i] : null;
+          }
+        } else {
+          // advance returned iterators and iterators with smaller PRE values
+          final int cs = curr.size();
+          for(int c = 0; c < cs; c++) {
+            final int i = curr.get(c);
+            if(!ir[i].skip(target)) ir[i] = null;
+          }
+          for(int i = 0; i < il; i++) {
+            if(ir[i] != null && ir[i].pre() < target && !ir[i].skip(target)) ir[i] = null;
+          }
+        }
+        return next();
+      }
+
+      /**
+       * Chooses the iterators with the smallest PRE value.
+       * @return {@code true} if a result was found
+       */
+      private boolean next() {
+        final int il = iters.length;
         int pre = Integer.MAX_VALUE;
         for(int i = 0; i < il; i++) {
           if(ir[i] == null) continue;
@@ -135,13 +179,35 @@ public abstract class FTIndexIterator implements IndexIterator {
 
       @Override
       public boolean more() {
-        int d = 0;
+        return next(i1.more(), i2.more());
+      }
+
+      @Override
+      public boolean skip(final int target) {
+        return next(i1.skip(target), i2.skip(target));
+      }
+
+      /**
+       * Returns the next result that is found by both iterators.
+       * The lagging iterator skips all results with smaller PRE values.
+       * @param more1 result of the first iterator
+       * @param more2 result of the second iterator
+       * @return {@code true} if a result was found
+       */
+      private boolean next(final boolean more1, final boolean more2) {
+        iter1 = more1 ? i1 : null;
+        iter2 = more2 ? i2 : null;
         while(true) {
-          if(d <= 0) iter1 = i1.more() ? i1 : null;
-          if(d >= 0) iter2 = i2.more() ? i2 : null;
           if(iter1 == null || iter2 == null) return false;
-          d = iter1.pre() - iter2.pre();
-          if(d != 0) continue;
+          final int d = iter1.pre() - iter2.pre();
+          if(d < 0) {
+            iter1 = i1.skip(iter2.pre()) ? i1 : null;
+            continue;
+          }
+          if(d > 0) {
+            iter2 = i2.skip(iter1.pre()) ? i2 : null;
+            continue;
+          }
           all = iter1.matches();
           final FTMatches all2 = iter2.matches();
           if(dis == 0) {
@@ -152,6 +218,8 @@ public abstract class FTIndexIterator implements IndexIterator {
           } else if(all.phrase(all2, dis)) {
             return true;
           }
+          iter1 = i1.more() ? i1 : null;
+          iter2 = i2.more() ? i2 : null;
         }
       }
 
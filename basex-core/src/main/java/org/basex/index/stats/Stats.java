@@ -4,11 +4,14 @@ import static org.basex.index.stats.StatsType.*;
 import static org.basex.util.Token.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.data.*;
 import org.basex.io.in.DataInput;
 import org.basex.io.out.DataOutput;
+import org.basex.util.*;
 import org.basex.util.hash.*;
+import org.basex.util.list.*;
 
 /**
  * This class provides statistical data for an indexed node.
@@ -17,6 +20,15 @@ import org.basex.util.hash.*;
  * @author Christian Gruen
  */
 public final class Stats {
+  /** Number of buckets of the histogram. */
+  private static final int BUCKETS = 8;
+  /** Maximum number of sampled values. */
+  private static final int SAMPLE = 128;
+  /** Number of bits used for addressing the registers of the distinct value estimator. */
+  private static final int BITS = 8;
+  /** Marker for extended statistics (was a legacy field before). */
+  private static final double EXTENDED = 1;
+
   /** Distinct values (value, number of occurrence). */
   public TokenIntMap values;
   /** Minimum value. */
@@ -28,8 +40,20 @@ public final class Stats {
   /** Data type. */
   public byte type;
 
+  /** Estimated number of distinct values ({@code 0}: unknown). */
+  private int distinct;
+  /** Bounds of the equi-depth histogram of string values (can be {@code null}). */
+  private byte[][] histogram;
+
   /** Leaf node flag. Indicates if all nodes only have a text node as child. */
   private boolean leaf;
+  /** Registers for estimating the number of distinct values (HyperLogLog). Only assigned if
+   * the statistics are created from scratch. */
+  private byte[] registers;
+  /** Sampled values for building the histogram (only assigned together with the registers). */
+  private TokenList sample;
+  /** Number of added values. */
+  private long added;
 
   /**
    * Default constructor.
@@ -40,6 +64,8 @@ public final class Stats {
     min = Double.MAX_VALUE;
     max = -Double.MAX_VALUE;
     leaf = true;
+    registers = new byte[1 << BITS];
+    sample = new TokenList();
   }
 
   /**
@@ -61,7 +87,11 @@ public final class Stats {
     }
     count = in.readNum();
     leaf = in.readBool();
-    in.readDouble();
+    if(in.readDouble() == EXTENDED) {
+      distinct = in.readNum();
+      final byte[][] bounds = in.readTokens();
+      if(bounds.length != 0) histogram = bounds;
+    }
   }
 
   /**
@@ -89,10 +119,13 @@ public final class Stats {
       values.write(out);
     }
 
+    finish();
     out.writeNum(count);
     out.writeBool(leaf);
-    // legacy (required before version 7.1)
-    out.writeDouble(0);
+    // legacy field (required before version 7.1), now indicating extended statistics
+    out.writeDouble(EXTENDED);
+    out.writeNum(distinct);
+    out.writeTokens(histogram != null ? histogram : new byte[0][]);
   }
 
   /**
@@ -104,7 +137,9 @@ public final class Stats {
    * @param meta meta data
    */
   public void add(final byte[] value, final MetaData meta) {
-    byte t = type;
+    // resume analysis of finalized statistics
+    byte t = type == INTEGER_CATEGORY ? INTEGER : type == DOUBLE_CATEGORY ? DOUBLE :
+      type == STRING_CATEGORY ? STRING : type;
     final int vl = value.length;
     // only analyze non-empty values
     if(vl > 0) {
@@ -137,6 +172,27 @@ public final class Stats {
     }
     type = t;
 
+    if(registers != null) {
+      // register value for estimating the number of distinct values
+      final long hash = hash(value);
+      final int r = (int) (hash >>> 64 - BITS);
+      final int zeros = Long.numberOfLeadingZeros(hash << BITS | 1L << BITS - 1) + 1;
+      if(registers[r] < zeros) registers[r] = (byte) zeros;
+      // sample value for building the histogram (reservoir sampling)
+      if(vl <= meta.maxlen) {
+        final long a = ++added;
+        if(a <= SAMPLE) {
+          sample.add(value);
+        } else {
+          final long s = (mix(a) >>> 1) % a;
+          if(s < SAMPLE) sample.set((int) s, value);
+        }
+      }
+    }
+    // invalidate estimates (will be recomputed if registers exist)
+    distinct = 0;
+    histogram = null;
+
     // save distinct values
     if(values != null) {
       if(vl > meta.maxlen || vl > 0 && ws(value)) {
@@ -150,6 +206,25 @@ public final class Stats {
     }
   }
 
+  /**
+   * Estimates the number of values within the specified string range.
+   * @param mn minimum
+   * @param mx maximum
+   * @return number of values, or {@code -1} if no estimate is possible
+   */
+  public int estimate(final byte[] mn, final byte[] mx) {
+    finish();
+    if(histogram == null) return -1;
+    double sel = 0;
+    for(int b = 0; b < BUCKETS; b++) {
+      final byte[] lo = histogram[b], hi = histogram[b + 1];
+      if(compare(hi, mn) < 0 || compare(lo, mx) > 0) continue;
+      // assume that partially covered buckets are covered by half
+      sel += compare(lo, mn) >= 0 && compare(hi, mx) <= 0 ? 1 : 0.5;
+    }
+    return (int) Math.max(1, Math.ceil(sel / BUCKETS * count));
+  }
+
   /**
    * Getter for leaf flag.
    * @return leaf flag
@@ -166,6 +241,82 @@ public final class Stats {
     leaf = l;
   }
 
+  /**
+   * Returns the estimated number of distinct values.
+   * @return number of distinct values, or {@code 0} if no estimate is possible
+   */
+  public int distinct() {
+    finish();
+    return distinct;
+  }
+
+  /**
+   * Computes the estimates if the statistics were created from scratch.
+   */
+  private void finish() {
+    if(registers != null && distinct == 0 && count != 0) {
+      distinct = values != null ? values.size() : estimate();
+      histogram = buckets();
+    }
+  }
+
+  /**
+   * Estimates the number of distinct values.
+   * @return estimate
+   */
+  private int estimate() {
+    final int m = registers.length;
+    double sum = 0;
+    int zeros = 0;
+    for(final byte r : registers) {
+      sum += 1.0 / (1L << r);
+      if(r == 0) zeros++;
+    }
+    double est = 0.7213 / (1 + 1.079 / m) * m * m / sum;
+    // small range correction
+    if(est <= 2.5 * m && zeros != 0) est = m * Math.log((double) m / zeros);
+    return (int) Math.max(1, Math.min(count, Math.round(est)));
+  }
+
+  /**
+   * Creates the bounds of an equi-depth histogram from the sampled values.
+   * @return bounds or {@code null}
+   */
+  private byte[][] buckets() {
+    final int size = sample.size();
+    // numeric ranges are estimated by the index
+    if(size < BUCKETS << 1 || isNone(type) || isNumeric(type)) return null;
+
+    final byte[][] values = sample.toArray();
+    Arrays.sort(values, Token::compare);
+    final byte[][] bounds = new byte[BUCKETS + 1][];
+    for(int b = 0; b <= BUCKETS; b++) bounds[b] = values[(int) ((long) b * (size - 1) / BUCKETS)];
+    return bounds;
+  }
+
+  /**
+   * Computes a 64-bit hash value for the specified token.
+   * @param token token
+   * @return hash value
+   */
+  private static long hash(final byte[] token) {
+    long h = 0xCBF29CE484222325L;
+    for(final byte b : token) h = (h ^ b) * 0x100000001B3L;
+    return mix(h);
+  }
+
+  /**
+   * Scrambles the bits of the specified value.
+   * @param value value
+   * @return scrambled value
+   */
+  private static long mix(final long value) {
+    long h = value;
+    h = (h ^ h >>> 33) * 0xFF51AFD7ED558CCDL;
+    h = (h ^ h >>> 33) * 0xC4CEB9FE1A85EC53L;
+    return h ^ h >>> 33;
+  }
+
   @Override
   public String toString() {
     final StringBuilder sb = new StringBuilder(count + "x");
@@ -12,6 +12,7 @@ import org.basex.data.*;
 import org.basex.index.*;
 import org.basex.index.query.*;
 import org.basex.index.stats.*;
+import org.basex.io.*;
 import org.basex.io.random.*;
 import org.basex.query.util.index.*;
 import org.basex.util.*;
@@ -39,6 +40,8 @@ public class DiskValues extends ValueIndex {
 
   /** Synchronization object. */
   private final Object monitor = new Object();
+  /** Numeric keys (will be initialized with the first numeric range query). */
+  private NumericKeys numeric;
 
   /**
    * Constructor, initializing the index structure.
@@ -92,10 +95,18 @@ public class DiskValues extends ValueIndex {
 
   @Override
   public final IndexCosts costs(final IndexSearch search) {
-    return IndexCosts.get(
-      search instanceof StringRange ? Math.max(1, data.meta.size / 10) :
-      search instanceof NumericRange ? Math.max(1, data.meta.size / 3) :
-      entry(search.token()).size);
+    final int results;
+    if(search instanceof StringRange) {
+      results = Math.max(1, data.meta.size / 10);
+    } else if(search instanceof final NumericRange range) {
+      synchronized(monitor) {
+        final NumericKeys nk = numeric();
+        results = nk.count(nk.first(range.min()), nk.last(range.max()));
+      }
+    } else {
+      results = entry(search.token()).size;
+    }
+    return IndexCosts.get(results);
   }
 
   @Override
@@ -171,6 +182,44 @@ public class DiskValues extends ValueIndex {
     idxr.flush();
   }
 
+  /**
+   * Invalidates the numeric keys. Called before the index is updated.
+   */
+  final void invalidateNumeric() {
+    synchronized(monitor) {
+      numeric = null;
+      final IOFile file = numericFile();
+      if(file.exists() && !file.delete()) Util.debugln("%: could not delete index file.", file);
+    }
+  }
+
+  /**
+   * Adds the buffered changes to the specified log.
+   * @param log update log
+   * @throws IOException I/O exception
+   */
+  public final void log(final UpdateLog log) throws IOException {
+    idxl.log(log);
+    idxr.log(log);
+  }
+
+  /**
+   * Marks the buffered changes as logged.
+   */
+  public final void logged() {
+    idxl.logged();
+    idxr.logged();
+  }
+
+  /**
+   * Enables or disables the pinning of modified pages.
+   * @param pin pin pages
+   */
+  public final void pin(final boolean pin) {
+    idxl.pin(pin);
+    idxr.pin(pin);
+  }
+
   /**
    * Returns the PRE value for the specified ID.
    * @param id ID value
@@ -383,44 +432,81 @@ public class DiskValues extends ValueIndex {
   }
 
   /**
-   * Performs a range query. All index values must be numeric.
+   * Performs a numeric range query.
    * <p><em>Important:</em> This method is thread-safe.</p>
    * @param tok index term
    * @return results
    */
   private IntList idRange(final NumericRange tok) {
-    // check if min and max are positive integers with the same number of digits
-    final double min = tok.min(), max = tok.max();
-    final int len = max > 0 && (long) max == max ? token(max).length : 0;
-    final boolean simple = len != 0 && min > 0 && (long) min == min && token(min).length == len;
-
     final IntList pres = new IntList();
     synchronized(monitor) {
-      final int entries = size();
-      final boolean text = type == IndexType.TEXT;
-      for(int index = 0; index < entries; ++index) {
-        final int count = idxl.readNum(idxr.read5(index * 5L));
-        int id = idxl.readNum();
-        final int pre = pre(id);
-
-        final double v = data.textDbl(pre, text);
-        if(v >= min && v <= max) {
-          // value is in range
-          for(int c = 0; c < count; c++) {
-            pres.add(pre(id));
-            id += idxl.readNum();
-          }
-        } else if(simple && v > max && data.textLen(pre, text) == len) {
-          // if limits are integers, if min, max and current value have the same
-          // string length, and if current value is larger than max, test can be
-          // skipped, as all remaining values will be bigger
-          break;
+      final NumericKeys nk = numeric();
+      final int last = nk.last(tok.max());
+      for(int n = nk.first(tok.min()); n < last; n++) {
+        final int count = idxl.readNum(idxr.read5(nk.key(n) * 5L));
+        for(int c = 0, id = 0; c < count; c++) {
+          id += idxl.readNum();
+          pres.add(pre(id));
         }
       }
     }
     return pres.sort();
   }
 
+  /**
+   * Returns the numeric keys of the index. If they have not been stored on disk,
+   * they are created by parsing all index keys.
+   * <p><em>Important:</em> This method is NOT thread-safe.</p>
+   * @return numeric keys
+   */
+  private NumericKeys numeric() {
+    if(numeric == null) {
+      final IOFile file = numericFile();
+      if(file.exists()) {
+        try {
+          numeric = new NumericKeys(file);
+        } catch(final IOException ex) {
+          Util.debug(ex);
+        }
+      }
+      if(numeric == null) {
+        final DoubleList values = new DoubleList();
+        final IntList keys = new IntList(), counts = new IntList();
+        final boolean text = type == IndexType.TEXT;
+        final int entries = size();
+        for(int index = 0; index < entries; index++) {
+          final int count = idxl.readNum(idxr.read5(index * 5L));
+          final double v = data.textDbl(pre(idxl.readNum()), text);
+          if(!Double.isNaN(v)) {
+            values.add(v);
+            keys.add(index);
+            counts.add(count);
+          }
+        }
+        numeric = new NumericKeys(values, keys, counts);
+      }
+    }
+    return numeric;
+  }
+
+  /**
+   * Returns the file storing the numeric keys.
+   * @return file
+   */
+  private IOFile numericFile() {
+    return numericFile(data, type);
+  }
+
+  /**
+   * Returns the file storing the numeric keys.
+   * @param data data reference
+   * @param type index type
+   * @return file
+   */
+  static IOFile numericFile(final Data data, final IndexType type) {
+    return data.meta.dbFile(fileSuffix(type) + 'n');
+  }
+
   /**
    * Returns the specified key, considering tokenization.
    * @param id ID of key
@@ -3,6 +3,8 @@ package org.basex.index.value;
 import static org.basex.util.Token.*;
 
 import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
 
 import org.basex.data.*;
 import org.basex.index.*;
@@ -26,14 +28,30 @@ import org.basex.util.list.*;
  *   structure. Instead, they can be found by following the ID references to
  *   the main table.
  * </li>
+ * <li> {@code DATATXT/ATV + 'n'}: contains the numeric keys, sorted by their values
+ *   (see {@link NumericKeys}).</li>
  * </ul>
  *
+ * <p>If multiple threads are assigned, the PRE range is split into partitions. The partitions
+ * are indexed in parallel, and the resulting partial indexes are merged.</p>
+ *
  * @author BaseX Team, BSD License
  * @author Christian Gruen
  */
 public final class DiskValuesBuilder extends ValuesBuilder {
+  /** Minimum number of nodes of a partition that is indexed in parallel. */
+  private static final int PARTITION = 1 << 14;
+
+  /** Number of threads. */
+  private final int threads;
   /** Temporary value tree. */
   private IndexTree index;
+  /** Values of numeric keys (not assigned for token indexes). */
+  private final DoubleList numValues;
+  /** Positions of numeric keys (not assigned for token indexes). */
+  private final IntList numKeys;
+  /** Number of index entries of numeric keys (not assigned for token indexes). */
+  private final IntList numCounts;
 
   /**
    * Constructor.
@@ -41,42 +59,50 @@ public final class DiskValuesBuilder extends ValuesBuilder {
    * @param type index type
    */
   public DiskValuesBuilder(final Data data, final IndexType type) {
+    this(data, type, 1);
+  }
+
+  /**
+   * Constructor.
+   * @param data data reference
+   * @param type index type
+   * @param threads number of threads
+   */
+  public DiskValuesBuilder(final Data data, final IndexType type, final int threads) {
     super(data, type);
+    this.threads = Math.max(1, Math.min(threads, size / PARTITION));
     index = new IndexTree(type);
+    numValues = tokenize ? null : new DoubleList();
+    numKeys = tokenize ? null : new IntList();
+    numCounts = tokenize ? null : new IntList();
   }
 
   @Override
-  public DiskValues build() throws IOException {
+  protected DiskValues index() throws IOException {
     Util.debugln(detailedInfo());
 
     try {
-      final boolean updindex = data.meta.updindex;
-      for(pre = 0; pre < size; ++pre) {
-        if((pre & 0x0FFF) == 0) check();
-        if(indexEntry()) {
-          final int id = updindex ? data.id(pre) : pre;
-          if(tokenize) {
-            int pos = 0;
-            for(final byte[] token : distinctTokens(data.text(pre, text))) {
-              index.add(token, id, pos++);
-              count++;
-            }
-          } else if(data.textLen(pre, text) <= data.meta.maxlen) {
-            index.add(data.text(pre, text), id, 0);
-            count++;
-          }
-        }
-      }
-
-      writeIndex(splits > 0);
-      if(splits > 1) {
+      if(threads > 1) {
         index = null;
-        clean();
+        partitions();
         merge();
+      } else {
+        for(pre = 0; pre < size; ++pre) {
+          if((pre & 0x0FFF) == 0) check();
+          if(indexEntry()) count += add(index, pre);
+        }
+        writeIndex(index, splits > 0);
+        if(splits > 1) {
+          index = null;
+          merge();
+        }
       }
 
       finishIndex();
-      return updindex ? new UpdatableDiskValues(data, type) : new DiskValues(data, type);
+      if(!tokenize) {
+        new NumericKeys(numValues, numKeys, numCounts).write(DiskValues.numericFile(data, type));
+      }
+      return data.meta.updindex ? new UpdatableDiskValues(data, type) : new DiskValues(data, type);
     } catch(final Throwable th) {
       // drop index files
       data.meta.drop(DiskValues.fileSuffix(type) + ".+");
@@ -88,13 +114,98 @@ public final class DiskValuesBuilder extends ValuesBuilder {
   protected void check() throws IOException {
     super.check();
     // check if main memory is exhausted
-    if(splitRequired()) {
-      writeIndex(true);
+    if(splitRequired(index.bytes())) {
+      writeIndex(index, true);
       index = new IndexTree(type);
-      clean();
     }
   }
 
+  /**
+   * Adds the index entries of the specified node to an index tree.
+   * @param tree index tree
+   * @param p PRE value
+   * @return number of added entries
+   */
+  private int add(final IndexTree tree, final int p) {
+    final int id = data.meta.updindex ? data.id(p) : p;
+    if(tokenize) {
+      int pos = 0;
+      for(final byte[] token : distinctTokens(data.text(p, text))) tree.add(token, id, pos++);
+      return pos;
+    }
+    if(data.textLen(p, text) > data.meta.maxlen) return 0;
+    tree.add(data.text(p, text), id, 0);
+    return 1;
+  }
+
+  /**
+   * Indexes the partitions of the database in parallel and writes partial indexes to disk.
+   * @throws IOException I/O exception
+   */
+  private void partitions() throws IOException {
+    final int part = (size + threads - 1) / threads;
+    final ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      final ArrayList<Future<Long>> futures = new ArrayList<>(threads);
+      for(int start = 0; start < size; start += part) {
+        final int s = start, e = Math.min(size, start + part);
+        futures.add(pool.submit(() -> partition(s, e)));
+      }
+      // wait for all partitions, and pass on the first error
+      Throwable error = null;
+      for(final Future<Long> future : futures) {
+        try {
+          count += future.get();
+        } catch(final ExecutionException ex) {
+          if(error == null) error = ex.getCause();
+        } catch(final InterruptedException ex) {
+          if(error == null) error = ex;
+        }
+      }
+      if(error instanceof final IOException ex) throw ex;
+      if(error instanceof final RuntimeException ex) throw ex;
+      if(error instanceof final Error ex) throw ex;
+      if(error != null) throw new IOException(error);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Indexes a partition of the database and writes partial indexes to disk.
+   * @param start first PRE value
+   * @param end PRE value after the last node
+   * @return number of index operations
+   * @throws IOException I/O exception
+   */
+  private long partition(final int start, final int end) throws IOException {
+    IndexTree tree = new IndexTree(type);
+    long total = 0, entries = 0;
+    for(int p = start; p < end; p++) {
+      if((p & 0x0FFF) == 0) {
+        checkStop();
+        progress(Math.min(0x1000, end - p));
+        if(splitRequired(entries, tree.bytes(), threads)) {
+          writeIndex(tree, true);
+          tree = new IndexTree(type);
+          total += entries;
+          entries = 0;
+        }
+      }
+      if(indexEntry(p)) entries += add(tree, p);
+    }
+    if(entries > 0) writeIndex(tree, true);
+    return total + entries;
+  }
+
+  /**
+   * Registers the progress of a partition.
+   * @param nodes number of nodes
+   */
+  private synchronized void progress(final int nodes) {
+    pre += nodes;
+  }
+
   /**
    * Merges cached index files.
    * @throws IOException I/O exception
@@ -150,7 +261,7 @@ public final class DiskValuesBuilder extends ValuesBuilder {
           t.next();
         }
         // write final structure to disk
-        write(outL, outR, id, pos);
+        write(outL, outR, vm[min].key, id, pos);
         ++entries;
       }
     }
@@ -162,21 +273,24 @@ public final class DiskValuesBuilder extends ValuesBuilder {
   }
 
   /**
-   * Writes the current index tree to disk.
+   * Writes an index tree to disk.
+   * @param tree index tree
    * @param partial partial flag
    * @throws IOException I/O exception
    */
-  private void writeIndex(final boolean partial) throws IOException {
+  private void writeIndex(final IndexTree tree, final boolean partial) throws IOException {
     // write ID arrays and references
-    final String name = DiskValues.fileSuffix(type) + (partial ? splits : "");
+    final int split = split();
+    final String name = DiskValues.fileSuffix(type) + (partial ? split : "");
     try(DataOutput outL = new DataOutput(data.meta.dbFile(name + 'l'));
         DataOutput outR = new DataOutput(data.meta.dbFile(name + 'r'))) {
-      outL.write4(index.size());
+      outL.write4(tree.size());
 
       final IntList id = new IntList(), pos = tokenize ? new IntList() : null;
-      index.init();
-      while(index.more()) {
-        final byte[] values = index.ids.get(index.next());
+      tree.init();
+      while(tree.more()) {
+        final int i = tree.next();
+        final byte[] values = tree.ids.get(i);
         final int vs = Num.size(values);
 
         if(partial) {
@@ -193,7 +307,7 @@ public final class DiskValuesBuilder extends ValuesBuilder {
             }
           }
           // write final structure to disk
-          write(outL, outR, id, pos);
+          write(outL, outR, tree.keys.get(i), id, pos);
         }
       }
     }
@@ -201,24 +315,42 @@ public final class DiskValuesBuilder extends ValuesBuilder {
     // temporarily write texts
     if(partial) {
       try(DataOutput outT = new DataOutput(data.meta.dbFile(name + 't'))) {
-        index.init();
-        while(index.more()) outT.writeToken(index.keys.get(index.next()));
+        tree.init();
+        while(tree.more()) outT.writeToken(tree.keys.get(tree.next()));
       }
     }
-    // increase split counter
-    splits++;
+  }
+
+  /**
+   * Returns the current split counter and increases it.
+   * @return split counter
+   */
+  private synchronized int split() {
+    return splits++;
   }
 
   /**
    * Writes the final value structure to disk.
    * @param outL index values
    * @param outR references
+   * @param key key
    * @param id ID
    * @param pos positions (can be {@code null})
    * @throws IOException I/O exception
    */
-  private void write(final DataOutput outL, final DataOutput outR, final IntList id,
-      final IntList pos) throws IOException {
+  private void write(final DataOutput outL, final DataOutput outR, final byte[] key,
+      final IntList id, final IntList pos) throws IOException {
+
+    // remember numeric keys
+    final int is = id.size();
+    if(numValues != null) {
+      final double value = toDouble(key);
+      if(!Double.isNaN(value)) {
+        numValues.add(value);
+        numKeys.add((int) (outR.size() / 5));
+        numCounts.add(is);
+      }
+    }
 
     // sort values before writing
     int[] order = null;
@@ -230,7 +362,6 @@ public final class DiskValuesBuilder extends ValuesBuilder {
       id.sort();
     }
 
-    final int is = id.size();
     outR.write5(outL.size());
     outL.writeNum(is);
     for(int i = 0, old = 0; i < is; i++) {
@@ -25,7 +25,7 @@ public final class MemValuesBuilder extends ValuesBuilder {
   }
 
   @Override
-  public MemValues build() throws IOException {
+  protected MemValues index() throws IOException {
     Util.debugln(detailedInfo());
 
     final MemValues index = new MemValues(data, type);
@@ -0,0 +1,130 @@
+package org.basex.index.value;
+
+import java.io.*;
+
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * This class organizes the numeric keys of a value index, sorted by their numeric values.
+ * It is used to answer numeric range queries in logarithmic time.
+ *
+ * The keys are stored in a file with the suffix {@code n}: The number of keys is followed
+ * by the numeric values, the positions of the keys in the index, and the accumulated
+ * number of index entries.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+final class NumericKeys {
+  /** Numeric values (sorted in ascending order). */
+  private final double[] values;
+  /** Positions of the keys in the index. */
+  private final int[] keys;
+  /** Accumulated number of index entries (the first value is {@code 0}). */
+  private final int[] sums;
+
+  /**
+   * Constructor.
+   * @param values numeric values
+   * @param keys positions of the keys in the index
+   * @param counts number of index entries of the keys
+   */
+  NumericKeys(final DoubleList values, final IntList keys, final IntList counts) {
+    this.values = values.finish();
+    final int[] order = Array.createOrder(this.values, true);
+    final int vl = order.length;
+    this.keys = new int[vl];
+    sums = new int[vl + 1];
+    for(int v = 0; v < vl; v++) {
+      this.keys[v] = keys.get(order[v]);
+      sums[v + 1] = sums[v] + counts.get(order[v]);
+    }
+  }
+
+  /**
+   * Constructor, reading the keys from disk.
+   * @param file input file
+   * @throws IOException I/O exception
+   */
+  NumericKeys(final IOFile file) throws IOException {
+    try(DataInput in = new DataInput(file)) {
+      final long[] bits = in.readLongs(in.readNum());
+      final int bl = bits.length;
+      values = new double[bl];
+      for(int b = 0; b < bl; b++) values[b] = Double.longBitsToDouble(bits[b]);
+      keys = in.readNums();
+      sums = in.readNums();
+    }
+  }
+
+  /**
+   * Writes the keys to disk.
+   * @param file output file
+   * @throws IOException I/O exception
+   */
+  void write(final IOFile file) throws IOException {
+    final int vl = values.length;
+    final long[] bits = new long[vl];
+    for(int v = 0; v < vl; v++) bits[v] = Double.doubleToRawLongBits(values[v]);
+    try(DataOutput out = new DataOutput(file)) {
+      out.writeLongs(bits);
+      out.writeNums(keys);
+      out.writeNums(sums);
+    }
+  }
+
+  /**
+   * Returns the position of the first key with a value that is greater than or equal to
+   * the specified value.
+   * @param min minimum value
+   * @return position
+   */
+  int first(final double min) {
+    int l = 0, h = values.length;
+    while(l < h) {
+      final int m = l + h >>> 1;
+      if(values[m] < min) l = m + 1;
+      else h = m;
+    }
+    return l;
+  }
+
+  /**
+   * Returns the position after the last key with a value that is smaller than or equal to
+   * the specified value.
+   * @param max maximum value
+   * @return position
+   */
+  int last(final double max) {
+    int l = 0, h = values.length;
+    while(l < h) {
+      final int m = l + h >>> 1;
+      if(values[m] <= max) l = m + 1;
+      else h = m;
+    }
+    return l;
+  }
+
+  /**
+   * Returns the position of a key in the index.
+   * @param index position in the list of numeric keys
+   * @return position in the index
+   */
+  int key(final int index) {
+    return keys[index];
+  }
+
+  /**
+   * Returns the number of index entries in the specified range.
+   * @param first position of the first key
+   * @param last position after the last key
+   * @return number of index entries
+   */
+  int count(final int first, final int last) {
+    return first < last ? sums[last] - sums[first] : 0;
+  }
+}
@@ -35,6 +35,7 @@ public final class UpdatableDiskValues extends DiskValues {
 
   @Override
   public synchronized void add(final ValueCache values) {
+    invalidateNumeric();
     // create a sorted list of the new keys and update the old keys
     final TokenList newKeys = new TokenList();
 
@@ -89,6 +90,7 @@ public final class UpdatableDiskValues extends DiskValues {
 
   @Override
   public synchronized void delete(final ValueCache values) {
+    invalidateNumeric();
     // create a list of the indexes of the keys which should be completely deleted
     final IntList keys = new IntList();
     int p = 0;
@@ -6,6 +6,8 @@ import java.util.*;
 
 import org.basex.data.*;
 import org.basex.index.*;
+import org.basex.index.ft.*;
+import org.basex.util.ft.*;
 import org.basex.util.hash.*;
 import org.basex.util.list.*;
 
@@ -51,15 +53,23 @@ public final class ValueCache implements Iterable<byte[]> {
    * @param data data reference
    */
   public ValueCache(final IntList pres, final IndexType type, final Data data) {
-    pos = type == IndexType.TOKEN ? new ArrayList<>() : null;
+    final boolean ft = type == IndexType.FULLTEXT;
+    pos = type == IndexType.TOKEN || ft ? new ArrayList<>() : null;
 
     final IndexNames in = new IndexNames(type, data);
-    final boolean text = type == IndexType.TEXT;
+    final boolean text = type == IndexType.TEXT || ft;
     final int pl = pres.size(), kind = text ? Data.TEXT : Data.ATTR;
     for(int p = 0; p < pl; p++) {
       final int pre = pres.get(p);
       if(data.kind(pre) == kind && in.contains(pre, text)) {
-        if(type == IndexType.TOKEN) {
+        if(ft) {
+          final FTLexer lexer = ((FTIndex) data.index(type)).lexer().init(data.text(pre, true));
+          final StopWords sw = lexer.ftOpt().sw;
+          for(int ps = 0; lexer.hasNext(); ps++) {
+            final byte[] token = lexer.nextToken();
+            if(token.length <= data.meta.maxlen && !sw.contains(token)) addId(token, pre, ps, data);
+          }
+        } else if(type == IndexType.TOKEN) {
           int ps = 0;
           for(final byte[] token : distinctTokens(data.text(pre, false))) {
             addId(token, pre, ps++, data);
@@ -129,7 +139,7 @@ public final class ValueCache implements Iterable<byte[]> {
    * @param key key
    * @return ID list
    */
-  IntList ids(final byte[] key) {
+  public IntList ids(final byte[] key) {
     return ids.get(keys.index(key) - 1);
   }
 
@@ -138,7 +148,7 @@ public final class ValueCache implements Iterable<byte[]> {
    * @param key key
    * @return ID list or {@code null}
    */
-  IntList pos(final byte[] key) {
+  public IntList pos(final byte[] key) {
     return pos != null ? pos.get(keys.index(key) - 1) : null;
   }
 }
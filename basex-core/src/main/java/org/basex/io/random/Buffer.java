@@ -15,4 +15,25 @@ final class Buffer {
   long pos = -1;
   /** Dirty flag. */
   boolean dirty;
+  /** Indicates if the current contents have been added to the update log. */
+  boolean logged;
+
+  /** Block position assigned by the buffer manager. */
+  long key = -1;
+  /** Flag for buffers in the protected segment. */
+  boolean hot;
+  /** Flag for pinned buffers, which are not linked to any segment. */
+  boolean pinned;
+  /** Previous buffer in the LRU segment. */
+  Buffer prev;
+  /** Next buffer in the LRU segment. */
+  Buffer next;
+
+  /**
+   * Marks the buffer as modified.
+   */
+  void modify() {
+    dirty = true;
+    logged = false;
+  }
 }
@@ -1,18 +1,60 @@
 package org.basex.io.random;
 
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import org.basex.util.*;
+
 /**
- * This class provides a simple, clock-based buffer management.
+ * This class provides a scan-resistant buffer management (segmented LRU).
+ *
+ * Each instance can always allocate {@link #MIN} buffers. Additional buffers are allocated
+ * on demand as long as the global page budget ({@link Prop#pagecache}) is not exhausted.
+ * Buffers are organized in two LRU segments: Pages that have been requested for the first
+ * time are placed in the probationary segment, and they are only moved to the protected segment
+ * if they are requested again. Pages of the probationary segment are evicted first, which
+ * prevents sequential scans from flushing frequently accessed pages out of the cache.
+ *
+ * If pinning is enabled, buffers that have been modified since they were last logged are never
+ * evicted. Instead, they are removed from the segments and kept in memory until they are logged,
+ * even if the page budget is exceeded.
  *
  * @author BaseX Team, BSD License
  * @author Christian Gruen
  */
 final class Buffers {
-  /** Number of buffers (must be 1 << n). */
-  private static final int BUFFERS = 1 << 4;
-  /** Buffers. */
-  private final Buffer[] buffer = new Buffer[BUFFERS];
-  /** Current buffer offset. */
-  private int offset;
+  /** Minimum number of buffers (must be 1 << n). */
+  private static final int MIN = 1 << 4;
+  /** Number of buffers allocated by all instances. */
+  private static final AtomicInteger ALLOCATED = new AtomicInteger();
+
+  /** Allocated buffers. */
+  private Buffer[] buffer;
+  /** Number of allocated buffers. */
+  private int size;
+  /** Current buffer. */
+  private Buffer current;
+
+  /** Hash table, referencing buffers by their block position. */
+  private Buffer[] table;
+  /** Number of buffers in the protected segment. */
+  private int hot;
+  /** Head (most recently used buffer) of the probationary segment. */
+  private Buffer coldHead;
+  /** Tail (least recently used buffer) of the probationary segment. */
+  private Buffer coldTail;
+  /** Head (most recently used buffer) of the protected segment. */
+  private Buffer hotHead;
+  /** Tail (least recently used buffer) of the protected segment. */
+  private Buffer hotTail;
+
+  /** Indicates if modified buffers are pinned until they have been logged. */
+  private boolean pin;
+
+  /** Number of cache hits. */
+  private long hits;
+  /** Number of cache misses. */
+  private long misses;
 
   /**
    * Constructor.
@@ -25,17 +67,54 @@ final class Buffers {
    * Initializes the buffers.
    */
   void init() {
-    for(int b = 0; b < BUFFERS; ++b) {
-      buffer[b] = new Buffer();
-    }
+    close();
+    buffer = new Buffer[MIN];
+    table = new Buffer[MIN << 1];
+    coldHead = coldTail = hotHead = hotTail = null;
+    hot = 0;
+    current = allocate();
+  }
+
+  /**
+   * Releases the allocated buffers.
+   */
+  void close() {
+    ALLOCATED.addAndGet(-size);
+    size = 0;
   }
 
   /**
-   * Returns all buffers.
+   * Returns all dirty buffers, sorted by their positions.
+   * If the buffers are written in this order, the file will be accessed sequentially.
    * @return buffers
    */
-  Buffer[] all() {
-    return buffer;
+  Buffer[] dirty() {
+    final Buffer[] dirty = new Buffer[size];
+    int d = 0;
+    for(int b = 0; b < size; b++) {
+      if(buffer[b].dirty) dirty[d++] = buffer[b];
+    }
+    Arrays.sort(dirty, 0, d, (b1, b2) -> Long.compare(b1.pos, b2.pos));
+    return Arrays.copyOf(dirty, d);
+  }
+
+  /**
+   * Enables or disables the pinning of modified buffers.
+   * @param enable enable or disable pinning
+   */
+  void pin(final boolean enable) {
+    pin = enable;
+    if(!enable) unpin();
+  }
+
+  /**
+   * Marks all dirty buffers as logged. Pinned buffers will be linked to the segments again.
+   */
+  void logged() {
+    for(int b = 0; b < size; b++) {
+      if(buffer[b].dirty) buffer[b].logged = true;
+    }
+    unpin();
   }
 
   /**
@@ -43,22 +122,227 @@ final class Buffers {
    * @return current buffer
    */
   Buffer current() {
-    return buffer[offset];
+    return current;
   }
 
   /**
    * Chooses a buffer and sets the offset.
+   * If the cursor has changed, the returned buffer contains the data of another block,
+   * and the caller is responsible for writing back dirty data and assigning the new position.
    * @param pos buffer position
    * @return true if cursor has changed
    */
   boolean cursor(final long pos) {
-    final int o = offset;
-    do {
-      if(buffer[offset].pos == pos) return false;
-      offset = offset + 1 & BUFFERS - 1;
-    } while(offset != o);
+    if(current.pos == pos) return false;
+
+    Buffer b = get(pos);
+    if(b != null) {
+      ++hits;
+      // page has been requested before: move it to the protected segment
+      if(b.pinned) b.pinned = false;
+      else unlink(b);
+      if(!b.hot) {
+        b.hot = true;
+        ++hot;
+      }
+      link(b);
+      // limit protected segment to 3/4 of all buffers
+      if(hot > size - (size >>> 2)) {
+        final Buffer t = hotTail;
+        unlink(t);
+        t.hot = false;
+        --hot;
+        link(t);
+      }
+      current = b;
+      return false;
+    }
 
-    offset = o + 1 & BUFFERS - 1;
+    ++misses;
+    if(current.key == -1) {
+      // initial buffer has not been assigned yet
+      b = current;
+    } else if(size < MIN || ALLOCATED.get() < Prop.pagecache) {
+      b = allocate();
+    } else {
+      b = victim();
+      if(b == null) {
+        // all other buffers are pinned
+        b = allocate();
+      } else {
+        unlink(b);
+        remove(b);
+        if(b.hot) {
+          b.hot = false;
+          --hot;
+        }
+      }
+    }
+    b.key = pos;
+    put(b);
+    link(b);
+    current = b;
     return true;
   }
+
+  /**
+   * Returns the cache statistics.
+   * @return info string
+   */
+  String info() {
+    return hits + " hits, " + misses + " misses, " + size + " pages";
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Allocates a new buffer.
+   * @return buffer
+   */
+  private Buffer allocate() {
+    if(size == buffer.length) {
+      buffer = Array.copy(buffer, new Buffer[size << 1]);
+      rehash(table.length << 1);
+    }
+    ALLOCATED.incrementAndGet();
+    final Buffer b = new Buffer();
+    buffer[size++] = b;
+    return b;
+  }
+
+  /**
+   * Chooses a buffer to be evicted. Buffers that are pinned are removed from the segments.
+   * @return buffer, or {@code null} if all other buffers are pinned
+   */
+  private Buffer victim() {
+    for(Buffer b = coldTail != null ? coldTail : hotTail; b != null;) {
+      final Buffer prev = b.prev != null || b.hot ? b.prev : hotTail;
+      if(b != current) {
+        if(!pin || !b.dirty || b.logged) return b;
+        unlink(b);
+        if(b.hot) {
+          b.hot = false;
+          --hot;
+        }
+        b.pinned = true;
+      }
+      b = prev;
+    }
+    return null;
+  }
+
+  /**
+   * Links all pinned buffers to the probationary segment.
+   */
+  private void unpin() {
+    for(int b = 0; b < size; b++) {
+      final Buffer bf = buffer[b];
+      if(bf.pinned) {
+        bf.pinned = false;
+        link(bf);
+      }
+    }
+  }
+
+  /**
+   * Inserts a buffer at the head of its segment.
+   * @param b buffer
+   */
+  private void link(final Buffer b) {
+    b.prev = null;
+    if(b.hot) {
+      b.next = hotHead;
+      if(hotHead != null) hotHead.prev = b;
+      else hotTail = b;
+      hotHead = b;
+    } else {
+      b.next = coldHead;
+      if(coldHead != null) coldHead.prev = b;
+      else coldTail = b;
+      coldHead = b;
+    }
+  }
+
+  /**
+   * Removes a buffer from its segment.
+   * @param b buffer
+   */
+  private void unlink(final Buffer b) {
+    final Buffer p = b.prev, n = b.next;
+    if(p != null) p.next = n;
+    else if(b.hot) hotHead = n;
+    else coldHead = n;
+    if(n != null) n.prev = p;
+    else if(b.hot) hotTail = p;
+    else coldTail = p;
+    b.prev = null;
+    b.next = null;
+  }
+
+  /**
+   * Returns the hash table slot for the specified key.
+   * @param key key
+   * @return slot
+   */
+  private int slot(final long key) {
+    final int h = Long.hashCode(key) * 0x9E3779B9;
+    return (h ^ h >>> 16) & table.length - 1;
+  }
+
+  /**
+   * Returns the buffer for the specified block position.
+   * @param key block position
+   * @return buffer or {@code null}
+   */
+  private Buffer get(final long key) {
+    final int m = table.length - 1;
+    for(int s = slot(key);; s = s + 1 & m) {
+      final Buffer b = table[s];
+      if(b == null || b.key == key) return b;
+    }
+  }
+
+  /**
+   * Adds a buffer to the hash table.
+   * @param b buffer
+   */
+  private void put(final Buffer b) {
+    final int m = table.length - 1;
+    int s = slot(b.key);
+    while(table[s] != null) s = s + 1 & m;
+    table[s] = b;
+  }
+
+  /**
+   * Removes a buffer from the hash table.
+   * @param b buffer
+   */
+  private void remove(final Buffer b) {
+    final int m = table.length - 1;
+    int s = slot(b.key);
+    while(table[s] != b) s = s + 1 & m;
+    table[s] = null;
+    // shift subsequent entries of the probe sequence
+    for(int n = s + 1 & m; table[n] != null; n = n + 1 & m) {
+      final Buffer e = table[n];
+      final int h = slot(e.key);
+      if(s <= n ? h <= s || h > n : h <= s && h > n) {
+        table[s] = e;
+        table[n] = null;
+        s = n;
+      }
+    }
+  }
+
+  /**
+   * Resizes the hash table.
+   * @param length new length
+   */
+  private void rehash(final int length) {
+    final Buffer[] old = table;
+    table = new Buffer[length];
+    for(final Buffer b : old) {
+      if(b != null) put(b);
+    }
+  }
 }
@@ -0,0 +1,213 @@
+package org.basex.io.random;
+
+import java.io.*;
+import java.util.zip.*;
+
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.util.*;
+
+/**
+ * Read-only, block-compressed representation of a heap file.
+ *
+ * The contents of the original file are split into chunks of {@link #CHUNKSIZE} bytes, which are
+ * compressed separately and stored in a file with the suffix {@code z}. The offsets of the
+ * compressed chunks are stored in a file with the suffix {@code zi}. Recently decompressed chunks
+ * are cached.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+final class CompressedHeap implements Closeable {
+  /** Power of chunk size (a chunk is a multiple of the block size). */
+  private static final int CHUNKPOWER = 16;
+  /** Chunk size. */
+  private static final int CHUNKSIZE = 1 << CHUNKPOWER;
+  /** Number of cached chunks (must be 1 << n). */
+  private static final int CACHE = 1 << 2;
+
+  /** Compressed chunks. */
+  private final RandomAccessFile file;
+  /** Offsets of the compressed chunks (the last entry points to the end of the file). */
+  private final long[] offsets;
+  /** Length of the decompressed data. */
+  private final long length;
+  /** Decompressor. */
+  private final Inflater inflater = new Inflater();
+  /** Decompressed chunks. */
+  private final byte[][] chunks = new byte[CACHE][];
+  /** Indexes of the decompressed chunks. */
+  private final int[] cached = new int[CACHE];
+  /** Next cache entry to be replaced. */
+  private int next;
+  /** Buffer for compressed data. */
+  private byte[] buffer = new byte[CHUNKSIZE];
+
+  /**
+   * Constructor.
+   * @param heap original heap file
+   * @throws IOException I/O exception
+   */
+  CompressedHeap(final IOFile heap) throws IOException {
+    try(DataInput in = new DataInput(index(heap))) {
+      length = in.readLong();
+      offsets = in.readLongs(in.readNum());
+    }
+    file = new RandomAccessFile(chunks(heap).file(), "r");
+    for(int c = 0; c < CACHE; c++) cached[c] = -1;
+  }
+
+  /**
+   * Checks if a compressed representation exists for the specified heap file.
+   * @param heap original heap file
+   * @return result of check
+   */
+  static boolean exists(final IOFile heap) {
+    return index(heap).exists();
+  }
+
+  /**
+   * Replaces the specified heap file by a compressed representation.
+   * @param heap original heap file
+   * @throws IOException I/O exception
+   */
+  static void compress(final IOFile heap) throws IOException {
+    final long length = heap.length();
+    final int cl = (int) ((length + CHUNKSIZE - 1) >>> CHUNKPOWER);
+    final long[] offsets = new long[cl + 1];
+
+    final Deflater deflater = new Deflater();
+    try(RandomAccessFile in = new RandomAccessFile(heap.file(), "r");
+        DataOutput out = new DataOutput(chunks(heap))) {
+      final byte[] chunk = new byte[CHUNKSIZE], packed = new byte[CHUNKSIZE];
+      for(int c = 0; c < cl; c++) {
+        final int l = (int) Math.min(CHUNKSIZE, length - ((long) c << CHUNKPOWER));
+        in.readFully(chunk, 0, l);
+        deflater.reset();
+        deflater.setInput(chunk, 0, l);
+        deflater.finish();
+        while(!deflater.finished()) {
+          out.write(packed, 0, deflater.deflate(packed));
+        }
+        offsets[c + 1] = out.size();
+      }
+    } finally {
+      deflater.end();
+    }
+    try(DataOutput out = new DataOutput(index(heap))) {
+      out.writeLong(length);
+      out.writeLongs(offsets);
+    }
+    heap.delete();
+  }
+
+  /**
+   * Returns the length of the decompressed data.
+   * @return length
+   */
+  long length() {
+    return length;
+  }
+
+  /**
+   * Copies decompressed data of a single block to the specified array.
+   * @param pos file offset (start of a block)
+   * @param data target array
+   * @param len number of bytes to copy (limited by the block size)
+   * @throws IOException I/O exception
+   */
+  void read(final long pos, final byte[] data, final int len) throws IOException {
+    Array.copyToStart(chunk((int) (pos >>> CHUNKPOWER)), (int) (pos & CHUNKSIZE - 1), len, data);
+  }
+
+  /**
+   * Writes the decompressed data to the specified file.
+   * @param target target file
+   * @throws IOException I/O exception
+   */
+  void decompress(final RandomAccessFile target) throws IOException {
+    target.seek(0);
+    final int cl = offsets.length - 1;
+    for(int c = 0; c < cl; c++) {
+      final int l = (int) Math.min(CHUNKSIZE, length - ((long) c << CHUNKPOWER));
+      target.write(chunk(c), 0, l);
+    }
+    target.setLength(length);
+  }
+
+  @Override
+  public void close() throws IOException {
+    inflater.end();
+    file.close();
+  }
+
+  /**
+   * Closes and deletes the compressed representation of the specified heap file.
+   * @param heap original heap file
+   * @throws IOException I/O exception
+   */
+  void delete(final IOFile heap) throws IOException {
+    close();
+    chunks(heap).delete();
+    index(heap).delete();
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Returns a decompressed chunk.
+   * @param c index of the chunk
+   * @return chunk
+   * @throws IOException I/O exception
+   */
+  private byte[] chunk(final int c) throws IOException {
+    for(int i = 0; i < CACHE; i++) {
+      if(cached[i] == c) return chunks[i];
+    }
+
+    final long off = offsets[c];
+    final int cl = (int) (offsets[c + 1] - off);
+    if(cl > buffer.length) buffer = new byte[cl];
+    file.seek(off);
+    file.readFully(buffer, 0, cl);
+
+    final int i = next;
+    next = next + 1 & CACHE - 1;
+    if(chunks[i] == null) chunks[i] = new byte[CHUNKSIZE];
+    final byte[] chunk = chunks[i];
+    cached[i] = -1;
+    inflater.reset();
+    inflater.setInput(buffer, 0, cl);
+    try {
+      int l = 0;
+      while(!inflater.finished() && l < CHUNKSIZE) {
+        final int n = inflater.inflate(chunk, l, CHUNKSIZE - l);
+        if(n == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+        l += n;
+      }
+    } catch(final DataFormatException ex) {
+      throw new IOException(ex);
+    }
+    cached[i] = c;
+    return chunk;
+  }
+
+  /**
+   * Returns the file with the compressed chunks.
+   * @param heap original heap file
+   * @return file
+   */
+  private static IOFile chunks(final IOFile heap) {
+    return new IOFile(heap.path() + 'z');
+  }
+
+  /**
+   * Returns the file with the chunk offsets.
+   * @param heap original heap file
+   * @return file
+   */
+  private static IOFile index(final IOFile heap) {
+    return new IOFile(heap.path() + "zi");
+  }
+}
@@ -16,6 +16,12 @@ public final class DataAccess implements Closeable {
   private final Buffers buffers = new Buffers();
   /** Reference to the data input stream. */
   private final RandomAccessFile raf;
+  /** Memory mapping (can be {@code null}, will be invalidated with the first write operation). */
+  private volatile Mapping mapping;
+  /** Compressed representation (can be {@code null}, is decompressed before the first write). */
+  private CompressedHeap heap;
+  /** File reference. */
+  private final IOFile file;
   /** File size. */
   private long length;
   /** Changed flag. */
@@ -29,26 +35,52 @@ public final class DataAccess implements Closeable {
    * @throws IOException I/O Exception
    */
   public DataAccess(final IOFile file) throws IOException {
+    this(file, false);
+  }
+
+  /**
+   * Constructor, initializing the file reader.
+   * @param file the file to be read
+   * @param compressed check if a compressed representation of the file exists
+   * @throws IOException I/O Exception
+   */
+  public DataAccess(final IOFile file, final boolean compressed) throws IOException {
+    this.file = file;
     RandomAccessFile f = null;
     try {
+      if(compressed && CompressedHeap.exists(file)) heap = new CompressedHeap(file);
       f = new RandomAccessFile(file.file(), "rw");
-      length = f.length();
       raf = f;
+      if(heap != null) {
+        length = heap.length();
+      } else {
+        length = f.length();
+        mapping = Mapping.get(f.getChannel(), length);
+      }
       cursor(0);
     } catch(final IOException ex) {
       if(f != null) f.close();
+      if(heap != null) heap.close();
       throw ex;
     }
   }
 
+  /**
+   * Replaces the specified file by a read-only, block-compressed representation.
+   * The file will be decompressed again before it is updated.
+   * @param file file to be compressed
+   * @throws IOException I/O Exception
+   */
+  public static void compress(final IOFile file) throws IOException {
+    CompressedHeap.compress(file);
+  }
+
   /**
    * Flushes the buffered data.
    */
   public synchronized void flush() {
     try {
-      for(final Buffer buffer : buffers.all()) {
-        if(buffer.dirty) writeBlock(buffer);
-      }
+      for(final Buffer buffer : buffers.dirty()) writeBlock(buffer);
       if(changed) {
         raf.setLength(length);
         changed = false;
@@ -58,14 +90,56 @@ public final class DataAccess implements Closeable {
     }
   }
 
+  /**
+   * Adds the buffered changes that have not been logged yet to the specified log.
+   * The buffers remain dirty.
+   * @param log update log
+   * @throws IOException I/O exception
+   */
+  public synchronized void log(final UpdateLog log) throws IOException {
+    for(final Buffer buffer : buffers.dirty()) {
+      final int len = (int) Math.min(IO.BLOCKSIZE, length - buffer.pos);
+      if(len > 0 && !buffer.logged) log.page(file, buffer.pos, buffer.data, len);
+    }
+    if(changed) log.length(file, length);
+  }
+
+  /**
+   * Marks the buffered changes as logged. Called after the log has been committed.
+   */
+  public synchronized void logged() {
+    buffers.logged();
+  }
+
+  /**
+   * Enables or disables pinning: if enabled, modified buffers will only be written to disk
+   * after they have been logged.
+   * @param pin pin buffers
+   */
+  public synchronized void pin(final boolean pin) {
+    buffers.pin(pin);
+  }
+
   @Override
   public synchronized void close() {
     flush();
+    Mapping.close(mapping);
+    mapping = null;
     try {
+      if(heap != null) heap.close();
       raf.close();
     } catch(final IOException ex) {
       Util.stack(ex);
     }
+    buffers.close();
+  }
+
+  /**
+   * Returns the cache statistics.
+   * @return info string
+   */
+  public synchronized String info() {
+    return buffers.info();
   }
 
   /**
@@ -156,6 +230,30 @@ public final class DataAccess implements Closeable {
     return readNum();
   }
 
+  /**
+   * Reads a {@link Num} value from the specified position.
+   * If the file is memory-mapped, the value is read without locking and without
+   * changing the file cursor.
+   * @param pos position
+   * @return read num
+   */
+  public int num(final long pos) {
+    final Mapping mp = mapping;
+    return mp != null && mp.contains(pos, 1) ? mp.readNum(pos) : readNum(pos);
+  }
+
+  /**
+   * Reads a token from the specified position.
+   * If the file is memory-mapped, the token is read without locking and without
+   * changing the file cursor.
+   * @param pos position
+   * @return text as byte array
+   */
+  public byte[] token(final long pos) {
+    final Mapping mp = mapping;
+    return mp != null && mp.contains(pos, 1) ? mp.readToken(pos) : readToken(pos);
+  }
+
   /**
    * Reads a token from disk.
    * @param pos text position
@@ -221,9 +319,15 @@ public final class DataAccess implements Closeable {
     try {
       if(buffer.dirty) writeBlock(buffer);
       buffer.pos = b;
-      raf.seek(buffer.pos);
-      if(buffer.pos < raf.length())
-        raf.readFully(buffer.data, 0, (int) Math.min(length - buffer.pos, IO.BLOCKSIZE));
+      final int len = (int) Math.min(length - b, IO.BLOCKSIZE);
+      final Mapping mp = mapping;
+      if(len <= 0) return;
+      if(heap != null) {
+        heap.read(b, buffer.data, len);
+      } else if(mp == null || !mp.read(b, buffer.data, len)) {
+        raf.seek(b);
+        if(b < raf.length()) raf.readFully(buffer.data, 0, len);
+      }
     } catch(final IOException ex) {
       Util.stack(ex);
     }
@@ -305,6 +409,7 @@ public final class DataAccess implements Closeable {
    * @param len number of bytes to be written
    */
   public void writeBytes(final byte[] data, final int offset, final int len) {
+    modify();
     final int last = offset + len;
     int o = offset;
 
@@ -312,7 +417,7 @@ public final class DataAccess implements Closeable {
       final Buffer buffer = buffer();
       final int l = Math.min(last - o, IO.BLOCKSIZE - off);
       Array.copy(data, o, l, buffer.data, off);
-      buffer.dirty = true;
+      buffer.modify();
       off += l;
       o += l;
       // adjust file size
@@ -334,41 +439,54 @@ public final class DataAccess implements Closeable {
   }
 
   /**
-   * Returns the offset to a free slot for writing an entry with the specified length.
-   * Fills the original space with 0xFF to facilitate future write operations.
-   * @param pos original offset
-   * @param size size of new text entry
-   * @return new offset to store text
-   */
-  public long free(final long pos, final int size) {
-    // old text size (available space)
-    int os = readNum(pos) + (int) (cursor() - pos);
-
-    // extend available space by subsequent zero-bytes
-    cursor(pos + os);
-    for(; pos + os < length && os < size && read() == 0xFF; os++);
-
-    long o = pos;
-    if(pos + os == length) {
-      // entry is placed last: reset file length (discard last entry)
-      length(pos);
-    } else {
-      int t = size;
-      if(os < size) {
-        // gap is too small for new entry...
-        // reset cursor to overwrite entry
-        cursor(pos);
-        t = 0;
-        // place new entry after last entry
-        o = length;
-      } else {
-        // gap is large enough: set cursor to overwrite remaining bytes
-        cursor(pos + size);
+   * Writes a token to a free slot, or appends it to the file.
+   * @param value value to be written
+   * @param slots free slots
+   * @return offset of the token
+   */
+  public long writeToken(final byte[] value, final FreeSlots slots) {
+    final int len = value.length;
+    final long pos = slots.get(len + Num.length(len), length);
+    writeToken(pos, value);
+    return pos;
+  }
+
+  /**
+   * Releases the token at the specified position and registers its space as free slot.
+   * If the token is placed last, the file is truncated.
+   * @param pos offset of the token
+   * @param slots free slots
+   */
+  public void free(final long pos, final FreeSlots slots) {
+    final int size = readNum(pos) + (int) (cursor() - pos);
+    slots.add(size, pos);
+    // entry is placed last: discard entry and free space before it
+    if(pos + size == length) length(slots.trim(length));
+  }
+
+  /**
+   * Compacts the file by moving the specified tokens to the beginning of the file.
+   * All other contents of the file are discarded.
+   * @param offsets offsets of the tokens to be preserved, sorted in ascending order
+   * @return new offsets
+   */
+  public long[] compact(final long[] offsets) {
+    final int ol = offsets.length;
+    final long[] moved = new long[ol];
+    long end = 0;
+    for(int o = 0; o < ol; o++) {
+      final long pos = offsets[o];
+      final int size = readNum(pos) + (int) (cursor() - pos);
+      if(pos != end) {
+        final byte[] token = readBytes(pos, size);
+        cursor(end);
+        writeBytes(token, 0, size);
       }
-      // fill gap with 0xFF for future updates
-      while(t++ < os) write(0xFF);
+      moved[o] = end;
+      end += size;
     }
-    return o;
+    if(end != length) length(end);
+    return moved;
   }
 
   /**
@@ -376,6 +494,7 @@ public final class DataAccess implements Closeable {
    * @param len file length
    */
   private synchronized void length(final long len) {
+    modify();
     if(len != length) {
       changed = true;
       length = len;
@@ -384,6 +503,26 @@ public final class DataAccess implements Closeable {
 
   // PRIVATE METHODS ==============================================================================
 
+  /**
+   * Prepares the file for write operations: releases the memory mapping and
+   * replaces a compressed representation by the decompressed file.
+   */
+  private void modify() {
+    if(mapping != null) {
+      Mapping.close(mapping);
+      mapping = null;
+    }
+    if(heap != null) {
+      try {
+        heap.decompress(raf);
+        heap.delete(file);
+        heap = null;
+      } catch(final IOException ex) {
+        throw new RuntimeException(Util.info(ex));
+      }
+    }
+  }
+
   /**
    * Reads the next byte.
    * @return next byte
@@ -398,8 +537,9 @@ public final class DataAccess implements Closeable {
    * @param value byte to be written
    */
   private void write(final int value) {
+    modify();
     final Buffer buffer = buffer();
-    buffer.dirty = true;
+    buffer.modify();
     buffer.data[off++] = (byte) value;
     final long nl = buffer.pos + off;
     if(nl > length) length(nl);
@@ -411,9 +551,12 @@ public final class DataAccess implements Closeable {
    * @throws IOException I/O exception
    */
   private void writeBlock(final Buffer buffer) throws IOException {
+    // skip blocks that have been discarded by truncating the file
     final long pos = buffer.pos, len = Math.min(IO.BLOCKSIZE, length - pos);
-    raf.seek(pos);
-    raf.write(buffer.data, 0, (int) len);
+    if(len > 0) {
+      raf.seek(pos);
+      raf.write(buffer.data, 0, (int) len);
+    }
     buffer.dirty = false;
   }
 
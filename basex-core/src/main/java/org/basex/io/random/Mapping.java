@@ -0,0 +1,224 @@
+package org.basex.io.random;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.channels.FileChannel.*;
+
+import org.basex.io.*;
+import org.basex.util.*;
+
+/**
+ * Read-only memory mapping of a database file. The file is split into segments,
+ * each of which is mapped by a separate buffer. Blocks are never spread across segments.
+ *
+ * All read operations are positional and can be called concurrently.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+final class Mapping {
+  /** Power of segment size. */
+  private static final int SEGMENTPOWER = 30;
+  /** Segment size. */
+  private static final long SEGMENTSIZE = 1L << SEGMENTPOWER;
+  /** Unmapper (can be {@code null}, mapped buffers will then be released by the garbage collector). */
+  private static final Method UNMAP;
+  /** Instance of the unmapper. */
+  private static final Object UNSAFE;
+
+  static {
+    Method unmap = null;
+    Object unsafe = null;
+    try {
+      final Class<?> clazz = Class.forName("sun.misc.Unsafe");
+      final Field field = clazz.getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+      unsafe = field.get(null);
+      unmap = clazz.getMethod("invokeCleaner", ByteBuffer.class);
+    } catch(final Throwable ex) {
+      Util.debug(ex);
+    }
+    UNMAP = unmap;
+    UNSAFE = unsafe;
+  }
+
+  /** Mapped segments (empty after the mapping has been closed). */
+  private MappedByteBuffer[] segments;
+  /** Number of mapped bytes ({@code 0} after the mapping has been closed). */
+  private volatile long length;
+
+  /**
+   * Constructor.
+   * @param segments mapped segments
+   * @param length number of mapped bytes
+   */
+  private Mapping(final MappedByteBuffer[] segments, final long length) {
+    this.segments = segments;
+    this.length = length;
+  }
+
+  /**
+   * Maps the specified file into memory if memory mapping is enabled.
+   * @param channel file channel
+   * @param length number of bytes to map
+   * @return mapping, or {@code null} if mapping is disabled or not possible
+   */
+  static Mapping get(final FileChannel channel, final long length) {
+    if(!Prop.mmap || length == 0) return null;
+    try {
+      final int sl = (int) ((length + SEGMENTSIZE - 1) >>> SEGMENTPOWER);
+      final MappedByteBuffer[] segments = new MappedByteBuffer[sl];
+      for(int s = 0; s < sl; s++) {
+        final long pos = s * SEGMENTSIZE;
+        segments[s] = channel.map(MapMode.READ_ONLY, pos, Math.min(SEGMENTSIZE, length - pos));
+      }
+      return new Mapping(segments, length);
+    } catch(final IOException | UnsupportedOperationException ex) {
+      // fall back to regular file access
+      Util.debug(ex);
+      return null;
+    }
+  }
+
+  /**
+   * Releases the mapped segments. Must be called before the underlying file is truncated,
+   * renamed, deleted or closed, as many operating systems (e.g. Windows) reject these operations
+   * as long as a file is mapped. Subsequent read requests will be rejected.
+   * @param mapping mapping (can be {@code null})
+   */
+  static void close(final Mapping mapping) {
+    if(mapping == null) return;
+    final MappedByteBuffer[] segs;
+    synchronized(mapping) {
+      segs = mapping.segments;
+      mapping.length = 0;
+      mapping.segments = new MappedByteBuffer[0];
+    }
+    if(UNMAP != null) {
+      for(final MappedByteBuffer segment : segs) {
+        try {
+          UNMAP.invoke(UNSAFE, segment);
+        } catch(final Throwable ex) {
+          Util.debug(ex);
+        }
+      }
+    }
+  }
+
+  /**
+   * Copies a block of mapped data to the specified array.
+   * @param pos file offset (start of a block)
+   * @param data target array
+   * @param len number of bytes to copy (limited by the block size)
+   * @return {@code true} if the requested bytes are mapped and have been copied
+   */
+  boolean read(final long pos, final byte[] data, final int len) {
+    if(pos + len > length) return false;
+    final ByteBuffer segment = segments[(int) (pos >>> SEGMENTPOWER)];
+    segment.get((int) (pos & SEGMENTSIZE - 1), data, 0, len);
+    return true;
+  }
+
+  /**
+   * Checks if the specified range is mapped.
+   * @param pos file offset
+   * @param len number of bytes
+   * @return result of check
+   */
+  boolean contains(final long pos, final int len) {
+    return pos >= 0 && pos + len <= length;
+  }
+
+  /**
+   * Reads a byte value.
+   * @param pos file offset
+   * @return unsigned byte value
+   */
+  int read1(final long pos) {
+    return segments[(int) (pos >>> SEGMENTPOWER)].get((int) (pos & SEGMENTSIZE - 1)) & 0xFF;
+  }
+
+  /**
+   * Reads a short value.
+   * @param pos file offset
+   * @return integer value
+   */
+  int read2(final long pos) {
+    return (read1(pos) << 8) + read1(pos + 1);
+  }
+
+  /**
+   * Reads an integer value.
+   * @param pos file offset
+   * @return integer value
+   */
+  int read4(final long pos) {
+    return (read1(pos) << 24) + (read1(pos + 1) << 16) + (read1(pos + 2) << 8) + read1(pos + 3);
+  }
+
+  /**
+   * Reads a 5-byte value.
+   * @param pos file offset
+   * @return long value
+   */
+  long read5(final long pos) {
+    return ((long) read1(pos) << 32) + ((long) read1(pos + 1) << 24) + (read1(pos + 2) << 16) +
+      (read1(pos + 3) << 8) + read1(pos + 4);
+  }
+
+  /**
+   * Reads a compressed number.
+   * @param pos file offset
+   * @return number
+   */
+  int readNum(final long pos) {
+    final int value = read1(pos);
+    return switch(value & 0xC0) {
+      case 0    -> value;
+      case 0x40 -> (value - 0x40 << 8) + read1(pos + 1);
+      case 0x80 -> (value - 0x80 << 24) + (read1(pos + 1) << 16) + (read1(pos + 2) << 8) +
+        read1(pos + 3);
+      default   -> (read1(pos + 1) << 24) + (read1(pos + 2) << 16) + (read1(pos + 3) << 8) +
+        read1(pos + 4);
+    };
+  }
+
+  /**
+   * Reads a token.
+   * @param pos file offset
+   * @return token
+   */
+  byte[] readToken(final long pos) {
+    final int len = readNum(pos);
+    return readBytes(pos + Num.length(len), len);
+  }
+
+  /**
+   * Reads a number of bytes.
+   * @param pos file offset
+   * @param len number of bytes
+   * @return bytes
+   */
+  byte[] readBytes(final long pos, final int len) {
+    final byte[] data = new byte[len];
+    for(int d = 0; d < len;) {
+      final long p = pos + d;
+      final int o = (int) (p & SEGMENTSIZE - 1), l = (int) Math.min(len - d, SEGMENTSIZE - o);
+      segments[(int) (p >>> SEGMENTPOWER)].get(o, data, d, l);
+      d += l;
+    }
+    return data;
+  }
+
+  /**
+   * Copies a mapped block to the specified array.
+   * @param pos file offset (start of a block)
+   * @param data target array
+   * @return {@code true} if the requested block is mapped and has been copied
+   */
+  boolean read(final long pos, final byte[] data) {
+    return read(pos, data, IO.BLOCKSIZE);
+  }
+}
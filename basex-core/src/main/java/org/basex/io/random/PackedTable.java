@@ -0,0 +1,246 @@
+package org.basex.io.random;
+
+import java.io.*;
+
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+
+/**
+ * Read-only, columnar representation of a database table.
+ *
+ * The entries of each table page are split into {@link #COLUMNS columns}. The values of a column
+ * are frame-of-reference encoded: The minimum value of the column is stored once, followed by the
+ * bit-packed differences of all values. As many values of a page are similar (node kinds, names,
+ * distances, sizes, consecutive IDs and text references), this representation is usually
+ * considerably smaller than the original table. The packed pages are stored in a file with the
+ * suffix {@code p}, and their offsets are stored in a file with the suffix {@code pi}.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+final class PackedTable implements Closeable {
+  /** Byte offsets of the columns of a table entry (the last entry marks the end of the entry). */
+  private static final int[] COLUMNS = { 0, 1, 3, 4, 8, 12, IO.NODESIZE };
+
+  /** Packed pages. */
+  private final RandomAccessFile file;
+  /** Offsets of the packed pages (the last entry points to the end of the file). */
+  private final long[] offsets;
+  /** Number of table entries. */
+  private final int size;
+  /** Buffer for packed data. */
+  private byte[] buffer = new byte[IO.BLOCKSIZE];
+
+  /**
+   * Constructor.
+   * @param table table file
+   * @throws IOException I/O exception
+   */
+  PackedTable(final IOFile table) throws IOException {
+    try(DataInput in = new DataInput(index(table))) {
+      size = in.readNum();
+      offsets = in.readLongs(in.readNum());
+    }
+    file = new RandomAccessFile(pages(table).file(), "r");
+  }
+
+  /**
+   * Checks if a packed representation exists for the specified table file.
+   * @param table table file
+   * @return result of check
+   */
+  static boolean exists(final IOFile table) {
+    return index(table).exists();
+  }
+
+  /**
+   * Replaces the contents of the specified table file by a packed representation.
+   * The table must be regular (all pages are completely filled, apart from the last one).
+   * The original file is truncated, but not deleted, as it is used for locking the table.
+   * @param table table file
+   * @param size number of table entries
+   * @throws IOException I/O exception
+   */
+  static void pack(final IOFile table, final int size) throws IOException {
+    final int pl = size + IO.ENTRIES - 1 >>> IO.BLOCKPOWER - IO.NODEPOWER;
+    final long[] offsets = new long[pl + 1];
+
+    try(RandomAccessFile in = new RandomAccessFile(table.file(), "rw")) {
+      try(DataOutput out = new DataOutput(pages(table))) {
+        final byte[] page = new byte[IO.BLOCKSIZE];
+        long off = 0;
+        for(int p = 0; p < pl; p++) {
+          final int entries = Math.min(IO.ENTRIES, size - p * IO.ENTRIES);
+          in.readFully(page, 0, entries << IO.NODEPOWER);
+          final byte[] packed = pack(page, entries);
+          out.write(packed);
+          off += packed.length;
+          offsets[p + 1] = off;
+        }
+      }
+      try(DataOutput out = new DataOutput(index(table))) {
+        out.writeNum(size);
+        out.writeLongs(offsets);
+      }
+      in.setLength(0);
+    }
+  }
+
+  /**
+   * Decodes a page.
+   * @param p page index
+   * @param data target array
+   * @throws IOException I/O exception
+   */
+  void read(final int p, final byte[] data) throws IOException {
+    final long off = offsets[p];
+    final int pl = (int) (offsets[p + 1] - off);
+    if(pl > buffer.length) buffer = new byte[pl];
+    file.seek(off);
+    file.readFully(buffer, 0, pl);
+    unpack(buffer, data, Math.min(IO.ENTRIES, size - p * IO.ENTRIES));
+  }
+
+  /**
+   * Writes all decoded pages to the specified file.
+   * @param target target file
+   * @throws IOException I/O exception
+   */
+  void unpack(final RandomAccessFile target) throws IOException {
+    final byte[] page = new byte[IO.BLOCKSIZE];
+    target.seek(0);
+    final int pl = offsets.length - 1;
+    for(int p = 0; p < pl; p++) {
+      read(p, page);
+      target.write(page);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    file.close();
+  }
+
+  /**
+   * Closes and deletes the packed representation of the specified table file.
+   * @param table table file
+   * @throws IOException I/O exception
+   */
+  void delete(final IOFile table) throws IOException {
+    close();
+    pages(table).delete();
+    index(table).delete();
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Packs the entries of a single page.
+   * @param page page
+   * @param entries number of entries
+   * @return packed page
+   */
+  private static byte[] pack(final byte[] page, final int entries) {
+    final int cl = COLUMNS.length - 1;
+    // compute header: minimum value and number of bits per column
+    final long[] mins = new long[cl];
+    final int[] bits = new int[cl];
+    int length = 0;
+    for(int c = 0; c < cl; c++) {
+      long min = Long.MAX_VALUE, max = 0;
+      for(int e = 0; e < entries; e++) {
+        final long v = value(page, e, c);
+        min = Math.min(min, v);
+        max = Math.max(max, v);
+      }
+      mins[c] = min;
+      bits[c] = 64 - Long.numberOfLeadingZeros(max - min);
+      length += 1 + width(c) + (entries * bits[c] + 7 >>> 3);
+    }
+
+    // write header and packed values
+    final byte[] packed = new byte[length];
+    int pos = 0;
+    for(int c = 0; c < cl; c++) {
+      final int w = width(c), b = bits[c];
+      final long min = mins[c];
+      packed[pos++] = (byte) b;
+      for(int i = w - 1; i >= 0; i--) packed[pos++] = (byte) (min >>> (i << 3));
+      for(int e = 0, bp = pos << 3; e < entries; e++, bp += b) {
+        final int ix = bp >>> 3, sh = bp & 7, bl = sh + b + 7 >>> 3;
+        final long v = value(page, e, c) - min << sh;
+        for(int l = 0; l < bl; l++) packed[ix + l] |= (byte) (v >>> (l << 3));
+      }
+      pos += entries * b + 7 >>> 3;
+    }
+    return packed;
+  }
+
+  /**
+   * Unpacks the entries of a single page.
+   * @param packed packed page
+   * @param page target page
+   * @param entries number of entries
+   */
+  private static void unpack(final byte[] packed, final byte[] page, final int entries) {
+    final int cl = COLUMNS.length - 1;
+    int pos = 0;
+    for(int c = 0; c < cl; c++) {
+      final int w = width(c), b = packed[pos++], co = COLUMNS[c];
+      long min = 0;
+      for(int i = 0; i < w; i++) min = min << 8 | packed[pos++] & 0xFF;
+      final long mask = (1L << b) - 1;
+      for(int e = 0, bp = pos << 3; e < entries; e++, bp += b) {
+        final int ix = bp >>> 3, sh = bp & 7, bl = sh + b + 7 >>> 3;
+        long v = 0;
+        for(int l = 0; l < bl; l++) v |= (packed[ix + l] & 0xFFL) << (l << 3);
+        v = (v >>> sh & mask) + min;
+        final int o = (e << IO.NODEPOWER) + co;
+        for(int i = w - 1; i >= 0; i--) page[o + i] = (byte) (v >>> (w - 1 - i << 3));
+      }
+      pos += entries * b + 7 >>> 3;
+    }
+  }
+
+  /**
+   * Returns the unsigned value of a column.
+   * @param page page
+   * @param e index of the entry
+   * @param c index of the column
+   * @return value
+   */
+  private static long value(final byte[] page, final int e, final int c) {
+    final int o = (e << IO.NODEPOWER) + COLUMNS[c], w = width(c);
+    long v = 0;
+    for(int i = 0; i < w; i++) v = v << 8 | page[o + i] & 0xFF;
+    return v;
+  }
+
+  /**
+   * Returns the byte width of a column.
+   * @param c index of the column
+   * @return width
+   */
+  private static int width(final int c) {
+    return COLUMNS[c + 1] - COLUMNS[c];
+  }
+
+  /**
+   * Returns the file with the packed pages.
+   * @param table table file
+   * @return file
+   */
+  private static IOFile pages(final IOFile table) {
+    return new IOFile(table.path() + 'p');
+  }
+
+  /**
+   * Returns the file with the page offsets.
+   * @param table table file
+   * @return file
+   */
+  private static IOFile index(final IOFile table) {
+    return new IOFile(table.path() + "pi");
+  }
+}
@@ -10,6 +10,7 @@ import org.basex.core.*;
 import org.basex.data.*;
 import org.basex.io.*;
 import org.basex.io.in.DataInput;
+import org.basex.io.out.*;
 import org.basex.io.out.DataOutput;
 import org.basex.util.*;
 
@@ -21,14 +22,23 @@ import org.basex.util.*;
  * @author Tim Petrowsky
  */
 public final class TableDiskAccess extends TableAccess {
+  /** Maximum number of pages that are read ahead (must be 1 << n). */
+  private static final int READAHEAD = 1 << 5;
+
   /** Buffer manager. */
   private final Buffers buffers = new Buffers();
   /** File storing all pages. */
   private final RandomAccessFile file;
+  /** Memory mapping (can be {@code null}, only assigned if no updates take place). */
+  private volatile Mapping mapping;
+  /** Packed representation (can be {@code null}, will be unpacked before the first update). */
+  private PackedTable packed;
   /** Bitmap storing free (=0) and used (=1) pages. */
   private BitArray usedPages;
   /** File lock. */
   private FileLock lock;
+  /** Indicates if the current page index has been added to the update log. */
+  private boolean logged;
 
   /** First PRE values (ascending order); will be initialized with the first update. */
   private int[] fPreIndex;
@@ -46,6 +56,17 @@ public final class TableDiskAccess extends TableAccess {
   /** First PRE value of the next page. */
   private int nextPre = -1;
 
+  /** Pages that have been read ahead (will be allocated on demand). */
+  private byte[] ahead;
+  /** Position of the first page that has been read ahead. */
+  private int aheadPos;
+  /** Number of pages that have been read ahead. */
+  private int aheadPages;
+  /** Position of the page that has last been read from disk. */
+  private int lastPos = -1;
+  /** Number of pages to be read with the next sequential access. */
+  private int window = 1;
+
   /**
    * Constructor.
    * @param meta meta data
@@ -75,10 +96,23 @@ public final class TableDiskAccess extends TableAccess {
     }
 
     // initialize data file
-    file = new RandomAccessFile(meta.dbFile(DATATBL).file(), "rw");
+    final IOFile table = meta.dbFile(DATATBL);
+    if(PackedTable.exists(table)) packed = new PackedTable(table);
+    file = new RandomAccessFile(table.file(), "rw");
     if(!lock(write)) throw new BaseXException(Text.DB_PINNED_X, meta.name);
   }
 
+  /**
+   * Replaces the table of the specified database by a columnar, bit-packed representation.
+   * The table must not be opened, and all pages must be in ascending order.
+   * The table will be unpacked again before it is updated. Empty tables will not be packed.
+   * @param meta meta data
+   * @throws IOException I/O exception
+   */
+  public static void pack(final MetaData meta) throws IOException {
+    if(meta.size > 0) PackedTable.pack(meta.dbFile(DATATBL), meta.size);
+  }
+
   /**
    * Checks if the table of the specified database is locked.
    * @param db name of database
@@ -99,44 +133,71 @@ public final class TableDiskAccess extends TableAccess {
 
   @Override
   public synchronized void flush(final boolean all) throws IOException {
-    for(final Buffer buffer : buffers.all()) {
-      write(buffer);
-    }
+    final Buffer[] dirtyBuffers = buffers.dirty();
+    for(final Buffer buffer : dirtyBuffers) write(buffer);
+    // pages are only read via memory mapping if all updates have been written
+    if(dirtyBuffers.length != 0 && lock != null && lock.isShared()) map();
     if(!dirty || !all) return;
 
     try(DataOutput out = new DataOutput(meta.dbFile(DATATBL + 'i'))) {
-      final int p = pages;
-      boolean regular = true;
-
-      // check if page mapping is regular (are all pages used and in ascending order?)
-      if(fPreIndex != null) {
-        regular = p == used;
-        for(int i = 0; i < p && regular; i++) regular = fPreIndex[i] == i * IO.ENTRIES;
-        for(int i = 0; i < p && regular; i++) regular = pageIndex[i] == i;
-        if(regular) removeMapping();
-      }
+      writeIndex(out);
+    }
+    dirty = false;
+  }
 
-      if(regular) {
-        // no mapping available or required (0: empty table; MAX: no mapping, see TableOutput#close)
-        out.writeNum(p);
-        out.writeNum(used == 0 ? 0 : Integer.MAX_VALUE);
-      } else {
-        out.writeNum(p);
-        out.writeNum(used);
-        out.writeNum(p);
-        for(int s = 0; s < p; s++) out.writeNum(fPreIndex[s]);
-        out.writeNum(p);
-        for(int s = 0; s < p; s++) out.writeNum(pageIndex[s]);
-        out.writeLongs(usedPages.toArray());
+  /**
+   * Adds the buffered changes and the page index to the specified log if they have not been
+   * logged yet. The buffers remain dirty.
+   * @param log update log
+   * @throws IOException I/O exception
+   */
+  public synchronized void log(final UpdateLog log) throws IOException {
+    final IOFile table = meta.dbFile(DATATBL);
+    for(final Buffer buffer : buffers.dirty()) {
+      if(!buffer.logged) log.page(table, buffer.pos << IO.BLOCKPOWER, buffer.data, IO.BLOCKSIZE);
+    }
+    if(dirty && !logged) {
+      final ArrayOutput ao = new ArrayOutput();
+      try(DataOutput out = new DataOutput(ao)) {
+        writeIndex(out);
       }
+      log.image(meta.dbFile(DATATBL + 'i'), ao.finish());
     }
-    dirty = false;
+  }
+
+  /**
+   * Marks the buffered changes and the page index as logged.
+   * Called after the log has been committed.
+   */
+  public synchronized void logged() {
+    buffers.logged();
+    logged = dirty;
+  }
+
+  /**
+   * Enables or disables pinning: if enabled, modified pages will only be written to disk
+   * after they have been logged.
+   * @param pin pin pages
+   */
+  public synchronized void pin(final boolean pin) {
+    buffers.pin(pin);
   }
 
   @Override
   public synchronized void close() throws IOException {
     flush(true);
+    release();
+    if(packed != null) packed.close();
     file.close();
+    buffers.close();
+  }
+
+  /**
+   * Returns the cache statistics.
+   * @return info string
+   */
+  public synchronized String info() {
+    return buffers.info();
   }
 
   @Override
@@ -147,6 +208,9 @@ public final class TableDiskAccess extends TableAccess {
         lock.release();
       }
       lock = file.getChannel().tryLock(0, Long.MAX_VALUE, !write);
+      // pages are only read via memory mapping if no updates take place
+      if(lock == null || write || buffers.dirty().length != 0) release();
+      else map();
       return lock != null;
     } catch(final IOException ex) {
       throw Util.notExpected(ex);
@@ -154,55 +218,82 @@ public final class TableDiskAccess extends TableAccess {
   }
 
   @Override
-  public synchronized int read1(final int pre, final int offset) {
-    final int o = offset + cursor(pre);
-    final byte[] data = buffers.current().data;
-    return data[o] & 0xFF;
+  public int read1(final int pre, final int offset) {
+    final Mapping mp = mapping;
+    final long pos = position(mp, pre);
+    if(pos != -1) return mp.read1(pos + offset);
+
+    synchronized(this) {
+      final int o = offset + cursor(pre);
+      final byte[] data = buffers.current().data;
+      return data[o] & 0xFF;
+    }
   }
 
   @Override
-  public synchronized int read2(final int pre, final int offset) {
-    final int o = offset + cursor(pre);
-    final byte[] data = buffers.current().data;
-    return ((data[o] & 0xFF) << 8) + (data[o + 1] & 0xFF);
+  public int read2(final int pre, final int offset) {
+    final Mapping mp = mapping;
+    final long pos = position(mp, pre);
+    if(pos != -1) return mp.read2(pos + offset);
+
+    synchronized(this) {
+      final int o = offset + cursor(pre);
+      final byte[] data = buffers.current().data;
+      return ((data[o] & 0xFF) << 8) + (data[o + 1] & 0xFF);
+    }
   }
 
   @Override
-  public synchronized int read4(final int pre, final int offset) {
-    final int o = offset + cursor(pre);
-    final byte[] data = buffers.current().data;
-    return ((data[o] & 0xFF) << 24) + ((data[o + 1] & 0xFF) << 16) +
-      ((data[o + 2] & 0xFF) << 8) + (data[o + 3] & 0xFF);
+  public int read4(final int pre, final int offset) {
+    final Mapping mp = mapping;
+    final long pos = position(mp, pre);
+    if(pos != -1) return mp.read4(pos + offset);
+
+    synchronized(this) {
+      final int o = offset + cursor(pre);
+      final byte[] data = buffers.current().data;
+      return ((data[o] & 0xFF) << 24) + ((data[o + 1] & 0xFF) << 16) +
+        ((data[o + 2] & 0xFF) << 8) + (data[o + 3] & 0xFF);
+    }
   }
 
   @Override
-  public synchronized long read5(final int pre, final int offset) {
-    final int o = offset + cursor(pre);
-    final byte[] data = buffers.current().data;
-    return ((long) (data[o] & 0xFF) << 32) + ((long) (data[o + 1] & 0xFF) << 24) +
-      ((data[o + 2] & 0xFF) << 16) + ((data[o + 3] & 0xFF) << 8) + (data[o + 4] & 0xFF);
+  public long read5(final int pre, final int offset) {
+    final Mapping mp = mapping;
+    final long pos = position(mp, pre);
+    if(pos != -1) return mp.read5(pos + offset);
+
+    synchronized(this) {
+      final int o = offset + cursor(pre);
+      final byte[] data = buffers.current().data;
+      return ((long) (data[o] & 0xFF) << 32) + ((long) (data[o + 1] & 0xFF) << 24) +
+        ((data[o + 2] & 0xFF) << 16) + ((data[o + 3] & 0xFF) << 8) + (data[o + 4] & 0xFF);
+    }
   }
 
   @Override
   public void write1(final int pre, final int offset, final int value) {
+    unpack();
     final int o = offset + cursor(pre);
     final Buffer buffer = buffers.current();
     buffer.data[o] = (byte) value;
-    buffer.dirty = true;
+    buffer.modify();
   }
 
   @Override
   public void write2(final int pre, final int offset, final int value) {
+    unpack();
     final int o = offset + cursor(pre);
     final Buffer buffer = buffers.current();
     final byte[] data = buffer.data;
     data[o] = (byte) (value >>> 8);
     data[o + 1] = (byte) value;
-    buffer.dirty = true;
+    buffer.modify();
   }
 
   @Override
   public void write4(final int pre, final int offset, final int value) {
+    unpack();
     final int o = offset + cursor(pre);
     final Buffer buffer = buffers.current();
     final byte[] data = buffer.data;
@@ -210,11 +301,12 @@ public final class TableDiskAccess extends TableAccess {
     data[o + 1] = (byte) (value >>> 16);
     data[o + 2] = (byte) (value >>> 8);
     data[o + 3] = (byte) value;
-    buffer.dirty = true;
+    buffer.modify();
   }
 
   @Override
   public void write5(final int pre, final int offset, final long value) {
+    unpack();
     final int o = offset + cursor(pre);
     final Buffer buffer = buffers.current();
     final byte[] data = buffer.data;
@@ -223,17 +315,18 @@ public final class TableDiskAccess extends TableAccess {
     data[o + 2] = (byte) (value >>> 16);
     data[o + 3] = (byte) (value >>> 8);
     data[o + 4] = (byte) value;
-    buffer.dirty = true;
+    buffer.modify();
   }
 
   @Override
   protected void copy(final byte[] entries, final int first, final int last) {
+    unpack();
     dirty();
     for(int o = 0, i = first; i < last; ++i, o += IO.NODESIZE) {
       final int off = cursor(i);
       final Buffer buffer = buffers.current();
       Array.copy(entries, o, IO.NODESIZE, buffer.data, off);
-      buffer.dirty = true;
+      buffer.modify();
     }
   }
 
@@ -242,6 +335,7 @@ public final class TableDiskAccess extends TableAccess {
     if(count == 0) return;
 
     // get first page
+    unpack();
     dirty();
     cursor(pre);
 
@@ -313,6 +407,7 @@ public final class TableDiskAccess extends TableAccess {
   public void insert(final int pre, final byte[] entries) {
     final int nnew = entries.length;
     if(nnew == 0) return;
+    unpack();
     dirty();
 
     // number of entries to be inserted
@@ -338,7 +433,7 @@ public final class TableDiskAccess extends TableAccess {
     Buffer buffer = buffers.current();
     if(nold + nnew <= IO.BLOCKSIZE) {
       Array.insert(buffer.data, split, nnew, nold, entries);
-      buffer.dirty = true;
+      buffer.modify();
 
       // increment first pre-values of pages after the last modified page
       for(int i = page + 1; i < used; ++i) fPreIndex[i] += nr;
@@ -358,7 +453,7 @@ public final class TableDiskAccess extends TableAccess {
     int nrem = IO.BLOCKSIZE - split;
     if(nrem > 0) {
       Array.copyFromStart(all, nrem, buffer.data, split);
-      buffer.dirty = true;
+      buffer.modify();
     }
 
     // number of new required pages and remaining bytes
@@ -376,7 +471,7 @@ public final class TableDiskAccess extends TableAccess {
           buffer = buffers.current();
           Array.copyFromStart(buffer.data, o, buffer.data, remain);
           Array.copyToStart(all, all.length - remain, remain, buffer.data);
-          buffer.dirty = true;
+          buffer.modify();
           // reduce the PRE value, since it will be later incremented with nr
           fPreIndex[page] -= remain >>> IO.NODEPOWER;
           // go back to the previous page
@@ -440,6 +535,69 @@ public final class TableDiskAccess extends TableAccess {
 
   // PRIVATE METHODS ==============================================================================
 
+  /**
+   * Writes the page index.
+   * @param out output stream
+   * @throws IOException I/O exception
+   */
+  private void writeIndex(final DataOutput out) throws IOException {
+    final int p = pages;
+    boolean regular = true;
+
+    // check if page mapping is regular (are all pages used and in ascending order?)
+    if(fPreIndex != null) {
+      regular = p == used;
+      for(int i = 0; i < p && regular; i++) regular = fPreIndex[i] == i * IO.ENTRIES;
+      for(int i = 0; i < p && regular; i++) regular = pageIndex[i] == i;
+      if(regular) removeMapping();
+    }
+
+    if(regular) {
+      // no mapping available or required (0: empty table; MAX: no mapping, see TableOutput#close)
+      out.writeNum(p);
+      out.writeNum(used == 0 ? 0 : Integer.MAX_VALUE);
+    } else {
+      out.writeNum(p);
+      out.writeNum(used);
+      out.writeNum(p);
+      for(int s = 0; s < p; s++) out.writeNum(fPreIndex[s]);
+      out.writeNum(p);
+      for(int s = 0; s < p; s++) out.writeNum(pageIndex[s]);
+      out.writeLongs(usedPages.toArray());
+    }
+  }
+
+  /**
+   * Maps the table file into memory.
+   * @throws IOException I/O exception
+   */
+  private void map() throws IOException {
+    release();
+    mapping = Mapping.get(file.getChannel(), file.length());
+  }
+
+  /**
+   * Releases the memory mapping of the table file.
+   */
+  private void release() {
+    Mapping.close(mapping);
+    mapping = null;
+  }
+
+  /**
+   * Replaces the packed representation by the unpacked table.
+   */
+  private void unpack() {
+    if(packed == null) return;
+    try {
+      packed.unpack(file);
+      packed.delete(meta.dbFile(DATATBL));
+      packed = null;
+    } catch(final IOException ex) {
+      throw new RuntimeException(Util.info(ex));
+    }
+  }
+
   /**
    * Marks the data structures as dirty.
    */
@@ -453,6 +611,7 @@ public final class TableDiskAccess extends TableAccess {
       usedPages = new BitArray(used, true);
     }
     dirty = true;
+    logged = false;
   }
 
   /**
@@ -486,6 +645,33 @@ public final class TableDiskAccess extends TableAccess {
     return pre - firstPre << IO.NODEPOWER;
   }
 
+  /**
+   * Returns the file offset of the entry for the specified PRE value.
+   * In contrast to {@link #cursor(int)}, no pages are read and no fields are changed,
+   * so the function can be called by concurrent readers.
+   * @param mp memory mapping (can be {@code null})
+   * @param pre PRE of the entry to search for
+   * @return file offset, or {@code -1} if the entry is not mapped
+   */
+  private long position(final Mapping mp, final int pre) {
+    if(mp == null || pre < 0 || pre >= meta.size) return -1;
+
+    final long pos;
+    final int[] fpres = fPreIndex;
+    if(fpres == null) {
+      pos = (long) pre << IO.NODEPOWER;
+    } else {
+      int l = 0, h = used - 1;
+      while(l < h) {
+        final int m = l + h + 1 >>> 1;
+        if(fpres[m] <= pre) l = m;
+        else h = m - 1;
+      }
+      pos = ((long) pageIndex[l] << IO.BLOCKPOWER) + (pre - fpres[l] << IO.NODEPOWER);
+    }
+    return mp.contains(pos, IO.NODESIZE) ? pos : -1;
+  }
+
   /**
    * Updates the page pointers.
    * @param pre page index
@@ -528,14 +714,53 @@ public final class TableDiskAccess extends TableAccess {
       if(pre >= pages) {
         pages = pre + 1;
       } else {
-        file.seek(buffer.pos << IO.BLOCKPOWER);
-        file.readFully(buffer.data);
+        final long pos = buffer.pos << IO.BLOCKPOWER;
+        if(packed != null) {
+          packed.read(pre, buffer.data);
+        } else if(mapping == null || !mapping.read(pos, buffer.data)) {
+          read(pre, buffer.data);
+        }
       }
     } catch(final IOException ex) {
       throw new RuntimeException(Util.info(ex));
     }
   }
 
+  /**
+   * Reads a page from the table file. If pages are requested in ascending order, the number of
+   * subsequent pages that are read with a single disk access is doubled with each request.
+   * @param pos position of the page
+   * @param data target array
+   * @throws IOException I/O exception
+   */
+  private void read(final int pos, final byte[] data) throws IOException {
+    // return page that has already been read ahead
+    final int a = pos - aheadPos;
+    if(a >= 0 && a < aheadPages) {
+      Array.copyToStart(ahead, a << IO.BLOCKPOWER, IO.BLOCKSIZE, data);
+      lastPos = pos;
+      return;
+    }
+
+    // sequential access: increase number of pages to be read ahead
+    window = pos == lastPos + 1 ? Math.min(window << 1, READAHEAD) : 1;
+    lastPos = pos;
+    file.seek((long) pos << IO.BLOCKPOWER);
+    // new pages may not have been written yet
+    final int count = window == 1 ? 1 :
+      (int) Math.min(window, (file.length() >>> IO.BLOCKPOWER) - pos);
+    if(count > 1) {
+      if(ahead == null) ahead = new byte[READAHEAD << IO.BLOCKPOWER];
+      aheadPages = 0;
+      file.readFully(ahead, 0, count << IO.BLOCKPOWER);
+      aheadPos = pos;
+      aheadPages = count;
+      Array.copyToStart(ahead, 0, IO.BLOCKSIZE, data);
+    } else {
+      file.readFully(data);
+    }
+  }
+
   /**
    * Writes the specified buffer to disk and resets the dirty flag.
    * @param buffer buffer to write
@@ -544,6 +769,10 @@ public final class TableDiskAccess extends TableAccess {
   private void write(final Buffer buffer) throws IOException {
     if(!buffer.dirty) return;
 
+    // invalidate pages that have been read ahead
+    final long a = buffer.pos - aheadPos;
+    if(a >= 0 && a < aheadPages) aheadPages = 0;
+
     file.seek(buffer.pos << IO.BLOCKPOWER);
     file.write(buffer.data);
     buffer.dirty = false;
@@ -580,7 +809,7 @@ public final class TableDiskAccess extends TableAccess {
   private static void delete(final Buffer buffer, final int from, final int to, final int length) {
     final byte[] array = buffer.data;
     Array.copy(array, to << IO.NODEPOWER, length << IO.NODEPOWER, array, from << IO.NODEPOWER);
-    buffer.dirty = true;
+    buffer.modify();
   }
 
   /**
@@ -593,7 +822,7 @@ public final class TableDiskAccess extends TableAccess {
     final Buffer buffer = buffers.current();
     final int len = Math.min(IO.BLOCKSIZE, array.length - offset);
     Array.copyToStart(array, offset, len, buffer.data);
-    buffer.dirty = true;
+    buffer.modify();
     return len;
   }
 
@@ -0,0 +1,225 @@
+package org.basex.io.random;
+
+import java.io.*;
+import java.nio.*;
+import java.util.*;
+import java.util.zip.*;
+
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.*;
+import org.basex.io.out.DataOutput;
+import org.basex.util.*;
+
+/**
+ * Write-ahead log of a database.
+ *
+ * The changes of a transaction are collected in main memory and appended to the log file in a
+ * single write operation. A transaction consists of the modified file pages, new file lengths,
+ * and complete images of small files. Each transaction is terminated with a checksum, which
+ * allows incomplete transactions to be detected. When a database is opened, the committed
+ * transactions are replayed and the log is deleted. The log is also deleted when all updates
+ * have been written to the database files.
+ *
+ * The log only contains redo information: Pages must not be written to the database files
+ * before they have been committed (see {@link DataAccess#pin}). As committed pages are logged
+ * completely, pages that have been torn by a crash are restored by replaying the log.
+ * Before the log is deleted, all database files are forced to disk.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class UpdateLog {
+  /** Record type: file page. */
+  private static final int PAGE = 0;
+  /** Record type: file length. */
+  private static final int LENGTH = 1;
+  /** Record type: file image. */
+  private static final int IMAGE = 2;
+
+  /** Log file. */
+  private final IOFile file;
+  /** Changes of the current transaction. */
+  private final ArrayOutput changes = new ArrayOutput();
+  /** Output for the changes of the current transaction. */
+  private final DataOutput out = new DataOutput(changes);
+
+  /**
+   * Constructor.
+   * @param file log file
+   */
+  public UpdateLog(final IOFile file) {
+    this.file = file;
+  }
+
+  /**
+   * Adds a modified page.
+   * @param target target file
+   * @param pos file offset
+   * @param data page data
+   * @param len number of bytes to write
+   * @throws IOException I/O exception
+   */
+  public void page(final IOFile target, final long pos, final byte[] data, final int len)
+      throws IOException {
+    out.write1(PAGE);
+    out.writeToken(Token.token(target.name()));
+    out.writeLong(pos);
+    // page is stored as token
+    out.writeNum(len);
+    out.write(data, 0, len);
+  }
+
+  /**
+   * Adds a new file length.
+   * @param target target file
+   * @param length file length
+   * @throws IOException I/O exception
+   */
+  public void length(final IOFile target, final long length) throws IOException {
+    out.write1(LENGTH);
+    out.writeToken(Token.token(target.name()));
+    out.writeLong(length);
+  }
+
+  /**
+   * Adds the complete contents of a file.
+   * @param target target file
+   * @param contents file contents
+   * @throws IOException I/O exception
+   */
+  public void image(final IOFile target, final byte[] contents) throws IOException {
+    out.write1(IMAGE);
+    out.writeToken(Token.token(target.name()));
+    out.writeToken(contents);
+  }
+
+  /**
+   * Appends the changes of the current transaction to the log and forces them to disk.
+   * @throws IOException I/O exception
+   */
+  public void commit() throws IOException {
+    final byte[] data = changes.next();
+    if(data.length == 0) return;
+
+    final ByteBuffer entry = ByteBuffer.allocate(data.length + 8);
+    entry.putInt(data.length).put(data).putInt(checksum(data));
+    final long size = size();
+    try(FileOutputStream fos = new FileOutputStream(file.file(), true)) {
+      fos.write(entry.array());
+      fos.getFD().sync();
+    } catch(final IOException ex) {
+      // remove incomplete entry: subsequent transactions would be ignored during recovery
+      try(RandomAccessFile raf = new RandomAccessFile(file.file(), "rw")) {
+        raf.setLength(size);
+      } catch(final IOException e) {
+        Util.debug(e);
+      }
+      throw ex;
+    }
+  }
+
+  /**
+   * Returns the size of the log file.
+   * @return size
+   */
+  public long size() {
+    return file.length();
+  }
+
+  /**
+   * Deletes the log. Called if all updates have been written to the database files.
+   * @throws IOException I/O exception
+   */
+  public void delete() throws IOException {
+    changes.reset();
+    if(!file.exists()) return;
+    sync(file.parent());
+    if(!file.delete()) Util.debugln("%: could not delete log.", file);
+  }
+
+  /**
+   * Replays all committed transactions of the specified log and deletes the log.
+   * Incomplete transactions at the end of the log are ignored.
+   * @param file log file
+   * @return number of replayed transactions
+   * @throws IOException I/O exception
+   */
+  public static int recover(final IOFile file) throws IOException {
+    if(!file.exists()) return 0;
+
+    int count = 0;
+    final ByteBuffer log = ByteBuffer.wrap(file.read());
+    while(log.remaining() >= 4) {
+      // stop if a transaction is incomplete or corrupt
+      final int size = log.getInt(), pos = log.position();
+      if(size <= 0 || size > log.remaining() - 4) break;
+      final byte[] data = Arrays.copyOfRange(log.array(), pos, pos + size);
+      log.position(pos + size);
+      if(log.getInt() != checksum(data)) break;
+      replay(data, file.parent());
+      count++;
+    }
+    if(count > 0) sync(file.parent());
+    if(!file.delete()) throw new IOException("Log could not be deleted: " + file);
+    return count;
+  }
+
+  /**
+   * Forces all database files to disk.
+   * @param dir database directory
+   * @throws IOException I/O exception
+   */
+  private static void sync(final IOFile dir) throws IOException {
+    for(final IOFile child : dir.children()) {
+      if(child.isDir()) continue;
+      try(RandomAccessFile raf = new RandomAccessFile(child.file(), "rw")) {
+        raf.getFD().sync();
+      }
+    }
+  }
+
+  /**
+   * Computes the checksum of the specified bytes.
+   * @param data data
+   * @return checksum
+   */
+  private static int checksum(final byte[] data) {
+    final CRC32 crc = new CRC32();
+    crc.update(data);
+    return (int) crc.getValue();
+  }
+
+  /**
+   * Replays a single transaction.
+   * @param data changes of the transaction
+   * @param dir database directory
+   * @throws IOException I/O exception
+   */
+  private static void replay(final byte[] data, final IOFile dir) throws IOException {
+    try(DataInput in = new DataInput(new IOContent(data))) {
+      while(in.size() < data.length) {
+        final int type = in.read();
+        final IOFile target = new IOFile(dir, Token.string(in.readToken()));
+        switch(type) {
+          case PAGE -> {
+            final long pos = in.readLong();
+            final byte[] page = in.readToken();
+            try(RandomAccessFile raf = new RandomAccessFile(target.file(), "rw")) {
+              raf.seek(pos);
+              raf.write(page);
+            }
+          }
+          case LENGTH -> {
+            final long length = in.readLong();
+            try(RandomAccessFile raf = new RandomAccessFile(target.file(), "rw")) {
+              raf.setLength(length);
+            }
+          }
+          case IMAGE -> target.write(in.readToken());
+          default -> throw new IOException("Invalid log entry: " + type);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package org.basex.query;
+
+import java.util.*;
+import java.util.Map.*;
+
+import org.basex.core.*;
+
+/**
+ * This class caches compiled queries for reuse.
+ *
+ * Queries are cached by their query string, the static properties of their evaluation and the
+ * names of the bound variables. As the values of external variables are not inlined in reusable
+ * queries (see {@link QueryContext#reusable}), queries can be reused with different bindings.
+ * A cached query is removed from the cache while it is evaluated. All cached queries are
+ * discarded as soon as a job with write locks is registered.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class QueryCache {
+  /** Cached queries, ordered by their last access. */
+  private final LinkedHashMap<String, ArrayList<QueryContext>> queries =
+      new LinkedHashMap<>(16, 0.75f, true);
+  /** Static options. */
+  private final StaticOptions soptions;
+  /** Number of cached queries. */
+  private int size;
+  /** Generation of the cache (incremented whenever the cache is invalidated). */
+  private long generation;
+
+  /**
+   * Constructor.
+   * @param soptions static options
+   */
+  public QueryCache(final StaticOptions soptions) {
+    this.soptions = soptions;
+  }
+
+  /**
+   * Indicates if queries are cached.
+   * @return result of check
+   */
+  boolean enabled() {
+    return soptions.get(StaticOptions.QUERYCACHE) > 0;
+  }
+
+  /**
+   * Returns the current generation of the cache.
+   * @return generation
+   */
+  synchronized long generation() {
+    return generation;
+  }
+
+  /**
+   * Removes a compiled query from the cache and returns it.
+   * @param key key
+   * @return query context, or {@code null} if no valid query is cached
+   */
+  QueryContext get(final String key) {
+    final QueryContext qc;
+    synchronized(this) {
+      final ArrayList<QueryContext> list = queries.get(key);
+      if(list == null) return null;
+      qc = list.remove(list.size() - 1);
+      if(list.isEmpty()) queries.remove(key);
+      qc.generation = generation;
+      size--;
+    }
+    // discard query if imported modules have been changed
+    if(qc.modified()) {
+      qc.close();
+      return null;
+    }
+    return qc;
+  }
+
+  /**
+   * Adds an evaluated query to the cache. Evicts the least recently used queries
+   * if the maximum number of cached queries is exceeded.
+   * @param key key
+   * @param qc query context
+   * @return {@code true} if the query was cached, {@code false} if it needs to be closed
+   */
+  boolean add(final String key, final QueryContext qc) {
+    if(!enabled() || !qc.release()) return false;
+
+    final ArrayList<QueryContext> evicted = new ArrayList<>();
+    synchronized(this) {
+      // skip query if cache has been invalidated in the meantime
+      if(qc.generation != generation) return false;
+      queries.computeIfAbsent(key, k -> new ArrayList<>(1)).add(qc);
+      size++;
+
+      final int max = soptions.get(StaticOptions.QUERYCACHE);
+      final Iterator<Entry<String, ArrayList<QueryContext>>> iter = queries.entrySet().iterator();
+      while(size > max && iter.hasNext()) {
+        final ArrayList<QueryContext> list = iter.next().getValue();
+        while(size > max && !list.isEmpty()) {
+          evicted.add(list.remove(0));
+          size--;
+        }
+        if(list.isEmpty()) iter.remove();
+      }
+    }
+    for(final QueryContext ctx : evicted) ctx.close();
+    return true;
+  }
+
+  /**
+   * Discards all cached queries.
+   */
+  public void invalidate() {
+    final ArrayList<QueryContext> list = new ArrayList<>();
+    synchronized(this) {
+      generation++;
+      if(size == 0) return;
+      for(final ArrayList<QueryContext> qcs : queries.values()) list.addAll(qcs);
+      queries.clear();
+      size = 0;
+    }
+    for(final QueryContext qc : list) qc.close();
+  }
+
+  /**
+   * Closes all cached queries.
+   */
+  public void close() {
+    invalidate();
+  }
+}
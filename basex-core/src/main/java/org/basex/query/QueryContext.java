@@ -65,9 +65,9 @@ public final class QueryContext extends Job implements Closeable {
   /** Parent query context. */
   public final QueryContext parent;
   /** Database context. */
-  public final Context context;
+  public Context context;
   /** Query info. */
-  public final QueryInfo info;
+  public QueryInfo info;
 
   /** Global database options (will be reassigned after query execution). */
   final QueryOptions options = new QueryOptions(this);
@@ -81,7 +81,7 @@ public final class QueryContext extends Job implements Closeable {
   /** Current query focus. */
   public QueryFocus focus = new QueryFocus();
   /** Date/time values. */
-  private QueryDateTime dateTime;
+  QueryDateTime dateTime;
 
   /** Update container; will be created if the first update is evaluated. */
   public Updates updates;
@@ -130,9 +130,17 @@ public final class QueryContext extends Job implements Closeable {
   public ContextScope contextValue;
   /** Indicates if context scope exists and is final. */
   public boolean finalContext;
+  /** Indicates if the compiled query can be reused (values of external variables are not
+   * inlined, see {@link QueryCache}). */
+  public boolean reusable;
+
+  /** Generation of the query cache when the query was compiled or reused. */
+  long generation;
+  /** Time stamps of the parsed modules of a reusable query. */
+  private long[] timeStamps;
 
   /** External variables and context to be bound at compile time. */
-  private final QNmMap<Value> bindings = new QNmMap<>();
+  private QNmMap<Value> bindings = new QNmMap<>();
 
   /** Serialization options. */
   private SerializerOptions sopts;
@@ -289,15 +297,7 @@ public final class QueryContext extends Job implements Closeable {
       options.compile();
       tco = context.options.get(MainOptions.TAILCALLS) >= 0;
 
-      // bind external variables
-      if(parent == null) {
-        final Map<String, String> map = context.options.toMap(MainOptions.BINDINGS);
-        for(final Entry<String, String> entry : map.entrySet()) {
-          bind(entry.getKey(), Atm.get(entry.getValue()), null, main.sc);
-        }
-      }
-      vars.bindExternal(this, bindings, true);
-
+      bindExternal();
       return compile(false);
     });
   }
@@ -324,7 +324,12 @@ public final class QueryContext extends Job implements Closeable {
       }
       if(contextValue != null) finalContext = true;
 
-      return compile(true);
+      compile(true);
+      // check if the compiled query can be reused
+      reusable = reusable && !updating && contextValue == null && dateTime == null &&
+          options.isEmpty() && resources.mark();
+      if(reusable) timeStamps = timeStamps();
+      return null;
     });
   }
 
@@ -594,6 +599,78 @@ public final class QueryContext extends Job implements Closeable {
 
   // CLASS METHODS ================================================================================
 
+  /**
+   * Returns a key for caching the compiled query.
+   * @param query query string
+   * @param sc static context
+   * @return key, or {@code null} if the query cannot be cached
+   */
+  String cacheKey(final String query, final StaticContext sc) {
+    // queries with a context value cannot be reused
+    if(parent != null || bindings.contains(QNm.EMPTY) || context.current() != null) return null;
+
+    final TokenList names = new TokenList(bindings.size());
+    for(final QNm qnm : bindings) names.add(qnm.unique());
+    final StringBuilder sb = new StringBuilder(query).append('\0');
+    sb.append(sc.baseURI()).append('\0').append(user.name()).append('\0');
+    sb.append(context.options);
+    for(final byte[] name : names.sort()) sb.append('\0').append(string(name));
+    return sb.toString();
+  }
+
+  /**
+   * Prepares a cached query for another evaluation.
+   * @param qc query context with the bindings and the query info of the new evaluation
+   * @param query query string
+   * @throws QueryException query exception
+   */
+  void reuse(final QueryContext qc, final String query) throws QueryException {
+    // adopt database context of the new evaluation
+    context = qc.context;
+    resources.context = context;
+    user = qc.user;
+    info = qc.info;
+    info.query = query;
+    info.runtime = true;
+    bindings = qc.bindings;
+    focus = new QueryFocus();
+    dateTime = null;
+    traces = 0;
+
+    run(info.compiling, () -> {
+      main.value = null;
+      vars.unbind();
+      bindExternal();
+      return null;
+    });
+  }
+
+  /**
+   * Releases the resources that have been opened when evaluating a reusable query.
+   * @return {@code true} if the query can be reused, {@code false} if it needs to be closed
+   */
+  boolean release() {
+    if(!reusable || !optimized || closed || !stack.isEmpty()) return false;
+
+    profiler.finish();
+    profiler.timing.clear();
+    profiler.memory.clear();
+    threads.close();
+    resources.reset();
+
+    final Performance perf = jc().performance;
+    if(perf != null) info.serializing.addAndGet(perf.nanoRuntime());
+    return true;
+  }
+
+  /**
+   * Checks if the parsed modules of a reusable query have been modified.
+   * @return result of check
+   */
+  boolean modified() {
+    return !Arrays.equals(timeStamps, timeStamps());
+  }
+
   /**
    * Caches the result of the specified query.
    * This function is called by the GUI and must only be called after optimizing the query.
@@ -643,6 +720,32 @@ public final class QueryContext extends Job implements Closeable {
 
   // PRIVATE METHODS ==============================================================================
 
+  /**
+   * Binds the values of external variables.
+   * @throws QueryException query exception
+   */
+  private void bindExternal() throws QueryException {
+    if(parent == null) {
+      final Map<String, String> map = context.options.toMap(MainOptions.BINDINGS);
+      for(final Entry<String, String> entry : map.entrySet()) {
+        bind(entry.getKey(), Atm.get(entry.getValue()), null, main.sc);
+      }
+    }
+    vars.bindExternal(this, bindings, true);
+  }
+
+  /**
+   * Returns the time stamps of the parsed modules.
+   * @return time stamps
+   */
+  private long[] timeStamps() {
+    final LongList list = new LongList(modParsed.size());
+    for(final byte[] path : modParsed) {
+      if(path.length != 0) list.add(IO.get(string(path)).timeStamp());
+    }
+    return list.finish();
+  }
+
   /**
    * Returns the result of an updating expression.
    * @return result iterator
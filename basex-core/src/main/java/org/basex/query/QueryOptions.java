@@ -72,6 +72,14 @@ final class QueryOptions {
     }
   }
 
+  /**
+   * Indicates if no options have been declared.
+   * @return result of check
+   */
+  boolean isEmpty() {
+    return localOpts.isEmpty();
+  }
+
   /**
    * Reassigns original options.
    */
@@ -0,0 +1,213 @@
+package org.basex.query;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.basex.core.*;
+import org.basex.core.jobs.*;
+import org.basex.query.expr.*;
+import org.basex.query.func.*;
+import org.basex.query.scope.*;
+import org.basex.query.util.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.var.*;
+import org.basex.util.*;
+
+/**
+ * Parallel evaluation of expressions that are applied to each item of an input sequence.
+ * The input is partitioned into contiguous chunks, which are evaluated in a shared pool, and
+ * the results are concatenated in the order of the input.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class QueryParallel {
+  /** Minimum number of input items per chunk. */
+  public static final int CHUNK = 1 << 8;
+  /** Shared pool for evaluating expressions in parallel. */
+  private static final ForkJoinPool POOL =
+      new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+  /** Private constructor. */
+  private QueryParallel() { }
+
+  /**
+   * Returns the maximum number of threads that will be used to evaluate the specified
+   * expressions for each item of the input expression.
+   * @param cc compilation context
+   * @param input input expression
+   * @param exprs expressions to be evaluated for each input item
+   * @return number of threads ({@code 1}: sequential evaluation)
+   */
+  public static int threads(final CompileContext cc, final Expr input, final Expr... exprs) {
+    final int t = cc.qc.context.options.get(MainOptions.QUERYTHREADS);
+    final int threads = t > 0 ? t : Runtime.getRuntime().availableProcessors();
+    if(threads == 1) return 1;
+
+    // skip small inputs, nondeterministic expressions and lazily evaluated global variables
+    final long size = input.size();
+    if(size != -1 && size < CHUNK << 1 || input.has(Flag.NDT)) return 1;
+    for(final Expr expr : exprs) {
+      if(expr.has(Flag.NDT) || !evaluated(expr)) return 1;
+    }
+    return threads;
+  }
+
+  /**
+   * Checks if all global variables that are referenced by an expression (directly or by called
+   * functions) have been evaluated. Values that are computed at runtime are assigned without
+   * synchronization and must not be requested by concurrent threads.
+   * @param expr expression
+   * @return result of check
+   */
+  private static boolean evaluated(final Expr expr) {
+    final IdentityHashMap<Scope, Scope> scopes = new IdentityHashMap<>();
+    return expr.accept(new ASTVisitor() {
+      @Override
+      public boolean staticVar(final StaticVar var) {
+        // external variables of reusable queries are bound before the query is evaluated
+        return var.expr instanceof Value || var.expr == null && var.external;
+      }
+
+      @Override
+      public boolean staticFuncCall(final StaticFuncCall call) {
+        final StaticFunc func = call.func();
+        return func == null || scopes.put(func, func) != null || func.visit(this);
+      }
+
+      @Override
+      public boolean inlineFunc(final Scope scope) {
+        return scope.visit(this);
+      }
+
+      @Override
+      public boolean funcItem(final FuncItem func) {
+        return scopes.put(func, func) != null || func.visit(this);
+      }
+    });
+  }
+
+  /**
+   * Evaluates the chunks of an input sequence in parallel.
+   * If the input sequence is too small, it will be evaluated in the current thread.
+   * @param input input sequence
+   * @param threads maximum number of threads
+   * @param chunk evaluator for a single chunk
+   * @param qc query context
+   * @return concatenated results
+   * @throws QueryException query exception
+   */
+  public static Value value(final Value input, final int threads, final Chunk chunk,
+      final QueryContext qc) throws QueryException {
+
+    // evaluate small inputs sequentially; full-text positions cannot be recorded in parallel
+    final long size = input.size();
+    final int chunks = (int) Math.min(threads, size / CHUNK);
+    if(chunks < 2 || qc.ftPosData != null) return chunk.value(input, 0, qc);
+
+    final QueryDateTime dateTime = qc.dateTime();
+    final Task[] tasks = new Task[chunks];
+    for(int c = 0; c < chunks; c++) {
+      final long start = size * c / chunks, end = size * (c + 1) / chunks;
+      tasks[c] = new Task(input.subsequence(start, end - start, qc), start, chunk, dateTime, qc);
+    }
+    try {
+      if(ForkJoinTask.inForkJoinPool()) {
+        ForkJoinTask.invokeAll(tasks);
+      } else {
+        POOL.invoke(new RecursiveAction() {
+          @Override
+          protected void compute() {
+            invokeAll(tasks);
+          }
+        });
+      }
+    } catch(final RuntimeException ex) {
+      // pass on job exceptions
+      final Throwable th = Util.rootException(ex);
+      if(th instanceof final JobException je) throw je;
+      throw ex;
+    }
+
+    // merge results in the order of the input, raise first error
+    final ValueBuilder vb = new ValueBuilder(qc);
+    for(final Task task : tasks) {
+      if(task.error != null) throw task.error;
+      vb.add(task.result);
+    }
+    return vb.value();
+  }
+
+  /**
+   * Evaluator for a chunk of the input sequence.
+   */
+  @FunctionalInterface
+  public interface Chunk {
+    /**
+     * Evaluates a chunk.
+     * @param items input items
+     * @param offset number of input items preceding the chunk
+     * @param qc query context of the evaluating thread
+     * @return result
+     * @throws QueryException query exception
+     */
+    Value value(Value items, long offset, QueryContext qc) throws QueryException;
+  }
+
+  /**
+   * Task for evaluating a single chunk.
+   */
+  private static final class Task extends RecursiveAction {
+    /** Input items. */
+    private final Value items;
+    /** Number of input items preceding the chunk. */
+    private final long offset;
+    /** Chunk evaluator. */
+    private final Chunk chunk;
+    /** Date/time values of the query. */
+    private final QueryDateTime dateTime;
+    /** Focus of the calling expression. */
+    private final QueryFocus focus;
+    /** Query context of the calling expression. */
+    private final QueryContext qc;
+    /** Result (assigned after successful evaluation). */
+    private Value result;
+    /** Query exception (assigned if evaluation failed). */
+    private QueryException error;
+
+    /**
+     * Constructor.
+     * @param items input items
+     * @param offset number of input items preceding the chunk
+     * @param chunk chunk evaluator
+     * @param dateTime date/time values of the query
+     * @param qc query context of the calling expression
+     */
+    Task(final Value items, final long offset, final Chunk chunk, final QueryDateTime dateTime,
+        final QueryContext qc) {
+      this.items = items;
+      this.offset = offset;
+      this.chunk = chunk;
+      this.dateTime = dateTime;
+      this.qc = qc;
+      focus = qc.focus.copy();
+    }
+
+    @Override
+    protected void compute() {
+      try(QueryContext tqc = new QueryContext(qc)) {
+        tqc.focus = focus;
+        tqc.dateTime = dateTime;
+        tqc.stack.enterFrame(qc.stack);
+        try {
+          result = chunk.value(items, offset, tqc);
+        } catch(final QueryException ex) {
+          error = ex;
+        } finally {
+          tqc.threads.close();
+        }
+      }
+    }
+  }
+}
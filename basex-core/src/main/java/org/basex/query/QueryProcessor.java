@@ -24,11 +24,19 @@ public final class QueryProcessor extends Job implements Closeable {
   /** Static context. */
   public final StaticContext sc;
   /** Expression context. */
-  public final QueryContext qc;
+  public QueryContext qc;
   /** Query. */
   private final String query;
   /** Parsed flag. */
   private boolean parsed;
+  /** Closed flag. */
+  private boolean closed;
+  /** Indicates if the compiled query may be cached for reuse. */
+  private boolean reusable;
+  /** Key for caching the compiled query ({@code null} if the query will not be cached). */
+  private String key;
+  /** Query context of this processor, if a cached query is reused ({@code null} otherwise). */
+  private QueryContext initial;
 
   /**
    * Default constructor.
@@ -61,13 +69,41 @@ public final class QueryProcessor extends Job implements Closeable {
   public void parse() throws QueryException {
     if(parsed) return;
     try {
-      qc.parseMain(query, null, sc);
+      final QueryCache cache = qc.context.queries;
+      key = reusable && cache.enabled() ? qc.cacheKey(query, sc) : null;
+      final QueryContext cached = key != null ? cache.get(key) : null;
+      if(cached != null) {
+        // reuse compiled query
+        initial = qc;
+        popJob();
+        qc = pushJob(cached);
+        try {
+          qc.reuse(initial, query);
+        } catch(final QueryException ex) {
+          key = null;
+          throw ex;
+        }
+      } else {
+        parseMain();
+      }
     } finally {
       parsed = true;
       updating = qc.updating;
     }
   }
 
+  /**
+   * Parses the query string with the initial query context.
+   * @throws QueryException query exception
+   */
+  private void parseMain() throws QueryException {
+    if(key != null) {
+      qc.reusable = true;
+      qc.generation = qc.context.queries.generation();
+    }
+    qc.parseMain(query, null, sc);
+  }
+
   /**
    * Compiles the query.
    * @throws QueryException query exception
@@ -83,9 +119,29 @@ public final class QueryProcessor extends Job implements Closeable {
    */
   public void optimize() throws QueryException {
     compile();
+    validate();
     qc.optimize();
   }
 
+  /**
+   * Checks if a reused query is still valid. Must be called after the locks have been acquired:
+   * If the cache has been invalidated in the meantime, the cached query may refer to resources
+   * that have been updated, and the query will be parsed and compiled again.
+   * @throws QueryException query exception
+   */
+  private void validate() throws QueryException {
+    if(initial == null) return;
+    if(qc.generation != qc.context.queries.generation()) {
+      popJob();
+      qc.close();
+      qc = pushJob(initial);
+      parseMain();
+      updating = qc.updating;
+      qc.compile();
+    }
+    initial = null;
+  }
+
   /**
    * Returns a memory-efficient result iterator. The query will only be fully evaluated if all items
    * of this iterator are requested.
@@ -94,6 +150,7 @@ public final class QueryProcessor extends Job implements Closeable {
    */
   public Iter iter() throws QueryException {
     parse();
+    validate();
     return qc.iter();
   }
 
@@ -104,6 +161,7 @@ public final class QueryProcessor extends Job implements Closeable {
    */
   public Value value() throws QueryException {
     parse();
+    validate();
     return qc.value();
   }
 
@@ -117,9 +175,20 @@ public final class QueryProcessor extends Job implements Closeable {
    */
   public void cache(final AQuery cmd, final int max) throws QueryException {
     parse();
+    validate();
     qc.cache(cmd, max);
   }
 
+  /**
+   * Allows the compiled query to be cached and reused by subsequent processors with the same
+   * query string (see {@link StaticOptions#QUERYCACHE}). Must be called before the query is parsed.
+   * @return self reference
+   */
+  public QueryProcessor reusable() {
+    reusable = true;
+    return this;
+  }
+
   /**
    * Binds a value to a global variable.
    * @param name name of variable
@@ -181,6 +250,8 @@ public final class QueryProcessor extends Job implements Closeable {
    */
   public QueryProcessor namespace(final String prefix, final String uri) throws QueryException {
     sc.namespace(prefix, uri);
+    // customized static contexts are not considered by the query cache
+    reusable = false;
     return this;
   }
 
@@ -191,6 +262,7 @@ public final class QueryProcessor extends Job implements Closeable {
    */
   public QueryProcessor uriResolver(final UriResolver resolver) {
     sc.resolver = resolver;
+    reusable = false;
     return this;
   }
 
@@ -218,11 +290,15 @@ public final class QueryProcessor extends Job implements Closeable {
    */
   public void module(final String uri, final String file) {
     qc.modDeclared.put(token(uri), token(file));
+    reusable = false;
   }
 
   @Override
   public void close() {
-    qc.close();
+    if(closed) return;
+    closed = true;
+    // cache query for reuse, or close it
+    if(key == null || !qc.context.queries.add(key, qc)) qc.close();
   }
 
   @Override
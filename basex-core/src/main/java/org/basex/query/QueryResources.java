@@ -36,7 +36,7 @@ public final class QueryResources {
   private static final MainOptions MAIN_OPTIONS = new MainOptions(DOC_OPTIONS);
 
   /** Database context. */
-  private final Context context;
+  Context context;
 
   /** Module loader. */
   private ModuleLoader modules;
@@ -55,6 +55,8 @@ public final class QueryResources {
   private final Map<String, Value> functions = new HashMap<>();
   /** Input references. */
   private final ArrayList<InputStream> inputs = new ArrayList<>(1);
+  /** Number of data references and collections of a reusable query at compile time. */
+  private int marked, markedColls;
 
   /**
    * Constructor.
@@ -96,18 +98,35 @@ public final class QueryResources {
     // close dynamically loaded JAR files
     if(modules != null) modules.close();
     modules = null;
-    // close external resources
-    for(final QueryResource c : external.values()) c.close();
-    external.clear();
-    // close input resources
-    for(final InputStream is : inputs) {
-      try {
-        is.close();
-      } catch(final IOException ex) {
-        Util.debug(ex);
-      }
+    closeExternal();
+  }
+
+  /**
+   * Marks the resources that have been opened at compile time.
+   * Only databases on disk are kept open when a query is reused.
+   * @return {@code true} if the resources can be kept open
+   */
+  boolean mark() {
+    if(!external.isEmpty() || !inputs.isEmpty()) return false;
+    for(final Data data : datas) {
+      if(data.inMemory()) return false;
     }
-    inputs.clear();
+    marked = datas.size();
+    markedColls = colls.size();
+    return true;
+  }
+
+  /**
+   * Closes the resources that have been opened after the resources were marked.
+   */
+  void reset() {
+    for(int d = datas.size() - 1; d >= marked; d--) Close.close(datas.remove(d), context);
+    for(int c = colls.size() - 1; c >= markedColls; c--) {
+      colls.remove(c);
+      collNames.remove(c);
+    }
+    functions.clear();
+    closeExternal();
   }
 
   /**
@@ -514,6 +533,24 @@ public final class QueryResources {
     }
   }
 
+  /**
+   * Closes external and input resources.
+   */
+  private void closeExternal() {
+    // close external resources
+    for(final QueryResource c : external.values()) c.close();
+    external.clear();
+    // close input resources
+    for(final InputStream is : inputs) {
+      try {
+        is.close();
+      } catch(final IOException ex) {
+        Util.debug(ex);
+      }
+    }
+    inputs.clear();
+  }
+
   /**
    * Adds a data reference.
    * @param data data reference to be added
@@ -355,6 +355,7 @@ public interface QueryText {
   /** Query Info. */ String COERCE = "coerce";
   /** Query Info. */ String DATABASE = "database";
   /** Query Info. */ String ITERATIVE = "iterative";
+  /** Query Info. */ String THREADS = "threads";
   /** Query Info. */ String SINGLE = "single";
   /** Query Info. */ String LINE = "line";
   /** Query Info. */ String COLUMN = "column";
@@ -383,6 +384,8 @@ public interface QueryText {
   /** Optimization info. */ String OPTREMOVE_X_X = "remove % from %";
   /** Optimization info. */ String OPTMOVE_X = "move where clause: %";
   /** Optimization info. */ String OPTPRED_X = "rewrite to predicate: %";
+  /** Optimization info. */ String OPTJOIN_X = "rewrite to hash join: %";
+  /** Optimization info. */ String OPTPARALLEL_X = "evaluate in parallel: %";
   /** Optimization info. */ String OPTVAR_X = "remove unused variable: %";
   /** Optimization info. */ String OPTSTEP_X = "remove step without results: %";
   /** Optimization info. */ String OPTPATH_X = "remove path without results: %";
@@ -59,5 +59,9 @@ public final class QueryThreads {
     for(final ThreadLocal<PathCache> cache : pathCache.values()) cache.remove();
     for(final ThreadLocal<CmpCache> cache : cmpCache.values()) cache.remove();
     for(final ThreadLocal<FTTokenizer> cache : ftCache.values()) cache.remove();
+    // discard caches of other threads
+    pathCache.clear();
+    cmpCache.clear();
+    ftCache.clear();
   }
 }
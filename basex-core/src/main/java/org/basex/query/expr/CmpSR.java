@@ -6,6 +6,7 @@ import static org.basex.query.QueryText.*;
 import org.basex.data.*;
 import org.basex.index.*;
 import org.basex.index.query.*;
+import org.basex.index.stats.*;
 import org.basex.query.*;
 import org.basex.query.CompileContext.*;
 import org.basex.query.expr.CmpG.*;
@@ -200,6 +201,10 @@ public final class CmpSR extends Single {
     final StringRange sr = new StringRange(type, min, mni, max, mxi);
     ii.costs = IndexInfo.costs(data, sr);
     if(ii.costs == null) return false;
+    // refine costs with the histogram of the compared values
+    final Stats stats = ii.stats();
+    final int results = stats != null ? stats.estimate(min, max) : -1;
+    if(results != -1) ii.costs = IndexCosts.get(results);
 
     final TokenBuilder tb = new TokenBuilder();
     tb.add(mni ? '[' : '(').add(min).add(',').add(max).add(mxi ? ']' : ')');
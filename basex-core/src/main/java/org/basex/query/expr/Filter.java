@@ -100,7 +100,12 @@ public abstract class Filter extends AFilter {
         return List.get(cc, info, results.finish());
       }
 
-      // otherwise, return iterative filter
+      // otherwise, return parallel or iterative filter
+      final int threads = QueryParallel.threads(cc, root, exprs);
+      if(threads > 1) {
+        if(!(this instanceof ParallelFilter)) cc.info(QueryText.OPTPARALLEL_X, this);
+        return copyType(new ParallelFilter(info, threads, root, exprs));
+      }
       return copyType(new IterFilter(info, root, exprs));
     }
 
@@ -0,0 +1,49 @@
+package org.basex.query.expr;
+
+import org.basex.query.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.var.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+
+/**
+ * Filter expression without numeric predicates: parallel evaluation of the input items.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class ParallelFilter extends Filter {
+  /** Maximum number of threads. */
+  private final int threads;
+
+  /**
+   * Constructor.
+   * @param info input info (can be {@code null})
+   * @param threads maximum number of threads
+   * @param root root expression
+   * @param preds predicate expressions
+   */
+  ParallelFilter(final InputInfo info, final int threads, final Expr root, final Expr... preds) {
+    super(info, root, preds);
+    this.threads = threads;
+  }
+
+  @Override
+  public Value value(final QueryContext qc) throws QueryException {
+    return QueryParallel.value(root.value(qc), threads, (items, offset, tqc) -> {
+      final ValueBuilder vb = new ValueBuilder(tqc);
+      for(final Item item : items) {
+        tqc.checkStop();
+        if(test(item, tqc)) vb.add(item);
+      }
+      return vb.value(this);
+    }, qc);
+  }
+
+  @Override
+  public ParallelFilter copy(final CompileContext cc, final IntObjectMap<Var> vm) {
+    return copyType(new ParallelFilter(info, threads, root.copy(cc, vm),
+        Arr.copyAll(cc, vm, exprs)));
+  }
+}
@@ -0,0 +1,65 @@
+package org.basex.query.expr;
+
+import org.basex.query.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.var.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+
+/**
+ * Simple map expression: parallel evaluation of the input items, no positional access.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class ParallelMap extends SimpleMap {
+  /** Maximum number of threads. */
+  private final int threads;
+
+  /**
+   * Constructor.
+   * @param info input info (can be {@code null})
+   * @param threads maximum number of threads
+   * @param exprs expressions
+   */
+  ParallelMap(final InputInfo info, final int threads, final Expr... exprs) {
+    super(info, exprs);
+    this.threads = threads;
+  }
+
+  @Override
+  public Value value(final QueryContext qc) throws QueryException {
+    return QueryParallel.value(exprs[0].value(qc), threads, (items, offset, tqc) -> {
+      final QueryFocus qf = tqc.focus;
+      final Value qv = qf.value;
+      try {
+        Value value = items;
+        final int el = exprs.length;
+        for(int e = 1; e < el; e++) {
+          final Expr expr = exprs[e];
+          final ValueBuilder vb = new ValueBuilder(tqc);
+          for(final Item item : value) {
+            tqc.checkStop();
+            qf.value = item;
+            vb.add(expr.value(tqc));
+          }
+          value = vb.value(expr);
+        }
+        return value;
+      } finally {
+        qf.value = qv;
+      }
+    }, qc);
+  }
+
+  @Override
+  public ParallelMap copy(final CompileContext cc, final IntObjectMap<Var> vm) {
+    return copyType(new ParallelMap(info, threads, Arr.copyAll(cc, vm, exprs)));
+  }
+
+  @Override
+  public String description() {
+    return "parallel " + super.description();
+  }
+}
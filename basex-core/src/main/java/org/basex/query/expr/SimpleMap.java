@@ -3,6 +3,7 @@ package org.basex.query.expr;
 import static org.basex.query.QueryText.*;
 import static org.basex.query.func.Function.*;
 
+import java.util.*;
 import java.util.function.*;
 
 import org.basex.query.*;
@@ -73,9 +74,13 @@ public abstract class SimpleMap extends Mapping {
       cached = cached || e > 0 && expr.has(Flag.POS);
       dual = dual && (st.zeroOrOne() || e == 0);
     }
+    final int threads = value || cached ? 1 :
+      QueryParallel.threads(cc, exprs[0], Arrays.copyOfRange(exprs, 1, el));
+    if(threads > 1 && !(this instanceof ParallelMap)) cc.info(OPTPARALLEL_X, this);
     return copyType(
       value ? new Pipeline(info, exprs) :
       cached ? new CachedMap(info, exprs) :
+      threads > 1 ? new ParallelMap(info, threads, exprs) :
       dual ? new DualMap(info, exprs) :
       dualiter ? new DualIterMap(info, exprs) :
       new IterMap(info, exprs)
@@ -3,6 +3,7 @@ package org.basex.query.expr.ft;
 import static org.basex.util.Token.*;
 
 import org.basex.util.*;
+import org.basex.util.list.*;
 
 /**
  * Wildcard expression.
@@ -14,6 +15,14 @@ import org.basex.util.*;
 public final class FTWildcard {
   /** Value encoding the wildcard dot. */
   private static final int DOT = -1;
+  /** Maximum number of automaton states. */
+  private static final int MAX_STATES = 1 << 10;
+  /** Automaton transition: single occurrence. */
+  private static final byte ONE = 0;
+  /** Automaton transition: optional occurrence. */
+  private static final byte OPTIONAL = 1;
+  /** Automaton transition: arbitrary number of occurrences. */
+  private static final byte LOOP = 2;
   /** Simple flag: query contains no wildcard characters. */
   private final boolean simple;
   /** Validity flag. */
@@ -28,6 +37,11 @@ public final class FTWildcard {
   /** Number of codepoints. */
   private int size;
 
+  /** Codepoints of the automaton transitions (lazy instantiation). */
+  private int[] transitions;
+  /** Types of the automaton transitions. */
+  private byte[] types;
+
   /**
    * Constructor.
    * @param token query token
@@ -110,21 +124,6 @@ public final class FTWildcard {
     return simple;
   }
 
-  /**
-   * Returns the maximum byte length of a potential match in the index.
-   * @param full support full range of Unicode characters
-   * @return maximum length
-   */
-  public int max(final boolean full) {
-    int c = 0;
-    for(int s = 0; s < size; s++) {
-      final int m = max[s];
-      if(m == Integer.MAX_VALUE) return Integer.MAX_VALUE;
-      c += full ? cps[s] == DOT ? 4 : cpLength(cps[s]) : m;
-    }
-    return c;
-  }
-
   /**
    * Returns the wildcard prefix, which is the same for all matches.
    * @return prefix
@@ -152,6 +151,81 @@ public final class FTWildcard {
     return valid;
   }
 
+  /**
+   * Returns the initial states of an automaton for the wildcard expression.
+   * The automaton can be used to check prefixes of tokens incrementally.
+   * @return states or {@code null} if the automaton would be too large
+   */
+  public boolean[] start() {
+    if(transitions == null) {
+      // compute number of states
+      long n = 0;
+      for(int s = 0; s < size; s++) n += max[s] == Integer.MAX_VALUE ? min[s] + 1 : max[s];
+      if(n > MAX_STATES) return null;
+
+      // expand occurrence indicators: .+ -> . .*, .{1,3} -> . .? .?
+      final IntList tr = new IntList();
+      final ByteList ty = new ByteList();
+      for(int s = 0; s < size; s++) {
+        for(int m = 0; m < min[s]; m++) {
+          tr.add(cps[s]);
+          ty.add(ONE);
+        }
+        final int opt = max[s] == Integer.MAX_VALUE ? 1 : max[s] - min[s];
+        for(int o = 0; o < opt; o++) {
+          tr.add(cps[s]);
+          ty.add(max[s] == Integer.MAX_VALUE ? LOOP : OPTIONAL);
+        }
+      }
+      transitions = tr.finish();
+      types = ty.finish();
+    }
+    final boolean[] states = new boolean[transitions.length + 1];
+    states[0] = true;
+    return close(states);
+  }
+
+  /**
+   * Returns the states that are reached by consuming the specified codepoint.
+   * @param states current states
+   * @param cp codepoint
+   * @return new states or {@code null} if no state is reached
+   */
+  public boolean[] step(final boolean[] states, final int cp) {
+    final int tl = transitions.length;
+    final boolean[] next = new boolean[tl + 1];
+    boolean found = false;
+    for(int t = 0; t < tl; t++) {
+      if(states[t] && (transitions[t] == DOT || transitions[t] == cp)) {
+        next[types[t] == LOOP ? t : t + 1] = true;
+        found = true;
+      }
+    }
+    return found ? close(next) : null;
+  }
+
+  /**
+   * Checks if the specified states include the final state.
+   * @param states states
+   * @return result of check
+   */
+  public boolean accept(final boolean[] states) {
+    return states[transitions.length];
+  }
+
+  /**
+   * Adds states that can be reached without consuming codepoints.
+   * @param states states
+   * @return states
+   */
+  private boolean[] close(final boolean[] states) {
+    final int tl = transitions.length;
+    for(int t = 0; t < tl; t++) {
+      if(states[t] && types[t] != ONE) states[t + 1] = true;
+    }
+    return states;
+  }
+
   /**
    * Checks if the wildcard can match a sub-string in a string.
    * @param token token to search for match
@@ -153,6 +153,28 @@ public final class FTWords extends FTExpr {
 
       @Override
       public FTNode next() throws QueryException {
+        return init() && ftiter.more() ? node() : null;
+      }
+
+      @Override
+      public FTNode next(final int pre) throws QueryException {
+        return init() && ftiter.skip(pre) ? node() : null;
+      }
+
+      /**
+       * Returns the current node.
+       * @return node
+       */
+      private FTNode node() {
+        return new FTNode(ftiter.matches(), data, ftiter.pre(), length, ftiter.size());
+      }
+
+      /**
+       * Initializes the index iterator.
+       * @return {@code true} if results may be returned
+       * @throws QueryException query exception
+       */
+      private boolean init() throws QueryException {
         if(ftiter == null) {
           final FTTokenizer ftt = FTWords.this.get(qc);
           final FTLexer lexer = new FTLexer(ftOpt).
@@ -163,7 +185,7 @@ public final class FTWords extends FTExpr {
           // loop through unique tokens
           for(final byte[] input : unique(inputs != null ? inputs : inputs(qc))) {
             lexer.init(input);
-            if(!lexer.hasNext()) return null;
+            if(!lexer.hasNext()) return false;
 
             int d = 0;
             FTIndexIterator iter = null;
@@ -192,7 +214,7 @@ public final class FTWords extends FTExpr {
                 length = len;
                 ftiter = iter;
               } else if(mode == FTMode.ALL || mode == FTMode.ALL_WORDS) {
-                if(iter.size() == 0) return null;
+                if(iter.size() == 0) return false;
                 length += len;
                 ftiter = FTIndexIterator.intersect(ftiter, iter, 0);
               } else {
@@ -203,8 +225,7 @@ public final class FTWords extends FTExpr {
             }
           }
         }
-        return ftiter == null || !ftiter.more() ? null :
-          new FTNode(ftiter.matches(), data, ftiter.pre(), length, ftiter.size());
+        return ftiter != null;
       }
     };
   }
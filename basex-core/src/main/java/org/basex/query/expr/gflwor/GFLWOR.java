@@ -1,6 +1,7 @@
 package org.basex.query.expr.gflwor;
 
 import java.util.*;
+import java.util.List;
 import java.util.function.*;
 
 import org.basex.query.*;
@@ -31,6 +32,8 @@ public final class GFLWOR extends ParseExpr {
   private final LinkedList<Clause> clauses;
   /** Return expression. */
   private Expr rtrn;
+  /** Maximum number of threads for evaluating the tuples of the first clause in parallel. */
+  private int threads = 1;
 
   /**
    * Constructor.
@@ -57,18 +60,62 @@ public final class GFLWOR extends ParseExpr {
 
   /**
    * Creates a new evaluator for this FLWOR expression.
+   * @param limit maximum number of requested result items
    * @return the evaluator
    */
-  private Eval newEval() {
+  private Eval newEval(final long limit) {
     Eval eval = new StartEval();
-    for(final Clause clause : clauses) eval = clause.eval(eval);
+    final ListIterator<Clause> iter = clauses.listIterator();
+    while(iter.hasNext()) {
+      final Clause clause = iter.next();
+      eval = clause instanceof final OrderBy order ?
+        order.eval(eval, limit(iter.nextIndex(), limit)) : clause.eval(eval);
+    }
     return eval;
   }
 
+  /**
+   * Returns the maximum number of tuples that will be consumed from an order by clause.
+   * The number is limited if the clause is followed by a count clause and a where or while
+   * clause that compares the count ({@code count $c where $c <= 10}), or if the number of
+   * result items is limited and every tuple yields a single item.
+   * @param c index of the clause following the order by clause
+   * @param limit maximum number of requested result items
+   * @return maximum number of tuples
+   */
+  private long limit(final int c, final long limit) {
+    final ArrayList<Var> counts = new ArrayList<>(1);
+    for(final Clause clause : clauses.subList(c, clauses.size())) {
+      final Expr expr = clause instanceof final Where where ? where.expr :
+        clause instanceof final While whl ? whl.expr : null;
+      if(expr != null) {
+        // count $c where $c <= 10
+        return expr instanceof final CmpIR cmp && cmp.expr instanceof final VarRef ref &&
+          counts.contains(ref.var) ? Math.max(0, cmp.max) : Long.MAX_VALUE;
+      }
+      if(clause instanceof final Count cnt) counts.add(cnt.var);
+      else if(!(clause instanceof Let)) return Long.MAX_VALUE;
+    }
+    return rtrn.seqType().one() ? limit : Long.MAX_VALUE;
+  }
+
   @Override
-  public Iter iter(final QueryContext qc) {
+  public Iter iter(final QueryContext qc) throws QueryException {
+    return iter(qc, Long.MAX_VALUE);
+  }
+
+  /**
+   * Returns an iterator for the first results of the expression.
+   * The limit is passed on to order by clauses, which will only cache the first tuples.
+   * @param qc query context
+   * @param limit maximum number of requested result items
+   * @return iterator (may return more items than requested)
+   * @throws QueryException query exception
+   */
+  public Iter iter(final QueryContext qc, final long limit) throws QueryException {
+    if(threads > 1 && limit == Long.MAX_VALUE) return parallel(qc).iter();
     return new Iter() {
-      private final Eval eval = newEval();
+      private final Eval eval = newEval(limit);
       private Iter iter = Empty.ITER;
 
       @Override
@@ -88,12 +135,37 @@ public final class GFLWOR extends ParseExpr {
 
   @Override
   public Value value(final QueryContext qc) throws QueryException {
-    final Eval eval = newEval();
+    if(threads > 1) return parallel(qc);
+    final Eval eval = newEval(Long.MAX_VALUE);
     final ValueBuilder vb = new ValueBuilder(qc, size());
     while(eval.next(qc)) vb.add(rtrn.value(qc));
     return vb.value(this);
   }
 
+  /**
+   * Evaluates the tuples of the first for clause in parallel.
+   * @param qc query context
+   * @return result
+   * @throws QueryException query exception
+   */
+  private Value parallel(final QueryContext qc) throws QueryException {
+    final For fr = (For) clauses.getFirst();
+    final List<Clause> cls = clauses.subList(1, clauses.size());
+    return QueryParallel.value(fr.expr.value(qc), threads, (items, offset, tqc) -> {
+      final ValueBuilder vb = new ValueBuilder(tqc);
+      long p = offset;
+      for(final Item item : items) {
+        tqc.checkStop();
+        tqc.set(fr.var, item);
+        if(fr.pos != null) tqc.set(fr.pos, Int.get(++p));
+        Eval eval = new StartEval();
+        for(final Clause clause : cls) eval = clause.eval(eval);
+        while(eval.next(tqc)) vb.add(rtrn.value(tqc));
+      }
+      return vb.value(this);
+    }, qc);
+  }
+
   @Override
   public Expr compile(final CompileContext cc) throws QueryException {
     final ListIterator<Clause> iter = clauses.listIterator();
@@ -118,8 +190,8 @@ public final class GFLWOR extends ParseExpr {
     // apply all optimizations in a row until nothing changes anymore
     while(flattenReturn(cc) | flattenFor(cc) | unnestFLWR(cc) | unnestLets(cc) | ifToWhere(cc) |
         forToLet(cc) | slideLetsOut(cc) | inlineForLet(cc) | unusedClauses(cc) | unusedVars(cc) |
-        cleanDeadVars() | optimizeCond(cc, true) | optimizeCond(cc, false) | optimizePos(cc) |
-        optimizeOrderBy(cc));
+        cleanDeadVars() | splitJoins(cc) | optimizeCond(cc, true) | optimizeCond(cc, false) |
+        optimizePos(cc) | optimizeOrderBy(cc));
 
     mergeWheres(cc, true);
     mergeWheres(cc, false);
@@ -131,6 +203,7 @@ public final class GFLWOR extends ParseExpr {
     }
 
     exprType.assign(rtrn, calcSize(true));
+    threads = threads(cc);
     return this;
   }
 
@@ -222,6 +295,26 @@ public final class GFLWOR extends ParseExpr {
     return rtrn == Empty.VALUE && !ndt.any(clauses) ? rtrn : null;
   }
 
+  /**
+   * Returns the maximum number of threads for evaluating the tuples of the first clause.
+   * Tuples can be evaluated in parallel if the first clause is a for clause without score
+   * variable and empty flag, and if it is only followed by for, let and where clauses.
+   * @param cc compilation context
+   * @return number of threads ({@code 1}: sequential evaluation)
+   */
+  private int threads(final CompileContext cc) {
+    if(!(clauses.getFirst() instanceof final For fr) || fr.score != null || fr.empty) return 1;
+
+    final ExprList list = new ExprList(clauses.size()).add(rtrn);
+    for(final Clause clause : clauses.subList(1, clauses.size())) {
+      if(!(clause instanceof For || clause instanceof Let || clause instanceof Where)) return 1;
+      list.add(clause);
+    }
+    final int t = QueryParallel.threads(cc, fr.expr, list.finish());
+    if(t > 1 && threads == 1) cc.info(QueryText.OPTPARALLEL_X, fr);
+    return t;
+  }
+
   /**
    * Computes the number of results of this FLWOR expression.
    * @param ret include return clause
@@ -582,7 +675,7 @@ public final class GFLWOR extends ParseExpr {
         if(!curr.skippable(let)) break;
         // insert directly above the highest skippable 'for' or 'window' clause
         // this guarantees that no unnecessary swaps occur
-        if(curr instanceof For || curr instanceof Window) insert = d;
+        if(curr instanceof For || curr instanceof Window || curr instanceof Join) insert = d;
       }
 
       if(insert >= 0) {
@@ -658,6 +751,11 @@ public final class GFLWOR extends ParseExpr {
                 clauses.remove(insert);
                 changed = true;
                 c--;
+              } else if(where && !let && join(cc, (For) before, i, expr)) {
+                // for $a in A for $b in B where $a/@id = $b/@ref  ->  ... for $b in B join ...
+                clauses.remove(insert);
+                changed = true;
+                c--;
               } else if(where && (!let || c + 1 == clauses.size() && (
                 varRef.test(rtrn) ||
                 rtrn instanceof final Filter filter && varRef.test(filter.root) ||
@@ -683,6 +781,64 @@ public final class GFLWOR extends ParseExpr {
     return changed;
   }
 
+  /**
+   * Tries to rewrite a for clause and a subsequent where clause to a hash join.
+   * @param cc compilation context
+   * @param fr for clause
+   * @param index index of the for clause
+   * @param expr expression of the where clause
+   * @return change flag
+   * @throws QueryException query exception
+   */
+  private boolean join(final CompileContext cc, final For fr, final int index, final Expr expr)
+      throws QueryException {
+    // only rewrite clauses that are evaluated repeatedly
+    final ArrayList<Var> vars = vars(index);
+    if(vars.isEmpty()) return false;
+
+    final Join join = Join.get(fr, expr, vars, cc);
+    if(join == null) return false;
+    cc.info(QueryText.OPTJOIN_X, expr);
+    clauses.set(index, join);
+    return true;
+  }
+
+  /**
+   * Rewrites joins to for and where clauses if their bound expressions or keys depend on
+   * preceding clauses (which may happen if clauses are merged).
+   * @param cc compilation context
+   * @return change flag
+   * @throws QueryException query exception
+   */
+  private boolean splitJoins(final CompileContext cc) throws QueryException {
+    boolean changed = false;
+    for(int c = 0; c < clauses.size(); c++) {
+      if(clauses.get(c) instanceof final Join join && !join.independent(vars(c))) {
+        clauses.remove(c);
+        clauses.addAll(c, Arrays.asList(join.split(cc)));
+        changed = true;
+      }
+    }
+    return changed;
+  }
+
+  /**
+   * Returns the variables that are declared by the clauses before the specified index
+   * and that may be bound repeatedly.
+   * @param index index of the first clause to be ignored
+   * @return variables
+   */
+  private ArrayList<Var> vars(final int index) {
+    final ArrayList<Var> vars = new ArrayList<>();
+    boolean loop = false;
+    for(int c = 0; c < index; c++) {
+      final Clause clause = clauses.get(c);
+      loop |= clause instanceof For || clause instanceof Window || clause instanceof Join;
+      if(loop) vars.addAll(Arrays.asList(clause.vars()));
+    }
+    return vars;
+  }
+
   /**
    * Rewrites positional variables to predicates.
    * @param cc compilation context
@@ -1018,7 +1174,8 @@ public final class GFLWOR extends ParseExpr {
     // check if an outer clause can prevent the error
     while(iter.hasPrevious()) {
       final Clause b4 = iter.previous();
-      if(b4 instanceof For || b4 instanceof Window || b4 instanceof Where || b4 instanceof While) {
+      if(b4 instanceof For || b4 instanceof Window || b4 instanceof Join || b4 instanceof Where ||
+          b4 instanceof While) {
         iter.next();
         while(iter.hasNext()) {
           iter.next();
@@ -1037,16 +1194,18 @@ public final class GFLWOR extends ParseExpr {
   public Expr copy(final CompileContext cc, final IntObjectMap<Var> vm) {
     final LinkedList<Clause> cls = new LinkedList<>();
     for(final Clause clause : clauses) cls.add(clause.copy(cc, vm));
-    return copyType(new GFLWOR(info, cls, rtrn.copy(cc, vm)));
+    final GFLWOR gflwor = copyType(new GFLWOR(info, cls, rtrn.copy(cc, vm)));
+    gflwor.threads = threads;
+    return gflwor;
   }
 
   /**
-   * Checks if this FLWOR expression has only 'for', 'let', 'where', and 'while' clauses.
+   * Checks if this FLWOR expression has only 'for', 'let', 'where', 'while' and join clauses.
    * @return result of check
    */
   private boolean isFLW() {
     return ((Checks<Clause>) clause -> clause instanceof For || clause instanceof Let ||
-        clause instanceof Where || clause instanceof While).all(clauses);
+        clause instanceof Where || clause instanceof While || clause instanceof Join).all(clauses);
   }
 
   @Override
@@ -1099,7 +1258,8 @@ public final class GFLWOR extends ParseExpr {
 
   @Override
   public void toXml(final QueryPlan plan) {
-    plan.add(plan.create(this), clauses.toArray(Clause[]::new), rtrn);
+    plan.add(plan.create(this, QueryText.THREADS, threads > 1 ? threads : null),
+        clauses.toArray(Clause[]::new), rtrn);
   }
 
   @Override
@@ -0,0 +1,297 @@
+package org.basex.query.expr.gflwor;
+
+import static org.basex.query.QueryText.*;
+
+import java.util.*;
+
+import org.basex.query.*;
+import org.basex.query.expr.*;
+import org.basex.query.expr.CmpG.*;
+import org.basex.query.iter.*;
+import org.basex.query.util.*;
+import org.basex.query.util.hash.*;
+import org.basex.query.util.hash.ItemSet.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.type.*;
+import org.basex.query.var.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * FLWOR {@code for} clause, which is joined with the incoming tuples via an equality comparison:
+ * {@code for $b in EXPR where KEY = PROBE}. The keys of all bound items are hashed when the
+ * first tuple arrives. For each tuple, the matching items are bound in their original order.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class Join extends Clause {
+  /** Item variable. */
+  final Var var;
+  /** Bound expression (independent of the incoming tuples). */
+  Expr expr;
+  /** Key of the bound items (may only reference the item variable). */
+  Expr key;
+  /** Key of the incoming tuples (must not reference the item variable). */
+  Expr probe;
+
+  /**
+   * Constructor.
+   * @param var item variable
+   * @param expr bound expression
+   * @param key key of the bound items
+   * @param probe key of the incoming tuples
+   */
+  Join(final Var var, final Expr expr, final Expr key, final Expr probe) {
+    super(var.info, SeqType.ITEM_ZO, var);
+    this.var = var;
+    this.expr = expr;
+    this.key = key;
+    this.probe = probe;
+  }
+
+  /**
+   * Tries to rewrite a for and a subsequent where clause to a join.
+   * @param fr for clause
+   * @param where expression of the where clause
+   * @param decl variables declared by the preceding clauses
+   * @param cc compilation context
+   * @return join clause, or {@code null} if the clauses cannot be rewritten
+   * @throws QueryException query exception
+   */
+  static Join get(final For fr, final Expr where, final ArrayList<Var> decl,
+      final CompileContext cc) throws QueryException {
+
+    // for $a at $p in A, for $a allowing empty in A, for $a as xs:string in A
+    if(fr.vars.length != 1 || fr.empty || fr.var.declType != null ||
+        !(where instanceof final CmpG cmp) || cmp.opG() != OpG.EQ ||
+        cmp.sc().collation != null || independent(fr.expr, decl) == null) return null;
+
+    // choose the operand that references the item variable
+    final Var var = fr.var;
+    final Expr op1 = cmp.arg(0), op2 = cmp.arg(1);
+    final boolean swap = !op1.uses(var);
+    final Expr k = swap ? op2 : op1, p = swap ? op1 : op2;
+    if(p.uses(var) || p.has(Flag.NDT) || independent(k, decl) == null)
+      return null;
+
+    // keys must be comparable, and equal keys must have the same hash value
+    // (numbers: no xs:float or xs:double, as the comparison promotes values to these types)
+    final Type type1 = k.seqType().type, type2 = p.seqType().type;
+    if(!(type1.instanceOf(AtomType.DECIMAL) && type2.instanceOf(AtomType.DECIMAL) ||
+      type1.isStringOrUntyped() && type2.isStringOrUntyped() ||
+      type1 == AtomType.BOOLEAN && type2 == AtomType.BOOLEAN)) return null;
+
+    return new Join(var, fr.expr, k, p).optimize(cc);
+  }
+
+  /**
+   * Checks if the bound expression and the key are independent of the specified variables.
+   * @param decl variables declared by the preceding clauses
+   * @return result of check
+   */
+  boolean independent(final ArrayList<Var> decl) {
+    return independent(expr, decl) != null && independent(key, decl) != null;
+  }
+
+  /**
+   * Checks if an expression is independent of the specified variables.
+   * @param ex expression
+   * @param decl variables
+   * @return expression or {@code null}
+   */
+  private static Expr independent(final Expr ex, final ArrayList<Var> decl) {
+    if(ex.has(Flag.NDT, Flag.CNS)) return null;
+    for(final Var vr : decl) {
+      if(ex.count(vr) != VarUsage.NEVER) return null;
+    }
+    return ex;
+  }
+
+  /**
+   * Converts the join back to a for and a where clause.
+   * @param cc compilation context
+   * @return clauses
+   * @throws QueryException query exception
+   */
+  Clause[] split(final CompileContext cc) throws QueryException {
+    final Expr cmp = new CmpG(info, key, probe, OpG.EQ).optimize(cc);
+    return new Clause[] { new For(var, expr).optimize(cc), new Where(cmp, info).optimize(cc) };
+  }
+
+  @Override
+  Eval eval(final Eval sub) {
+    return new Eval() {
+      /** Bound items. */
+      private Value value;
+      /** Hashed keys. */
+      private HashItemSet keys;
+      /** Positions of the bound items, indexed by the keys. */
+      private final ArrayList<IntList> positions = new ArrayList<>();
+      /** Positions of the items that match the current tuple. */
+      private IntList matches;
+      /** Current position. */
+      private int m;
+
+      @Override
+      public boolean next(final QueryContext qc) throws QueryException {
+        while(true) {
+          if(matches != null && m < matches.size()) {
+            qc.set(var, value.itemAt(matches.get(m++)));
+            return true;
+          }
+          if(!sub.next(qc)) return false;
+          if(keys == null) build(qc);
+          matches = probe(qc);
+          m = 0;
+        }
+      }
+
+      /**
+       * Hashes the keys of all bound items.
+       * @param qc query context
+       * @throws QueryException query exception
+       */
+      private void build(final QueryContext qc) throws QueryException {
+        value = expr.value(qc);
+        keys = new HashItemSet(Mode.EQUAL, info);
+        positions.add(null);
+        final long size = value.size();
+        for(int i = 0; i < size; i++) {
+          qc.set(var, value.itemAt(i));
+          final Iter iter = key.atomIter(qc, info);
+          for(Item item; (item = qc.next(iter)) != null;) {
+            final int k = keys.put(item);
+            if(k == positions.size()) positions.add(new IntList(1));
+            // skip duplicate positions (multiple keys of the same item)
+            final IntList list = positions.get(k);
+            if(list.isEmpty() || list.peek() != i) list.add(i);
+          }
+        }
+      }
+
+      /**
+       * Returns the positions of all bound items that match the current tuple.
+       * @param qc query context
+       * @return positions, or {@code null} if nothing was found
+       * @throws QueryException query exception
+       */
+      private IntList probe(final QueryContext qc) throws QueryException {
+        IntList list = null;
+        boolean merged = false;
+        final Iter iter = probe.atomIter(qc, info);
+        for(Item item; (item = qc.next(iter)) != null;) {
+          final int k = keys.index(item);
+          if(k == 0) continue;
+          if(list == null) {
+            list = positions.get(k);
+          } else {
+            if(!merged) list = new IntList(list.toArray());
+            list.add(positions.get(k).toArray());
+            merged = true;
+          }
+        }
+        if(!merged) return list;
+
+        // multiple keys: restore the original order, remove duplicates
+        list.sort();
+        final int ls = list.size();
+        final IntList distinct = new IntList(ls);
+        for(int l = 0; l < ls; l++) {
+          final int pos = list.get(l);
+          if(distinct.isEmpty() || distinct.peek() != pos) distinct.add(pos);
+        }
+        return distinct;
+      }
+    };
+  }
+
+  @Override
+  public Join compile(final CompileContext cc) throws QueryException {
+    expr = expr.compile(cc);
+    key = key.compile(cc);
+    probe = probe.compile(cc);
+    return optimize(cc);
+  }
+
+  @Override
+  public Join optimize(final CompileContext cc) throws QueryException {
+    exprType.assign(expr.seqType().with(Occ.EXACTLY_ONE));
+    var.refineType(seqType(), 1, cc);
+    var.expr(expr);
+    return this;
+  }
+
+  @Override
+  public boolean has(final Flag... flags) {
+    return expr.has(flags) || key.has(flags) || probe.has(flags);
+  }
+
+  @Override
+  public boolean inlineable(final InlineContext ic) {
+    return expr.inlineable(ic) && key.inlineable(ic) && probe.inlineable(ic);
+  }
+
+  @Override
+  public VarUsage count(final Var vr) {
+    return VarUsage.sum(vr, expr, key, probe);
+  }
+
+  @Override
+  public Clause inline(final InlineContext ic) throws QueryException {
+    final Expr inlined = expr.inline(ic), k = key.inline(ic), p = probe.inline(ic);
+    if(inlined == null && k == null && p == null) return null;
+    if(inlined != null) expr = inlined;
+    if(k != null) key = k;
+    if(p != null) probe = p;
+    return optimize(ic.cc);
+  }
+
+  @Override
+  public Join copy(final CompileContext cc, final IntObjectMap<Var> vm) {
+    final Expr ex = expr.copy(cc, vm);
+    return copyType(new Join(cc.copy(var, vm), ex, key.copy(cc, vm), probe.copy(cc, vm)));
+  }
+
+  @Override
+  public boolean accept(final ASTVisitor visitor) {
+    return expr.accept(visitor) && visitor.declared(var) && key.accept(visitor) &&
+        probe.accept(visitor);
+  }
+
+  @Override
+  public void checkUp() throws QueryException {
+    checkNoneUp(expr, key, probe);
+  }
+
+  @Override
+  public void calcSize(final long[] minMax) {
+    minMax[0] = 0;
+    final long size = expr.size();
+    if(size == 0) minMax[1] = 0;
+    else if(minMax[1] > 0) minMax[1] = size > 0 ? minMax[1] * size : -1;
+  }
+
+  @Override
+  public int exprSize() {
+    return expr.exprSize() + key.exprSize() + probe.exprSize();
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    return obj instanceof final Join jn && var.equals(jn.var) && expr.equals(jn.expr) &&
+        key.equals(jn.key) && probe.equals(jn.probe);
+  }
+
+  @Override
+  public void toXml(final QueryPlan plan) {
+    plan.add(plan.attachVariable(plan.create(this), var, false), expr, key, probe);
+  }
+
+  @Override
+  public void toString(final QueryString qs) {
+    qs.token(FOR).token(var).token(IN).token(expr).token(WHERE).token(key).token(OpG.EQ).
+      token(probe);
+  }
+}
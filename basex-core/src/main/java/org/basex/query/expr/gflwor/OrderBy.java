@@ -4,9 +4,6 @@ import static org.basex.query.QueryError.*;
 import static org.basex.query.QueryText.*;
 import static org.basex.query.func.Function.*;
 
-import java.util.*;
-import java.util.List;
-
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.util.*;
@@ -44,21 +41,42 @@ public final class OrderBy extends Clause {
 
   @Override
   Eval eval(final Eval sub) {
+    return eval(sub, Long.MAX_VALUE);
+  }
+
+  /**
+   * Returns an evaluator that returns the specified maximum number of tuples.
+   * If the number is limited, a bounded heap is used to select the first tuples.
+   * Otherwise, all tuples are sorted with a memory budget (see {@link ExternalSort}).
+   * @param sub wrapped evaluator
+   * @param limit maximum number of tuples to be returned
+   * @return evaluator
+   */
+  Eval eval(final Eval sub, final long limit) {
     return new Eval() {
+      /** Sorted tuples (if the number of tuples is limited). */
       private Value[][] tpls;
-      private Integer[] perm;
+      /** Sorted tuples (if all tuples are returned). */
+      private ExternalSort sort;
       int pos;
 
       @Override
       public boolean next(final QueryContext qc) throws QueryException {
-        if(tpls == null) sort(qc);
-        if(pos == tpls.length) return false;
-        final int p = perm[pos++];
-        final Value[] tuple = tpls[p];
-        // free the space occupied by the tuple
-        tpls[p] = null;
-        final int rl = refs.length;
-        for(int r = 0; r < rl; r++) qc.set(refs[r].var, tuple[r]);
+        final Value[] tuple;
+        if(limit < Integer.MAX_VALUE) {
+          if(tpls == null) top(qc, (int) limit);
+          if(pos == tpls.length) return false;
+          tuple = tpls[pos];
+          // free the space occupied by the tuple
+          tpls[pos++] = null;
+        } else {
+          if(sort == null) sort(qc);
+          tuple = sort.next();
+          if(tuple == null) return false;
+        }
+        // keys are stored before the values
+        final int rl = refs.length, kl = keys.length;
+        for(int r = 0; r < rl; r++) qc.set(refs[r].var, tuple[kl + r]);
         return true;
       }
 
@@ -68,61 +86,90 @@ public final class OrderBy extends Clause {
        * @throws QueryException evaluation exception
        */
       private void sort(final QueryContext qc) throws QueryException {
-        // keys are stored at odd positions, values at even ones
-        List<Value[]> tuples = new ArrayList<>();
-        while(sub.next(qc)) {
-          final int kl = keys.length;
-          final Item[] key = new Item[kl];
-          for(int k = 0; k < kl; k++) key[k] = keys[k].expr.atomItem(qc, keys[k].info());
-          tuples.add(key);
-
-          final int rl = refs.length;
-          final Value[] vals = new Value[rl];
-          for(int r = 0; r < rl; r++) vals[r] = refs[r].value(qc);
-          tuples.add(vals);
-        }
+        sort = new ExternalSort((tuple1, tuple2) -> {
+          try {
+            return compare(tuple1, tuple2);
+          } catch(final QueryException ex) {
+            throw new QueryRTException(ex);
+          }
+        }, qc, info);
+        while(sub.next(qc)) sort.add(tuple(qc));
+        sort.sort();
+      }
 
-        final int len = tuples.size() >>> 1;
-        final Item[][] ks = new Item[len][];
-        perm = new Integer[len];
-        tpls = new Value[len][];
-        for(int i = 0; i < len; i++) {
-          perm[i] = i;
-          tpls[i] = tuples.get(i << 1 | 1);
-          ks[i] = (Item[]) tuples.get(i << 1);
-        }
-        // be nice to the garbage collector
-        tuples = null;
+      /**
+       * Caches the first tuples in a bounded heap.
+       * @param qc query context
+       * @param max maximum number of tuples
+       * @throws QueryException evaluation exception
+       */
+      private void top(final QueryContext qc, final int max) throws QueryException {
+        // the root of the heap is the tuple that would be returned last
+        final MinHeap<Key, Value[]> heap = new MinHeap<>((key1, key2) -> {
+          try {
+            final int c = compare(key2.tuple, key1.tuple);
+            return c != 0 ? c : Long.compare(key2.pos, key1.pos);
+          } catch(final QueryException ex) {
+            throw new QueryRTException(ex);
+          }
+        });
         try {
-          Arrays.sort(perm, (x, y) -> {
-            try {
-              final Item[] a = ks[x], b = ks[y];
-              final int kl = keys.length;
-              for(int k = 0; k < kl; k++) {
-                final OrderKey key = keys[k];
-                Item m = a[k], n = b[k];
-                if(m == Dbl.NAN || m == Flt.NAN) m = Empty.VALUE;
-                if(n == Dbl.NAN || n == Flt.NAN) n = Empty.VALUE;
-                if(!m.isEmpty() && !n.isEmpty() && !m.comparable(n))
-                  throw typeError(n, m.type, key.info());
-
-                final int c = m.isEmpty()
-                    ? n.isEmpty() ? 0             : key.least ? -1 : 1
-                    : n.isEmpty() ? key.least ? 1 : -1 : m.compare(n, key.coll, true, key.info());
-                if(c != 0) return key.desc ? -c : c;
-              }
-              return 0;
-            } catch(final QueryException ex) {
-              throw new QueryRTException(ex);
-            }
-          });
+          for(long p = 0; sub.next(qc); p++) {
+            if(max == 0) continue;
+            final Value[] tuple = tuple(qc);
+            heap.insert(new Key(tuple, p), tuple);
+            if(heap.size() > max) heap.removeMin();
+          }
         } catch(final QueryRTException ex) {
           throw ex.getCause();
         }
+
+        final int len = heap.size();
+        tpls = new Value[len][];
+        for(int i = len; --i >= 0;) tpls[i] = heap.removeMin();
+      }
+
+      /**
+       * Returns the sort keys and values of the current tuple.
+       * @param qc query context
+       * @return keys and values
+       * @throws QueryException evaluation exception
+       */
+      private Value[] tuple(final QueryContext qc) throws QueryException {
+        final int kl = keys.length, rl = refs.length;
+        final Value[] tuple = new Value[kl + rl];
+        for(int k = 0; k < kl; k++) tuple[k] = keys[k].expr.atomItem(qc, keys[k].info());
+        for(int r = 0; r < rl; r++) tuple[kl + r] = refs[r].value(qc);
+        return tuple;
       }
     };
   }
 
+  /**
+   * Compares the sort keys of two tuples.
+   * @param tuple1 first tuple
+   * @param tuple2 second tuple
+   * @return result of comparison
+   * @throws QueryException query exception
+   */
+  private int compare(final Value[] tuple1, final Value[] tuple2) throws QueryException {
+    final int kl = keys.length;
+    for(int k = 0; k < kl; k++) {
+      final OrderKey key = keys[k];
+      Item m = (Item) tuple1[k], n = (Item) tuple2[k];
+      if(m == Dbl.NAN || m == Flt.NAN) m = Empty.VALUE;
+      if(n == Dbl.NAN || n == Flt.NAN) n = Empty.VALUE;
+      if(!m.isEmpty() && !n.isEmpty() && !m.comparable(n))
+        throw typeError(n, m.type, key.info());
+
+      final int c = m.isEmpty()
+          ? n.isEmpty() ? 0             : key.least ? -1 : 1
+          : n.isEmpty() ? key.least ? 1 : -1 : m.compare(n, key.coll, true, key.info());
+      if(c != 0) return key.desc ? -c : c;
+    }
+    return 0;
+  }
+
   /**
    * Merges the order by clause with the supplied for clause.
    * @param fr for clause
@@ -251,4 +298,24 @@ public final class OrderBy extends Clause {
   public void toString(final QueryString qs) {
     qs.token(ORDER).token(BY).tokens(keys, SEP);
   }
+
+  /**
+   * Sort keys of a tuple and its position in the input.
+   */
+  private static final class Key {
+    /** Tuple (sort keys and values). */
+    private final Value[] tuple;
+    /** Position. */
+    private final long pos;
+
+    /**
+     * Constructor.
+     * @param tuple tuple
+     * @param pos position
+     */
+    private Key(final Value[] tuple, final long pos) {
+      this.tuple = tuple;
+      this.pos = pos;
+    }
+  }
 }
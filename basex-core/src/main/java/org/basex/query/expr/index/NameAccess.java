@@ -0,0 +1,111 @@
+package org.basex.query.expr.index;
+
+import static org.basex.query.QueryText.*;
+import static org.basex.util.Token.*;
+
+import org.basex.data.*;
+import org.basex.index.*;
+import org.basex.index.name.*;
+import org.basex.query.*;
+import org.basex.query.expr.*;
+import org.basex.query.expr.path.*;
+import org.basex.query.func.*;
+import org.basex.query.iter.*;
+import org.basex.query.value.*;
+import org.basex.query.value.seq.*;
+import org.basex.query.value.type.*;
+import org.basex.query.var.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * This index class retrieves all elements or attributes with a specific local name from the
+ * name index. It replaces descendant steps that are evaluated on all documents of a database.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class NameAccess extends IndexAccess {
+  /** Name test (element or attribute test, only checking the local name). */
+  private final NameTest test;
+
+  /**
+   * Constructor.
+   * @param info input info (can be {@code null})
+   * @param test name test
+   * @param db index database
+   */
+  public NameAccess(final InputInfo info, final NameTest test, final IndexDb db) {
+    super(db, info, test.type);
+    this.test = test;
+  }
+
+  /**
+   * Returns the index type for the specified name test.
+   * @param test name test
+   * @return index type
+   */
+  public static IndexType type(final NameTest test) {
+    return test.type == NodeType.ATTRIBUTE ? IndexType.ATTRNAME : IndexType.ELEMNAME;
+  }
+
+  /**
+   * Returns the IDs of all names that match the local name of the specified test.
+   * @param data data reference
+   * @param test name test
+   * @return name IDs
+   */
+  public static IntList ids(final Data data, final NameTest test) {
+    final Names names = type(test) == IndexType.ATTRNAME ? data.attrNames : data.elemNames;
+    final IntList ids = new IntList();
+    final int ns = names.size();
+    for(int id = 1; id <= ns; id++) {
+      if(eq(test.local, local(names.key(id)))) ids.add(id);
+    }
+    return ids;
+  }
+
+  @Override
+  public Iter iter(final QueryContext qc) throws QueryException {
+    return value(qc).iter();
+  }
+
+  @Override
+  public Value value(final QueryContext qc) throws QueryException {
+    final Data data = db.data(qc);
+    final int kind = type(test) == IndexType.ATTRNAME ? Data.ATTR : Data.ELEM;
+    return DBNodeSeq.get(data.nameIndex.pres(kind, ids(data, test)), data, this);
+  }
+
+  @Override
+  public Expr inline(final InlineContext ic) throws QueryException {
+    return inlineDb(ic) ? optimize(ic.cc) : null;
+  }
+
+  @Override
+  public Expr copy(final CompileContext cc, final IntObjectMap<Var> vm) {
+    return copyType(new NameAccess(info, test, db.copy(cc, vm)));
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    return obj instanceof final NameAccess na && test.equals(na.test) && super.equals(obj);
+  }
+
+  @Override
+  public void toXml(final QueryPlan plan) {
+    plan.add(plan.create(this, INDEX, type(test), NAME, test), db);
+  }
+
+  @Override
+  public void toString(final QueryString qs) {
+    qs.function(Function._DB_GET, db).token('/');
+    if(test.type == NodeType.ATTRIBUTE) {
+      qs.token(new CachedStep(info, Axis.DESCENDANT_OR_SELF, KindTest.NODE)).token('/').
+        token(new CachedStep(info, Axis.ATTRIBUTE, test));
+    } else {
+      qs.token(new CachedStep(info, Axis.DESCENDANT, test));
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package org.basex.query.expr.index;
+
+import static org.basex.query.QueryText.*;
+
+import org.basex.data.*;
+import org.basex.index.*;
+import org.basex.query.*;
+import org.basex.query.expr.*;
+import org.basex.query.func.*;
+import org.basex.query.iter.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.seq.*;
+import org.basex.query.value.type.*;
+import org.basex.query.var.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * This index class retrieves texts and attribute values on specific paths from the path
+ * value index.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class PathValueAccess extends IndexAccess {
+  /** Tokens. */
+  private final TokenSet tokens;
+  /** Index type ({@link IndexType#TEXT} or {@link IndexType#ATTRIBUTE}). */
+  private final IndexType type;
+  /** Path IDs. */
+  private final IntList ids;
+  /** Paths of the nodes, represented as predicate. */
+  private final byte[] paths;
+
+  /**
+   * Constructor.
+   * @param info input info (can be {@code null})
+   * @param tokens tokens
+   * @param type index type
+   * @param ids path IDs
+   * @param paths paths of the nodes, represented as predicate
+   * @param db index database
+   */
+  public PathValueAccess(final InputInfo info, final TokenSet tokens, final IndexType type,
+      final IntList ids, final byte[] paths, final IndexDb db) {
+    super(db, info, type == IndexType.TEXT ? NodeType.TEXT : NodeType.ATTRIBUTE);
+    this.tokens = tokens;
+    this.type = type;
+    this.ids = ids;
+    this.paths = paths;
+  }
+
+  @Override
+  public Iter iter(final QueryContext qc) throws QueryException {
+    return value(qc).iter();
+  }
+
+  @Override
+  public Value value(final QueryContext qc) throws QueryException {
+    final Data data = db.data(qc, type);
+    final IntList list = new IntList();
+    for(final byte[] token : tokens) list.add(data.pathValueIndex.pres(ids, token));
+    // merge results of different tokens
+    return DBNodeSeq.get((tokens.size() > 1 ? list.sort() : list).finish(), data, this);
+  }
+
+  @Override
+  public Expr inline(final InlineContext ic) throws QueryException {
+    return inlineDb(ic) ? optimize(ic.cc) : null;
+  }
+
+  @Override
+  public Expr copy(final CompileContext cc, final IntObjectMap<Var> vm) {
+    return copyType(new PathValueAccess(info, tokens, type, ids, paths, db.copy(cc, vm)));
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if(!(obj instanceof final PathValueAccess pva) || type != pva.type ||
+        !ids.equals(pva.ids) || tokens.size() != pva.tokens.size()) return false;
+    for(final byte[] token : tokens) {
+      if(!pva.tokens.contains(token)) return false;
+    }
+    return super.equals(obj);
+  }
+
+  @Override
+  public void toXml(final QueryPlan plan) {
+    plan.add(plan.create(this, INDEX, type, PATH, ids), db, toExpr());
+  }
+
+  @Override
+  public void toString(final QueryString qs) {
+    final Function function = type == IndexType.TEXT ? Function._DB_TEXT : Function._DB_ATTRIBUTE;
+    qs.function(function, db, toExpr()).braced("[", paths, "]");
+  }
+
+  /**
+   * Returns an expression instance for the tokens.
+   * @return expression
+   */
+  private Expr toExpr() {
+    final TokenList tl = new TokenList(tokens.size());
+    for(final byte[] token : tokens) tl.add(token);
+    return StrSeq.get(tl);
+  }
+}
@@ -0,0 +1,119 @@
+package org.basex.query.expr.index;
+
+import static org.basex.query.QueryText.*;
+
+import org.basex.data.*;
+import org.basex.index.*;
+import org.basex.index.query.*;
+import org.basex.query.*;
+import org.basex.query.expr.*;
+import org.basex.query.expr.path.*;
+import org.basex.query.func.*;
+import org.basex.query.iter.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
+import org.basex.query.value.seq.*;
+import org.basex.query.value.type.*;
+import org.basex.query.var.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * This index class retrieves text and attribute nodes that contain a substring.
+ * The candidates returned by the n-gram index are verified against the node values.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class SubstringAccess extends IndexAccess {
+  /** Substring. */
+  private final byte[] token;
+  /** Function ({@link Function#CONTAINS}, {@link Function#STARTS_WITH}, or
+   * {@link Function#ENDS_WITH}). */
+  private final Function function;
+  /** Text flag. */
+  private final boolean text;
+
+  /**
+   * Constructor.
+   * @param info input info (can be {@code null})
+   * @param token substring
+   * @param function function
+   * @param text text flag
+   * @param db index database
+   */
+  public SubstringAccess(final InputInfo info, final byte[] token, final Function function,
+      final boolean text, final IndexDb db) {
+    super(db, info, text ? NodeType.TEXT : NodeType.ATTRIBUTE);
+    this.token = token;
+    this.function = function;
+    this.text = text;
+  }
+
+  @Override
+  public Iter iter(final QueryContext qc) throws QueryException {
+    return value(qc).iter();
+  }
+
+  @Override
+  public Value value(final QueryContext qc) throws QueryException {
+    final Data data = db.data(qc, IndexType.NGRAM);
+    final int kind = text ? Data.TEXT : Data.ATTR;
+
+    final IndexIterator iter = data.iter(new StringToken(IndexType.NGRAM, token));
+    final IntList list = new IntList();
+    while(iter.more()) {
+      final int pre = iter.pre();
+      if(data.kind(pre) == kind && matches(data.text(pre, text))) list.add(pre);
+    }
+    return DBNodeSeq.get(list.finish(), data, this);
+  }
+
+  /**
+   * Checks if the specified value matches the substring.
+   * @param value value
+   * @return result of check
+   */
+  private boolean matches(final byte[] value) {
+    return switch(function) {
+      case STARTS_WITH -> Token.startsWith(value, token);
+      case ENDS_WITH -> Token.endsWith(value, token);
+      default -> Token.contains(value, token);
+    };
+  }
+
+  @Override
+  public Expr inline(final InlineContext ic) throws QueryException {
+    return inlineDb(ic) ? optimize(ic.cc) : null;
+  }
+
+  @Override
+  public Expr copy(final CompileContext cc, final IntObjectMap<Var> vm) {
+    return copyType(new SubstringAccess(info, token, function, text, db.copy(cc, vm)));
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    return obj instanceof final SubstringAccess sa && Token.eq(token, sa.token) &&
+        function == sa.function && text == sa.text && super.equals(obj);
+  }
+
+  @Override
+  public void toXml(final QueryPlan plan) {
+    plan.add(plan.create(this, INDEX, IndexType.NGRAM, NAME, function), db, Str.get(token));
+  }
+
+  @Override
+  public void toString(final QueryString qs) {
+    final Expr pred = function.get(info, new ContextValue(info), Str.get(token));
+    qs.function(Function._DB_GET, db).token('/');
+    if(text) {
+      qs.token(new CachedStep(info, Axis.DESCENDANT, KindTest.TEXT, pred));
+    } else {
+      qs.token(new CachedStep(info, Axis.DESCENDANT_OR_SELF, KindTest.NODE)).token('/').
+        token(new CachedStep(info, Axis.ATTRIBUTE, KindTest.ATTRIBUTE, pred));
+    }
+  }
+}
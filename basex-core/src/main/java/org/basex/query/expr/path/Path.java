@@ -179,6 +179,8 @@ public abstract class Path extends ParseExpr {
     if(expr == this) expr = toMap(cc);
     // check index access
     if(expr == this) expr = index(cc, rt);
+    // rewrite descendant steps with name tests to name index access
+    if(expr == this) expr = names(cc, rt);
     /* rewrite descendant to child steps. this optimization is called after the index rewritings,
      * as it is cheaper to invert a descendant step. examples:
      * - //B [. = '...']  ->  IA('...', B)
@@ -367,7 +369,8 @@ public abstract class Path extends ParseExpr {
    * @param stats assess database statistics
    * @return path nodes, or {@code null} if nodes cannot be collected
    */
-  final ArrayList<PathNode> pathNodes(final ArrayList<PathNode> nodes, final boolean stats) {
+  public final ArrayList<PathNode> pathNodes(final ArrayList<PathNode> nodes,
+      final boolean stats) {
     ArrayList<PathNode> pn = nodes;
     for(final Expr expr : steps) {
       if(expr instanceof UtilRoot) {
@@ -677,6 +680,52 @@ public abstract class Path extends ParseExpr {
     return this;
   }
 
+  /**
+   * Rewrites a leading descendant step with a name test to a name index access.
+   * Examples: {@code //invoice}, {@code //@id}.
+   * @param cc compilation context
+   * @param rt root at compile time (can be {@code null})
+   * @return original or new expression
+   * @throws QueryException query exception
+   */
+  private Expr names(final CompileContext cc, final Expr rt) throws QueryException {
+    // skip optimization...
+    // - if path does not start with all documents of a database
+    // - if index does not exist or is out-dated
+    final Data data = data();
+    if(!(rt instanceof Value) || rt instanceof Dummy ||
+        !rt.seqType().type.instanceOf(NodeType.DOCUMENT_NODE) || data == null ||
+        data.meta.ndocs != rt.size() || data.nameIndex == null || !data.nameIndex.available()) {
+      return this;
+    }
+
+    // find step: descendant::name, or descendant::element()/attribute::name
+    Step step = axisStep(0);
+    int s = 0;
+    if(step == null) return this;
+    if(step.exprs.length == 0 && (step.axis == DESCENDANT && step.test == KindTest.ELEMENT ||
+        step.axis == DESCENDANT_OR_SELF && step.test == KindTest.NODE)) {
+      step = steps.length > 1 ? axisStep(++s) : null;
+      if(step == null || step.axis != ATTRIBUTE) return this;
+    } else if(step.axis != DESCENDANT) {
+      return this;
+    }
+    // only consider local name tests and non-positional predicates
+    if(!(step.test instanceof final NameTest test) || test.part() != NamePart.LOCAL ||
+        test.type != (step.axis == ATTRIBUTE ? NodeType.ATTRIBUTE : NodeType.ELEMENT) ||
+        step.mayBePositional()) return this;
+
+    cc.info(QueryText.OPTINDEX_X_X, NameAccess.type(test), step);
+    final Expr access = new NameAccess(info, test, new IndexStaticDb(data, info));
+
+    // attach predicates to new self::node() step, add remaining steps
+    final ExprList list = new ExprList();
+    if(step.exprs.length > 0) list.add(Step.self(cc, access, info, step.exprs));
+    final int sl = steps.length;
+    while(++s < sl) list.add(steps[s]);
+    return list.isEmpty() ? access : get(cc, info, access, list.finish());
+  }
+
   /**
    * Tries to rewrite the path to a simple map expression.
    * @param cc compilation context
@@ -743,11 +792,15 @@ public abstract class Path extends ParseExpr {
     // check if path can be converted to an index access
     final Data data = data();
     final int sl = steps.length;
+    // path nodes of the current step (only required for the path value index)
+    ArrayList<PathNode> nodes = data != null && data.meta.uptodate &&
+      data.pathValueIndex != null && data.pathValueIndex.available() ? data.paths.root() : null;
     for(int s = 0; s < sl; s++) {
       // only accept descendant steps without positional predicates
       // Example for position predicate: child:x[1] != parent::x[1]
       final Step step = axisStep(s);
       if(step == null || !step.axis.down || step.mayBePositional()) break;
+      if(nodes != null) nodes = step.nodes(nodes, false);
 
       final int el = step.exprs.length;
       if(el > 0) {
@@ -759,6 +812,7 @@ public abstract class Path extends ParseExpr {
         // choose the cheapest index access
         for(int e = 0; e < el; e++) {
           final IndexInfo ii = new IndexInfo(db, cc, step);
+          ii.nodes = nodes;
           if(!step.exprs[e].indexAccessible(ii)) continue;
 
           if(ii.costs.results() == 0) {
@@ -803,7 +857,7 @@ public abstract class Path extends ParseExpr {
     final ExprList invSteps = new ExprList(), lastPreds = new ExprList();
     final Test rootTest = InvDocTest.get(rt);
     if(rootTest != KindTest.DOCUMENT_NODE || data == null || !data.meta.uptodate ||
-        invertSteps(stepIndex)) {
+        (index.paths ? predicates(stepIndex) : invertSteps(stepIndex))) {
       for(int s = stepIndex; s >= 0; s--) {
         final Axis axis = axisStep(s).axis.invert();
         InputInfo ii;
@@ -874,6 +928,18 @@ public abstract class Path extends ParseExpr {
     return false;
   }
 
+  /**
+   * Checks if one of the steps before the specified step has predicates.
+   * @param i index of last step
+   * @return result of check
+   */
+  private boolean predicates(final int i) {
+    for(int s = 0; s < i; s++) {
+      if(axisStep(s).exprs.length > 0) return true;
+    }
+    return false;
+  }
+
   /**
    * Tries to rewrite steps to union expressions.
    * @param cc compilation context
@@ -16,12 +16,13 @@ import org.basex.query.value.type.*;
  */
 public final class ArraySort extends ArraySortBy {
   @Override
-  protected Integer[] index(final Value[] values, final QueryContext qc) throws QueryException {
+  protected Integer[] index(final Value[] values, final int limit, final QueryContext qc)
+      throws QueryException {
     // identical to {@link FnSort#index}
     final FItem[] keys = { toFunctionOrNull(arg(2), 1, qc) };
     final Collation[] collations = { toCollation(arg(1), qc) };
     final boolean[] invert = { false };
-    return index(values, keys, collations, invert, qc);
+    return index(values, keys, collations, invert, limit, qc);
   }
 
 
@@ -30,7 +30,7 @@ public class ArraySortBy extends FnSortBy {
     final ValueList list = new ValueList(as);
     for(final Value member : array.iterable()) list.add(member);
     final Value[] values = list.finish();
-    final Integer[] index = index(values, qc);
+    final Integer[] index = index(values, values.length, qc);
     if(sorted(index)) return array;
 
     final ArrayBuilder ab = new ArrayBuilder(qc);
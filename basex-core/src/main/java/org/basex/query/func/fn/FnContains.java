@@ -5,6 +5,7 @@ import org.basex.query.expr.*;
 import org.basex.query.func.*;
 import org.basex.query.util.*;
 import org.basex.query.util.collation.*;
+import org.basex.query.util.index.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.seq.*;
 import org.basex.util.*;
@@ -54,4 +55,12 @@ public class FnContains extends StandardFunc {
     }
     return this;
   }
+
+  @Override
+  public final boolean indexAccessible(final IndexInfo ii) throws QueryException {
+    // support limited to default collation
+    final Function function = Function.STARTS_WITH.is(this) ? Function.STARTS_WITH :
+      Function.ENDS_WITH.is(this) ? Function.ENDS_WITH : Function.CONTAINS;
+    return !defined(2) && ii.create(arg(0), arg(1), function, info);
+  }
 }
@@ -23,7 +23,7 @@ import org.basex.util.*;
 public final class FnHead extends StandardFunc {
   @Override
   public Item item(final QueryContext qc, final InputInfo ii) throws QueryException {
-    final Item input = arg(0).iter(qc).next();
+    final Item input = FnSubsequence.iter(arg(0), 1, qc).next();
     return input == null ? Empty.VALUE : input;
   }
 
@@ -5,6 +5,7 @@ import static org.basex.util.Token.*;
 
 import org.basex.query.*;
 import org.basex.query.expr.*;
+import org.basex.query.util.index.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.type.*;
 import org.basex.util.*;
@@ -51,4 +52,14 @@ public final class FnMatches extends RegExFn {
     }
     return this;
   }
+
+  @Override
+  public boolean indexAccessible(final IndexInfo ii) throws QueryException {
+    // support limited to patterns without special characters and flags
+    if(defined(2) || !(arg(1) instanceof final Str str)) return false;
+    for(final byte b : str.string()) {
+      if(contains(REGEX_CHARS, b)) return false;
+    }
+    return ii.create(arg(0), str, CONTAINS, info);
+  }
 }
@@ -19,15 +19,15 @@ import org.basex.query.value.type.*;
  */
 public final class FnSort extends FnSortBy {
   @Override
-  public Iter iter(final QueryContext qc) throws QueryException {
+  public Iter iter(final QueryContext qc, final long limit) throws QueryException {
     final Value input = arg(0).value(qc), value = quickValue(input);
-    return value != null ? value.iter() : iter(input, qc);
+    return value != null ? value.iter() : iter(input, limit, qc);
   }
 
   @Override
   public Value value(final QueryContext qc) throws QueryException {
     final Value input = arg(0).value(qc), value = quickValue(input);
-    return value != null ? value : iter(input, qc).value(qc, this);
+    return value != null ? value : iter(input, Long.MAX_VALUE, qc).value(qc, this);
   }
 
   @Override
@@ -82,11 +82,12 @@ public final class FnSort extends FnSortBy {
   }
 
   @Override
-  protected Integer[] index(final Value[] values, final QueryContext qc) throws QueryException {
+  protected Integer[] index(final Value[] values, final int limit, final QueryContext qc)
+      throws QueryException {
     final FItem[] keys = { toFunctionOrNull(arg(2), 1, qc) };
     final Collation[] collations = { toCollation(arg(1), qc) };
     final boolean[] invert = { false };
-    return index(values, keys, collations, invert, qc);
+    return index(values, keys, collations, invert, limit, qc);
   }
 
   @Override
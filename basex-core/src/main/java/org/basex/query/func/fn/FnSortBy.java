@@ -9,6 +9,7 @@ import org.basex.query.CompileContext.*;
 import org.basex.query.expr.*;
 import org.basex.query.func.*;
 import org.basex.query.iter.*;
+import org.basex.query.util.*;
 import org.basex.query.util.collation.*;
 import org.basex.query.util.list.*;
 import org.basex.query.value.*;
@@ -43,7 +44,18 @@ public class FnSortBy extends StandardFunc {
 
   @Override
   public Iter iter(final QueryContext qc) throws QueryException {
-    return iter(arg(0).value(qc), qc);
+    return iter(qc, Long.MAX_VALUE);
+  }
+
+  /**
+   * Returns an iterator for the first items of the sorted input.
+   * @param qc query context
+   * @param limit maximum number of requested items
+   * @return iterator (may return more items than requested)
+   * @throws QueryException query exception
+   */
+  public Iter iter(final QueryContext qc, final long limit) throws QueryException {
+    return iter(arg(0).value(qc), limit, qc);
   }
 
   @Override
@@ -66,20 +78,22 @@ public class FnSortBy extends StandardFunc {
 
   /**
    * Sort the input data and returns an iterator.
+   * If the number of requested items is smaller than the input, a bounded heap is used.
    * @param input items to be sorted
+   * @param limit maximum number of requested items
    * @param qc query context
    * @return iterator with ordered items
    * @throws QueryException query exception
    */
-  Iter iter(final Value input, final QueryContext qc) throws QueryException {
+  Iter iter(final Value input, final long limit, final QueryContext qc) throws QueryException {
     if(input.isEmpty()) return input.iter();
 
     final long is = input.size();
     final ItemList list = new ItemList(is);
     for(final Item item : input) list.add(item);
     final Item[] values = list.finish();
-    final Integer[] index = index(values, qc);
-    return sorted(index) ? input.iter() : new BasicIter<>(is) {
+    final Integer[] index = index(values, (int) Math.min(limit, is), qc);
+    return sorted(index) ? input.iter() : new BasicIter<>(index.length) {
       @Override
       public Item get(final long l) {
         return values[index[(int) l]];
@@ -103,11 +117,13 @@ public class FnSortBy extends StandardFunc {
   /**
    * Returns an array with an index to the original values.
    * @param values values
+   * @param limit maximum number of requested values
    * @param qc query context
    * @return index
    * @throws QueryException query exception
    */
-  protected Integer[] index(final Value[] values, final QueryContext qc) throws QueryException {
+  protected Integer[] index(final Value[] values, final int limit, final QueryContext qc)
+      throws QueryException {
     Value maps = arg(1).value(qc);
     if(maps.isEmpty()) maps = XQMap.empty();
 
@@ -125,55 +141,150 @@ public class FnSortBy extends StandardFunc {
       }
       m++;
     }
-    return index(values, keys, collations, invert, qc);
+    return index(values, keys, collations, invert, limit, qc);
   }
 
   /**
    * Returns an array with an index to the original values.
+   * If less values are requested than supplied, a bounded heap is used to find the first values.
+   * Otherwise, all values are sorted in main memory, or with an external sort if the primary
+   * sort keys exceed the memory budget ({@link Prop#sortmemory}).
    * @param values values
    * @param keys keys
    * @param collations collations
    * @param invert ascending/descending order
+   * @param limit maximum number of requested values
    * @param qc query context
    * @return index
    * @throws QueryException query exception
    */
   protected final Integer[] index(final Value[] values, final FItem[] keys,
-      final Collation[] collations, final boolean[] invert, final QueryContext qc)
-      throws QueryException {
+      final Collation[] collations, final boolean[] invert, final int limit,
+      final QueryContext qc) throws QueryException {
 
     final int levels = keys.length, size = values.length;
     final Value[][] cached = new Value[levels][];
     for(int l = 0; l < levels; l++) cached[l] = new Value[size];
-    final Integer[] indexes = new Integer[size];
-    for(int o = 0; o < size; o++) indexes[o] = o;
-    try {
-      Arrays.sort(indexes, (i1, i2) -> {
-        qc.checkStop();
-        try {
-          for(int l = 0; l < levels; l++) {
-            final int ll = l;
-            final QueryFunction<Integer, Value> value = i -> {
-              Value val = cached[ll][i];
-              if(val == null) {
-                final FItem k = keys[ll];
-                val = (k == null ? values[i] : k.invoke(qc, info, values[i])).atomValue(qc, info);
-                cached[ll][i] = val;
-              }
-              return val;
-            };
-            final int diff = compare(value.apply(i1), value.apply(i2), collations[l], info);
-            if(diff != 0) return invert[l] ? -diff : diff;
+
+    final boolean all = limit >= size;
+    if(all && size > 1) {
+      // compute primary keys, switch to external sort if the memory budget is exceeded
+      long memory = 0;
+      for(int i = 0; i < size; i++) {
+        cached[0][i] = key(values[i], keys[0], qc);
+        if(memory != -1) {
+          final long s = ExternalSort.size(cached[0][i]);
+          memory = s == -1 ? -1 : memory + s;
+          if(memory > Prop.sortmemory) {
+            return index(values, keys, cached[0], collations, invert, qc);
           }
-          return 0;
-        } catch(final QueryException ex) {
-          throw new QueryRTException(ex);
         }
+      }
+    }
+
+    final Comparator<Integer> comparator = (i1, i2) -> {
+      qc.checkStop();
+      try {
+        for(int l = 0; l < levels; l++) {
+          final int ll = l;
+          final QueryFunction<Integer, Value> value = i -> {
+            Value val = cached[ll][i];
+            if(val == null) {
+              val = key(values[i], keys[ll], qc);
+              cached[ll][i] = val;
+            }
+            return val;
+          };
+          final int diff = compare(value.apply(i1), value.apply(i2), collations[l], info);
+          if(diff != 0) return invert[l] ? -diff : diff;
+        }
+        return 0;
+      } catch(final QueryException ex) {
+        throw new QueryRTException(ex);
+      }
+    };
+
+    try {
+      if(all) {
+        final Integer[] indexes = new Integer[size];
+        for(int o = 0; o < size; o++) indexes[o] = o;
+        Arrays.sort(indexes, comparator);
+        return indexes;
+      }
+      // the root of the heap is the value that would be returned last
+      final MinHeap<Integer, Integer> heap = new MinHeap<>((i1, i2) -> {
+        final int diff = comparator.compare(i2, i1);
+        return diff != 0 ? diff : i2 - i1;
       });
+      for(int i = 0; i < size; i++) {
+        heap.insert(i, i);
+        if(heap.size() > limit) heap.removeMin();
+      }
+      final Integer[] indexes = new Integer[heap.size()];
+      for(int i = indexes.length; --i >= 0;) indexes[i] = heap.removeMin();
+      return indexes;
     } catch(final QueryRTException ex) {
       throw ex.getCause();
     }
-    return indexes;
+  }
+
+  /**
+   * Returns an array with an index to all original values.
+   * The sort keys and positions of the values are sorted with a memory budget.
+   * @param values values
+   * @param keys keys
+   * @param primary primary keys that have already been computed (entries can be {@code null})
+   * @param collations collations
+   * @param invert ascending/descending order
+   * @param qc query context
+   * @return index
+   * @throws QueryException query exception
+   */
+  private Integer[] index(final Value[] values, final FItem[] keys, final Value[] primary,
+      final Collation[] collations, final boolean[] invert, final QueryContext qc)
+      throws QueryException {
+
+    // entries: sort keys, followed by the position of the value
+    final int levels = keys.length, size = values.length;
+    try(ExternalSort sort = new ExternalSort((entry1, entry2) -> {
+      qc.checkStop();
+      try {
+        for(int l = 0; l < levels; l++) {
+          final int diff = compare(entry1[l], entry2[l], collations[l], info);
+          if(diff != 0) return invert[l] ? -diff : diff;
+        }
+        return 0;
+      } catch(final QueryException ex) {
+        throw new QueryRTException(ex);
+      }
+    }, qc, info)) {
+      for(int i = 0; i < size; i++) {
+        final Value[] entry = new Value[levels + 1];
+        entry[0] = primary[i] != null ? primary[i] : key(values[i], keys[0], qc);
+        primary[i] = null;
+        for(int l = 1; l < levels; l++) entry[l] = key(values[i], keys[l], qc);
+        entry[levels] = Int.get(i);
+        sort.add(entry);
+      }
+      sort.sort();
+
+      final Integer[] indexes = new Integer[size];
+      for(int i = 0; i < size; i++) indexes[i] = (int) ((Int) sort.next()[levels]).itr();
+      return indexes;
+    }
+  }
+
+  /**
+   * Returns the sort key of a value.
+   * @param value value
+   * @param key key function (can be {@code null})
+   * @param qc query context
+   * @return sort key
+   * @throws QueryException query exception
+   */
+  private Value key(final Value value, final FItem key, final QueryContext qc)
+      throws QueryException {
+    return (key == null ? value : key.invoke(qc, info, value)).atomValue(qc, info);
   }
 
   /**
@@ -7,6 +7,7 @@ import java.util.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.expr.List;
+import org.basex.query.expr.gflwor.*;
 import org.basex.query.func.*;
 import org.basex.query.func.file.*;
 import org.basex.query.iter.*;
@@ -35,8 +36,8 @@ public class FnSubsequence extends StandardFunc {
     if(sr == EMPTY) return Empty.ITER;
 
     // return iterator if all results are returned, of it iterator yields no items
-    final Iter input = arg(0).iter(qc);
-    if(sr == ALL) return input;
+    if(sr == ALL) return arg(0).iter(qc);
+    final Iter input = iter(arg(0), sr.end, qc);
 
     // return empty iterator if no items remain
     final long size = sr.adjust(input.size());
@@ -92,7 +93,7 @@ public class FnSubsequence extends StandardFunc {
     if(sr == ALL) return input.value(qc);
 
     // return empty iterator if no items remain
-    final Iter iter = input.iter(qc);
+    final Iter iter = iter(input, sr.end, qc);
     final long size = sr.adjust(iter.size());
     if(sr.length == 0) return Empty.VALUE;
 
@@ -117,6 +118,21 @@ public class FnSubsequence extends StandardFunc {
     return vb.value(this);
   }
 
+  /**
+   * Returns an iterator for an input expression of which only the first items are requested.
+   * The limit is passed on to sort operations, which will then only keep the first items.
+   * @param input input expression
+   * @param limit maximum number of requested items
+   * @param qc query context
+   * @return iterator (may return more items than requested)
+   * @throws QueryException query exception
+   */
+  static Iter iter(final Expr input, final long limit, final QueryContext qc)
+      throws QueryException {
+    return input instanceof final GFLWOR flwor ? flwor.iter(qc, limit) :
+      SORT.is(input) || SORT_BY.is(input) ? ((FnSortBy) input).iter(qc, limit) : input.iter(qc);
+  }
+
   /**
    * Returns the start position and length of the requested subsequence.
    * @param cc compilation context
@@ -107,6 +107,7 @@ abstract class ContextModifier {
     // release them in case of error. write locks prevent other JVMs from accessing currently
     // updated databases, but they cannot provide perfect safety.
     final Set<Data> datas = new HashSet<>();
+    IOException error = null;
     try {
       for(final Data data : dbUpdates.keySet()) {
         data.startUpdate(ctx.options);
@@ -121,9 +122,14 @@ abstract class ContextModifier {
     } finally {
       // remove locks: in case of a crash, remove only already acquired write locks
       for(final Data data : datas) {
-        data.finishUpdate(ctx.options);
+        try {
+          data.finishUpdate(ctx.options);
+        } catch(final IOException ex) {
+          if(error == null) error = ex;
+        }
       }
     }
+    if(error != null) throw UPDBERROR_X.get(null, error);
 
     // apply remaining updates based on database names
     for(final NameUpdates up : nameUpdates.values()) up.apply(false);
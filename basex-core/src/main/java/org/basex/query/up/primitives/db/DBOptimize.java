@@ -45,7 +45,9 @@ public final class DBOptimize extends DBUpdate {
     this.qc = qc;
 
     final Option<?>[] supported = Arrays.stream(MainOptions.INDEXING).
-        filter(c -> all || c != MainOptions.UPDINDEX).toArray(Option<?>[]::new);
+        filter(c -> all || c != MainOptions.UPDINDEX && c != MainOptions.COMPRESSTEXTS &&
+          c != MainOptions.PACKTABLE).
+        toArray(Option<?>[]::new);
 
     // create options, based on global defaults
     final DBOptions dbopts = new DBOptions(qopts, supported, info);
@@ -54,12 +56,17 @@ public final class DBOptimize extends DBUpdate {
     dbopts.assignIfAbsent(MainOptions.ATTRINDEX, meta.createattr);
     dbopts.assignIfAbsent(MainOptions.TOKENINDEX, meta.createtoken);
     dbopts.assignIfAbsent(MainOptions.FTINDEX, meta.createft);
+    dbopts.assignIfAbsent(MainOptions.NGRAMINDEX, meta.createngram);
     dbopts.assignIfAbsent(MainOptions.TEXTINCLUDE, meta.textinclude);
     dbopts.assignIfAbsent(MainOptions.ATTRINCLUDE, meta.attrinclude);
     dbopts.assignIfAbsent(MainOptions.TOKENINCLUDE, meta.tokeninclude);
     dbopts.assignIfAbsent(MainOptions.FTINCLUDE, meta.ftinclude);
     dbopts.assignIfAbsent(MainOptions.UPDINDEX, meta.updindex);
     dbopts.assignIfAbsent(MainOptions.AUTOOPTIMIZE, meta.autooptimize);
+    dbopts.assignIfAbsent(MainOptions.COMPRESSTEXTS, meta.compresstexts);
+    dbopts.assignIfAbsent(MainOptions.PACKTABLE, meta.packtable);
+    dbopts.assignIfAbsent(MainOptions.NAMEINDEX, meta.nameindex);
+    dbopts.assignIfAbsent(MainOptions.PATHVALUEINDEX, meta.pathvalueindex);
     dbopts.assignIfAbsent(MainOptions.SPLITSIZE, meta.splitsize);
     dbopts.assignIfAbsent(MainOptions.MAXCATS, meta.maxcats);
     dbopts.assignIfAbsent(MainOptions.MAXLEN, meta.maxlen);
@@ -98,9 +105,14 @@ public final class DBOptimize extends DBUpdate {
     meta.createattr = options.get(MainOptions.ATTRINDEX);
     meta.createtoken = options.get(MainOptions.TOKENINDEX);
     meta.createft = options.get(MainOptions.FTINDEX);
+    meta.createngram = options.get(MainOptions.NGRAMINDEX);
     meta.maxcats = options.get(MainOptions.MAXCATS);
     meta.updindex = options.get(MainOptions.UPDINDEX);
     meta.autooptimize = options.get(MainOptions.AUTOOPTIMIZE);
+    meta.compresstexts = options.get(MainOptions.COMPRESSTEXTS);
+    meta.packtable = options.get(MainOptions.PACKTABLE);
+    meta.nameindex = options.get(MainOptions.NAMEINDEX);
+    meta.pathvalueindex = options.get(MainOptions.PATHVALUEINDEX);
     meta.splitsize = options.get(MainOptions.SPLITSIZE);
     meta.textinclude = textinclude;
     meta.attrinclude = attrinclude;
@@ -0,0 +1,396 @@
+package org.basex.query.util;
+
+import static org.basex.query.QueryError.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.query.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
+import org.basex.query.value.type.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * Stable sort of entries with a memory budget. Entries are arrays of values (sort keys and
+ * references to the sorted items). If the estimated size of the cached entries exceeds the
+ * budget ({@link Prop#sortmemory}), the entries are sorted and written to a temporary file.
+ * The sorted runs are merged lazily when the entries are requested.
+ *
+ * Entries can only be written to disk if their items are atomic or database nodes. Database
+ * nodes are written as references (database instance and PRE value). As soon as an entry is
+ * added that cannot be written to disk, all remaining entries will be sorted in main memory.
+ *
+ * The comparator may throw a {@link QueryRTException}.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class ExternalSort implements Closeable {
+  /** Estimated memory consumption of an item. */
+  private static final int ITEM = 32;
+  /** Maximum number of sorted runs (will be merged if exceeded). */
+  private static final int RUNS = 64;
+
+  /** Comparator. */
+  private final Comparator<Value[]> comparator;
+  /** Query context. */
+  private final QueryContext qc;
+  /** Input info (can be {@code null}). */
+  private final InputInfo info;
+
+  /** Cached entries. */
+  private ArrayList<Value[]> entries = new ArrayList<>();
+  /** Estimated memory consumption of the cached entries. */
+  private long memory;
+  /** Indicates if entries can be written to disk. */
+  private boolean spill = true;
+  /** Files with sorted runs. */
+  private final ArrayList<IOFile> files = new ArrayList<>();
+  /** Number of entries in the sorted runs. */
+  private final IntList sizes = new IntList();
+  /** Referenced database instances. */
+  private final ArrayList<Data> datas = new ArrayList<>();
+  /** Runs with opened input streams. */
+  private final ArrayList<Run> opened = new ArrayList<>();
+
+  /** Heap with the current entries of all runs (assigned after sorting). */
+  private MinHeap<Run, Run> heap;
+  /** Sorted entries in main memory (assigned after sorting if no runs exist). */
+  private Iterator<Value[]> iter;
+
+  /**
+   * Constructor.
+   * @param comparator comparator
+   * @param qc query context
+   * @param info input info (can be {@code null})
+   */
+  public ExternalSort(final Comparator<Value[]> comparator, final QueryContext qc,
+      final InputInfo info) {
+    this.comparator = comparator;
+    this.qc = qc;
+    this.info = info;
+  }
+
+  /**
+   * Adds an entry.
+   * @param entry entry
+   * @throws QueryException query exception
+   */
+  public void add(final Value[] entry) throws QueryException {
+    entries.add(entry);
+    if(spill) {
+      final long size = size(entry);
+      if(size == -1) {
+        spill = false;
+      } else {
+        memory += size;
+        if(memory > Prop.sortmemory && entries.size() > 1) write();
+      }
+    }
+  }
+
+  /**
+   * Sorts the entries. Must be called once before the entries are requested.
+   * @throws QueryException query exception
+   */
+  public void sort() throws QueryException {
+    sort(entries);
+    if(files.isEmpty()) {
+      iter = entries.iterator();
+    } else {
+      heap = heap();
+      final int fs = files.size();
+      try {
+        for(int f = 0; f < fs; f++) add(new Run(f, files.get(f), sizes.get(f)));
+        add(new Run(fs, null, entries.size()));
+      } catch(final QueryRTException ex) {
+        throw ex.getCause();
+      }
+    }
+  }
+
+  /**
+   * Returns the next entry.
+   * @return entry, or {@code null} if all entries have been returned
+   * @throws QueryException query exception
+   */
+  public Value[] next() throws QueryException {
+    if(iter != null) {
+      if(!iter.hasNext()) return null;
+      final Value[] entry = iter.next();
+      // free the space occupied by the entry
+      iter.remove();
+      return entry;
+    }
+    if(heap == null || heap.isEmpty()) {
+      close();
+      return null;
+    }
+    final Run run = heap.removeMin();
+    final Value[] entry = run.entry;
+    try {
+      add(run);
+    } catch(final QueryRTException ex) {
+      throw ex.getCause();
+    }
+    return entry;
+  }
+
+  @Override
+  public void close() {
+    // close all runs, including the ones that are not contained in a heap
+    while(!opened.isEmpty()) opened.get(opened.size() - 1).close();
+    heap = null;
+    if(!files.isEmpty()) {
+      final ExternalSorts sorts = qc.resources.index(ExternalSorts.class);
+      for(final IOFile file : files) sorts.delete(file);
+      files.clear();
+    }
+  }
+
+  /**
+   * Reads the next entry of a run and adds the run to the heap.
+   * @param run run
+   * @throws QueryException query exception
+   */
+  private void add(final Run run) throws QueryException {
+    if(run.next()) heap.insert(run, run);
+  }
+
+  /**
+   * Sorts the cached entries and writes them to a temporary file.
+   * @throws QueryException query exception
+   */
+  private void write() throws QueryException {
+    sort(entries);
+    final Iterator<Value[]> entrs = entries.iterator();
+    write(() -> entrs.hasNext() ? entrs.next() : null);
+    sizes.add(entries.size());
+    entries = new ArrayList<>();
+    memory = 0;
+
+    // merge sorted runs to limit the number of files that are opened at the same time
+    if(files.size() == RUNS) merge();
+  }
+
+  /**
+   * Merges all sorted runs into a single run.
+   * @throws QueryException query exception
+   */
+  private void merge() throws QueryException {
+    final MinHeap<Run, Run> runs = heap();
+    final int fs = files.size();
+    int size = 0;
+    try {
+      for(int f = 0; f < fs; f++) {
+        final Run run = new Run(f, files.get(f), sizes.get(f));
+        if(run.next()) runs.insert(run, run);
+        size += sizes.get(f);
+      }
+      write(() -> {
+        if(runs.isEmpty()) return null;
+        final Run run = runs.removeMin();
+        final Value[] entry = run.entry;
+        if(run.next()) runs.insert(run, run);
+        return entry;
+      });
+    } catch(final QueryRTException ex) {
+      throw ex.getCause();
+    } finally {
+      while(!runs.isEmpty()) runs.removeMin().close();
+    }
+    final ExternalSorts sorts = qc.resources.index(ExternalSorts.class);
+    for(int f = 0; f < fs; f++) sorts.delete(files.get(f));
+    files.subList(0, fs).clear();
+    sizes.reset();
+    sizes.add(size);
+  }
+
+  /**
+   * Writes entries to a new temporary file.
+   * @param input supplier of entries (returns {@code null} if all entries have been supplied)
+   * @throws QueryException query exception
+   */
+  private void write(final QuerySupplier<Value[]> input) throws QueryException {
+    try {
+      final IOFile file = qc.resources.index(ExternalSorts.class).create();
+      files.add(file);
+      try(DataOutput out = new DataOutput(file)) {
+        for(Value[] entry; (entry = input.get()) != null;) {
+          qc.checkStop();
+          out.writeNum(entry.length);
+          for(final Value value : entry) {
+            out.writeNum((int) value.size());
+            for(final Item item : value) {
+              if(item instanceof final DBNode node) {
+                int d = datas.indexOf(node.data());
+                if(d == -1) {
+                  d = datas.size();
+                  datas.add(node.data());
+                }
+                out.writeNum(0);
+                out.writeNum(d);
+                out.writeNum(node.pre());
+              } else {
+                out.writeNum(item.type.index() + 1);
+                item.write(out);
+              }
+            }
+          }
+        }
+      }
+    } catch(final IOException ex) {
+      throw IOERR_X.get(info, ex);
+    }
+  }
+
+  /**
+   * Returns a heap for merging sorted runs. Ties are resolved by the order of the runs.
+   * @return heap
+   */
+  private MinHeap<Run, Run> heap() {
+    return new MinHeap<>((run1, run2) -> {
+      final int c = comparator.compare(run1.entry, run2.entry);
+      return c != 0 ? c : run1.id - run2.id;
+    });
+  }
+
+  /**
+   * Sorts the specified entries.
+   * @param list entries
+   * @throws QueryException query exception
+   */
+  private void sort(final ArrayList<Value[]> list) throws QueryException {
+    try {
+      list.sort(comparator);
+    } catch(final QueryRTException ex) {
+      throw ex.getCause();
+    }
+  }
+
+  /**
+   * Returns the estimated memory consumption of an entry.
+   * @param entry entry
+   * @return size, or {@code -1} if the entry cannot be written to disk
+   */
+  private static long size(final Value[] entry) {
+    long size = ITEM;
+    for(final Value value : entry) {
+      final long vs = size(value);
+      if(vs == -1) return -1;
+      size += vs;
+    }
+    return size;
+  }
+
+  /**
+   * Returns the estimated memory consumption of a value of an entry.
+   * @param value value
+   * @return size, or {@code -1} if the value cannot be written to disk
+   */
+  public static long size(final Value value) {
+    if(value.size() > Integer.MAX_VALUE) return -1;
+    long size = ITEM;
+    for(final Item item : value) {
+      // database nodes are written as references, other items must be atomic
+      if(item.getClass() != DBNode.class) {
+        if(!(item.type instanceof AtomType)) return -1;
+        if(item instanceof final Str str) size += str.string().length;
+        else if(item instanceof final Atm atm) size += atm.string(null).length;
+      }
+      size += ITEM;
+    }
+    return size;
+  }
+
+  /**
+   * Sorted run.
+   */
+  private final class Run {
+    /** Run id. */
+    private final int id;
+    /** Input stream ({@code null} for the entries in main memory). */
+    private final DataInput in;
+    /** Remaining entries. */
+    private int remaining;
+    /** Current entry. */
+    private Value[] entry;
+
+    /**
+     * Constructor.
+     * @param id run id
+     * @param file file ({@code null} for the entries in main memory)
+     * @param size number of entries
+     * @throws QueryException query exception
+     */
+    private Run(final int id, final IOFile file, final int size) throws QueryException {
+      this.id = id;
+      remaining = size;
+      try {
+        in = file != null ? new DataInput(file) : null;
+      } catch(final IOException ex) {
+        throw IOERR_X.get(info, ex);
+      }
+      if(in != null) opened.add(this);
+    }
+
+    /**
+     * Reads the next entry.
+     * @return {@code false} if the run is exhausted
+     * @throws QueryException query exception
+     */
+    private boolean next() throws QueryException {
+      if(remaining == 0) {
+        close();
+        return false;
+      }
+      if(in == null) {
+        final int index = entries.size() - remaining--;
+        entry = entries.get(index);
+        entries.set(index, null);
+        return true;
+      }
+      remaining--;
+      try {
+        final int el = in.readNum();
+        final Value[] values = new Value[el];
+        for(int e = 0; e < el; e++) {
+          final int vs = in.readNum();
+          final ValueBuilder vb = new ValueBuilder(qc, vs);
+          for(int v = 0; v < vs; v++) {
+            final int type = in.readNum();
+            vb.add(type == 0 ? new DBNode(datas.get(in.readNum()), in.readNum()) :
+              Types.type(type - 1).read(in, qc));
+          }
+          values[e] = vb.value();
+        }
+        entry = values;
+        return true;
+      } catch(final IOException ex) {
+        close();
+        throw IOERR_X.get(info, ex);
+      }
+    }
+
+    /**
+     * Closes the input stream.
+     */
+    private void close() {
+      entry = null;
+      if(in != null && opened.remove(this)) {
+        try {
+          in.close();
+        } catch(final IOException ex) {
+          Util.debug(ex);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,45 @@
+package org.basex.query.util;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.io.*;
+import org.basex.query.*;
+import org.basex.util.*;
+
+/**
+ * Temporary files with sorted runs that have been created by {@link ExternalSort} instances.
+ * Remaining files are deleted when the query is closed.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class ExternalSorts implements QueryResource {
+  /** Temporary files. */
+  private final ArrayList<IOFile> files = new ArrayList<>();
+
+  /**
+   * Creates a temporary file.
+   * @return file
+   * @throws IOException I/O exception
+   */
+  synchronized IOFile create() throws IOException {
+    final IOFile file = new IOFile(File.createTempFile(Prop.NAME + "-sort-", IO.TMPSUFFIX));
+    files.add(file);
+    return file;
+  }
+
+  /**
+   * Deletes a temporary file.
+   * @param file file
+   */
+  synchronized void delete(final IOFile file) {
+    if(files.remove(file)) file.delete();
+  }
+
+  @Override
+  public synchronized void close() {
+    for(final IOFile file : files) file.delete();
+    files.clear();
+  }
+}
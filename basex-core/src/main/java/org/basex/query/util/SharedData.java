@@ -70,7 +70,7 @@ public final class SharedData {
    * @param uri URI (can be {@code null})
    * @return QName
    */
-  public QNm qName(final byte[] name, final byte[] uri) {
+  public synchronized QNm qName(final byte[] name, final byte[] uri) {
     return qnames.computeIfAbsent(
       uri != null ? Token.concat(name, Token.cpToken(' '), uri) : name,
       () -> new QNm(name, uri)
@@ -82,7 +82,7 @@ public final class SharedData {
    * @param token token to be cached
    * @return shared token
    */
-  public byte[] token(final byte[] token) {
+  public synchronized byte[] token(final byte[] token) {
     return token.length == 0 ? Token.EMPTY : tokens.put(token);
   }
 
@@ -129,7 +129,7 @@ public final class SharedData {
    * @param rt record type
    * @return new or already registered record type
    */
-  public RecordType record(final RecordType rt) {
+  public synchronized RecordType record(final RecordType rt) {
     final ArrayList<RecordType> types = recordTypes.computeIfAbsent(rt.fields().size(),
         ArrayList::new);
     for(final RecordType type : types) {
@@ -1,5 +1,8 @@
 package org.basex.query.util.index;
 
+import java.util.*;
+
+import org.basex.index.path.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.expr.path.*;
@@ -45,10 +48,16 @@ class IndexContext extends IndexPred {
     return info.step;
   }
 
+  @Override
+  ArrayList<PathNode> nodes(final ArrayList<PathNode> nodes) {
+    return nodes;
+  }
+
   @Override
   Expr invert(final Expr root) throws QueryException {
     final Step st = info.step;
-    if(info.text || !(st.test instanceof NameTest || st.test instanceof UnionTest)) return root;
+    if(info.text || info.paths || !(st.test instanceof NameTest || st.test instanceof UnionTest))
+      return root;
 
     // attribute index request: add attribute step
     final Expr step = Step.self(info.cc, root, st.info(), st.test);
@@ -2,15 +2,21 @@ package org.basex.query.util.index;
 
 import static org.basex.query.QueryText.*;
 
+import java.util.*;
+
 import org.basex.core.*;
 import org.basex.data.*;
 import org.basex.index.*;
+import org.basex.index.name.*;
+import org.basex.index.ngram.*;
+import org.basex.index.path.*;
 import org.basex.index.query.*;
 import org.basex.index.stats.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.expr.index.*;
 import org.basex.query.expr.path.*;
+import org.basex.query.func.*;
 import org.basex.query.iter.*;
 import org.basex.query.util.*;
 import org.basex.query.value.*;
@@ -18,6 +24,7 @@ import org.basex.query.value.item.*;
 import org.basex.query.value.type.*;
 import org.basex.util.*;
 import org.basex.util.hash.*;
+import org.basex.util.list.*;
 
 /**
  * This class contains methods for storing information on new index expressions.
@@ -41,6 +48,10 @@ public final class IndexInfo {
   public Expr expr;
   /** Costs of index access ({@code null} if no index access is possible). */
   public IndexCosts costs;
+  /** Path nodes of the step (can be {@code null}). */
+  public ArrayList<PathNode> nodes;
+  /** Indicates if the index results are limited to the paths of the location path. */
+  public boolean paths;
   /** Indicates if the last step addresses a text node. */
   boolean text;
 
@@ -99,8 +110,8 @@ public final class IndexInfo {
 
     // check if the index contains result for the specified elements or attributes
     final IndexType it = type != null ? type : text ? IndexType.TEXT : IndexType.ATTRIBUTE;
-    if(text ? it != IndexType.TEXT && it != IndexType.FULLTEXT :
-      it != IndexType.TOKEN && it != IndexType.ATTRIBUTE) return null;
+    if(it != IndexType.NGRAM && (text ? it != IndexType.TEXT && it != IndexType.FULLTEXT :
+      it != IndexType.TOKEN && it != IndexType.ATTRIBUTE)) return null;
 
     // database is known at compile time: perform additional checks
     if(data != null) {
@@ -137,6 +148,8 @@ public final class IndexInfo {
 
     final ValueAccess va;
     if(search instanceof Value) {
+      // path value index: limit results to the paths of the location path
+      final IntList ids = type != IndexType.TOKEN ? pathIds(data) : null;
       // loop through all items
       final Iter iter = search.iter(cc.qc);
       final TokenIntMap cache = new TokenIntMap();
@@ -152,7 +165,9 @@ public final class IndexInfo {
 
         // only cache distinct tokens that have not been requested before
         if(!cache.contains(token)) {
-          final IndexCosts ic = costs(data, new StringToken(type, token));
+          final IndexCosts ic = ids != null ?
+            IndexCosts.get((int) data.pathValueIndex.count(ids, token)) :
+            costs(data, new StringToken(type, token));
           if(ic == null) return false;
           cache.put(token, ic.results());
           costs = IndexCosts.add(costs, ic);
@@ -174,6 +189,14 @@ public final class IndexInfo {
       }
 
       // create expression for index access
+      if(ids != null) {
+        final PathValueAccess pva = new PathValueAccess(info, tokens, type, ids,
+          data.pathValueIndex.paths(ids), db);
+        if(test == null) pva.exprType.assign(pva.seqType(), size);
+        paths = true;
+        create(pva, true, Util.info(OPTINDEX_X_X, type + " " + PATH, search), info);
+        return true;
+      }
       va = new ValueAccess(info, tokens, type, test, db);
       va.exprType.assign(va.seqType(), size);
     } else {
@@ -185,9 +208,12 @@ public final class IndexInfo {
       if(!search.seqType().type.isStringOrUntyped() || search.has(Flag.CTX, Flag.NDT))
         return false;
 
-      // estimate costs for dynamic query terms
-      costs = enforce() ? IndexCosts.ENFORCE_DYNAMIC :
-        IndexCosts.get(Math.max(1, data.meta.size / 10));
+      // estimate costs for dynamic query terms:
+      // number of compared values, divided by the number of distinct values
+      final Stats stats = type != IndexType.TOKEN ? stats() : null;
+      final int distinct = stats != null ? stats.distinct() : 0;
+      costs = enforce() ? IndexCosts.ENFORCE_DYNAMIC : IndexCosts.get(distinct > 0 ?
+        Math.max(1, stats.count / distinct) : Math.max(1, data.meta.size / 10));
       va = new ValueAccess(info, search, type, test, db);
     }
 
@@ -195,6 +221,35 @@ public final class IndexInfo {
     return true;
   }
 
+  /**
+   * Tries to rewrite a substring search for n-gram index access.
+   * @param input input expression
+   * @param search substring to find
+   * @param function function ({@link Function#CONTAINS}, {@link Function#STARTS_WITH} or
+   *   {@link Function#ENDS_WITH})
+   * @param info input info (can be {@code null})
+   * @return success flag
+   * @throws QueryException query exception
+   */
+  public boolean create(final Expr input, final Expr search, final Function function,
+      final InputInfo info) throws QueryException {
+
+    // n-gram index can only be used for static strings and known databases
+    final Data data = db.data();
+    if(data == null || data.inMemory() || !(search instanceof final Item item) ||
+        !item.type.isStringOrUntyped()) return false;
+
+    final byte[] token = item.string(info);
+    if(token.length < NGramIndex.N || type(input, IndexType.NGRAM) == null) return false;
+
+    costs = costs(data, new StringToken(IndexType.NGRAM, token));
+    if(costs == null) return false;
+
+    create(new SubstringAccess(info, token, function, text, db), true,
+        Util.info(OPTINDEX_X_X, IndexType.NGRAM, item), info);
+    return true;
+  }
+
   /**
    * Creates an index expression with an inverted axis path.
    * @param root new root expression
@@ -217,6 +272,47 @@ public final class IndexInfo {
     optInfo = opt;
   }
 
+  /**
+   * Returns the IDs of the paths whose values will be compared.
+   * @param data data reference (can be {@code null})
+   * @return path IDs, or {@code null} if the path value index cannot be used
+   */
+  private IntList pathIds(final Data data) {
+    if(data == null || nodes == null || data.pathValueIndex == null ||
+        !data.pathValueIndex.available()) return null;
+    final ArrayList<PathNode> pn = pred.nodes(nodes);
+    if(pn == null) return null;
+
+    // retrieve text nodes of elements
+    final ArrayList<PathNode> list = new ArrayList<>();
+    for(final PathNode node : pn) {
+      if(text && node.kind == Data.ELEM) {
+        for(final PathNode child : node.children) {
+          if(child.kind == Data.TEXT) list.add(child);
+        }
+      } else if(node.kind == (text ? Data.TEXT : Data.ATTR)) {
+        list.add(node);
+      } else {
+        return null;
+      }
+    }
+    return data.pathValueIndex.ids(list);
+  }
+
+  /**
+   * Returns the statistics of the compared element or attribute values.
+   * @return statistics, or {@code null} if they are not available
+   */
+  public Stats stats() {
+    final Data data = db.data();
+    if(data == null || !data.meta.uptodate || !data.nspaces.isEmpty() || pred == null) return null;
+
+    final Step step = pred.qname();
+    if(!(step.test instanceof final NameTest nt) || nt.part() != NamePart.LOCAL) return null;
+    final Names names = text ? data.elemNames : data.attrNames;
+    return names.stats(names.index(nt.local));
+  }
+
   /**
    * Computes costs if the specified data reference exists.
    * @param data data reference
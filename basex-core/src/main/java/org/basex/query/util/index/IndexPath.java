@@ -1,5 +1,8 @@
 package org.basex.query.util.index;
 
+import java.util.*;
+
+import org.basex.index.path.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.expr.path.*;
@@ -64,6 +67,11 @@ class IndexPath extends IndexPred {
     return info.text && st.axis == Axis.CHILD && st.test == KindTest.TEXT ? step(s - 1) : st;
   }
 
+  @Override
+  ArrayList<PathNode> nodes(final ArrayList<PathNode> nodes) {
+    return path.pathNodes(nodes, false);
+  }
+
   @Override
   Expr invert(final Expr root) throws QueryException {
     final CompileContext cc = info.cc;
@@ -75,7 +83,9 @@ class IndexPath extends IndexPred {
     final Expr rt = last.exprs.length > 0 ? Filter.get(cc, path.info(), root, last.exprs) : root;
 
     // attribute index request: start inverted path with attribute step
-    if(!info.text && (last.test instanceof NameTest || last.test instanceof UnionTest)) {
+    // (not required if results are limited to the requested paths)
+    if(!info.text && !info.paths &&
+        (last.test instanceof NameTest || last.test instanceof UnionTest)) {
       steps.add(Step.self(cc, rt, last.info(), last.test));
     }
     // add inverted steps in reverse order
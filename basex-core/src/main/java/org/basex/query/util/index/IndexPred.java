@@ -1,5 +1,8 @@
 package org.basex.query.util.index;
 
+import java.util.*;
+
+import org.basex.index.path.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.expr.path.*;
@@ -46,6 +49,13 @@ abstract class IndexPred {
    */
   abstract Step qname();
 
+  /**
+   * Returns the path nodes addressed by the predicate.
+   * @param nodes path nodes of the step
+   * @return path nodes, or {@code null} if nodes cannot be collected
+   */
+  abstract ArrayList<PathNode> nodes(ArrayList<PathNode> nodes);
+
   /**
    * Rewrites an inverted path expression.
    * @param root new root expression
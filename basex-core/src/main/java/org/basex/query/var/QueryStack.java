@@ -38,6 +38,18 @@ public final class QueryStack {
     return s;
   }
 
+  /**
+   * Enters a new stack frame with the bindings of the current stack frame of another stack.
+   * Called if expressions are evaluated in parallel.
+   * @param stack stack to copy the bindings from
+   */
+  public void enterFrame(final QueryStack stack) {
+    final int s = stack.start, size = stack.end - s;
+    enterFrame(size);
+    Array.copy(stack.values, s, size, values, start);
+    Array.copy(stack.vars, s, size, vars, start);
+  }
+
   /**
    * Prepares the current stack frame to be reused.
    * @param size new frame size
@@ -67,6 +79,14 @@ public final class QueryStack {
     if(ns != vl) resize(ns);
   }
 
+  /**
+   * Indicates if all stack frames have been exited.
+   * @return result of check
+   */
+  public boolean isEmpty() {
+    return end == 0;
+  }
+
   /**
    * Checks if tail calls should be eliminated.
    * @param size new frame size
@@ -3,14 +3,18 @@ package org.basex.query.var;
 import static org.basex.query.QueryError.*;
 import static org.basex.query.QueryText.*;
 
+import java.util.*;
+
 import org.basex.query.*;
 import org.basex.query.ann.*;
 import org.basex.query.expr.*;
+import org.basex.query.func.*;
 import org.basex.query.func.fn.*;
 import org.basex.query.scope.*;
 import org.basex.query.util.*;
 import org.basex.query.util.list.*;
 import org.basex.query.value.*;
+import org.basex.query.value.item.*;
 import org.basex.util.*;
 
 /**
@@ -44,6 +48,8 @@ public final class StaticVar extends StaticDecl {
 
   @Override
   public Expr compile(final CompileContext cc) throws QueryException {
+    // reusable query: value of external variable is bound at runtime
+    if(expr == null && value != null) return null;
     if(expr == null) throw VAREMPTY_X.get(info, name());
     if(!compiled) {
       compiled = dontEnter = true;
@@ -62,7 +68,8 @@ public final class StaticVar extends StaticDecl {
       }
 
       // dynamic compilation, eager evaluation: pre-evaluate expressions
-      if(expr instanceof Value || cc.dynamic && !lazy) {
+      // (reusable query: skip expressions that may return different values)
+      if(expr instanceof Value || cc.dynamic && !lazy && !(cc.qc.reusable && parameterized())) {
         try {
           cc.replaceWith(expr, value(cc.qc));
         } catch(final QueryException ex) {
@@ -76,9 +83,9 @@ public final class StaticVar extends StaticDecl {
   @Override
   public Value value(final QueryContext qc) throws QueryException {
     if(dontEnter) throw CIRCVAR_X.get(info, name());
-    if(!lazy && expr == null) throw VAREMPTY_X.get(info, name());
 
     if(value == null) {
+      if(!lazy && expr == null) throw VAREMPTY_X.get(info, name());
       dontEnter = true;
       final QueryFocus focus = pushFocus(qc);
       try {
@@ -110,13 +117,54 @@ public final class StaticVar extends StaticDecl {
    * @throws QueryException query exception
    */
   void bind(final Value val, final QueryContext qc, final boolean cast) throws QueryException {
-    if(external && !compiled) {
+    if(external && (!compiled || qc.reusable)) {
       value = declType == null || declType.instance(val) ? val :
         cast ? declType.cast(val, true, qc, info) : declType.coerce(val, name, qc, null, info);
-      expr = value;
+      // reusable query: value will not be inlined
+      expr = qc.reusable ? null : value;
     }
   }
 
+  /**
+   * Discards a value that has been bound or computed at runtime.
+   */
+  void unbind() {
+    if(!(expr instanceof Value)) value = null;
+  }
+
+  /**
+   * Checks if the variable expression may return different values when the query is reused,
+   * i.e., if it is nondeterministic or depends on external variables.
+   * @return result of check
+   */
+  private boolean parameterized() {
+    if(expr.has(Flag.NDT)) return true;
+
+    final IdentityHashMap<Scope, Scope> scopes = new IdentityHashMap<>();
+    return !expr.accept(new ASTVisitor() {
+      @Override
+      public boolean staticVar(final StaticVar var) {
+        return !var.external && (scopes.put(var, var) != null || var.visit(this));
+      }
+
+      @Override
+      public boolean staticFuncCall(final StaticFuncCall call) {
+        final StaticFunc func = call.func();
+        return func == null || scopes.put(func, func) != null || func.visit(this);
+      }
+
+      @Override
+      public boolean inlineFunc(final Scope scope) {
+        return scope.visit(this);
+      }
+
+      @Override
+      public boolean funcItem(final FuncItem func) {
+        return scopes.put(func, func) != null || func.visit(this);
+      }
+    });
+  }
+
   @Override
   public boolean visit(final ASTVisitor visitor) {
     return expr == null || expr.accept(visitor);
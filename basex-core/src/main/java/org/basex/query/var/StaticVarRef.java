@@ -49,7 +49,8 @@ final class StaticVarRef extends ParseExpr {
 
   @Override
   public Expr optimize(final CompileContext cc) {
-    final Value value = var.value;
+    // reusable query: values of external variables are bound at runtime
+    final Value value = var.expr != null ? var.value : null;
     if(value != null) {
       cc.info(QueryText.OPTINLINE_X, this);
       return value;
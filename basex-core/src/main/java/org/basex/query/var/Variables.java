@@ -118,6 +118,13 @@ public final class Variables extends ExprInfo implements Iterable<StaticVar> {
     }
   }
 
+  /**
+   * Discards the runtime values of all variables before a reusable query is evaluated again.
+   */
+  public void unbind() {
+    for(final VarEntry ve : vars.values()) ve.var.unbind();
+  }
+
   @Override
   public Iterator<StaticVar> iterator() {
     final Iterator<QNm> qnames = vars.iterator();
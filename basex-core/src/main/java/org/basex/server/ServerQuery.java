@@ -118,10 +118,10 @@ public final class ServerQuery extends Job {
       parse();
       qp.register(ctx);
 
+      // the query context may be replaced if a cached query has become invalid
+      qp.optimize();
       final QueryContext qc = qp.qc;
       final QueryInfo qi = qc.info;
-
-      qp.optimize();
       final Iter iter = qp.iter();
 
       // iterate through results
@@ -200,7 +200,7 @@ public final class ServerQuery extends Job {
    */
   private QueryProcessor qp() {
     if(parsed || qp == null) {
-      qp = pushJob(new QueryProcessor(query, ctx));
+      qp = pushJob(new QueryProcessor(query, ctx).reusable());
       parsed = false;
     }
     return qp;
@@ -3,19 +3,20 @@ package org.basex.util;
 import java.util.*;
 import java.util.Map.Entry;
 
-import org.basex.util.list.*;
-
 /**
  * Organizes free slots in heap files.
+ * Adjacent slots are merged when a new slot is added.
  *
  * @author BaseX Team, BSD License
  * @author Christian Gruen
  */
 public final class FreeSlots {
   /** Free slots: byte sizes referencing file offsets. */
-  private final TreeMap<Integer, LongList> free = new TreeMap<>();
-  /** Number of slots. */
-  private int slots;
+  private final TreeMap<Integer, TreeSet<Long>> sizes = new TreeMap<>();
+  /** Free slots: file offsets referencing byte sizes. */
+  private final TreeMap<Long, Integer> offsets = new TreeMap<>();
+  /** Total size of all slots. */
+  private long space;
 
   /**
    * Adds a value for the specified slot size.
@@ -23,7 +24,23 @@ public final class FreeSlots {
    * @param offset file offset
    */
   public void add(final int size, final long offset) {
-    add(size, offset, true);
+    if(offsets.containsKey(offset)) throw Util.notExpected("Slot is already free: %", offset);
+
+    long off = offset;
+    int sz = size;
+    // merge with preceding and subsequent slot
+    final Entry<Long, Integer> prev = offsets.lowerEntry(offset);
+    if(prev != null && prev.getKey() + prev.getValue() == offset) {
+      remove(prev.getValue(), prev.getKey());
+      off = prev.getKey();
+      sz += prev.getValue();
+    }
+    final Entry<Long, Integer> next = offsets.higherEntry(offset);
+    if(next != null && offset + size == next.getKey()) {
+      remove(next.getValue(), next.getKey());
+      sz += next.getValue();
+    }
+    put(sz, off);
   }
 
   /**
@@ -33,87 +50,71 @@ public final class FreeSlots {
    * @return insertion offset
    */
   public long get(final int size, final long offset) {
-    long off = -1;
-    final Entry<Integer, LongList> entry = free.ceilingEntry(size);
-    if(entry != null) {
-      final int slotSize = entry.getKey();
-      if(slotSize < size) throw Util.notExpected("Free slot is too small: % < %", slotSize, size);
+    final Entry<Integer, TreeSet<Long>> entry = sizes.ceilingEntry(size);
+    if(entry == null) return offset;
 
-      final LongList offsets = entry.getValue();
-      off = offsets.pop();
-      slots--;
-      if(offsets.isEmpty()) free.remove(slotSize);
+    final int slotSize = entry.getKey();
+    if(slotSize < size) throw Util.notExpected("Free slot is too small: % < %", slotSize, size);
+    final long off = entry.getValue().first();
+    remove(slotSize, off);
 
-      if(slotSize > size) {
-        if(off + slotSize > offset)
-          throw Util.notExpected("Free slot exceeds file offset: % + % > %", off, slotSize, offset);
-        // chosen entry is smaller than supplied size: add entry for remaining free slot
-        add(slotSize - size, off + size);
-      }
+    if(slotSize > size) {
+      if(off + slotSize > offset)
+        throw Util.notExpected("Free slot exceeds file offset: % + % > %", off, slotSize, offset);
+      // chosen entry is smaller than supplied size: add entry for remaining free slot
+      put(slotSize - size, off + size);
     }
-    return off == -1 ? offset : off;
+    return off;
   }
 
   /**
-   * Adds a value for the specified slot size.
-   * @param size byte size
-   * @param offset file offset
-   * @param opt optimize
+   * Removes a slot that is located at the end of the file.
+   * @param length file length
+   * @return new file length
    */
-  private void add(final int size, final long offset, final boolean opt) {
-    free.computeIfAbsent(size, k -> new LongList()).add(offset);
-    slots++;
-    if(opt) optimize();
+  public long trim(final long length) {
+    final Entry<Long, Integer> last = offsets.lastEntry();
+    if(last == null || last.getKey() + last.getValue() != length) return length;
+    remove(last.getValue(), last.getKey());
+    return last.getKey();
   }
 
   /**
-   * Optimizes the free slot list structure by merging adjacent entries.
-   * Currently, this function is called after every addition of a new slot value.
+   * Returns the total size of all slots.
+   * @return number of bytes
    */
-  private void optimize() {
-    if(free.isEmpty()) return;
-
-    // sort all entries by their offset (use native arrays; faster than TreeMap)
-    final int size = slots;
-    final LongList offList = new LongList(size);
-    final IntList sizeList = new IntList(size);
-    free.forEach((slotSize, list) -> {
-      final int ll = list.size();
-      for(int l = 0; l < ll; l++) {
-        offList.add(list.get(l));
-        sizeList.add(slotSize);
-      }
-    });
-    if(size != offList.size())
-      throw Util.notExpected("Wrong slot count: % vs. %", size, offList.size());
+  public long space() {
+    return space;
+  }
 
-    final long[] offsets = offList.finish();
-    final int[] slotSizes = sizeList.finish();
-    final int[] index = Array.createOrder(offsets, true);
+  /**
+   * Adds a slot without merging it.
+   * @param size byte size
+   * @param offset file offset
+   */
+  private void put(final int size, final long offset) {
+    sizes.computeIfAbsent(size, k -> new TreeSet<>()).add(offset);
+    offsets.put(offset, size);
+    space += size;
+  }
 
-    // rebuild map with merged slots
-    free.clear();
-    slots = 0;
-    long offset = offsets[0];
-    int slotSize = slotSizes[index[0]];
-    for(int c = 1; c < size; c++) {
-      final long o = offsets[c];
-      final int s = slotSizes[index[c]];
-      if(o == offset + slotSize) {
-        slotSize += s;
-      } else {
-        add(slotSize, offset, false);
-        offset = o;
-        slotSize = s;
-      }
-    }
-    add(slotSize, offset, false);
+  /**
+   * Removes a slot.
+   * @param size byte size
+   * @param offset file offset
+   */
+  private void remove(final int size, final long offset) {
+    final TreeSet<Long> set = sizes.get(size);
+    set.remove(offset);
+    if(set.isEmpty()) sizes.remove(size);
+    offsets.remove(offset);
+    space -= size;
   }
 
   @Override
   public String toString() {
-    final StringBuilder sb = new StringBuilder("FREE SLOTS: " + free.size() + '\n');
-    free.forEach((key, value) ->
+    final StringBuilder sb = new StringBuilder("FREE SLOTS: " + sizes.size() + '\n');
+    sizes.forEach((key, value) ->
       sb.append("  ").append(key).append(": ").append(value).append('\n'));
     return sb.toString();
   }
@@ -100,6 +100,18 @@ public final class Prop {
   public static String language = "English";
   /** Debug mode. */
   public static boolean debug;
+  /** Maximum number of database pages kept in main memory. */
+  public static int pagecache = 1 << 14;
+  /** Memory mapping of database files. */
+  public static boolean mmap;
+  /** Delay for writing committed updates to disk (ms). */
+  public static int writedelay;
+  /** Number of threads for building index structures. */
+  public static int indexthreads = 1;
+  /** Memory budget for temporary index structures (bytes). */
+  public static long indexmemory = Runtime.getRuntime().maxMemory() / 4;
+  /** Memory budget for sorting query results (bytes). */
+  public static long sortmemory = Runtime.getRuntime().maxMemory() / 4;
 
   /** Private constructor. */
   private Prop() { }
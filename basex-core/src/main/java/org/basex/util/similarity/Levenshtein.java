@@ -124,37 +124,60 @@ public final class Levenshtein {
     if(dlen > k) return Integer.MAX_VALUE;
 
     // compute distance
-    final byte[][] m = matrix;
-    for(int f = -1, g = -1, t = 0; t < tl; t++) {
-      final int tn = tkn[t];
-      int d = Integer.MAX_VALUE;
-      for(int c = 0; c < cl; c++) {
-        final int cn = cmp[c];
-        int cost = min(m[t][c + 1] + 1, m[t + 1][c] + 1, m[t][c] + (tn == cn ? 0 : 1));
-        if(tn == g && cn == f) cost = m[t][c];
-        m[t + 1][c + 1] = (byte) cost;
-        d = Math.min(d, cost);
-        g = cn;
-      }
-      if(d > k) return Integer.MAX_VALUE;
-      f = tn;
+    for(int t = 0; t < tl; t++) {
+      if(row(tkn, t, cmp) > k) return Integer.MAX_VALUE;
     }
-    final int d = m[tl][cl];
+    final int d = matrix[tl][cl];
     return d <= k ? d : Integer.MAX_VALUE;
   }
 
+  /**
+   * Computes a row of the distance matrix. As a row only depends on the previous rows, the
+   * rows of a common prefix need not be recomputed if a token is compared with sorted tokens.
+   * @param token normalized codepoints of the first token (at least {@code t + 1})
+   * @param t index of the row (offset of the codepoint in the first token)
+   * @param compare normalized codepoints of the second token
+   * @return minimum distance of the row ({@code 0} if the tokens are too long to be compared)
+   */
+  public int row(final int[] token, final int t, final int[] compare) {
+    final int cl = compare.length;
+    if(t >= MAX_LENGTH || cl > MAX_LENGTH) return 0;
+
+    final byte[][] m = matrix;
+    final int tn = token[t], f = t > 0 ? token[t - 1] : -1;
+    int d = Integer.MAX_VALUE;
+    for(int g = t > 0 && cl > 0 ? compare[cl - 1] : -1, c = 0; c < cl; c++) {
+      final int cn = compare[c];
+      int cost = min(m[t][c + 1] + 1, m[t + 1][c] + 1, m[t][c] + (tn == cn ? 0 : 1));
+      if(tn == g && cn == f) cost = m[t][c];
+      m[t + 1][c + 1] = (byte) cost;
+      d = Math.min(d, cost);
+      g = cn;
+    }
+    return d;
+  }
+
   /**
    * Normalizes a token and returns a codepoint array.
    * @param token token
    * @return normalized token
    */
-  private static int[] normalize(final byte[] token) {
+  public static int[] normalize(final byte[] token) {
     final int[] cps = cps(token);
     final int cl = cps.length;
-    for(int c = 0; c < cl; c++) cps[c] = noDiacritics(lc(cps[c]));
+    for(int c = 0; c < cl; c++) cps[c] = normalize(cps[c]);
     return cps;
   }
 
+  /**
+   * Normalizes a codepoint.
+   * @param cp codepoint
+   * @return normalized codepoint
+   */
+  public static int normalize(final int cp) {
+    return noDiacritics(lc(cp));
+  }
+
   /**
    * <p>Computes the full Damerau-Levenshtein distance for two codepoint arrays and returns a
    * double value (0.0 - 1.0), which represents the distance. The value is computed as follows:</p>
@@ -0,0 +1,85 @@
+package org.basex.data;
+
+import static org.basex.query.func.Function.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.io.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests the {@link MainOptions#COMPRESSTEXTS} option.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class CompressTextsTest extends SandboxTest {
+  /** Query for creating a document with texts and attributes spanning several chunks. */
+  private static final String DOC =
+      "<x>{ (1 to 20000) ! <a b='attribute { . }'>text { . }</a> }</x>";
+
+  /**
+   * Finalize test.
+   */
+  @AfterEach public void after() {
+    execute(new DropDB(NAME));
+    set(MainOptions.COMPRESSTEXTS, false);
+  }
+
+  /**
+   * Reads compressed texts and attribute values.
+   */
+  @Test public void read() {
+    create();
+    assertTrue(compressed());
+    query("count(//a)", 20000);
+    query("//a[. = 'text 12345']/@b/string()", "attribute 12345");
+    query("(//a)[last()]/text()", "text 20000");
+    query(_DB_PROPERTY.args(NAME, "compresstexts"), true);
+  }
+
+  /**
+   * Updates a database with compressed texts.
+   */
+  @Test public void update() {
+    create();
+    query("replace value of node (//a)[1] with 'first'");
+    assertFalse(compressed());
+    query("(//a)[1]/text()", "first");
+    query("(//a)[last()]/@b/string()", "attribute 20000");
+    query("insert node <a b='new'>last</a> into /x");
+    query("(//a)[last()] ! (@b || .)", "newlast");
+
+    // compress again
+    execute(new Optimize());
+    assertFalse(compressed());
+    execute(new OptimizeAll());
+    assertTrue(compressed());
+    query("(//a)[1]/text()", "first");
+    query("(//a)[last()] ! (@b || .)", "newlast");
+  }
+
+  /**
+   * Creates a database with compressed texts.
+   */
+  private static void create() {
+    set(MainOptions.COMPRESSTEXTS, true);
+    execute(new CreateDB(NAME));
+    query(_DB_PUT.args(NAME, " " + DOC, "doc.xml"));
+    execute(new OptimizeAll());
+    execute(new Open(NAME));
+  }
+
+  /**
+   * Checks if compressed representations of the heap files exist.
+   * @return result of check
+   */
+  private static boolean compressed() {
+    final MetaData meta = context.data().meta;
+    return new IOFile(meta.dbFile(DataText.DATATXT).path() + 'z').exists() &&
+        new IOFile(meta.dbFile(DataText.DATAATV).path() + 'z').exists();
+  }
+}
@@ -5,6 +5,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import java.io.*;
 import java.lang.reflect.*;
 import java.util.*;
+import java.util.stream.*;
 
 import org.basex.*;
 import org.basex.build.*;
@@ -126,6 +127,83 @@ public final class DiskTableTest extends SandboxTest {
     assertEquals(blocks, tdaBlocks(), "Unexpected number of blocks!");
   }
 
+  /**
+   * Reads and updates entries with memory mapping enabled.
+   * @throws IOException I/O exception
+   */
+  @Test public void mapping() throws IOException {
+    tda.close();
+    Prop.mmap = true;
+    try {
+      tda = new TableDiskAccess(data.meta, false);
+      assertEntrysEqual(0, 0, size);
+      assertTrue(tda.lock(true));
+      tda.delete(1, nodes);
+      tda.flush(true);
+      assertTrue(tda.lock(false));
+      assertEntrysEqual(nodes + 1, 1, size - nodes - 1);
+    } finally {
+      Prop.mmap = false;
+    }
+  }
+
+  /**
+   * Reads entries in parallel with memory mapping enabled.
+   * @throws IOException I/O exception
+   */
+  @Test public void parallelReads() throws IOException {
+    tda.close();
+    Prop.mmap = true;
+    try {
+      tda = new TableDiskAccess(data.meta, false);
+      tda.delete(nodes, 1);
+      tda.flush(true);
+      tda.close();
+      tda = new TableDiskAccess(data.meta, false);
+      final int sz = size - 1;
+      IntStream.range(0, 8).parallel().forEach(t -> {
+        for(int pre = t; pre < sz; pre += 3) {
+          final int p = pre < nodes ? pre : pre + 1;
+          for(int o = 0; o < 1 << IO.NODEPOWER; o++) {
+            assertEquals(storage[(p << IO.NODEPOWER) + o], (byte) tda.read1(pre, o));
+          }
+        }
+      });
+    } finally {
+      Prop.mmap = false;
+    }
+  }
+
+  /**
+   * Reads pages ahead: pages must not be returned if they have been updated in the meantime.
+   * @throws IOException I/O exception
+   */
+  @Test public void readAhead() throws IOException {
+    final String name = NAME + "ReadAhead";
+    final IOContent xml = new IOContent("<x>" + "<a/>".repeat(20000) + "</x>");
+    final Data dt = new DiskBuilder(name, Parser.xmlParser(xml), context.soptions,
+        context.options).build();
+    dt.close();
+    final int pagecache = Prop.pagecache;
+    Prop.pagecache = 0;
+    TableDiskAccess table = null;
+    try {
+      table = new TableDiskAccess(dt.meta, true);
+      // sequential scan: the last pages are read ahead
+      final int sz = dt.meta.size, last = (1 << IO.NODEPOWER) - 1;
+      final int value = table.read1(sz - 1, last);
+      for(int pre = 0; pre < sz; pre++) table.read1(pre, last);
+      // update last page, and evict it by reading other pages in descending order
+      table.write1(sz - 1, last, ~value);
+      for(int pre = 64 * IO.ENTRIES; pre >= 0; pre -= IO.ENTRIES) table.read1(pre, last);
+      assertEquals((byte) ~value, (byte) table.read1(sz - 1, last));
+    } finally {
+      if(table != null) table.close();
+      Prop.pagecache = pagecache;
+      DropDB.drop(name, context.soptions);
+    }
+  }
+
   /**
    * Returns the number of block entries.
    * @return number of entries
@@ -1,11 +1,15 @@
 package org.basex.data;
 
 import static org.basex.query.func.Function.*;
+import static org.junit.jupiter.api.Assertions.*;
 
 import org.basex.*;
+import org.basex.util.*;
 import org.basex.core.*;
 import org.basex.core.cmd.*;
+import org.basex.core.parse.Commands.*;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.*;
 import org.junit.jupiter.params.provider.*;
 
@@ -16,6 +20,21 @@ import org.junit.jupiter.params.provider.*;
  * @author Christian Gruen
  */
 public final class IndexTest extends SandboxTest {
+  /** Query for creating a document with various index entries. */
+  private static final String DOC =
+      "<x>{ (1 to 20000) ! <a b='{ . mod 97 } c{ . mod 5 }'>{ . mod 113 }</a> }</x>";
+  /** Query for computing a checksum of the index structures. */
+  private static final String CHECK = "string-join(("
+      + "sum(" + _INDEX_TEXTS.args(NAME) + " ! (number(.) * @count)), "
+      + "sum(" + _INDEX_ATTRIBUTES.args(NAME) + " ! (string-length(.) * @count)), "
+      + "sum(" + _INDEX_TOKENS.args(NAME) + " ! (string-length(.) * @count)), "
+      + "sum(" + _FT_TOKENS.args(NAME) + " ! @count), "
+      + "sum(" + _DB_TEXT.args(NAME, " ('5', '77')") + " ! " + _DB_NODE_PRE.args(" .") + "), "
+      + "sum(" + _DB_ATTRIBUTE.args(NAME, "3 c3") + " ! " + _DB_NODE_PRE.args(" .") + "), "
+      + "sum(" + _DB_TOKEN.args(NAME, "c4") + " ! " + _DB_NODE_PRE.args(" .") + "), "
+      + "count(" + _FT_SEARCH.args(NAME, "42") + ")"
+      + "), ',')";
+
   /**
    * Finalize test.
    */
@@ -25,6 +44,94 @@ public final class IndexTest extends SandboxTest {
     set(MainOptions.UPDINDEX, false);
     set(MainOptions.AUTOOPTIMIZE, false);
     set(MainOptions.MAINMEM, false);
+    set(MainOptions.FTINDEX, false);
+    Prop.indexthreads = 1;
+  }
+
+  /**
+   * Builds index structures in parallel.
+   * @param updindex incremental indexing
+   */
+  @ParameterizedTest
+  @ValueSource(booleans = {false, true})
+  public void parallel(final boolean updindex) {
+    final String expected = build(updindex);
+    Prop.indexthreads = 8;
+    execute(new OptimizeAll());
+    assertEquals(expected, query(CHECK));
+    execute(new DropIndex(CmdIndex.TEXT));
+    execute(new CreateIndex(CmdIndex.TEXT));
+    assertEquals(expected, query(CHECK));
+    execute(new Optimize());
+    assertEquals(expected, query(CHECK));
+  }
+
+  /**
+   * Builds index structures with a small memory budget.
+   * @param updindex incremental indexing
+   */
+  @ParameterizedTest
+  @ValueSource(booleans = {false, true})
+  public void budget(final boolean updindex) {
+    final String expected = build(updindex);
+    final long budget = Prop.indexmemory;
+    try {
+      Prop.indexmemory = 1 << 12;
+      execute(new OptimizeAll());
+      assertEquals(expected, query(CHECK));
+      Prop.indexthreads = 4;
+      execute(new OptimizeAll());
+      assertEquals(expected, query(CHECK));
+    } finally {
+      Prop.indexmemory = budget;
+    }
+  }
+
+  /**
+   * Creates a database with all index structures and returns a checksum of the indexes.
+   * @param updindex incremental indexing
+   * @return checksum
+   */
+  private static String build(final boolean updindex) {
+    set(MainOptions.UPDINDEX, updindex);
+    set(MainOptions.TOKENINDEX, true);
+    set(MainOptions.FTINDEX, true);
+    execute(new CreateDB(NAME));
+    query(_DB_PUT.args(NAME, " " + DOC, "doc.xml"));
+    execute(new OptimizeAll());
+    return query(CHECK);
+  }
+
+  /**
+   * Updates the index structures incrementally after documents have been added.
+   */
+  @Test public void optimizeAppended() {
+    final String facts = _INDEX_FACETS.args(NAME) + ", " + _INDEX_ELEMENT_NAMES.args(NAME) +
+        ", " + _INDEX_ATTRIBUTE_NAMES.args(NAME);
+    execute(new CreateDB(NAME, "<x><a b='1'>1</a><a b='x'>2</a></x>"));
+    execute(new Add("a.xml", "<x><a b='2'>text</a><c/></x>"));
+    execute(new Close());
+    execute(new Open(NAME));
+    execute(new Add("b.xml", "<y><a>3.5</a></y>"));
+    final MetaData meta = context.data().meta;
+    assertFalse(meta.uptodate);
+    assertEquals(8, meta.appended);
+
+    execute(new Optimize());
+    assertTrue(meta.uptodate);
+    assertEquals(-1, meta.appended);
+    final String result = query(facts);
+    execute(new OptimizeAll());
+    assertEquals(result, query(facts));
+
+    // other updates require a complete rebuild
+    execute(new Add("c.xml", "<z/>"));
+    query("delete node /x/a");
+    assertEquals(-1, context.data().meta.appended);
+    execute(new Optimize());
+    final String deleted = query(_INDEX_FACETS.args(NAME));
+    execute(new OptimizeAll());
+    assertEquals(deleted, query(_INDEX_FACETS.args(NAME)));
   }
 
   /**
@@ -129,6 +236,46 @@ public final class IndexTest extends SandboxTest {
     query(_DB_INFO.args(NAME) + "//tokenindex/text()", true);
   }
 
+  /**
+   * Updates the full-text index incrementally.
+   */
+  @Test public void updindexFulltext() {
+    set(MainOptions.UPDINDEX, true);
+    set(MainOptions.FTINDEX, true);
+    execute(new CreateDB(NAME, "<x><a>quick brown fox</a><a>lazy dog</a></x>"));
+    final String search = _FT_SEARCH.args(NAME, " ('fox', 'cat', 'dog')", " { 'mode': 'any' }");
+    final String fuzzy = "count(" + _DB_GET.args(NAME) + "//a[text() contains text 'blask' "
+        + "using fuzzy])";
+    final String wildcards = "count(" + _DB_GET.args(NAME) + "//a[text() contains text 'ca.*' "
+        + "using wildcards])";
+
+    query("insert node <a>black cat</a> into /x", "");
+    query("replace value of node /x/a[1] with 'slow fox'", "");
+    query("delete node /x/a[2]", "");
+    query(_DB_INFO.args(NAME) + "//ftindex/text()", true);
+    query("string-join(" + search + ", ',')", "slow fox,black cat");
+    query(fuzzy, 1);
+    query(wildcards, 1);
+
+    // changes are persisted
+    execute(new Close());
+    execute(new Open(NAME));
+    query("string-join(" + search + ", ',')", "slow fox,black cat");
+
+    // changes are merged into the index files
+    query("insert node (1 to 30000) ! <a>{ . } cat { . mod 7 } dog</a> into /x", "");
+    query("delete node /x/a[. contains text '3']", "");
+    final String result = query("count(" + search + ')') + ',' + query(fuzzy) + ','
+        + query(wildcards);
+    execute(new Close());
+    execute(new Open(NAME));
+    assertEquals(result, query("count(" + search + ')') + ',' + query(fuzzy) + ','
+        + query(wildcards));
+    execute(new OptimizeAll());
+    assertEquals(result, query("count(" + search + ')') + ',' + query(fuzzy) + ','
+        + query(wildcards));
+  }
+
   /**
    * Test.
    * @param mainmem main memory flag.
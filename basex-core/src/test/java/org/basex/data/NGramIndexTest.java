@@ -0,0 +1,110 @@
+package org.basex.data;
+
+import static org.basex.query.func.Function.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.query.expr.index.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests the {@link MainOptions#NGRAMINDEX} option.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class NGramIndexTest extends SandboxTest {
+  /** Query for creating a document with texts and attributes. */
+  private static final String DOC = "<x>{ (1 to $n) ! <a b='id{ . }x'>text{ . }end</a> }</x>";
+
+  /**
+   * Finalize test.
+   */
+  @AfterEach public void after() {
+    execute(new DropDB(NAME));
+    set(MainOptions.NGRAMINDEX, false);
+    set(MainOptions.SPLITSIZE, 0);
+  }
+
+  /**
+   * Rewrites substring searches to n-gram index access.
+   */
+  @Test public void query() {
+    create(true);
+    check("count(//a[contains(text(), 't99')])", 11, exists(SubstringAccess.class));
+    check("count(//a[contains(., '999e')])", 1, exists(SubstringAccess.class));
+    check("count(//a[starts-with(@b, 'id12')])", 11, exists(SubstringAccess.class));
+    check("count(//a[ends-with(@b, '00x')])", 10, exists(SubstringAccess.class));
+    check("count(//a[matches(text(), 't10')])", 12, exists(SubstringAccess.class));
+    check("count(//a[contains(text(), 'xyz')])", 0, empty(SubstringAccess.class));
+    check("//a[contains(@b, 'd500x')]/text() ! string()", "text500end",
+        exists(SubstringAccess.class));
+    query(_DB_PROPERTY.args(NAME, "ngramindex"), true);
+
+    // short substrings, patterns and collations are not rewritten
+    check("count(//a[contains(text(), '99')])", 19, empty(SubstringAccess.class));
+    check("count(//a[matches(text(), 't1.0')])", 11, empty(SubstringAccess.class));
+    check("count(//a[contains(text(), 't99', "
+        + "'http://www.w3.org/2005/xpath-functions/collation/codepoint')])", 11,
+        empty(SubstringAccess.class));
+  }
+
+  /**
+   * Invalidates the index after updates and rebuilds it.
+   */
+  @Test public void update() {
+    create(true);
+    query("delete node (//a)[1]");
+    check("count(//a[contains(text(), 't99')])", 11, empty(SubstringAccess.class));
+    query(_DB_PROPERTY.args(NAME, "ngramindex"), false);
+    execute(new Optimize());
+    check("count(//a[contains(text(), 't99')])", 11, exists(SubstringAccess.class));
+
+    // drop index
+    query(_DB_OPTIMIZE.args(NAME, false, " { 'ngramindex': false() }"));
+    check("count(//a[contains(text(), 't99')])", 11, empty(SubstringAccess.class));
+    query(_DB_PROPERTY.args(NAME, "ngramindex"), false);
+    execute(new CreateIndex("ngram"));
+    check("count(//a[contains(text(), 't99')])", 11, exists(SubstringAccess.class));
+  }
+
+  /**
+   * Checks that results are identical with and without index.
+   */
+  @Test public void compare() {
+    final String query = "(//@b[contains(., 'd12')], //text()[ends-with(., '7end')]) ! "
+        + _DB_NODE_PRE.args(" .") + " => sum()";
+    create(false, 20000);
+    final String expected = query(query);
+    create(true, 20000);
+    check(query, expected, exists(SubstringAccess.class));
+
+    // merge partial index structures
+    set(MainOptions.SPLITSIZE, 1);
+    create(true, 20000);
+    check(query, expected, exists(SubstringAccess.class));
+  }
+
+  /**
+   * Creates a database.
+   * @param index create n-gram index
+   */
+  private static void create(final boolean index) {
+    create(index, 1000);
+  }
+
+  /**
+   * Creates a database.
+   * @param index create n-gram index
+   * @param n number of elements
+   */
+  private static void create(final boolean index, final int n) {
+    set(MainOptions.NGRAMINDEX, index);
+    execute(new CreateDB(NAME));
+    query("let $n := " + n + " return " + _DB_PUT.args(NAME, " " + DOC, "doc.xml"));
+    execute(new Optimize());
+    execute(new Open(NAME));
+  }
+}
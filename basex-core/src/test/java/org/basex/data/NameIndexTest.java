@@ -0,0 +1,98 @@
+package org.basex.data;
+
+import static org.basex.query.func.Function.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.query.expr.index.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests the {@link MainOptions#NAMEINDEX} option.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class NameIndexTest extends SandboxTest {
+  /** Query for creating a document with nested elements and attributes. */
+  private static final String DOC = "<x>{ (1 to 1000) ! <a b='{ . }'>{ <c><a d='{ . }'/></c>, "
+      + "<e>{ . }</e> }</a> }</x>";
+
+  /**
+   * Finalize test.
+   */
+  @AfterEach public void after() {
+    execute(new DropDB(NAME));
+    set(MainOptions.NAMEINDEX, false);
+  }
+
+  /**
+   * Rewrites descendant steps to name index access.
+   */
+  @Test public void query() {
+    create(true);
+    check("count(//a)", 2000, exists(NameAccess.class));
+    check("count(//*:a)", 2000, exists(NameAccess.class));
+    check("(//@b)[last()] ! string()", 1000, exists(NameAccess.class));
+    check("count(//c/a)", 1000, exists(NameAccess.class));
+    check("//a[ends-with(@d, '500')] ! name(..)", "c", exists(NameAccess.class));
+    check("(//a)[2]/@d/string()", 1, exists(NameAccess.class));
+    check("sum(//@b)", 500500, exists(NameAccess.class));
+    check("count(//unknown)", 0, empty(NameAccess.class));
+    query(_DB_PROPERTY.args(NAME, "nameindex"), true);
+
+    // positional predicates are not rewritten
+    check("count(/descendant::a[1])", 1, empty(NameAccess.class));
+  }
+
+  /**
+   * Updates the name index.
+   */
+  @Test public void update() {
+    create(true);
+    query("delete node (//a)[1]");
+    check("count(//a)", 1998, empty(NameAccess.class));
+    execute(new Optimize());
+    check("count(//a)", 1998, exists(NameAccess.class));
+
+    // incremental update
+    query(_DB_ADD.args(NAME, " <a><a/></a>", "doc2.xml"));
+    check("count(//a)", 2000, empty(NameAccess.class));
+    execute(new Optimize());
+    check("count(//a)", 2000, exists(NameAccess.class));
+    check("count(//a[not(*)])", 1000, exists(NameAccess.class));
+
+    // drop index
+    query(_DB_OPTIMIZE.args(NAME, false, " { 'nameindex': false() }"));
+    check("count(//a)", 2000, empty(NameAccess.class));
+    assertFalse(context.data().meta.dbFile(DataText.DATANAM).exists());
+    query(_DB_OPTIMIZE.args(NAME, false, " { 'nameindex': true() }"));
+    check("count(//a)", 2000, exists(NameAccess.class));
+  }
+
+  /**
+   * Checks that results are identical with and without index.
+   */
+  @Test public void compare() {
+    final String query = "(//a ! " + _DB_NODE_PRE.args(" .") + ") => sum()";
+    create(false);
+    final String expected = query(query);
+    create(true);
+    check(query, expected, exists(NameAccess.class));
+  }
+
+  /**
+   * Creates a database.
+   * @param index create name index
+   */
+  private static void create(final boolean index) {
+    set(MainOptions.NAMEINDEX, index);
+    execute(new CreateDB(NAME));
+    query(_DB_PUT.args(NAME, " " + DOC, "doc.xml"));
+    execute(new Optimize());
+    execute(new Open(NAME));
+  }
+}
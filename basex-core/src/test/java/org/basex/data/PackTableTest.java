@@ -0,0 +1,98 @@
+package org.basex.data;
+
+import static org.basex.query.func.Function.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.io.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests the {@link MainOptions#PACKTABLE} option.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class PackTableTest extends SandboxTest {
+  /** Query for creating a document with various node kinds spanning several pages. */
+  private static final String DOC = "<x>{ (1 to 5000) ! <a b='{ . }'>{ <!--c-->, <?pi { . }?>, "
+      + "element { QName('n' || . mod 3, 'n:b') } { . }, 'text' } </a> }</x>";
+  /** Query for computing a checksum of the database nodes. */
+  private static final String CHECK = "sum(//node() ! (" + _DB_NODE_PRE.args(" .") + " * "
+      + "(string-length(name()) + count(@*) + count(ancestor::*) + count(node()) + 1)))";
+
+  /**
+   * Finalize test.
+   */
+  @AfterEach public void after() {
+    execute(new DropDB(NAME));
+    set(MainOptions.PACKTABLE, false);
+  }
+
+  /**
+   * Reads a packed table.
+   */
+  @Test public void read() {
+    final String expected = create(false);
+    assertFalse(packed());
+    final long size = table().length();
+
+    assertEquals(expected, create(true));
+    assertTrue(packed());
+    assertTrue(table().length() == 0);
+    assertTrue(new IOFile(table().path() + 'p').length() < size);
+    query("count(//a)", 5000);
+    query("(//a)[last()]/@b/string()", 5000);
+    query("(//*:b)[last()] ! namespace-uri()", "n2");
+    query(_DB_PROPERTY.args(NAME, "packtable"), true);
+  }
+
+  /**
+   * Updates a packed table.
+   */
+  @Test public void update() {
+    final String expected = create(true);
+    query("delete node (//a)[1]");
+    assertFalse(packed());
+    query("insert node (//a)[1] as first into /x");
+    query(CHECK, expected);
+
+    // pack again
+    execute(new OptimizeAll());
+    assertTrue(packed());
+    query(CHECK, expected);
+  }
+
+  /**
+   * Creates a database and returns the checksum of its nodes.
+   * @param pack pack table
+   * @return checksum
+   */
+  private static String create(final boolean pack) {
+    set(MainOptions.PACKTABLE, pack);
+    execute(new CreateDB(NAME));
+    query(_DB_PUT.args(NAME, " " + DOC, "doc.xml"));
+    execute(new OptimizeAll());
+    execute(new Open(NAME));
+    return query(CHECK);
+  }
+
+  /**
+   * Checks if a packed representation of the table exists.
+   * @return result of check
+   */
+  private static boolean packed() {
+    return new IOFile(table().path() + "pi").exists();
+  }
+
+  /**
+   * Returns the table file.
+   * @return table file
+   */
+  private static IOFile table() {
+    return context.data().meta.dbFile(DataText.DATATBL);
+  }
+}
@@ -0,0 +1,95 @@
+package org.basex.data;
+
+import static org.basex.query.func.Function.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.query.expr.index.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests the {@link MainOptions#PATHVALUEINDEX} option.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class PathValueIndexTest extends SandboxTest {
+  /** Query for creating a document with identical names on different paths. */
+  private static final String DOC = "<x>{ (1 to 1000) ! <order id='{ . }'>"
+      + "<customer id='{ . mod 10 }'><name>{ . mod 10 }</name></customer>"
+      + "<item><name>{ . }</name></item></order> }</x>";
+
+  /**
+   * Finalize test.
+   */
+  @AfterEach public void after() {
+    execute(new DropDB(NAME));
+    set(MainOptions.PATHVALUEINDEX, false);
+  }
+
+  /**
+   * Rewrites comparisons on known paths to path value index access.
+   */
+  @Test public void query() {
+    create(true);
+    // ancestors need not be verified
+    check("count(//order/customer[@id = '5'])", 100,
+        exists(PathValueAccess.class), empty("*[@axis = ('self', 'ancestor')]"));
+    check("sum(//customer/@id[. = '5'])", 500, exists(PathValueAccess.class));
+    check("count(//order[customer/@id = '5'])", 100, exists(PathValueAccess.class));
+    check("count(//customer[name = '5'])", 100, exists(PathValueAccess.class));
+    check("count(//item[name = ('5', '6')])", 2, exists(PathValueAccess.class));
+    check("//order[@id = '7']/item/name/text() ! string()", 7, exists(PathValueAccess.class));
+    check("count(//order[item/name = '1000'])", 1, exists(PathValueAccess.class));
+    query(_DB_PROPERTY.args(NAME, "pathvalueindex"), true);
+
+    // unknown paths
+    check("count(//order[customer/@id = '10'])", 0, empty(PathValueAccess.class));
+    check("count(//x/customer[@id = '5'])", 0, empty(PathValueAccess.class));
+    // predicates of preceding steps are retained
+    check("count(//order[@id < 500]/customer[@id = '5'])", 50, exists(PathValueAccess.class));
+  }
+
+  /**
+   * Invalidates the index after updates and rebuilds it.
+   */
+  @Test public void update() {
+    create(true);
+    query("delete node (//order)[1]");
+    check("count(//order/customer[@id = '1'])", 99, empty(PathValueAccess.class));
+    execute(new Optimize());
+    check("count(//order/customer[@id = '1'])", 99, exists(PathValueAccess.class));
+
+    // drop index
+    query(_DB_OPTIMIZE.args(NAME, false, " { 'pathvalueindex': false() }"));
+    check("count(//order/customer[@id = '1'])", 99, empty(PathValueAccess.class));
+    query(_DB_OPTIMIZE.args(NAME, false, " { 'pathvalueindex': true() }"));
+    check("count(//order/customer[@id = '1'])", 99, exists(PathValueAccess.class));
+  }
+
+  /**
+   * Checks that results are identical with and without index.
+   */
+  @Test public void compare() {
+    final String query = "(//name[. = ('3', '30')], //@id[. = '3']) ! "
+        + _DB_NODE_PRE.args(" .") + " => sum()";
+    create(false);
+    final String expected = query(query);
+    create(true);
+    check(query, expected, exists(PathValueAccess.class));
+  }
+
+  /**
+   * Creates a database.
+   * @param index create path value index
+   */
+  private static void create(final boolean index) {
+    set(MainOptions.PATHVALUEINDEX, index);
+    execute(new CreateDB(NAME));
+    query(_DB_PUT.args(NAME, " " + DOC, "doc.xml"));
+    execute(new Optimize());
+    execute(new Open(NAME));
+  }
+}
@@ -3,9 +3,13 @@ package org.basex.data;
 import static org.basex.query.func.Function.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.*;
+
 import org.basex.*;
 import org.basex.core.*;
 import org.basex.core.cmd.*;
+import org.basex.io.*;
+import org.basex.util.*;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.Test;
 
@@ -73,6 +77,57 @@ public final class StoreTest extends SandboxTest {
     assertEquals(size, context.data().meta.dbFile(DataText.DATATXT).length());
   }
 
+  /**
+   * Reuses the space of deleted texts and attribute values.
+   */
+  @Test public void reuse() {
+    final String insert = "insert node (1 to 1000)[. mod 2 = $m] ! "
+        + "<A b='value { . }'>text { . }</A> into /X";
+    execute(new CreateDB(NAME, "<X/>"));
+    for(int m = 0; m < 2; m++) query("declare variable $m := " + m + "; " + insert);
+    execute(new Flush());
+    final MetaData meta = context.data().meta;
+    final long texts = meta.dbFile(DataText.DATATXT).length();
+    final long values = meta.dbFile(DataText.DATAATV).length();
+
+    for(int n = 0; n < 10; n++) {
+      query("delete node //A[@b ! number(substring-after(., ' ')) mod 2 = 0]");
+      query("declare variable $m := 0; " + insert);
+    }
+    execute(new Flush());
+    assertEquals(texts, meta.dbFile(DataText.DATATXT).length());
+    assertEquals(values, meta.dbFile(DataText.DATAATV).length());
+    query("count(//A)", 1000);
+    query("sum(//A ! number(substring-after(@b, ' ')))", 500500);
+  }
+
+  /**
+   * Compacts the heap files.
+   */
+  @Test public void compact() {
+    execute(new CreateDB(NAME, "<X/>"));
+    query("insert node (1 to 10000) ! <A>text { . }</A> into /X");
+    execute(new Flush());
+    final IOFile texts = context.data().meta.dbFile(DataText.DATATXT);
+    final long size = texts.length();
+
+    // heap file is compacted automatically if most of its space is unused
+    query("delete node //A[number(substring-after(., ' ')) mod 4 != 0]");
+    execute(new Flush());
+    assertTrue(texts.length() < size / 2);
+    query("count(//A)", 2500);
+    query("(//A)[1] || (//A)[last()]", "text 4text 10000");
+
+    // compaction via optimize
+    query("delete node //A[number(substring-after(., ' ')) mod 8 != 0]");
+    execute(new Flush());
+    assertTrue(texts.length() > size / 8);
+    execute(new Optimize());
+    execute(new Flush());
+    assertTrue(texts.length() < size / 4);
+    query("(//A)[1] || (//A)[last()]", "text 8text 10000");
+  }
+
   /**
    * Tests the {@link MainOptions#UPDINDEX} and {@link MainOptions#AUTOFLUSH} flags in combination.
    * Reaction on a bug (incremental value index was not correctly closed)
@@ -98,6 +153,71 @@ public final class StoreTest extends SandboxTest {
     }
   }
 
+  /**
+   * Writes updates of several transactions in a single pass.
+   * @throws InterruptedException interrupted exception
+   */
+  @Test public void writeBehind() throws InterruptedException {
+    Prop.writedelay = 200;
+    set(MainOptions.AUTOFLUSH, true);
+    try {
+      execute(new CreateDB(NAME, "<X/>"));
+      final IOFile upd = context.data().meta.updateFile();
+      for(int i = 0; i < 10; i++) query("insert node <A>" + i + "</A> into /X");
+      assertTrue(upd.exists());
+      query("count(//A)", 10);
+
+      // wait until updates have been written
+      for(int i = 0; i < 100 && upd.exists(); i++) Thread.sleep(50);
+      assertFalse(upd.exists());
+      query("sum(//A)", 45);
+
+      // write pending updates when database is closed
+      query("delete node //A[1]");
+      assertTrue(upd.exists());
+      execute(new Close());
+      assertFalse(upd.exists());
+      execute(new Open(NAME));
+      query("sum(//A)", 45);
+    } finally {
+      Prop.writedelay = 0;
+      set(MainOptions.AUTOFLUSH, false);
+    }
+  }
+
+  /**
+   * Recovers logged updates that have not been written to the database files.
+   * @throws IOException I/O exception
+   */
+  @Test public void writeLog() throws IOException {
+    final String copy = NAME + "Copy";
+    set(MainOptions.WRITELOG, true);
+    try {
+      execute(new CreateDB(NAME, "<X/>"));
+      for(int i = 0; i < 10; i++) query("insert node <A>" + i + "</A> into /X");
+      query("replace value of node //A[1] with 'first'");
+      query("rename node //A[2] as 'B'");
+      query(_DB_ADD.args(NAME, " <Y>{ (1 to 1000) ! <C>{ . }</C> }</Y>", "y.xml"));
+      final IOFile log = context.data().meta.dbFile(DataText.DATALOG);
+      assertTrue(log.exists());
+
+      // simulate crash: copy current database files
+      final IOFile source = context.soptions.dbPath(NAME), target = context.soptions.dbPath(copy);
+      for(final IOFile file : source.children()) file.copyTo(new IOFile(target, file.name()));
+      execute(new Close());
+      assertFalse(log.exists());
+
+      execute(new Open(copy));
+      assertFalse(context.data().meta.dbFile(DataText.DATALOG).exists());
+      query("//A[1] || count(//B) || count(//A)", "first19");
+      query("sum(//C)", 500500);
+      assertTrue(execute(new Inspect()).contains("No inconsistencies found."));
+    } finally {
+      set(MainOptions.WRITELOG, false);
+      execute(new DropDB(copy));
+    }
+  }
+
   /**
    * Add, delete and replace documents in an empty database.
    */
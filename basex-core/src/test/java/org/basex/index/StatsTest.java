@@ -0,0 +1,98 @@
+package org.basex.index;
+
+import static org.basex.query.func.Function.*;
+import static org.basex.util.Token.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.basex.*;
+import org.basex.core.cmd.*;
+import org.basex.data.*;
+import org.basex.index.name.*;
+import org.basex.index.stats.*;
+import org.basex.query.expr.index.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the selectivity estimates of the index statistics.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class StatsTest extends SandboxTest {
+  /** Query for creating a document with distinct values. */
+  private static final String DOC = "<x>{ (1 to 1000) ! <a b='{ . mod 10 }'>v{ . }</a> }</x>";
+
+  /**
+   * Finalize test.
+   */
+  @AfterEach public void after() {
+    execute(new DropDB(NAME));
+  }
+
+  /**
+   * Estimates the number of distinct values.
+   */
+  @Test public void distinct() {
+    create();
+    final int distinct = stats(true, "a").distinct();
+    assertTrue(distinct > 900 && distinct < 1100, "Estimate: " + distinct);
+    // category values are counted exactly
+    assertEquals(10, stats(false, "b").distinct());
+
+    // estimates are stored in the database
+    execute(new Close());
+    execute(new Open(NAME));
+    assertEquals(distinct, stats(true, "a").distinct());
+  }
+
+  /**
+   * Estimates the number of values in string ranges.
+   */
+  @Test public void histogram() {
+    create();
+    final Stats stats = stats(true, "a");
+    assertEquals(1000, stats.estimate(token("v"), token("w")));
+    final int range = stats.estimate(token("v1"), token("v2"));
+    assertTrue(range > 0 && range < 500, "Estimate: " + range);
+    // numeric values are estimated by the index
+    assertEquals(-1, stats(false, "b").estimate(token("1"), token("2")));
+
+    // estimates are recomputed by optimizations
+    query("insert node <a b='x'/> into /x");
+    execute(new Optimize());
+    assertEquals(11, stats(false, "b").distinct());
+  }
+
+  /**
+   * Uses the estimates for choosing an index.
+   */
+  @Test public void query() {
+    create();
+    check("count(//a[text() >= 'v1' and text() < 'v2'])", 112, exists(StringRangeAccess.class));
+    check("count(//a[text() = 'v10'][@b = '0'])", 1,
+        exists(ValueAccess.class), empty("ValueAccess[@type = 'ATTRIBUTE']"));
+  }
+
+  /**
+   * Returns the statistics of an element or attribute.
+   * @param text element or attribute flag
+   * @param name name
+   * @return statistics
+   */
+  private static Stats stats(final boolean text, final String name) {
+    final Data data = context.data();
+    final Names names = text ? data.elemNames : data.attrNames;
+    return names.stats(names.index(token(name)));
+  }
+
+  /**
+   * Creates a database.
+   */
+  private static void create() {
+    execute(new CreateDB(NAME));
+    query(_DB_PUT.args(NAME, " " + DOC, "doc.xml"));
+    execute(new Optimize());
+    execute(new Open(NAME));
+  }
+}
@@ -117,6 +117,54 @@ public final class ValueIndexTest extends SandboxTest {
     valueIndexTest(IndexType.TOKEN, tokens, paramSet);
   }
 
+  /**
+   * Tests numeric range queries.
+   * @param paramSet test parameters
+   */
+  @ParameterizedTest
+  @MethodSource("generateParams")
+  public void numericRangeTest(final Collection<Set> paramSet) {
+    for(final Set option : paramSet) execute(option);
+    final StringBuilder sb = new StringBuilder("<x>");
+    for(int i = 1; i <= 100; i++) sb.append("<a>").append(i % 50).append("</a>");
+    execute(new CreateDB(NAME, sb.append("<a>x</a><a>1e1</a><a>-2.5</a></x>").toString()));
+    // range queries are only supported by disk-based indexes
+    if(context.data().inMemory()) return;
+
+    rangeTest(0, 9, 20);
+    rangeTest(10, 10, 3);
+    rangeTest(-3, 0, 3);
+    rangeTest(49, 1000, 2);
+    rangeTest(50, 1000, 0);
+
+    // update index
+    query("insert node <a>10.0</a> into /x");
+    query("delete node //a[. = '-2.5']");
+    if(!context.data().meta.textindex) return;
+    rangeTest(10, 10, 4);
+    rangeTest(-3, 0, 2);
+  }
+
+  /**
+   * Performs a numeric range query and checks the number of results and the index costs.
+   * @param min minimum value
+   * @param max maximum value
+   * @param expected expected number of results
+   */
+  private static void rangeTest(final double min, final double max, final int expected) {
+    final NumericRange range = new NumericRange(IndexType.TEXT, min, max);
+    final ValueIndex index = (ValueIndex) context.data().index(IndexType.TEXT);
+    final IndexIterator it = index.iter(range);
+    int count = 0;
+    while(it.more()) {
+      final double value = toDouble(context.data().text(it.pre(), true));
+      assertTrue(value >= min && value <= max, "Value out of range: " + value);
+      count++;
+    }
+    assertEquals(expected, count);
+    assertEquals(expected, index.costs(range).results());
+  }
+
   /**
    * Tests the index: fetch results for different tokens, compare whether the right node was
    * returned and verify against the expected result size.
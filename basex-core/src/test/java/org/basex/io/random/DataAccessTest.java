@@ -312,10 +312,89 @@ public final class DataAccessTest {
     assertContent(pos, CINT1_BIN);
   }
 
-  /** Test method for {@link DataAccess#free(long, int)}. */
-  @Disabled
+  /**
+   * Writes and reads more blocks than the page cache can hold, using a scan-like and a
+   * random access pattern.
+   * @throws IOException I/O exception
+   */
+  @Test public void testPageCache() throws IOException {
+    final int pagecache = Prop.pagecache, blocks = 1 << 8;
+    Prop.pagecache = 1 << 5;
+    try {
+      for(int b = 0; b < blocks; b++) da.write4(b * (long) IO.BLOCKSIZE, b);
+      final Random rnd = new Random(0);
+      for(int i = 0; i < blocks << 2; i++) {
+        final int b = i % 3 == 0 ? rnd.nextInt(8) : rnd.nextInt(blocks);
+        assertEquals(b, da.read4(b * (long) IO.BLOCKSIZE));
+      }
+      da.flush();
+      assertContent((blocks - 1) * (long) IO.BLOCKSIZE, intToByteArray(blocks - 1));
+      assertTrue(da.info().contains(" hits"));
+    } finally {
+      Prop.pagecache = pagecache;
+    }
+  }
+
+  /**
+   * Reads and writes values with memory mapping enabled.
+   * @throws IOException I/O exception
+   */
+  @Test public void testMapping() throws IOException {
+    da.close();
+    Prop.mmap = true;
+    try {
+      da = new DataAccess(file);
+      assertEquals(STR, Token.string(da.readToken(BLOCK_BOUNDARY_POS)));
+      assertEquals(LONG, da.read5(STR_BIN.length + BYTE_BIN.length));
+
+      da.writeToken(da.length(), Token.token(STR_LONG));
+      da.flush();
+      assertEquals(STR_LONG, Token.string(da.readToken(BLOCK_BOUNDARY_POS + STR_BIN.length)));
+      assertEquals(STR, Token.string(da.readToken(0L)));
+    } finally {
+      Prop.mmap = false;
+    }
+  }
+
+  /** Test method for {@link DataAccess#free(long, FreeSlots)}. */
   @Test public void testFree() {
-    fail("Not yet implemented");
+    final FreeSlots slots = new FreeSlots();
+    final byte[] token = Token.token(STR);
+    final long length = da.length();
+    final long a = da.writeToken(token, slots), b = da.writeToken(token, slots);
+    final long c = da.writeToken(token, slots);
+    assertEquals(length, a);
+
+    // free space is reused
+    da.free(b, slots);
+    assertEquals(b, da.writeToken(Token.token("abc"), slots));
+    assertEquals(b + 4, da.writeToken(Token.token("ab"), slots));
+    assertEquals(c + STR.length() + 1, da.writeToken(token, slots));
+
+    // last entries are discarded
+    da.free(b, slots);
+    da.free(b + 4, slots);
+    da.free(c + STR.length() + 1, slots);
+    assertEquals(c + STR.length() + 1, da.length());
+    da.free(c, slots);
+    assertEquals(b, da.length());
+    assertEquals(STR, Token.string(da.readToken(a)));
+  }
+
+  /** Test method for {@link DataAccess#compact(long[])}. */
+  @Test public void testCompact() {
+    final FreeSlots slots = new FreeSlots();
+    final long a = da.writeToken(Token.token("a"), slots);
+    final long b = da.writeToken(Token.token("b"), slots);
+    final long c = da.writeToken(Token.token("c"), slots);
+    da.free(b, slots);
+
+    // all other entries are discarded
+    final long[] offsets = da.compact(new long[] { a, c });
+    assertArrayEquals(new long[] { 0, 2 }, offsets);
+    assertEquals(4, da.length());
+    assertEquals("a", Token.string(da.readToken(0)));
+    assertEquals("c", Token.string(da.readToken(2)));
   }
 
   /**
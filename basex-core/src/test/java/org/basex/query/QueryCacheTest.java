@@ -0,0 +1,161 @@
+package org.basex.query;
+
+import static org.basex.query.func.Function.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.io.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests the {@link StaticOptions#QUERYCACHE} option.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class QueryCacheTest extends SandboxTest {
+  /**
+   * Initializes a test.
+   */
+  @BeforeEach public void before() {
+    context.soptions.set(StaticOptions.QUERYCACHE, 10);
+  }
+
+  /**
+   * Finalizes a test.
+   */
+  @AfterEach public void after() {
+    context.queries.invalidate();
+    context.soptions.set(StaticOptions.QUERYCACHE, 0);
+    execute(new DropDB(NAME));
+  }
+
+  /**
+   * Reuses a compiled query with different bindings.
+   * @throws Exception exception
+   */
+  @Test public void bindings() throws Exception {
+    final String query = "declare variable $x external; declare variable $y := $x + 1; $y * 2";
+    final QueryContext qc = run(query, 1, "4");
+    assertSame(qc, run(query, 2, "6"));
+    assertSame(qc, run(query, 10, "22"));
+
+    // the values of external variables are not inlined
+    final String cast = "declare variable $x as xs:integer external; $x";
+    assertSame(run(cast, "1", "1"), run(cast, 2, "2"));
+    assertThrows(QueryException.class, () -> run(cast, "x", ""));
+
+    // different query strings
+    assertNotSame(qc, run(query + ' ', 1, "4"));
+  }
+
+  /**
+   * Discards compiled queries after updates.
+   * @throws Exception exception
+   */
+  @Test public void update() throws Exception {
+    execute(new CreateDB(NAME, "<x><a>1</a></x>"));
+    execute(new Close());
+    final String query = "declare variable $x external; " + _DB_GET.args(NAME) + "//a[. = $x]";
+    final QueryContext qc = run(query, 2, "");
+    assertSame(qc, run(query, 1, "<a>1</a>"));
+
+    query(_DB_ADD.args(NAME, " <a>2</a>", "a.xml"));
+    final QueryContext qc2 = run(query, 2, "<a>2</a>");
+    assertNotSame(qc, qc2);
+    assertSame(qc2, run(query, 2, "<a>2</a>"));
+  }
+
+  /**
+   * Parses and compiles a reused query again if the cache has been invalidated before the query
+   * is evaluated.
+   * @throws Exception exception
+   */
+  @Test public void invalidated() throws Exception {
+    execute(new CreateDB(NAME, "<x><a>1</a></x>"));
+    execute(new Close());
+    final String query = "declare variable $x external; " + _DB_GET.args(NAME) + "//a[. = $x]";
+    final QueryContext qc = run(query, 2, "");
+
+    try(QueryProcessor qp = new QueryProcessor(query, context).reusable()) {
+      qp.variable("x", 2);
+      qp.parse();
+      assertSame(qc, qp.qc);
+      // update database after the cached query has been retrieved
+      query(_DB_ADD.args(NAME, " <a>2</a>", "a.xml"));
+      assertEquals("<a>2</a>", qp.value().serialize().toString());
+      assertNotSame(qc, qp.qc);
+    }
+    assertNotSame(qc, run(query, 2, "<a>2</a>"));
+  }
+
+  /**
+   * Discards compiled queries if imported modules have been changed.
+   * @throws Exception exception
+   */
+  @Test public void module() throws Exception {
+    final IOFile file = new IOFile(sandbox(), "m.xqm");
+    write(file, "module namespace m='m'; declare function m:f() { 1 };");
+    final String query = "import module namespace m='m' at '" + file.url() + "'; m:f()";
+    final QueryContext qc = run(query, null, "1");
+    assertSame(qc, run(query, null, "1"));
+
+    write(file, "module namespace m='m'; declare function m:f() { 2 };");
+    file.file().setLastModified(file.timeStamp() + 2000);
+    assertNotSame(qc, run(query, null, "2"));
+  }
+
+  /**
+   * Does not cache queries that depend on the dynamic context.
+   * @throws Exception exception
+   */
+  @Test public void notCached() throws Exception {
+    // updating query
+    final String update = "declare variable $x external; delete node <a/>";
+    assertNotSame(run(update, 1, ""), run(update, 1, ""));
+    // declared options
+    final String option = "declare option db:stripws 'true'; 1";
+    assertNotSame(run(option, null, "1"), run(option, null, "1"));
+    // current date
+    final String date = "current-date() instance of xs:date";
+    assertNotSame(run(date, null, "true"), run(date, null, "true"));
+
+    // opened database
+    execute(new CreateDB(NAME, "<x/>"));
+    assertNotSame(run("count(.)", null, "1"), run("count(.)", null, "1"));
+    execute(new Close());
+
+    // disabled cache
+    context.soptions.set(StaticOptions.QUERYCACHE, 0);
+    assertNotSame(run("1", null, "1"), run("1", null, "1"));
+  }
+
+  /**
+   * Caches queries evaluated by the XQUERY command.
+   */
+  @Test public void command() {
+    final String query = "declare variable $x external; $x * 2";
+    assertEquals("2", execute(new XQuery(query).bind("x", 1)));
+    assertEquals("4", execute(new XQuery(query).bind("x", 2)));
+  }
+
+  /**
+   * Evaluates a reusable query and returns the query context.
+   * @param query query
+   * @param value value to be bound to {@code $x} (ignored if {@code null})
+   * @param expected expected result
+   * @return query context
+   * @throws Exception exception
+   */
+  private static QueryContext run(final String query, final Object value, final String expected)
+      throws Exception {
+    try(QueryProcessor qp = new QueryProcessor(query, context).reusable()) {
+      if(value != null) qp.variable("x", value);
+      assertEquals(expected, qp.value().serialize().toString());
+      return qp.qc;
+    }
+  }
+}
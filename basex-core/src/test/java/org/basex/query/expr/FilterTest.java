@@ -421,4 +421,17 @@ public final class FilterTest extends SandboxTest {
     check(pre + "!= 0          to last() + 1" + post, "", empty());
     check(pre + "!= last() + 1 to last() + 2" + post, "", empty(Pos.class));
   }
+
+  /** Parallel evaluation. */
+  @Test public void parallel() {
+    final String threads = "declare option db:querythreads '4'; ";
+    check(threads + "sum((1 to 100000)[. mod 3 = 0])", 1666683333, exists(ParallelFilter.class));
+    check("sum((1 to 100000)[. mod 3 = 0])", 1666683333, empty(ParallelFilter.class));
+    check(threads + "sum((1 to 100000)[. mod 3 = 0][position() < 10])", 135,
+        exists(ParallelFilter.class));
+
+    // no parallel evaluation: nondeterministic predicate
+    check(threads + "count((1 to 100000)[random:double() < 2])", 100000,
+        empty(ParallelFilter.class));
+  }
 }
@@ -512,4 +512,99 @@ public final class GFLWORTest extends SandboxTest {
         "1\n2", exists(Pipeline.class));
     check("let $a := <a/>[text()] while $a return $a", "", root(IterFilter.class));
   }
+
+  /** Order by clauses with limited results. */
+  @Test public void topK() {
+    final String flwor = "for $i in (1 to 100) order by $i mod 7, -$i return $i";
+    query("(" + flwor + ")[position() <= 3]", "98\n91\n84");
+    query(SUBSEQUENCE.args(" " + flwor, 3, 2), "84\n77");
+    query(_UTIL_RANGE.args(" " + flwor, 14, 15), "7\n99");
+    query(HEAD.args(" " + flwor), 98);
+    query("(" + flwor + ")[1]", 98);
+    query(SUBSEQUENCE.args(" " + flwor, 100), 6);
+    query(SUBSEQUENCE.args(" " + flwor, 101), "");
+
+    // count and where clauses
+    query("for $i in 1 to 100 order by $i mod 3 count $c where $c <= 3 return $i", "3\n6\n9");
+    query("for $i in 1 to 100 order by $i mod 3 count $c where $c < 3 return $i", "3\n6");
+    query("for $i in 1 to 100 order by $i mod 3 count $c while $c <= 2 return $i", "3\n6");
+    query("for $i in 1 to 100 order by $i mod 3 count $c where $c = 2 return $i", 6);
+    query("for $i in 1 to 100 order by $i mod 3 count $c where $c = 0 return $i", "");
+    query("for $i in 1 to 9 order by $i mod 3 descending count $c let $d := $c * 10 "
+        + "where $c <= 2 return $d + $i", "12\n25");
+
+    // stable order, empty keys
+    query("(for $i in (3, 1, 2, 1) order by 1 return $i)[position() <= 3]", "3\n1\n2");
+    query("(for $i in (2, 1, 3) order by $i[. > 1] empty greatest return $i)[position() <= 2]",
+        "2\n3");
+    query("(for $i in (2, 1, 3) order by $i[. > 1] empty least return $i)[position() <= 2]",
+        "1\n2");
+    query("(for $i in (2, 1, 3) order by $i descending return $i)[position() <= 2]", "3\n2");
+
+    // return expressions yielding zero or multiple items
+    query("(for $i in 1 to 5 order by -$i return ($i, $i))[position() <= 3]", "5\n5\n4");
+    query("(for $i in 1 to 5 order by -$i return $i[. < 4])[position() <= 2]", "3\n2");
+    query("(for $i in 1 to 5 order by -$i where $i < 3 return $i)[position() <= 2]", "2\n1");
+    query("(for $i in 1 to 3 order by -$i for $j in 1 to $i return $j)[position() <= 4]",
+        "1\n2\n3\n1");
+
+    error("(for $i in (1, 'a') order by $i return $i)[1]", CMPTYPES_X_X_X_X);
+  }
+
+  /** Hash joins. */
+  @Test public void join() {
+    final String input = "let $x := (1 to 5) ! <a id='{ . }'/> "
+        + "let $y := (5, 2, 3, 2, 7) ! <b ref='{ . }'/> ";
+    check(input + "for $a in $x for $b in $y where $a/@id = $b/@ref return $a/@id || $b/@ref",
+        "22\n22\n33\n55", exists(Join.class));
+    check(input + "for $a in $x for $b in $y where $b/@ref = $a/@id return $b/@ref || $a/@id",
+        "22\n22\n33\n55", exists(Join.class));
+    // multiple keys: preserve order, skip duplicates
+    check("for $a in ([1, 2], [3, 1]) for $b in (1 to 5) ! string() "
+        + "where $a?* ! string() = $b return $b", "1\n2\n1\n3", exists(Join.class));
+    // numeric keys
+    check("for $a in (1, 2.5, 3.0) for $b in (1 to 6) ! (. div 2) where $a = $b return $b",
+        "1\n2.5\n3", exists(Join.class));
+    // additional conditions
+    check(input + "for $a in $x for $b in $y where $a/@id = $b/@ref and $a/@id > 2 "
+        + "return $b/@ref || $a/@id", "33\n55", exists(Join.class));
+
+    // no rewrite: keys may not be comparable
+    error("for $a in (1, 2)[. > 0] for $b in ('1', '2')[. > ''] where $a = $b return $b",
+        CMPTYPES_X_X_X_X);
+    check("for $a in (1, 2) for $b in $a to 2 where $a = $b return $b", "1\n2", empty(Join.class));
+    check("for $a in (1, 2) for $b at $p in (2, 1) where $a = $b return $p", "2\n1",
+        empty(Join.class));
+    // no rewrite: xs:float and xs:double keys (values are promoted by the comparison)
+    check("for $a in (1, 2.5, 3e0) for $b in (1 to 6) ! (. div 2) where $a = $b return $b",
+        "1\n2.5\n3", empty(Join.class));
+    check("for $x in (xs:float(1.1), 1) for $y in (1.1, xs:double(xs:float(1.1))) "
+        + "where $y = $x return $x", "1.1\n1.1", empty(Join.class));
+    check("for $x in (9007199254740993, 2) "
+        + "for $y in (9007199254740992, xs:double(9007199254740993)) "
+        + "where $y = $x return $x", "9007199254740993", empty(Join.class));
+    // no rewrite: no outer loop
+    check("let $a := 1 for $b in (1, 2) where $a = $b return $b", 1, empty(Join.class));
+    // no rewrite: new nodes are constructed in each iteration
+    check("(for $i in 1 to 2 for $b in ((1 to 3) ! <x>{ . }</x>)[$i > 0] "
+        + "where $b = '1' return $b) | ()", "<x>1</x>\n<x>1</x>", empty(Join.class));
+
+    // merged clauses: join is split up again
+    check("for $x in (1 to 100)[. < 3] return (for $a in (1 to 3)[. > 0] "
+        + "for $b in ($x to $x + 5) where $a = $b return $x || $a || $b)",
+        "111\n122\n133\n222\n233", empty(Join.class));
+  }
+
+  /** Parallel evaluation of for clauses. */
+  @Test public void parallel() {
+    final String threads = "declare option db:querythreads '4'; ";
+    final String query = "sum(for $i at $p in 1 to 100000 let $j := $i * 2 "
+        + "where $j mod 3 = 0 return $j + $p)";
+    check(threads + query, 5000049999L, exists("GFLWOR[@threads = 4]"));
+    check(query, 5000049999L, empty("GFLWOR[@threads]"));
+
+    // no parallel evaluation: order by clause
+    check(threads + "sum(for $i in 1 to 100000 order by -$i return $i)", 5000050000L,
+        empty("GFLWOR[@threads]"));
+  }
 }
@@ -142,4 +142,35 @@ public final class SimpleMapTest extends SandboxTest {
     check("(1, 2) ! (. * 2)", "2\n4", root(IntSeq.class));
     check("(true(), false()) ! (. = true())", "true\nfalse", root(BlnSeq.class));
   }
+
+  /** Parallel evaluation. */
+  @Test public void parallel() {
+    final String threads = "declare option db:querythreads '4'; ";
+    check(threads + "sum((1 to 100000) ! (. * 2))", 10000100000L, root(SUM),
+        exists(ParallelMap.class));
+    check("sum((1 to 100000) ! (. * 2))", 10000100000L, empty(ParallelMap.class));
+    // raise first error
+    check(threads + "try { sum((1 to 100000) ! xs:integer(if(. = (30000, 90000)) "
+        + "then 'x' || . else .)) } catch * { $err:description }",
+        "Cannot convert to xs:integer: x30000.", exists(ParallelMap.class));
+
+    // database input, global variables
+    query(_DB_CREATE.args(NAME, " <x>{ (1 to 100000) ! <a>{ . }</a> }</x>", "x.xml"));
+    final String global = "variable $g := xs:integer(" + _DB_GET.args(NAME) + "//a[. = '2']); ";
+    check(threads + "sum(" + _DB_GET.args(NAME) + "//a ! (xs:integer(.) * 2))", 10000100000L,
+        exists(ParallelMap.class));
+    check(threads + "declare " + global + "sum((1 to 100000) ! (. * $g))", 10000100000L,
+        exists(ParallelMap.class));
+
+    // no parallel evaluation: small input, nondeterministic or positional expressions
+    check(threads + "sum((1 to 100) ! (. * 2))", 10100, empty(ParallelMap.class));
+    check(threads + "sum((1 to 100000) ! (. * random:integer(1)))", 0,
+        empty(ParallelMap.class));
+    check(threads + "sum((1 to 100000) ! position())", 5000050000L, empty(ParallelMap.class));
+    // no parallel evaluation: global variables that are evaluated at runtime
+    check(threads + "declare %basex:lazy " + global + "sum((1 to 100000) ! (. * $g))",
+        10000100000L, empty(ParallelMap.class));
+    check(threads + "declare %basex:lazy " + global + "declare function local:f($i) { $i * $g }; "
+        + "sum((1 to 100000) ! local:f(.))", 10000100000L, empty(ParallelMap.class));
+  }
 }
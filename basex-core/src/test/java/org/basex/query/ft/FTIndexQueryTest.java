@@ -73,6 +73,53 @@ public final class FTIndexQueryTest extends FTTest {
     assertQuery("Mix", "//mix[text() contains text 'A'][1]");
   }
 
+  /**
+   * Tests queries on postings that span multiple blocks.
+   */
+  @Test public void postings() {
+    final StringBuilder sb = new StringBuilder("<x>");
+    for(int i = 1; i <= 5000; i++) {
+      sb.append("<a>").append(i % 3 == 0 ? "common" : "other");
+      if(i % 997 == 0) sb.append(" rare");
+      if(i % 7 == 0) sb.append(" seven");
+      sb.append(" word</a>");
+    }
+    init(sb.append("</x>").toString());
+    assertQuery("Postings 1", "//a[text() contains text 'rare' ftand 'common']");
+    assertQuery("Postings 2", "//a[text() contains text 'common' ftand 'seven' ftand 'word']");
+    assertQuery("Postings 3", "//a[text() contains text 'common rare' all words]");
+    assertQuery("Postings 4", "//a[text() contains text 'common rare word' phrase]");
+    assertQuery("Postings 5", "//a[text() contains text { 'rare', 'seven' } any]");
+    assertQuery("Postings 6", "//a[text() contains text { 'rare', 'seven' } any ftand 'other']");
+    assertQuery("Postings 7", "//a[text() contains text 'rar.*' using wildcards ftand 'common']");
+  }
+
+  /**
+   * Tests fuzzy and wildcard queries.
+   */
+  @Test public void automata() {
+    final String[] words = { "word", "world", "words", "sword", "wort", "ward", "wordy", "old",
+      "commons", "common", "comet", "comment", "kommon", "uncommon", "communal", "école" };
+    final StringBuilder sb = new StringBuilder("<x>");
+    for(int i = 0; i < 500; i++) {
+      sb.append("<a>").append(words[i % words.length]).append(' ');
+      sb.append(words[i * 7 % words.length]).append(i).append("</a>");
+    }
+    init(sb.append("</x>").toString());
+    for(final String query : new String[] {
+      "'wor.'", "'w.*d'", "'.{1,3}rd'", "'wo.+'", "'co.?m.*'", "'.*mon'", "'word.{0,2}'",
+      "'common1.*'", "'.cole'", "'é.*'"
+    }) {
+      assertQuery("Wildcards", "//a[text() contains text " + query + " using wildcards]");
+    }
+    for(final String query : new String[] {
+      "'wrod'", "'world'", "'comon'", "'commons'", "'kommen'", "'ecole'", "'old'"
+    }) {
+      assertQuery("Fuzzy", "//a[text() contains text " + query + " using fuzzy]");
+      assertQuery("Fuzzy", "//a[text() contains text " + query + " using fuzzy 2 errors]");
+    }
+  }
+
   /**
    * Asserts that a query returns the same result with and without ft index.
    * @param name name of query
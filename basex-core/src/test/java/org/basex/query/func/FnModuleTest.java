@@ -2957,6 +2957,16 @@ public final class FnModuleTest extends SandboxTest {
 
     query(func.args(" true#0"), "fn:true#0");
     error(func.args(" (1 to 2) ! true#0"), FIATOMIZE_X);
+
+    // limited results
+    final String input = " (1 to 100) ! (. * 7 mod 100)", key = " fn { . mod 10 }";
+    query(func.args(input) + "[position() <= 3]", "0\n1\n2");
+    query(func.args(input, " ()", key) + "[position() <= 3]", "70\n40\n10");
+    query(SUBSEQUENCE.args(func.args(input, " ()", key), 11, 3), "21\n91\n61");
+    query(_UTIL_RANGE.args(func.args(input, " ()", key), 99, 101), "9\n79");
+    query(HEAD.args(func.args(input, " ()", key)), 70);
+    query(HEAD.args(func.args(" reverse(1 to 10) ! string()")), 1);
+    error(HEAD.args(func.args(" (1, 'a', 2)")), CMPTYPES_X_X_X_X);
   }
 
   /** Test method. */
@@ -2968,6 +2978,11 @@ public final class FnModuleTest extends SandboxTest {
     query(func.args(input, " { 'key': data#1 }"), "a\nb");
     query(func.args(input, " { 'key': data#1, 'order': 'descending' }"), "b\na");
     query(func.args(input, " { 'order': 'descending' }"), "b\na");
+
+    // limited results
+    query(HEAD.args(func.args(" 1 to 10", " { 'key': fn { . mod 4 } }")), 4);
+    query(func.args(" 1 to 10", " { 'key': fn { . mod 4 }, 'order': 'descending' }") +
+        "[position() <= 3]", "3\n7\n2");
   }
 
   /** Test method. */
@@ -0,0 +1,100 @@
+package org.basex.query.util;
+
+import static org.basex.query.QueryError.*;
+import static org.basex.query.func.Function.*;
+
+import org.basex.*;
+import org.basex.core.cmd.*;
+import org.basex.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for sorting with a memory budget ({@link ExternalSort}).
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class ExternalSortTest extends SandboxTest {
+  /** Default memory budget. */
+  private static long sortmemory;
+
+  /**
+   * Initializes a test.
+   */
+  @BeforeEach public void before() {
+    // sorted runs will be written to disk after a few entries
+    sortmemory = Prop.sortmemory;
+    Prop.sortmemory = 1 << 10;
+  }
+
+  /**
+   * Finalizes a test.
+   */
+  @AfterEach public void after() {
+    Prop.sortmemory = sortmemory;
+    execute(new DropDB(NAME));
+  }
+
+  /**
+   * Sorts atomic tuples with order by.
+   */
+  @Test public void orderBy() {
+    query("let $s := (for $i in 1 to 10000 order by $i mod 100, -$i return $i) "
+        + "return ($s[1], $s[2], $s[10000], count($s))", "10000\n9900\n99\n10000");
+    query(bounds("for $i in 1 to 5000 let $s := string($i) order by $s descending return $i"),
+        "999\n1");
+    // stable sorting
+    query("let $s := (for $i in 1 to 5000 stable order by $i mod 2 return $i) "
+        + "return ($s[1], $s[2], $s[2501])", "2\n4\n1");
+    // multiple values per tuple
+    query(bounds("for $i in 1 to 3000 let $s := ($i, 'x' || $i) order by -$i return $s[2]"),
+        "x3000\nx1");
+    // empty keys
+    query(bounds("for $i in 1 to 3000 order by $i[. > 1000] empty greatest return $i"),
+        "1001\n1000");
+  }
+
+  /**
+   * Sorts database nodes with order by.
+   */
+  @Test public void nodes() {
+    query(_DB_CREATE.args(NAME, " <x>{ (1 to 3000) ! <a>{ . }</a> }</x>", "x.xml"));
+    final String flwor = "for $a in " + _DB_GET.args(NAME) + "//a order by -$a return $a";
+    query(bounds(flwor), "<a>3000</a>\n<a>1</a>");
+    query("(" + flwor + ") ! " + _DB_NODE_PRE.args(" .") + " => sum()", 9003000);
+  }
+
+  /**
+   * Sorts tuples that cannot be written to disk.
+   */
+  @Test public void fragments() {
+    query(bounds("for $i in 1 to 3000 let $a := <a>{ $i }</a> order by -$i return $a"),
+        "<a>3000</a>\n<a>1</a>");
+    query(bounds("for $i in 1 to 3000 let $f := function() { $i } order by -$i return $f()"),
+        "3000\n1");
+  }
+
+  /**
+   * Sorts values with fn:sort and array:sort.
+   */
+  @Test public void sort() {
+    query(SORT.args(" (1 to 10000) ! (. mod 100)") + "[. = 99] => count()", 100);
+    query(bounds(SORT.args(" reverse(1 to 5000)")), "1\n5000");
+    query(bounds(SORT.args(" (1 to 5000) ! <a>{ . }</a>", " ()", " fn { -. }")),
+        "<a>5000</a>\n<a>1</a>");
+    query(bounds(SORT_BY.args(" 1 to 5000", " { 'key': string#1, 'order': 'descending' }")),
+        "999\n1");
+    query(bounds(_ARRAY_SORT.args(" array { reverse(1 to 5000) }") + "?*"), "1\n5000");
+    error(SORT.args(" (1 to 5000, 'x')"), CMPTYPES_X_X_X_X);
+  }
+
+  /**
+   * Returns a query that returns the first and last item of the specified expression.
+   * @param expr expression
+   * @return query
+   */
+  private static String bounds(final String expr) {
+    return "let $s := (" + expr + ") return ($s[1], $s[last()])";
+  }
+}